@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.MemoryGameStatsImplIO;
+import com.agateau.pixelwheels.tools.HeadlessCommandLineApplication;
+import com.agateau.pixelwheels.tools.SilentAudioManager;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.backends.headless.mock.audio.MockAudio;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.PerformanceCounters;
+
+/**
+ * Sets up libgdx so that benchmarks can load the real game data without any display.
+ *
+ * <p>Benchmarks must be run from the android/assets directory, the jmh Gradle task takes care of
+ * this.
+ */
+public class BenchmarkEnvironment {
+    private static class BenchmarkGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        BenchmarkGameInfo(Track track, Assets assets, int racerCount) {
+            super(GameType.QUICK_RACE);
+            mTrack = track;
+            for (int idx = 0; idx < racerCount; ++idx) {
+                String vehicleId = assets.vehicleDefs.get(idx % assets.vehicleDefs.size).id;
+                getEntrants().add(new Entrant(vehicleId));
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+
+    private static boolean sInitialized = false;
+    private static Assets sAssets;
+
+    public static synchronized void init() {
+        if (sInitialized) {
+            return;
+        }
+        GdxNativesLoader.load();
+        Gdx.files = new HeadlessFiles();
+        Gdx.audio = new MockAudio();
+        Gdx.gl = Gdx.gl20 = HeadlessCommandLineApplication.createNoOpGL20();
+        sInitialized = true;
+    }
+
+    /** Returns the game assets. They are only loaded by the first call */
+    public static synchronized Assets getAssets() {
+        init();
+        if (sAssets == null) {
+            sAssets = new Assets();
+        }
+        return sAssets;
+    }
+
+    /**
+     * Creates a deterministic world for an AI-only race on trackId, with GamePlay.racerCount racers
+     */
+    public static GameWorldImpl createWorld(
+            String trackId, long seed, PerformanceCounters performanceCounters) {
+        Assets assets = getAssets();
+        Track def = assets.findTrackById(trackId);
+        Track track = new Track(trackId, "", def != null && def.isRacingLineEnabled());
+        return new GameWorldImpl(
+                assets,
+                new SilentAudioManager(),
+                new GameStatsImpl(new MemoryGameStatsImplIO()),
+                null,
+                GamePlay.instance,
+                new BenchmarkGameInfo(track, assets, GamePlay.instance.racerCount),
+                performanceCounters,
+                seed);
+    }
+}
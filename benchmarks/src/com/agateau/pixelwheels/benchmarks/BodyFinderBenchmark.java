@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.bonus.ClosestRacerFinder;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.utils.ArcClosestBodyFinder;
+import com.agateau.pixelwheels.utils.ClosestBodyFinder;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Box2D queries made by AI pilots and weapons. Each call is made from the next racer of the
+ * race.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BodyFinderBenchmark {
+    // Same values as Missile
+    private static final float LOCK_DISTANCE = 40;
+    private static final float LOCK_ARC = 120;
+
+    private final ClosestBodyFinder mClosestBodyFinder = new ClosestBodyFinder();
+    private final ClosestRacerFinder mClosestRacerFinder =
+            new ClosestRacerFinder(LOCK_DISTANCE, LOCK_ARC);
+    private final ArcClosestBodyFinder mArcClosestBodyFinder =
+            new ArcClosestBodyFinder(LOCK_DISTANCE, LOCK_ARC);
+    private final Vector2 mOrigin = new Vector2();
+    private final Vector2 mTarget = new Vector2();
+    private int mRacerIndex = 0;
+
+    /** A ray cast from a racer to its next waypoint, like AIPilot does to check its targets */
+    @Benchmark
+    public Body closestBodyFinder(RaceState race) {
+        int offset = nextRacerOffset(race);
+        mOrigin.set(race.racerData[offset], race.racerData[offset + 1]);
+        mTarget.set(race.racerData[offset + 3], race.racerData[offset + 4]);
+        return mClosestBodyFinder.find(race.world.getBox2DWorld(), mOrigin, mTarget);
+    }
+
+    /**
+     * A lock-on query in front of a racer, like Missile does, through the sector query of
+     * ArcClosestBodyFinder
+     */
+    @Benchmark
+    public Racer arcClosestBodyFinder(RaceState race) {
+        int offset = nextRacerOffset(race);
+        mClosestRacerFinder.setIgnoredRacer(race.racers.get(mRacerIndex));
+        mOrigin.set(race.racerData[offset], race.racerData[offset + 1]);
+        return mClosestRacerFinder.find(
+                race.world.getBox2DWorld(), race.racers, mOrigin, race.racerData[offset + 2]);
+    }
+
+    /** The same query as arcClosestBodyFinder, using a fan of rays across the arc */
+    @Benchmark
+    public Body arcClosestBodyFinderRayFan(RaceState race) {
+        int offset = nextRacerOffset(race);
+        Racer shooter = race.racers.get(mRacerIndex);
+        mArcClosestBodyFinder.setBodyFilter(
+                body -> {
+                    if (BodyIdentifier.isStaticObstacle(body)) {
+                        return ArcClosestBodyFinder.FilterResult.STOP_FAILED;
+                    }
+                    Object userData = body.getUserData();
+                    return userData instanceof Racer && userData != shooter
+                            ? ArcClosestBodyFinder.FilterResult.STOP_SUCCESS
+                            : ArcClosestBodyFinder.FilterResult.IGNORE;
+                });
+        mOrigin.set(race.racerData[offset], race.racerData[offset + 1]);
+        return mArcClosestBodyFinder.find(
+                race.world.getBox2DWorld(), mOrigin, race.racerData[offset + 2]);
+    }
+
+    private int nextRacerOffset(RaceState race) {
+        mRacerIndex = (mRacerIndex + 1) % race.racers.size;
+        return mRacerIndex * RaceState.RACER_DATA_STRIDE;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.MapUtils;
+import com.agateau.pixelwheels.map.Material;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Track.getMaterialAt() calls made during one physics tick by a full grid of racers: the 4
+ * wheels, the vehicle body and the hole check of each racer. They are compared with walking the
+ * background layers, as Track did before materials were stored in a grid.
+ *
+ * <p>The lookup positions are recorded from TICK_COUNT ticks of an AI-only race with
+ * GamePlay.racerCount racers. Each call makes the lookups of the next recorded tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MaterialLookupBenchmark {
+    /** Must be a power of 2 */
+    private static final int TICK_COUNT = 1024;
+
+    /** Simulated time before recording, so that racers are spread along the track */
+    private static final float START_TIME = 10;
+
+    private static final long SEED = 1;
+
+    /** The shipped tracks, see Assets.tracks */
+    @Param({"country", "race", "snow2", "be", "tiny-sur-mer"})
+    public String trackId;
+
+    private GameWorldImpl mWorld;
+    private Track mTrack;
+    private final Array<TiledMapTileLayer> mLayers = new Array<>();
+    private Material[] mMaterialForTileId;
+
+    /** (x, y) pairs, lookupsPerTick pairs for each tick */
+    private float[] mPositions;
+
+    private int mLookupsPerTick;
+    private int mTick = 0;
+
+    @Setup
+    public void setup() {
+        mWorld = BenchmarkEnvironment.createWorld(trackId, SEED, new PerformanceCounters());
+        mTrack = mWorld.getTrack();
+        for (MapLayer layer : mTrack.getMap().getLayers()) {
+            if (layer.getName().startsWith("bg")) {
+                mLayers.add((TiledMapTileLayer) layer);
+            }
+        }
+        mMaterialForTileId = computeMaterialForTileId();
+
+        for (float time = 0; time < START_TIME; time += GameWorld.BOX2D_TIME_STEP) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+        }
+        FloatArray positions = new FloatArray();
+        for (int tick = 0; tick < TICK_COUNT; ++tick) {
+            mWorld.act(GameWorld.BOX2D_TIME_STEP);
+            recordLookupPositions(positions);
+        }
+        mPositions = positions.toArray();
+        mLookupsPerTick = mPositions.length / 2 / TICK_COUNT;
+
+        for (int idx = 0; idx < mPositions.length; idx += 2) {
+            float x = mPositions[idx];
+            float y = mPositions[idx + 1];
+            if (getMaterialFromLayers(x, y) != mTrack.getMaterialAt(x, y)) {
+                throw new IllegalStateException("Material mismatch at " + x + "x" + y);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mWorld.dispose();
+    }
+
+    @Benchmark
+    public int grid() {
+        int offset = nextTickOffset();
+        int end = offset + mLookupsPerTick * 2;
+        // Accumulate ordinals so that the JIT cannot drop the lookups
+        int sum = 0;
+        for (int idx = offset; idx < end; idx += 2) {
+            sum += mTrack.getMaterialAt(mPositions[idx], mPositions[idx + 1]).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int layerWalk() {
+        int offset = nextTickOffset();
+        int end = offset + mLookupsPerTick * 2;
+        int sum = 0;
+        for (int idx = offset; idx < end; idx += 2) {
+            sum += getMaterialFromLayers(mPositions[idx], mPositions[idx + 1]).ordinal();
+        }
+        return sum;
+    }
+
+    /** Same positions as Wheel.act(), Vehicle.act() and HoleHandlerComponent */
+    private void recordLookupPositions(FloatArray positions) {
+        for (Racer racer : mWorld.getRacers()) {
+            Vehicle vehicle = racer.getVehicle();
+            for (Vehicle.WheelInfo info : vehicle.getWheelInfos()) {
+                Vector2 center = info.wheel.getBody().getWorldCenter();
+                positions.add(center.x, center.y);
+            }
+            Vector2 center = vehicle.getBody().getWorldCenter();
+            positions.add(center.x, center.y);
+            positions.add(vehicle.getX(), vehicle.getY());
+        }
+    }
+
+    private int nextTickOffset() {
+        mTick = (mTick + 1) & (TICK_COUNT - 1);
+        return mTick * mLookupsPerTick * 2;
+    }
+
+    private Material[] computeMaterialForTileId() {
+        TiledMapTileSet tileSet = mTrack.getMap().getTileSets().getTileSet(0);
+        int maxId = 0;
+        for (TiledMapTile tile : tileSet) {
+            maxId = Math.max(maxId, tile.getId());
+        }
+        Material[] materialForTileId = new Material[maxId + 1];
+        for (int id = 0; id < materialForTileId.length; ++id) {
+            materialForTileId[id] = MapUtils.getTileMaterial(tileSet.getTile(id));
+        }
+        return materialForTileId;
+    }
+
+    /** The implementation used by Track.getMaterialAt() before materials were stored in a grid */
+    private Material getMaterialFromLayers(float x, float y) {
+        int tx = MathUtils.floor(x / mTrack.getTileWidth());
+        int ty = MathUtils.floor(y / mTrack.getTileHeight());
+        for (int idx = mLayers.size - 1; idx >= 0; idx--) {
+            TiledMapTileLayer.Cell cell = mLayers.get(idx).getCell(tx, ty);
+            if (cell != null) {
+                return mMaterialForTileId[cell.getTile().getId()];
+            }
+        }
+        return Material.ROAD;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.Vector2;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The AgcMathUtils methods called by racers and AI pilots on every tick */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MathBenchmark {
+    /** Must be a power of 2 */
+    private static final int VALUE_POOL_SIZE = 1024;
+
+    private final float[] mAngles = new float[VALUE_POOL_SIZE];
+    private final Vector2[] mPoints = new Vector2[VALUE_POOL_SIZE];
+    private final float[] mLerpArray = {0, 0.2f, 0.5f, 0.7f, 0.9f, 1f};
+    private final Vector2 mOut = new Vector2();
+    private int mIndex = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        for (int idx = 0; idx < VALUE_POOL_SIZE; ++idx) {
+            mAngles[idx] = (random.nextFloat() - 0.5f) * 1440;
+            mPoints[idx] = new Vector2(random.nextFloat() * 200, random.nextFloat() * 200);
+        }
+    }
+
+    @Benchmark
+    public float normalizeAngle180() {
+        return AgcMathUtils.normalizeAngle180(mAngles[nextIndex()]);
+    }
+
+    @Benchmark
+    public float angleDelta() {
+        int idx = nextIndex();
+        return AgcMathUtils.angleDelta(mAngles[idx], mAngles[nextIndex(idx)]);
+    }
+
+    @Benchmark
+    public float arrayLerp() {
+        // Turn angles into a [0, 1] ratio
+        return AgcMathUtils.arrayLerp(mLerpArray, Math.abs(mAngles[nextIndex()]) / 720f);
+    }
+
+    @Benchmark
+    public float segmentAngle() {
+        int idx = nextIndex();
+        return AgcMathUtils.segmentAngle(mPoints[idx], mPoints[nextIndex(idx)]);
+    }
+
+    @Benchmark
+    public Vector2 project() {
+        int idx = nextIndex();
+        int idx2 = nextIndex(idx);
+        return AgcMathUtils.project(mPoints[idx], mPoints[idx2], mPoints[nextIndex(idx2)], mOut);
+    }
+
+    private int nextIndex() {
+        mIndex = nextIndex(mIndex);
+        return mIndex;
+    }
+
+    private static int nextIndex(int index) {
+        return (index + 1) & (VALUE_POOL_SIZE - 1);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.google.gson.GsonBuilder;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+
+/**
+ * Runs an AI-only race on each track for a fixed simulated time, and reports where the time went,
+ * using the PerformanceCounters of GameWorldImpl, as well as how much memory was allocated.
+ *
+ * <p>Races are deterministic, so two runs simulate exactly the same thing. Each race is run twice:
+ * the first run warms the JIT up and is not reported.
+ *
+ * <p>Must be run from the android/assets directory.
+ */
+public class RaceBenchmark {
+    private static final float DEFAULT_RACE_TIME = 60;
+    private static final long SEED = 1;
+
+    static class Result {
+        String trackId;
+        int racerCount;
+        float simulatedTime;
+        float wallTime;
+        /** Physics steps run per wall second */
+        float stepsPerSecond;
+        /** Time spent in PerformanceCounters of GameWorldImpl, in seconds */
+        float box2dTime;
+
+        float gameObjectTime;
+        float rankingTime;
+        /** -1 if the JVM cannot measure allocations */
+        long bytesAllocatedPerSimulatedSecond;
+
+        long gcCount;
+        long gcTime;
+    }
+
+    private float mRaceTime = DEFAULT_RACE_TIME;
+    private String mOutput = null;
+    private final Array<Track> mTracks = new Array<>();
+
+    public static void main(String[] args) {
+        RaceBenchmark benchmark = new RaceBenchmark();
+        if (!benchmark.parseArguments(args)) {
+            System.exit(1);
+        }
+        benchmark.run();
+        System.exit(0);
+    }
+
+    private boolean parseArguments(String[] arguments) {
+        Assets assets = BenchmarkEnvironment.getAssets();
+        for (int idx = 0; idx < arguments.length; ++idx) {
+            String argument = arguments[idx];
+            if (argument.startsWith("--") && idx == arguments.length - 1) {
+                NLog.e("Missing value for %s", argument);
+                return false;
+            }
+            switch (argument) {
+                case "--time":
+                    mRaceTime = Float.parseFloat(arguments[++idx]);
+                    break;
+                case "--output":
+                    mOutput = arguments[++idx];
+                    break;
+                default:
+                    Track track = assets.findTrackById(argument);
+                    if (track == null) {
+                        NLog.e("Unknown track '%s'", argument);
+                        return false;
+                    }
+                    mTracks.add(track);
+            }
+        }
+        if (mTracks.isEmpty()) {
+            mTracks.addAll(assets.tracks);
+        }
+        return true;
+    }
+
+    private void run() {
+        ArrayList<Result> results = new ArrayList<>();
+        for (Track track : mTracks) {
+            runRace(track.getId());
+            Result result = runRace(track.getId());
+            NLog.i(
+                    "%s: %d racers, %.0f steps/s. box2d: %.1f ms, g.o: %.1f ms, ranking: %.1f ms."
+                            + " Allocated: %d KB per simulated second. GC: %d collections, %d ms",
+                    result.trackId,
+                    result.racerCount,
+                    result.stepsPerSecond,
+                    result.box2dTime * 1000,
+                    result.gameObjectTime * 1000,
+                    result.rankingTime * 1000,
+                    result.bytesAllocatedPerSimulatedSecond / 1024,
+                    result.gcCount,
+                    result.gcTime);
+            results.add(result);
+        }
+        if (mOutput != null) {
+            Gdx.files
+                    .absolute(mOutput)
+                    .writeString(
+                            new GsonBuilder().setPrettyPrinting().create().toJson(results), false);
+        }
+    }
+
+    private Result runRace(String trackId) {
+        PerformanceCounters counters = new PerformanceCounters();
+        GameWorldImpl world = BenchmarkEnvironment.createWorld(trackId, SEED, counters);
+        Result result = new Result();
+        result.trackId = trackId;
+        result.racerCount = world.getRacers().size;
+
+        long startBytes = getAllocatedBytes();
+        long startGcCount = getGcCount();
+        long startGcTime = getGcTime();
+        long startTime = System.nanoTime();
+        int startStepCount = world.getStepCount();
+        // Run for the requested time, even if all racers have finished. Count the Box2D steps
+        // which actually ran: act() accumulates the time it is given and runs as many steps as fit
+        // in it.
+        int stepCount = 0;
+        while (stepCount * GameWorld.BOX2D_TIME_STEP < mRaceTime) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            counters.tick(GameWorld.BOX2D_TIME_STEP);
+            stepCount = world.getStepCount() - startStepCount;
+        }
+        result.wallTime = (System.nanoTime() - startTime) / 1e9f;
+        result.simulatedTime = stepCount * GameWorld.BOX2D_TIME_STEP;
+        result.stepsPerSecond = stepCount / result.wallTime;
+        result.gcCount = getGcCount() - startGcCount;
+        result.gcTime = getGcTime() - startGcTime;
+        long bytes = getAllocatedBytes();
+        result.bytesAllocatedPerSimulatedSecond =
+                bytes < 0 ? -1 : (long) ((bytes - startBytes) / result.simulatedTime);
+
+        result.box2dTime = getTotalTime(counters, "- box2d");
+        result.gameObjectTime = getTotalTime(counters, "- g.o");
+        result.rankingTime = getTotalTime(counters, "- ranking");
+        world.dispose();
+        return result;
+    }
+
+    private static float getTotalTime(PerformanceCounters counters, String name) {
+        for (PerformanceCounter counter : counters.counters) {
+            if (counter.name.equals(name)) {
+                return counter.time.total;
+            }
+        }
+        throw new RuntimeException("No performance counter named " + name);
+    }
+
+    /** Returns the bytes allocated by the current thread, or -1 if the JVM cannot tell */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported()) {
+            return -1;
+        }
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(bean.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long getGcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(bean.getCollectionTime(), 0);
+        }
+        return time;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A world in the middle of an AI-only race, for benchmarks which need real racers and obstacles.
+ *
+ * <p>The race runs for a while during setup, so that racers are spread along the track. It is then
+ * frozen: benchmarks query the world but do not make it act.
+ */
+@State(Scope.Benchmark)
+public class RaceState {
+    private static final float RACE_TIME = 30;
+    private static final long SEED = 1;
+
+    public static final int RACER_DATA_STRIDE = 5;
+
+    /** The shipped tracks, see Assets.tracks */
+    @Param({"country", "race", "snow2", "be", "tiny-sur-mer"})
+    public String trackId;
+
+    public GameWorldImpl world;
+
+    /** The racers, sorted by rank */
+    public Array<Racer> racers;
+
+    /** For each racer: position, angle, then the position of its next waypoint */
+    public float[] racerData;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkEnvironment.createWorld(trackId, SEED, new PerformanceCounters());
+        for (float time = 0; time < RACE_TIME; time += GameWorld.BOX2D_TIME_STEP) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+        }
+
+        racers = world.getRacers();
+        racerData = new float[racers.size * RACER_DATA_STRIDE];
+        WaypointStore waypointStore = world.getTrack().getWaypointStore();
+        Vector2 waypoint = new Vector2();
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            Vehicle vehicle = racer.getVehicle();
+            float lapDistance = racer.getLapPositionComponent().getLapDistance();
+            int waypointIndex =
+                    waypointStore.getNextIndex(waypointStore.getWaypointIndex(lapDistance));
+            waypointStore.getWaypoint(waypointIndex, waypoint);
+
+            int offset = idx * RACER_DATA_STRIDE;
+            racerData[offset] = vehicle.getX();
+            racerData[offset + 1] = vehicle.getY();
+            racerData[offset + 2] = vehicle.getAngle();
+            racerData[offset + 3] = waypoint.x;
+            racerData[offset + 4] = waypoint.y;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.dispose();
+    }
+}
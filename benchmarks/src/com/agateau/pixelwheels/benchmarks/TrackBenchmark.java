@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.benchmarks;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.LapPositionTable;
+import com.agateau.pixelwheels.map.Material;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.pixelwheels.utils.OrientedPoint;
+import com.badlogic.gdx.math.Vector2;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The track lookups each racer makes on every physics tick.
+ *
+ * <p>Each call uses the next position of a pool of random positions on the track, to avoid
+ * measuring the random number generator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TrackBenchmark {
+    /** Must be a power of 2 */
+    private static final int POSITION_POOL_SIZE = 4096;
+
+    /** The shipped tracks, see Assets.tracks */
+    @Param({"country", "race", "snow2", "be", "tiny-sur-mer"})
+    public String trackId;
+
+    private Track mTrack;
+    private LapPositionTable mLapPositionTable;
+    private WaypointStore mWaypointStore;
+    private final float[] mPositions = new float[POSITION_POOL_SIZE * 2];
+    private final float[] mLapDistances = new float[POSITION_POOL_SIZE];
+    private final Vector2 mPosition = new Vector2();
+    private int mIndex = 0;
+
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment.init();
+        mTrack = new Track(trackId, "");
+        mTrack.init();
+        mLapPositionTable = mTrack.getLapPositionTable();
+        mWaypointStore = mTrack.getWaypointStore();
+
+        // Only keep positions on the road, where racers are most of the time
+        Random random = new Random(1);
+        for (int idx = 0; idx < POSITION_POOL_SIZE; ) {
+            float x = random.nextFloat() * mTrack.getMapWidth();
+            float y = random.nextFloat() * mTrack.getMapHeight();
+            LapPosition pos = getLapPosition(x, y);
+            if (pos == null) {
+                continue;
+            }
+            mPositions[idx * 2] = x;
+            mPositions[idx * 2 + 1] = y;
+            mLapDistances[idx] = pos.getLapDistance();
+            ++idx;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mTrack.dispose();
+    }
+
+    @Benchmark
+    public LapPosition lapPositionTableGet() {
+        int idx = nextIndex();
+        return getLapPosition(mPositions[idx * 2], mPositions[idx * 2 + 1]);
+    }
+
+    @Benchmark
+    public Material getMaterialAt() {
+        int idx = nextIndex();
+        return mTrack.getMaterialAt(mPositions[idx * 2], mPositions[idx * 2 + 1]);
+    }
+
+    @Benchmark
+    public int getWaypointIndex() {
+        return mWaypointStore.getWaypointIndex(mLapDistances[nextIndex()]);
+    }
+
+    @Benchmark
+    public OrientedPoint getValidPosition() {
+        int idx = nextIndex();
+        mPosition.set(mPositions[idx * 2], mPositions[idx * 2 + 1]);
+        return mWaypointStore.getValidPosition(mPosition, mLapDistances[idx]);
+    }
+
+    /** Same conversion as LapPositionComponent.updatePosition() */
+    private LapPosition getLapPosition(float x, float y) {
+        final float PFU = 1 / Constants.UNIT_FOR_PIXEL;
+        return mLapPositionTable.get((int) (PFU * x), (int) (PFU * y));
+    }
+
+    private int nextIndex() {
+        mIndex = (mIndex + 1) & (POSITION_POOL_SIZE - 1);
+        return mIndex;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.benchmarks.RaceState;
+import com.agateau.pixelwheels.racer.Racer;
+import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The racer sort GameWorldImpl.act() runs on every tick, through RacerRanking.
+ *
+ * <p>Lives in the racescreen package because RacerRanking is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RacerRankingBenchmark {
+    private final Array<Racer> mRacers = new Array<>();
+    private final RacerRanking mRanking = new RacerRanking(mRacers);
+
+    @Setup
+    public void setup(RaceState race) {
+        mRacers.addAll(race.racers);
+    }
+
+    /** The usual case: nobody overtook anybody since the last tick */
+    @Benchmark
+    public Array<Racer> updateSorted() {
+        mRanking.update();
+        return mRacers;
+    }
+
+    /** One racer overtook another one since the last tick */
+    @Benchmark
+    public Array<Racer> updateAfterOvertake() {
+        mRacers.swap(0, 1);
+        mRanking.update();
+        return mRacers;
+    }
+
+    /** The worst case: the order of the racers is completely reversed */
+    @Benchmark
+    public Array<Racer> updateReversed() {
+        mRacers.reverse();
+        mRanking.update();
+        return mRacers;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Polygon;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LapPositionTableTest {
+    @Test
+    public void testOutsideSections() {
+        // GIVEN a table with a single square section
+        LapPositionTable table = new LapPositionTable();
+        table.addSection(0, new Polygon(new float[] {10, 10, 110, 10, 110, 110, 10, 110}));
+
+        // THEN points inside the section are found
+        assertNotNull(table.get(50, 50));
+
+        // AND points outside the section are not
+        assertNull(table.get(0, 0));
+        assertNull(table.get(-50, 50));
+        assertNull(table.get(50, 500));
+    }
+
+    @Test
+    public void testIndexMatchesLinearScan() {
+        FileHandle[] mapFiles = TestMapLoader.listMapFiles();
+        assertNotEquals(0, mapFiles.length);
+        for (FileHandle mapFile : mapFiles) {
+            TiledMap map = TestMapLoader.loadMap(mapFile);
+            LapPositionTable table = LapPositionTableIO.load(map);
+
+            TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
+            int width = layer.getWidth() * ((int) layer.getTileWidth());
+            int height = layer.getHeight() * ((int) layer.getTileHeight());
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    LapPosition expected = table.getLinear(x, y);
+                    int expectedSectionId = expected == null ? -1 : expected.getSectionId();
+                    float expectedDistance = expected == null ? 0 : expected.getSectionDistance();
+
+                    LapPosition actual = table.get(x, y);
+                    String where = mapFile.name() + " at " + x + "x" + y;
+                    assertEquals(
+                            where, expectedSectionId, actual == null ? -1 : actual.getSectionId());
+                    assertEquals(
+                            where,
+                            expectedDistance,
+                            actual == null ? 0 : actual.getSectionDistance(),
+                            0);
+                }
+            }
+        }
+    }
+}
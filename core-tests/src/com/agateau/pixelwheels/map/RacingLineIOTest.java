@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacingLineIOTest {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLoad() throws IOException {
+        // GIVEN a map without a racing line file
+        FileHandle sourceFile = TestMapLoader.listMapFiles()[0];
+        FileHandle tmxFile = new FileHandle(mTemporaryFolder.getRoot()).child(sourceFile.name());
+        sourceFile.copyTo(tmxFile);
+        long stamp = TrackBundleIO.computeSourceStamp(tmxFile);
+
+        // THEN no racing line is loaded
+        assertNull(RacingLineIO.load(tmxFile, stamp));
+
+        // GIVEN a racing line file next to the map
+        RacingLine line =
+                new RacingLine(
+                        2,
+                        new float[] {1, 2, 3},
+                        new float[] {4, 5, 6},
+                        new float[] {7, 8, 9},
+                        new float[] {0, 1.5f, 3},
+                        4.5f);
+        try (OutputStream stream = RacingLineIO.getRacingLineFile(tmxFile).write(false)) {
+            RacingLineIO.write(line, stamp, stream);
+        }
+
+        // WHEN it is loaded with the stamp of the map
+        RacingLine loaded = RacingLineIO.load(tmxFile, stamp);
+
+        // THEN it is identical to the written one
+        assertNotNull(loaded);
+        assertThat(loaded.getSamplesPerSection(), is(2));
+        assertThat(loaded.getLength(), is(4.5f));
+        assertArrayEquals(line.xs, loaded.xs, 0);
+        assertArrayEquals(line.ys, loaded.ys, 0);
+        assertArrayEquals(line.speeds, loaded.speeds, 0);
+        assertArrayEquals(line.distances, loaded.distances, 0);
+
+        // WHEN it is loaded with another stamp
+        loaded = RacingLineIO.load(tmxFile, stamp + 1);
+
+        // THEN it is ignored
+        assertNull(loaded);
+    }
+
+    @Test
+    public void testShippedRacingLinesAreUpToDate() {
+        for (FileHandle tmxFile : TestMapLoader.listMapFiles()) {
+            // GIVEN the shipped racing line of a map
+            if (!RacingLineIO.getRacingLineFile(tmxFile).exists()) {
+                continue;
+            }
+
+            // WHEN it is loaded with the stamp of the map
+            RacingLine line = RacingLineIO.load(tmxFile, TrackBundleIO.computeSourceStamp(tmxFile));
+
+            // THEN it is accepted
+            assertNotNull(
+                    tmxFile.name() + " racing line is out of date, run `make racinglines`", line);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.agateau.pixelwheels.Constants;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacingLineOptimizerTest {
+    private static final int SECTION_COUNT = 32;
+    // Radiuses of the ring track, in tile pixels
+    private static final float INNER_RADIUS = 400;
+    private static final float OUTER_RADIUS = 600;
+
+    @Test
+    public void testLineStaysWithinLimits() {
+        // GIVEN an optimizer for a ring track, which must stay in the middle half of the track
+        RacingLineOptimizer optimizer = new RacingLineOptimizer(createRingTable());
+        for (int sample = 0; sample < optimizer.getSampleCount(); ++sample) {
+            optimizer.setLimits(sample, 0.25f, 0.75f);
+        }
+
+        // WHEN the line is computed
+        RacingLine line = optimizer.run();
+
+        // THEN all its samples are in the middle half of the track
+        assertThat(line.getSampleCount(), is(optimizer.getSampleCount()));
+        final float U = Constants.UNIT_FOR_PIXEL;
+        float minRadius = (INNER_RADIUS * 0.75f + OUTER_RADIUS * 0.25f) * U;
+        float maxRadius = (INNER_RADIUS * 0.25f + OUTER_RADIUS * 0.75f) * U;
+        // Sections are not exactly arcs of the ring
+        float tolerance = 0.2f;
+        for (int idx = 0; idx < line.getSampleCount(); ++idx) {
+            float radius = Vector2.len(line.getX(idx), line.getY(idx));
+            String where = "sample " + idx + ", radius " + radius;
+            assertTrue(where, radius > minRadius - tolerance);
+            assertTrue(where, radius < maxRadius + tolerance);
+        }
+
+        // AND the lap length matches the radiuses
+        assertTrue(line.getLength() > MathUtils.PI2 * (minRadius - tolerance));
+        assertTrue(line.getLength() < MathUtils.PI2 * (maxRadius + tolerance));
+    }
+
+    @Test
+    public void testSpeedIsConstantOnARing() {
+        // GIVEN an optimizer for a ring track, with a low lateral acceleration
+        RacingLineOptimizer optimizer = new RacingLineOptimizer(createRingTable());
+        optimizer.setLateralAcceleration(10);
+
+        // WHEN the line is computed
+        RacingLine line = optimizer.run();
+
+        // THEN the speed is about the same everywhere, and below the maximum speed
+        float minSpeed = Float.MAX_VALUE;
+        float maxSpeed = 0;
+        for (int idx = 0; idx < line.getSampleCount(); ++idx) {
+            minSpeed = Math.min(minSpeed, line.getSpeed(idx));
+            maxSpeed = Math.max(maxSpeed, line.getSpeed(idx));
+        }
+        assertTrue("maxSpeed=" + maxSpeed, maxSpeed < 75);
+        assertTrue("minSpeed=" + minSpeed + " maxSpeed=" + maxSpeed, maxSpeed / minSpeed < 1.05f);
+    }
+
+    /** Creates a table for a ring track centered on (0, 0), going counter-clockwise */
+    private static LapPositionTable createRingTable() {
+        LapPositionTable table = new LapPositionTable();
+        for (int idx = 0; idx < SECTION_COUNT; ++idx) {
+            float angle1 = MathUtils.PI2 * idx / SECTION_COUNT;
+            float angle2 = MathUtils.PI2 * (idx + 1) / SECTION_COUNT;
+            float[] vertices = {
+                INNER_RADIUS * MathUtils.cos(angle1), INNER_RADIUS * MathUtils.sin(angle1),
+                INNER_RADIUS * MathUtils.cos(angle2), INNER_RADIUS * MathUtils.sin(angle2),
+                OUTER_RADIUS * MathUtils.cos(angle2), OUTER_RADIUS * MathUtils.sin(angle2),
+                OUTER_RADIUS * MathUtils.cos(angle1), OUTER_RADIUS * MathUtils.sin(angle1),
+            };
+            table.addSection(idx, new Polygon(vertices));
+        }
+        return table;
+    }
+}
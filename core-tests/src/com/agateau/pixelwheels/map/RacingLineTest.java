@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacingLineTest {
+    @Test
+    public void testGetSampleIndex() {
+        // GIVEN a line with 2 samples per section
+        RacingLine line = createStraightLine();
+
+        // THEN lap distances are mapped to the matching sample
+        assertThat(line.getSampleIndex(0), is(0));
+        assertThat(line.getSampleIndex(0.6f), is(1));
+        assertThat(line.getSampleIndex(1.2f), is(2));
+        assertThat(line.getSampleIndex(1.9f), is(3));
+
+        // AND lap distances outside the line are clamped
+        assertThat(line.getSampleIndex(-1), is(0));
+        assertThat(line.getSampleIndex(5), is(3));
+    }
+
+    @Test
+    public void testGetSampleAhead() {
+        // GIVEN a line with samples 1 unit apart, and 2 units from the last sample to the first
+        RacingLine line = createStraightLine();
+
+        // THEN the sample ahead is the first one at least the requested distance away
+        assertThat(line.getSampleAhead(0, 0.5f), is(1));
+        assertThat(line.getSampleAhead(0, 2), is(2));
+        assertThat(line.getSampleAhead(1, 1.5f), is(3));
+
+        // AND the line wraps around
+        assertThat(line.getSampleAhead(3, 1), is(0));
+        assertThat(line.getSampleAhead(2, 3.5f), is(1));
+    }
+
+    private static RacingLine createStraightLine() {
+        return new RacingLine(
+                2,
+                new float[] {0, 1, 2, 3},
+                new float[] {0, 0, 0, 0},
+                new float[] {10, 10, 10, 10},
+                new float[] {0, 1, 2, 3},
+                5);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.XmlReader;
+
+/**
+ * Loads the shipped .tmx files without needing an OpenGL context: tileset images are replaced with
+ * mock textures of the size declared in the .tmx file.
+ */
+public class TestMapLoader extends TmxMapLoader {
+    public static final String MAPS_DIR = "../android/assets/maps";
+
+    public TestMapLoader() {
+        super(FileHandle::new);
+    }
+
+    public static FileHandle[] listMapFiles() {
+        return new FileHandle(MAPS_DIR).list(".tmx");
+    }
+
+    public static TiledMap loadMap(FileHandle tmxFile) {
+        return new TestMapLoader().loadWithoutTextures(tmxFile);
+    }
+
+    private TiledMap loadWithoutTextures(FileHandle tmxFile) {
+        root = xml.parse(tmxFile);
+        final ObjectMap<String, TextureRegion> regions = new ObjectMap<>();
+        for (XmlReader.Element image : root.getChildrenByNameRecursively("image")) {
+            String path = getRelativeFileHandle(tmxFile, image.getAttribute("source")).path();
+            Texture texture = mock(Texture.class);
+            when(texture.getWidth()).thenReturn(image.getIntAttribute("width"));
+            when(texture.getHeight()).thenReturn(image.getIntAttribute("height"));
+            regions.put(path, new TextureRegion(texture));
+        }
+        return loadTiledMap(tmxFile, new Parameters(), regions::get);
+    }
+}
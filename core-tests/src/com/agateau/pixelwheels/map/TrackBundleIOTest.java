@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TrackBundleIOTest {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReadWrite() throws IOException {
+        for (FileHandle tmxFile : TestMapLoader.listMapFiles()) {
+            // GIVEN a bundle created from a map
+            TiledMap map = TestMapLoader.loadMap(tmxFile);
+            TrackBundle bundle = TrackBundle.create(map, 12);
+
+            // WHEN it is written and read back
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            TrackBundleIO.write(bundle, stream);
+            TrackBundle bundle2 = TrackBundleIO.read(ByteBuffer.wrap(stream.toByteArray()));
+
+            // THEN the two bundles are identical
+            assertThat(bundle2.sourceStamp, is(12L));
+            assertThat(bundle2.columnCount, is(bundle.columnCount));
+            assertThat(bundle2.rowCount, is(bundle.rowCount));
+            assertArrayEquals(bundle.materials, bundle2.materials);
+            assertArrayEquals(bundle.waypoints, bundle2.waypoints, 0);
+            assertArrayEquals(bundle.bonusSpots, bundle2.bonusSpots, 0);
+            assertArrayEquals(bundle.startPositions, bundle2.startPositions, 0);
+            assertThat(bundle2.backgroundColor, is(bundle.backgroundColor));
+
+            // AND their lap position tables are identical
+            LapPositionTable table = bundle.lapPositionTable;
+            LapPositionTable table2 = bundle2.lapPositionTable;
+            assertThat(table2.getSectionCount(), is(table.getSectionCount()));
+            for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+                assertThat(table2.getSectionId(idx), is(table.getSectionId(idx)));
+                assertArrayEquals(table.getSectionVertices(idx), table2.getSectionVertices(idx), 0);
+            }
+            assertArrayEquals(table.mCellStarts, table2.mCellStarts);
+            assertArrayEquals(table.mCellSections, table2.mCellSections);
+        }
+    }
+
+    @Test
+    public void testReadFromFile() throws IOException {
+        // GIVEN a bundle file
+        FileHandle sourceFile = TestMapLoader.listMapFiles()[0];
+        FileHandle tmxFile = new FileHandle(mTemporaryFolder.getRoot()).child(sourceFile.name());
+        TrackBundle bundle = TrackBundle.create(TestMapLoader.loadMap(sourceFile), 12);
+        writeBundle(bundle, tmxFile);
+
+        // WHEN it is read back, through FileHandle.map()
+        TrackBundle bundle2 = TrackBundleIO.read(TrackBundleIO.getBundleFile(tmxFile));
+
+        // THEN it is recognized as a bundle, whatever the native byte order is
+        assertNotNull(bundle2);
+        assertThat(bundle2.sourceStamp, is(12L));
+        assertArrayEquals(bundle.materials, bundle2.materials);
+        assertArrayEquals(bundle.waypoints, bundle2.waypoints, 0);
+        assertThat(bundle2.backgroundColor, is(bundle.backgroundColor));
+    }
+
+    @Test
+    public void testOutdatedBundleIsIgnored() throws IOException {
+        // GIVEN a map
+        FileHandle sourceFile = TestMapLoader.listMapFiles()[0];
+        FileHandle tmxFile = new FileHandle(mTemporaryFolder.getRoot()).child(sourceFile.name());
+        sourceFile.copyTo(tmxFile);
+        TiledMap map = TestMapLoader.loadMap(tmxFile);
+        long stamp = TrackBundleIO.computeSourceStamp(tmxFile);
+
+        // AND an up-to-date bundle file
+        TrackBundle bundle = TrackBundle.create(map, stamp);
+        writeBundle(bundle, tmxFile);
+
+        // WHEN the bundle is loaded
+        TrackBundle loaded = TrackBundleIO.load(tmxFile);
+
+        // THEN it comes from the bundle file
+        assertNotNull(loaded);
+        assertNotSame(bundle, loaded);
+        assertThat(loaded.sourceStamp, is(stamp));
+        assertArrayEquals(bundle.materials, loaded.materials);
+
+        // GIVEN an outdated bundle file
+        bundle.sourceStamp = stamp + 1;
+        writeBundle(bundle, tmxFile);
+
+        // WHEN the bundle is loaded
+        loaded = TrackBundleIO.load(tmxFile);
+
+        // THEN it is ignored
+        assertNull(loaded);
+    }
+
+    @Test
+    public void testShippedBundlesAreUpToDate() {
+        for (FileHandle tmxFile : TestMapLoader.listMapFiles()) {
+            // GIVEN the shipped bundle of a map
+            TrackBundle bundle = TrackBundleIO.load(tmxFile);
+            assertNotNull(
+                    tmxFile.name() + " has no up-to-date bundle, run `make trackbundles`", bundle);
+
+            // WHEN a bundle is created from the map
+            TrackBundle expected = TrackBundle.create(TestMapLoader.loadMap(tmxFile), 0);
+
+            // THEN they have the same content
+            String message = tmxFile.name() + " bundle is out of date, run `make trackbundles`";
+            assertThat(message, bundle.columnCount, is(expected.columnCount));
+            assertThat(message, bundle.rowCount, is(expected.rowCount));
+            assertArrayEquals(message, expected.materials, bundle.materials);
+            assertArrayEquals(message, expected.waypoints, bundle.waypoints, 0);
+            assertArrayEquals(message, expected.bonusSpots, bundle.bonusSpots, 0);
+            assertArrayEquals(message, expected.startPositions, bundle.startPositions, 0);
+            assertThat(message, bundle.backgroundColor, is(expected.backgroundColor));
+            LapPositionTable table = bundle.lapPositionTable;
+            LapPositionTable expectedTable = expected.lapPositionTable;
+            assertThat(message, table.getSectionCount(), is(expectedTable.getSectionCount()));
+            for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+                assertArrayEquals(
+                        message,
+                        expectedTable.getSectionVertices(idx),
+                        table.getSectionVertices(idx),
+                        0);
+            }
+        }
+    }
+
+    private static void writeBundle(TrackBundle bundle, FileHandle tmxFile) throws IOException {
+        try (OutputStream stream = TrackBundleIO.getBundleFile(tmxFile).write(false)) {
+            TrackBundleIO.write(bundle, stream);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WaypointStoreTest {
+    // (x, y, lapDistance) triplets, with two waypoints at the same lap distance
+    private static final float[] WAYPOINTS = {
+        0, 0, 0.5f,
+        1, 0, 1.5f,
+        2, 0, 1.5f,
+        3, 0, 2.2f,
+        4, 0, 3.9f,
+    };
+
+    @Test
+    public void testGetWaypointIndex() {
+        WaypointStore store = new WaypointStore();
+        store.setWaypoints(WAYPOINTS);
+        assertThat(store.getCount(), is(5));
+        assertThat(store.getWaypointIndex(0), is(0));
+        assertThat(store.getWaypointIndex(0.5f), is(1));
+        assertThat(store.getWaypointIndex(1.5f), is(3));
+        assertThat(store.getWaypointIndex(3), is(4));
+        assertThat(store.getWaypointIndex(3.9f), is(0));
+        assertThat(store.getWaypointIndex(4.5f), is(0));
+    }
+
+    @Test
+    public void testGetWaypointIndexMatchesLinearScan() {
+        WaypointStore store = new WaypointStore();
+        store.setWaypoints(WAYPOINTS);
+        Random random = new Random(1);
+        int hint = -1;
+        for (int i = 0; i < 10000; ++i) {
+            // Mostly move forward, like a racer, with occasional jumps
+            float lapDistance = random.nextInt(10) == 0 ? random.nextFloat() * 5 : (i % 500) / 100f;
+            int expected = linearGetWaypointIndex(lapDistance);
+            assertThat(store.getWaypointIndex(lapDistance), is(expected));
+            hint = store.getWaypointIndex(lapDistance, hint);
+            assertThat(hint, is(expected));
+        }
+    }
+
+    @Test
+    public void testInvalidHint() {
+        WaypointStore store = new WaypointStore();
+        store.setWaypoints(WAYPOINTS);
+        assertThat(store.getWaypointIndex(2, -1), is(3));
+        assertThat(store.getWaypointIndex(2, 12), is(3));
+    }
+
+    /** The implementation of getWaypointIndex() before it used a binary search */
+    private static int linearGetWaypointIndex(float lapDistance) {
+        for (int idx = 0; idx < WAYPOINTS.length / 3; ++idx) {
+            if (lapDistance < WAYPOINTS[idx * 3 + 2]) {
+                return idx;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.GamePlay;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AISchedulerTests {
+    @Test
+    public void testPilotsAreSpreadOverTheInterval() {
+        // GIVEN a scheduler with an interval of 3 and 3 pilots
+        GamePlay gamePlay = new GamePlay();
+        gamePlay.aiPlanInterval = 3;
+        gamePlay.aiRayCastBudget = 100;
+        AIScheduler scheduler = new AIScheduler(gamePlay);
+        for (int idx = 0; idx < 3; ++idx) {
+            scheduler.register(6);
+        }
+
+        // WHEN running 3 ticks
+        // THEN each pilot plans exactly once, on a different tick
+        int[] planCounts = new int[3];
+        for (int tick = 0; tick < 3; ++tick) {
+            scheduler.beginTick();
+            int plansThisTick = 0;
+            for (int slot = 0; slot < 3; ++slot) {
+                if (scheduler.shouldPlan(slot, false)) {
+                    ++planCounts[slot];
+                    ++plansThisTick;
+                }
+            }
+            assertThat(plansThisTick, is(1));
+        }
+        assertThat(planCounts, is(new int[] {1, 1, 1}));
+    }
+
+    @Test
+    public void testBudgetDoesNotStarvePilots() {
+        // GIVEN a scheduler where all pilots are due on every tick, but only 2 fit in the budget
+        GamePlay gamePlay = new GamePlay();
+        gamePlay.aiPlanInterval = 1;
+        gamePlay.aiRayCastBudget = 12;
+        AIScheduler scheduler = new AIScheduler(gamePlay);
+        for (int idx = 0; idx < 5; ++idx) {
+            scheduler.register(6);
+        }
+
+        // WHEN running 5 ticks
+        int[] planCounts = new int[5];
+        for (int tick = 0; tick < 5; ++tick) {
+            scheduler.beginTick();
+            for (int slot = 0; slot < 5; ++slot) {
+                if (scheduler.shouldPlan(slot, false)) {
+                    ++planCounts[slot];
+                }
+            }
+            // THEN the budget is never exceeded
+            assertThat(scheduler.getRayCastCount(), is(12));
+        }
+
+        // AND all pilots planned twice
+        assertThat(planCounts, is(new int[] {2, 2, 2, 2, 2}));
+    }
+
+    @Test
+    public void testMustPlanIgnoresSchedule() {
+        GamePlay gamePlay = new GamePlay();
+        gamePlay.aiPlanInterval = 10;
+        AIScheduler scheduler = new AIScheduler(gamePlay);
+        scheduler.register(6);
+        int slot = scheduler.register(6);
+
+        scheduler.beginTick();
+
+        assertThat(scheduler.shouldPlan(slot, false), is(false));
+        assertThat(scheduler.shouldPlan(slot, true), is(true));
+        // The first pilot is due on the first tick, the second one is forced
+        assertThat(scheduler.getRayCastCount(), is(12));
+    }
+
+    @Test
+    public void testIdlePilotsDoNotUseTheBudget() {
+        // GIVEN a scheduler where all pilots are due on every tick, but only 2 fit in the budget
+        GamePlay gamePlay = new GamePlay();
+        gamePlay.aiPlanInterval = 1;
+        gamePlay.aiRayCastBudget = 12;
+        AIScheduler scheduler = new AIScheduler(gamePlay);
+        for (int idx = 0; idx < 4; ++idx) {
+            scheduler.register(6);
+        }
+
+        // AND the first 2 pilots are idle
+        scheduler.setIdle(0, true);
+        scheduler.setIdle(1, true);
+
+        // WHEN running a tick
+        scheduler.beginTick();
+
+        // THEN only the other pilots plan
+        assertThat(scheduler.shouldPlan(0, false), is(false));
+        assertThat(scheduler.shouldPlan(1, false), is(false));
+        assertThat(scheduler.shouldPlan(2, false), is(true));
+        assertThat(scheduler.shouldPlan(3, false), is(true));
+        assertThat(scheduler.getRayCastCount(), is(12));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SectorTimesTests {
+    @Test
+    public void testSplitsAreRecordedWhenLeavingSections() {
+        // GIVEN a 3 section track
+        SectorTimes times = new SectorTimes(3);
+
+        // WHEN the racer goes through sections 0 and 1
+        times.onSectionChanged(0, 1, 2);
+        times.onSectionChanged(1, 2, 5);
+
+        // THEN the splits of these sections are known
+        assertThat(times.getSplit(0), is(2f));
+        assertThat(times.getSplit(1), is(5f));
+        assertThat(times.getSplit(2), is(-1f));
+    }
+
+    @Test
+    public void testSkippedSectionsHaveNoSplit() {
+        SectorTimes times = new SectorTimes(4);
+
+        times.onSectionChanged(0, 2, 3);
+
+        assertThat(times.getSplit(0), is(3f));
+        assertThat(times.getSplit(1), is(-1f));
+        assertThat(times.getSplit(2), is(-1f));
+    }
+
+    @Test
+    public void testSkippedSectionsDoNotGetBestTimes() {
+        // GIVEN a 4 section track
+        SectorTimes times = new SectorTimes(4);
+
+        // WHEN the racer completes a lap, jumping from section 1 to section 3
+        times.onSectionChanged(0, 1, 2);
+        times.onSectionChanged(1, 3, 5);
+        times.onSectionChanged(3, 0, 9);
+        times.onLapCompleted(9);
+
+        // THEN the skipped section has no best time
+        assertThat(times.getBestSectorTime(2), is(-1f));
+        assertThat(times.getBestLapSplit(2), is(-1f));
+
+        // AND the next section is timed from the last known split
+        assertThat(times.getBestSectorTime(1), is(3f));
+        assertThat(times.getBestSectorTime(3), is(4f));
+
+        // WHEN the racer completes another lap, going through all sections
+        completeLap(times, 3, 6, 8, 10);
+
+        // THEN the skipped section gets its first best time
+        assertThat(times.getBestSectorTime(2), is(2f));
+    }
+
+    @Test
+    public void testMovingBackwardDoesNotChangeSplits() {
+        SectorTimes times = new SectorTimes(3);
+        times.onSectionChanged(0, 1, 2);
+
+        times.onSectionChanged(1, 0, 3);
+        assertThat(times.getSplit(0), is(2f));
+
+        // Moving forward again updates the split
+        times.onSectionChanged(0, 1, 4);
+        assertThat(times.getSplit(0), is(4f));
+    }
+
+    @Test
+    public void testBestTimes() {
+        // GIVEN a 3 section track
+        SectorTimes times = new SectorTimes(3);
+
+        // WHEN the racer completes 2 laps, each with a better sector
+        completeLap(times, 2, 5, 9);
+        completeLap(times, 3, 5, 10);
+
+        // THEN the best sector times come from both laps
+        assertThat(times.getBestSectorTime(0), is(2f));
+        assertThat(times.getBestSectorTime(1), is(2f));
+        assertThat(times.getBestSectorTime(2), is(4f));
+
+        // AND the best lap splits come from the first lap
+        assertThat(times.getBestLapTime(), is(9f));
+        assertThat(times.getBestLapSplit(0), is(2f));
+        assertThat(times.getBestLapSplit(1), is(5f));
+        assertThat(times.getBestLapSplit(2), is(9f));
+
+        // AND the splits of the current lap have been reset
+        assertThat(times.getSplit(0), is(-1f));
+    }
+
+    private static void completeLap(SectorTimes times, float... splits) {
+        for (int idx = 0; idx < splits.length; ++idx) {
+            times.onSectionChanged(idx, (idx + 1) % splits.length, splits[idx]);
+        }
+        times.onLapCompleted(splits[splits.length - 1]);
+    }
+}
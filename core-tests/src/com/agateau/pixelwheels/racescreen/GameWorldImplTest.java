@@ -0,0 +1,346 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.StaticVisibilityTable;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayChecker;
+import com.agateau.pixelwheels.replay.ReplayRecorder;
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.stats.GameStats;
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import java.io.File;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GameWorldImplTest {
+    private static final String ASSETS_DIR = "../android/assets";
+    private static final String TRACK_ID = "country";
+    private static final int RACER_COUNT = 4;
+    private static final float MAX_RACE_TIME = 300;
+
+    private static Assets sAssets;
+
+    /** An internal file, looked up in ASSETS_DIR */
+    private static class AssetFileHandle extends FileHandle {
+        AssetFileHandle(File file) {
+            super(file, Files.FileType.Internal);
+        }
+
+        @Override
+        public File file() {
+            return new File(ASSETS_DIR, file.getPath());
+        }
+
+        @Override
+        public FileHandle child(String name) {
+            return new AssetFileHandle(new File(file, name));
+        }
+
+        @Override
+        public FileHandle sibling(String name) {
+            return new AssetFileHandle(new File(file.getParent(), name));
+        }
+
+        @Override
+        public FileHandle parent() {
+            File parent = file.getParentFile();
+            return new AssetFileHandle(parent == null ? new File("") : parent);
+        }
+    }
+
+    private static class TestGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        TestGameInfo(Track track, Assets assets) {
+            super(GameType.QUICK_RACE);
+            mTrack = track;
+            for (int idx = 0; idx < RACER_COUNT; ++idx) {
+                getEntrants().add(new Entrant(assets.vehicleDefs.get(idx).id));
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+
+    /**
+     * Loads the real assets, with OpenGL and audio calls replaced with mocks. The sprite atlases
+     * are created by the Packer tool, tests using them are skipped if it has not been run.
+     */
+    @BeforeClass
+    public static void loadAssets() {
+        Assume.assumeTrue(new File(ASSETS_DIR, "sprites/sprites.atlas").exists());
+        GdxNativesLoader.load();
+        Gdx.files = mock(Files.class);
+        when(Gdx.files.internal(anyString()))
+                .thenAnswer(
+                        invocation ->
+                                new AssetFileHandle(new File((String) invocation.getArgument(0))));
+        Gdx.gl = Gdx.gl20 = mock(GL20.class);
+        Gdx.audio = mock(Audio.class, RETURNS_MOCKS);
+        sAssets = new Assets();
+    }
+
+    @Test
+    public void testSameSeedGivesSameRace() {
+        // GIVEN two worlds created with the same seed
+        GameWorldImpl world1 = createWorld(12);
+        GameWorldImpl world2 = createWorld(12);
+
+        // WHEN the race runs until the end in both of them
+        runRace(world1, GameWorld.BOX2D_TIME_STEP);
+        runRace(world2, GameWorld.BOX2D_TIME_STEP);
+
+        // THEN the results are the same, down to the last bit
+        assertThat(describeRace(world2, true), is(describeRace(world1, true)));
+        world1.dispose();
+        world2.dispose();
+    }
+
+    @Test
+    public void testRaceDoesNotDependOnFrameRate() {
+        // GIVEN two worlds created with the same seed
+        GameWorldImpl world1 = createWorld(34);
+        GameWorldImpl world2 = createWorld(34);
+
+        // WHEN the race runs at 60 FPS in the first one and 30 FPS in the second one
+        runRace(world1, 1 / 60f);
+        runRace(world2, 1 / 30f);
+
+        // THEN the ranks and lap times are the same. Positions are not compared: the last frame
+        // of the second world can run an extra physics step after the last racer has finished
+        assertThat(describeRace(world2, false), is(describeRace(world1, false)));
+        world1.dispose();
+        world2.dispose();
+    }
+
+    @Test
+    public void testReplayReproducesRace() {
+        // GIVEN a race recorded in a replay
+        GameWorldImpl world1 = createWorld(56);
+        ReplayRecorder recorder = new ReplayRecorder(world1, 56);
+        world1.addGameObject(recorder);
+        runRace(world1, 1 / 60f);
+        Replay replay = recorder.finish();
+
+        // WHEN the replay is played back
+        GameWorldImpl world2 =
+                new GameWorldImpl(
+                        sAssets,
+                        mock(AudioManager.class, RETURNS_MOCKS),
+                        mock(GameStats.class),
+                        replay.createGameInfo(createTrack()),
+                        new PerformanceCounters(),
+                        replay);
+        ReplayChecker checker = new ReplayChecker(world2, replay);
+        world2.addGameObject(checker);
+        runRace(world2, 1 / 60f);
+
+        // THEN it does not diverge and produces the same results
+        assertThat(checker.getDivergenceTick(), is(-1));
+        assertThat(describeRace(world2, true), is(describeRace(world1, true)));
+        world1.dispose();
+        world2.dispose();
+    }
+
+    @Test
+    public void testRecordingDoesNotChangeRace() {
+        // GIVEN two worlds created with the same seed, the second one recording a replay
+        GameWorldImpl world1 = createWorld(13);
+        GameWorldImpl world2 = createWorld(13);
+        world2.addGameObject(new ReplayRecorder(world2, 13));
+
+        // WHEN the race runs until the end in both of them
+        runRace(world1, GameWorld.BOX2D_TIME_STEP);
+        runRace(world2, GameWorld.BOX2D_TIME_STEP);
+
+        // THEN the results are the same, down to the last bit
+        assertThat(describeRace(world2, true), is(describeRace(world1, true)));
+        world1.dispose();
+        world2.dispose();
+    }
+
+    @Test
+    public void testAiOnlyReplayCanBePlayedBack() {
+        // GIVEN a replay of a race without players
+        GameWorldImpl world1 = createWorld(78);
+        assertThat(world1.getPlayerRacers().size, is(0));
+        ReplayRecorder recorder = new ReplayRecorder(world1, 78);
+        world1.addGameObject(recorder);
+        runRace(world1, 1 / 60f);
+        Replay replay = recorder.finish();
+
+        // WHEN it is played back, updating the camera like the renderer does
+        GameWorldImpl world2 =
+                new GameWorldImpl(
+                        sAssets,
+                        mock(AudioManager.class, RETURNS_MOCKS),
+                        mock(GameStats.class),
+                        replay.createGameInfo(createTrack()),
+                        new PerformanceCounters(),
+                        replay);
+        CameraUpdater updater = GameRenderer.createCameraUpdater(world2);
+        OrthographicCamera camera = new OrthographicCamera();
+        updater.init(camera, 800, 600);
+        GameRenderer.interpolateGameObjects(world2, 1);
+        updater.update(CameraUpdater.IMMEDIATE);
+
+        // THEN the camera follows the leading racer until the end of the race
+        float time = 0;
+        while (world2.getState() != GameWorld.State.FINISHED) {
+            world2.act(1 / 60f);
+            GameRenderer.interpolateGameObjects(world2, world2.getInterpolationAlpha());
+            updater.update(1 / 60f);
+            Vector2 leaderPos = world2.getRacers().first().getPosition();
+            assertThat(
+                    Math.abs(leaderPos.x - camera.position.x) < camera.viewportWidth / 2, is(true));
+            assertThat(
+                    Math.abs(leaderPos.y - camera.position.y) < camera.viewportHeight / 2,
+                    is(true));
+            time += 1 / 60f;
+            assertThat("Race did not finish", time < MAX_RACE_TIME, is(true));
+        }
+        world1.dispose();
+        world2.dispose();
+    }
+
+    @Test
+    public void testStaticVisibilityTableDoesNotDependOnBodyOrder() {
+        // GIVEN the bodies of a world, and the same bodies in reverse order
+        GameWorldImpl world = createWorld(90);
+        Track track = world.getTrack();
+        Array<Body> bodies = new Array<>();
+        world.getBox2DWorld().getBodies(bodies);
+        Array<Body> reversedBodies = new Array<>(bodies);
+        reversedBodies.reverse();
+
+        // WHEN a static visibility table is created from each of them
+        StaticVisibilityTable table1 = new StaticVisibilityTable(bodies, track, 1);
+        StaticVisibilityTable table2 = new StaticVisibilityTable(reversedBodies, track, 1);
+
+        // THEN the tables are the same
+        int waypointCount = track.getWaypointStore().getCount();
+        int clearCount = 0;
+        for (float y = track.getTileHeight() / 2;
+                y < track.getMapHeight();
+                y += track.getTileHeight()) {
+            for (float x = track.getTileWidth() / 2;
+                    x < track.getMapWidth();
+                    x += track.getTileWidth()) {
+                for (int waypoint = 0; waypoint < waypointCount; ++waypoint) {
+                    boolean clear = table1.isClear(x, y, waypoint);
+                    assertThat(table2.isClear(x, y, waypoint), is(clear));
+                    if (clear) {
+                        ++clearCount;
+                    }
+                }
+            }
+        }
+        // AND they are not empty
+        assertThat(clearCount > 0, is(true));
+        world.dispose();
+    }
+
+    private static Track createTrack() {
+        return new Track(TRACK_ID, sAssets.findTrackById(TRACK_ID).getMapName());
+    }
+
+    private static GameWorldImpl createWorld(long seed) {
+        Track track = createTrack();
+        return new GameWorldImpl(
+                sAssets,
+                mock(AudioManager.class, RETURNS_MOCKS),
+                mock(GameStats.class),
+                null,
+                new GamePlay(),
+                new TestGameInfo(track, sAssets),
+                new PerformanceCounters(),
+                seed);
+    }
+
+    private static void runRace(GameWorld world, float delta) {
+        float time = 0;
+        while (world.getState() != GameWorld.State.FINISHED) {
+            world.act(delta);
+            time += delta;
+            assertThat("Race did not finish", time < MAX_RACE_TIME, is(true));
+        }
+    }
+
+    /**
+     * Returns a text describing the result of each racer, using the binary representation of all
+     * floats so that any difference shows up
+     */
+    private static String describeRace(GameWorld world, boolean withBodies) {
+        StringBuilder builder = new StringBuilder();
+        for (Racer racer : world.getRacers()) {
+            LapPositionComponent component = racer.getLapPositionComponent();
+            builder.append(racer.getEntrant().getVehicleId());
+            for (int idx = 0; idx < component.getLapTimes().size; ++idx) {
+                appendFloat(builder, component.getLapTimes().get(idx));
+            }
+            appendFloat(builder, component.getTotalTime());
+            if (withBodies) {
+                Body body = racer.getVehicle().getBody();
+                appendFloat(builder, body.getPosition().x);
+                appendFloat(builder, body.getPosition().y);
+                appendFloat(builder, body.getAngle());
+                appendFloat(builder, body.getLinearVelocity().x);
+                appendFloat(builder, body.getLinearVelocity().y);
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static void appendFloat(StringBuilder builder, float value) {
+        builder.append(' ').append(Integer.toHexString(Float.floatToRawIntBits(value)));
+    }
+}
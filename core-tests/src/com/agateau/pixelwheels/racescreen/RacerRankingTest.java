@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.badlogic.gdx.utils.Array;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RacerRankingTest {
+    private static final int RACER_COUNT = 12;
+
+    @Test
+    public void testUpdate() {
+        // GIVEN 3 racers, the last one being ahead of the others
+        Array<Racer> racers = new Array<>();
+        Racer racer1 = createRacer(false, 1, 10);
+        Racer racer2 = createRacer(false, 1, 12);
+        Racer racer3 = createRacer(false, 2, 2);
+        racers.addAll(racer1, racer2, racer3);
+        RacerRanking ranking = new RacerRanking(racers);
+        ranking.initRanks();
+        assertThat(racer3.getRank(), is(3));
+
+        // WHEN the ranking is updated
+        ranking.update();
+
+        // THEN the racers are sorted
+        assertThat(racers.get(0), is(racer3));
+        assertThat(racers.get(1), is(racer2));
+        assertThat(racers.get(2), is(racer1));
+
+        // AND their ranks are up to date
+        assertThat(racer3.getRank(), is(1));
+        assertThat(racer2.getRank(), is(2));
+        assertThat(racer1.getRank(), is(3));
+    }
+
+    @Test
+    public void testFinishedRacersKeepTheirRank() {
+        // GIVEN a racer which finished the race first, but has been overtaken since then
+        Array<Racer> racers = new Array<>();
+        Racer racer1 = createRacer(true, 3, 1);
+        Racer racer2 = createRacer(false, 3, 5);
+        racers.addAll(racer1, racer2);
+        RacerRanking ranking = new RacerRanking(racers);
+        ranking.initRanks();
+
+        // WHEN the ranking is updated
+        ranking.update();
+
+        // THEN the finished racer is still first
+        assertThat(racer1.getRank(), is(1));
+        assertThat(racer2.getRank(), is(2));
+    }
+
+    @Test
+    public void testUpdateMatchesFullSort() {
+        // GIVEN racers moving forward at different speeds
+        Random random = new Random(1);
+        Array<Racer> racers = new Array<>();
+        float[] distances = new float[RACER_COUNT];
+        int[] lapCounts = new int[RACER_COUNT];
+        for (int idx = 0; idx < RACER_COUNT; ++idx) {
+            racers.add(createRacer(false, 1, 0));
+            lapCounts[idx] = 1;
+        }
+        RacerRanking ranking = new RacerRanking(racers);
+        Array<Racer> allRacers = new Array<>(racers);
+
+        for (int tick = 0; tick < 500; ++tick) {
+            // WHEN they move and the ranking is updated
+            for (int idx = 0; idx < RACER_COUNT; ++idx) {
+                distances[idx] += random.nextInt(4);
+                if (distances[idx] >= 100) {
+                    distances[idx] -= 100;
+                    ++lapCounts[idx];
+                }
+                LapPositionComponent component = allRacers.get(idx).getLapPositionComponent();
+                when(component.getLapCount()).thenReturn(lapCounts[idx]);
+                when(component.getLapDistance()).thenReturn(distances[idx]);
+            }
+            Array<Racer> sorted = new Array<>(racers);
+            sorted.sort(sReferenceComparator);
+            ranking.update();
+
+            // THEN the order is the same as the one of a full, stable, sort
+            assertThat(racers, is(sorted));
+            for (int idx = 0; idx < RACER_COUNT; ++idx) {
+                assertThat(racers.get(idx).getRank(), is(idx + 1));
+            }
+        }
+    }
+
+    /** The comparator used to sort racers before RacerRanking */
+    private static final Comparator<Racer> sReferenceComparator =
+            (racer1, racer2) -> {
+                LapPositionComponent c1 = racer1.getLapPositionComponent();
+                LapPositionComponent c2 = racer2.getLapPositionComponent();
+                if (c1.getLapCount() != c2.getLapCount()) {
+                    return c2.getLapCount() - c1.getLapCount();
+                }
+                return Float.compare(c2.getLapDistance(), c1.getLapDistance());
+            };
+
+    private static Racer createRacer(boolean finished, int lapCount, float lapDistance) {
+        LapPositionComponent component = mock(LapPositionComponent.class);
+        when(component.hasFinishedRace()).thenReturn(finished);
+        when(component.getLapCount()).thenReturn(lapCount);
+        when(component.getLapDistance()).thenReturn(lapDistance);
+        Racer racer = mock(Racer.class, CALLS_REAL_METHODS);
+        doReturn(component).when(racer).getLapPositionComponent();
+        return racer;
+    }
+}
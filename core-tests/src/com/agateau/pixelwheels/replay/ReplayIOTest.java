@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.GamePlay;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReplayIOTest {
+    @Test
+    public void testReadWrite() throws IOException {
+        // GIVEN a replay
+        Replay replay = new Replay();
+        replay.trackId = "race";
+        replay.seed = -1234567890123L;
+        replay.lapCount = 3;
+        replay.gamePlay = new GamePlay();
+        replay.gamePlay.racerCount = 4;
+        replay.vehicleIds.addAll("red", "police");
+        replay.playerIndexes.addAll(0, -1);
+        replay.inputs.add(new byte[] {1, 2, 3});
+        replay.inputs.add(new byte[] {});
+        replay.keyframeInterval = 60;
+        replay.keyframes.addAll(1, 2, 0.5f, 3, 4, -0.5f);
+
+        // WHEN it is written and read back
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ReplayIO.write(replay, stream);
+        Replay replay2 =
+                ReplayIO.read(
+                        new DataInputStream(new ByteArrayInputStream(stream.toByteArray())));
+
+        // THEN the two replays are identical
+        assertThat(replay2.getTrackId(), is("race"));
+        assertThat(replay2.getSeed(), is(replay.seed));
+        assertThat(replay2.getLapCount(), is(3));
+        assertThat(replay2.getGamePlay().racerCount, is(4));
+        assertThat(replay2.getRacerCount(), is(2));
+        assertThat(replay2.vehicleIds, is(replay.vehicleIds));
+        assertThat(replay2.playerIndexes, is(replay.playerIndexes));
+        assertArrayEquals(replay.inputs.get(0), replay2.inputs.get(0));
+        assertArrayEquals(replay.inputs.get(1), replay2.inputs.get(1));
+        assertThat(replay2.keyframeInterval, is(60));
+        assertThat(replay2.getKeyframeCount(), is(1));
+        assertArrayEquals(replay.keyframes.toArray(), replay2.keyframes.toArray(), 0);
+    }
+
+    @Test
+    public void testReadInvalidData() throws IOException {
+        // GIVEN data which is not a replay
+        byte[] data = "Not a replay".getBytes();
+
+        // WHEN it is read
+        Replay replay = ReplayIO.read(new DataInputStream(new ByteArrayInputStream(data)));
+
+        // THEN no replay is returned
+        assertThat(replay == null, is(true));
+    }
+}
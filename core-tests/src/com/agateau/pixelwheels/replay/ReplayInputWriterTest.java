@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.agateau.pixelwheels.racer.Vehicle;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReplayInputWriterTest {
+    private static class Input {
+        boolean accelerating;
+        boolean braking;
+        boolean bonusTriggered;
+        float direction;
+        float speedLimiter = 1;
+    }
+
+    @Test
+    public void testEmpty() {
+        // GIVEN a writer which did not record anything
+        ReplayInputWriter writer = new ReplayInputWriter();
+
+        // WHEN reading its inputs back
+        ReplayInputReader reader = new ReplayInputReader(writer.toByteArray());
+
+        // THEN there are no entries
+        assertThat(reader.next(), is(false));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // GIVEN a list of inputs, with long runs of identical inputs, like a real pilot
+        Random random = new Random(1);
+        Input[] inputs = new Input[5000];
+        Input previous = new Input();
+        for (int idx = 0; idx < inputs.length; ++idx) {
+            Input input = new Input();
+            if (random.nextInt(20) == 0) {
+                input.accelerating = random.nextBoolean();
+                input.braking = random.nextBoolean();
+                input.bonusTriggered = random.nextInt(10) == 0;
+                input.direction = random.nextFloat() * 2 - 1;
+                input.speedLimiter = random.nextInt(3) == 0 ? 0.5f : 1;
+            } else {
+                input.accelerating = previous.accelerating;
+                input.braking = previous.braking;
+                input.direction = previous.direction;
+                input.speedLimiter = previous.speedLimiter;
+            }
+            inputs[idx] = input;
+            previous = input;
+        }
+
+        // AND a writer which recorded them
+        ReplayInputWriter writer = new ReplayInputWriter();
+        for (Input input : inputs) {
+            Vehicle vehicle = createVehicle(input);
+            writer.record(vehicle, input.bonusTriggered);
+            // Recording must not change the race
+            verify(vehicle, never()).setDirection(anyFloat());
+        }
+        byte[] data = writer.toByteArray();
+
+        // WHEN reading them back
+        ReplayInputReader reader = new ReplayInputReader(data);
+
+        // THEN they are the same
+        for (Input input : inputs) {
+            assertThat(reader.next(), is(true));
+            assertThat(reader.isAccelerating(), is(input.accelerating));
+            assertThat(reader.isBraking(), is(input.braking));
+            assertThat(reader.isBonusTriggered(), is(input.bonusTriggered));
+            assertThat(reader.getDirection(), is(input.direction));
+            assertThat(reader.getSpeedLimiter(), is(input.speedLimiter));
+        }
+        assertThat(reader.next(), is(false));
+
+        // AND they take much less space than one byte per input
+        assertThat(data.length < inputs.length / 2, is(true));
+    }
+
+    private static Vehicle createVehicle(Input input) {
+        Vehicle vehicle = mock(Vehicle.class);
+        when(vehicle.isAccelerating()).thenReturn(input.accelerating);
+        when(vehicle.isBraking()).thenReturn(input.braking);
+        when(vehicle.getDirection()).thenReturn(input.direction);
+        when(vehicle.getSpeedLimiter()).thenReturn(input.speedLimiter);
+        return vehicle;
+    }
+}
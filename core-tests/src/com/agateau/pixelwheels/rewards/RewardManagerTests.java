@@ -25,10 +25,15 @@ import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.StatKeys;
 import com.agateau.utils.CollectionUtils;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
+import java.util.Collections;
+import java.util.Set;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
@@ -41,6 +46,8 @@ public class RewardManagerTests {
 
     @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
 
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
     @Test
     public void testIsChampionshipUnlocked() {
         GameStats gameStats = new GameStatsImpl(mStatsIO);
@@ -61,6 +68,11 @@ public class RewardManagerTests {
                     public String getUnlockText(GameStats gameStats) {
                         return "";
                     }
+
+                    @Override
+                    public Set<String> getStatKeys() {
+                        return Collections.emptySet();
+                    }
                 });
         assertThat(manager.isChampionshipUnlocked(championship1), is(true));
         assertThat(manager.isChampionshipUnlocked(championship2), is(false));
@@ -86,6 +98,11 @@ public class RewardManagerTests {
                     public String getUnlockText(GameStats gameStats) {
                         return "";
                     }
+
+                    @Override
+                    public Set<String> getStatKeys() {
+                        return Collections.emptySet();
+                    }
                 });
         assertThat(manager.isTrackUnlocked(championship1.getTracks().get(0)), is(true));
         assertThat(manager.isTrackUnlocked(championship2.getTracks().get(0)), is(false));
@@ -112,6 +129,11 @@ public class RewardManagerTests {
                     public String getUnlockText(GameStats gameStats) {
                         return "";
                     }
+
+                    @Override
+                    public Set<String> getStatKeys() {
+                        return CollectionUtils.newSet(StatKeys.forChampionship(ch1));
+                    }
                 });
 
         // THEN unlocked rewards contains only ch1
@@ -126,6 +148,95 @@ public class RewardManagerTests {
         assertThat(manager.getUnlockedRewards(), is(CollectionUtils.newSet(ch1Reward, ch2Reward)));
     }
 
+    @Test
+    public void testOnlyDependentRulesAreEvaluated() {
+        // GIVEN a RewardManager with a locked reward depending on the MISSILE_HIT counter
+        GameStats gameStats = new GameStatsImpl(mStatsIO);
+        Array<Championship> championships = createChampionships();
+        RewardManager manager = new RewardManager(gameStats, championships);
+        final Championship ch1 = championships.get(0);
+        final int[] evaluationCount = {0};
+        manager.addRule(
+                Reward.get(ch1),
+                new RewardRule() {
+                    @Override
+                    public boolean hasBeenUnlocked(GameStats gameStats) {
+                        ++evaluationCount[0];
+                        return gameStats.getEventCount(GameStats.Event.MISSILE_HIT) >= 2;
+                    }
+
+                    @Override
+                    public String getUnlockText(GameStats gameStats) {
+                        return "";
+                    }
+
+                    @Override
+                    public Set<String> getStatKeys() {
+                        return CollectionUtils.newSet(
+                                StatKeys.forEvent(GameStats.Event.MISSILE_HIT));
+                    }
+                });
+        assertThat(manager.isChampionshipUnlocked(ch1), is(false));
+        assertThat(evaluationCount[0], is(1));
+
+        // WHEN another stat changes
+        gameStats.recordEvent(GameStats.Event.LEAVING_ROAD);
+
+        // THEN the rule is not evaluated again
+        assertThat(manager.isChampionshipUnlocked(ch1), is(false));
+        assertThat(evaluationCount[0], is(1));
+
+        // WHEN the stat the rule depends on changes
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+
+        // THEN the rule is evaluated again, once
+        assertThat(manager.isChampionshipUnlocked(ch1), is(true));
+        assertThat(evaluationCount[0], is(2));
+
+        // AND it is not evaluated anymore once the reward is unlocked
+        gameStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        assertThat(manager.isChampionshipUnlocked(ch1), is(true));
+        assertThat(evaluationCount[0], is(2));
+    }
+
+    @Test
+    public void testUnlockedRewardsAreCached() {
+        // GIVEN a RewardManager using a cache file, where ch2 has been unlocked
+        FileHandle cacheFile = new FileHandle(mTemporaryFolder.getRoot() + "/rewards.cache");
+        GameStats gameStats = new GameStatsImpl(mStatsIO);
+        Array<Championship> championships = createChampionships();
+        final Championship ch1 = championships.get(0);
+        final Championship ch2 = championships.get(1);
+        RewardManager manager = new RewardManager(gameStats, championships, cacheFile);
+        manager.addRule(Reward.get(ch2), RewardManager.ALWAYS_UNLOCKED);
+        assertThat(manager.isChampionshipUnlocked(ch2), is(true));
+
+        // WHEN a new RewardManager is created with a rule which would keep ch2 locked
+        RewardManager manager2 = new RewardManager(gameStats, championships, cacheFile);
+        manager2.addRule(
+                Reward.get(ch2),
+                new RewardRule() {
+                    @Override
+                    public boolean hasBeenUnlocked(GameStats gameStats) {
+                        return gameStats.getBestChampionshipRank(ch1) <= 2;
+                    }
+
+                    @Override
+                    public String getUnlockText(GameStats gameStats) {
+                        return "";
+                    }
+
+                    @Override
+                    public Set<String> getStatKeys() {
+                        return CollectionUtils.newSet(StatKeys.forChampionship(ch1));
+                    }
+                });
+
+        // THEN ch2 is still unlocked, the rule has not been evaluated
+        assertThat(manager2.isChampionshipUnlocked(ch2), is(true));
+    }
+
     private static Array<Championship> createChampionships() {
         Array<Championship> championships = new Array<>();
         for (int c = 0; c < 2; ++c) {
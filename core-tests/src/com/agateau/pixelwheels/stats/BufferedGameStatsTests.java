@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(JUnit4.class)
+public class BufferedGameStatsTests {
+    @Mock private GameStatsImpl.IO mStatsIO;
+
+    @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Test
+    public void testEventsAreForwardedOnFlush() {
+        // GIVEN buffered game stats
+        GameStatsImpl stats = new GameStatsImpl(mStatsIO);
+        BufferedGameStats bufferedStats = new BufferedGameStats(stats);
+
+        // WHEN events are recorded
+        bufferedStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        bufferedStats.recordEvent(GameStats.Event.MISSILE_HIT);
+        bufferedStats.recordIntEvent(GameStats.Event.LEAVING_ROAD, 20);
+
+        // THEN the buffered stats count them
+        assertThat(bufferedStats.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
+
+        // AND the wrapped stats do not know about them yet
+        assertThat(stats.getEventCount(GameStats.Event.MISSILE_HIT), is(0));
+        verify(mStatsIO, never()).save();
+
+        // WHEN events are flushed, twice
+        bufferedStats.flushEvents();
+        bufferedStats.flushEvents();
+
+        // THEN the wrapped stats have been saved once, with the right counts
+        verify(mStatsIO, times(1)).save();
+        assertThat(stats.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
+        assertThat(stats.getEventCount(GameStats.Event.LEAVING_ROAD), is(20));
+        assertThat(bufferedStats.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
+    }
+}
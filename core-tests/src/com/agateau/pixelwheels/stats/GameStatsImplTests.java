@@ -22,6 +22,7 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.agateau.pixelwheels.map.Championship;
@@ -92,6 +93,27 @@ public class GameStatsImplTests {
         assertThat(stats.getEventCount(GameStats.Event.LEAVING_ROAD), is(50));
     }
 
+    @Test
+    public void testRecordEvents() {
+        // GIVEN game stats with a recorded event
+        GameStats stats = new GameStatsImpl(mStatsIO);
+        stats.recordIntEvent(GameStats.Event.LEAVING_ROAD, 30);
+
+        // WHEN a batch of events is recorded
+        int[] counts = new int[GameStats.Event.values().length];
+        counts[GameStats.Event.LEAVING_ROAD.ordinal()] = 12;
+        counts[GameStats.Event.MISSILE_HIT.ordinal()] = 2;
+        stats.recordEvents(counts);
+
+        // THEN the counters have been updated
+        assertThat(stats.getEventCount(GameStats.Event.LEAVING_ROAD), is(42));
+        assertThat(stats.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
+        assertThat(stats.getEventCount(GameStats.Event.PICKED_BONUS), is(0));
+
+        // AND the stats have been saved once for the batch
+        verify(mStatsIO, times(2)).save();
+    }
+
     @Test
     public void testEventCountDoesNotOverflow() {
         // GIVEN game stats with an event almost at MAX_VALUE
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.io.File;
+import java.util.ArrayList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JournalGameStatsImplIOTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private static class FailingFileHandle extends FileHandle {
+        boolean mFailNextWrite = false;
+
+        FailingFileHandle(File file) {
+            super(file);
+        }
+
+        @Override
+        public void writeString(String string, boolean append, String charset) {
+            if (mFailNextWrite) {
+                mFailNextWrite = false;
+                throw new GdxRuntimeException("Disk full");
+            }
+            super.writeString(string, append, charset);
+        }
+    }
+
+    private final Track mTrack = new Track("t", "track");
+    private final Championship mChampionship = new Championship("ch1", "champ1");
+
+    @Test
+    public void testIO() {
+        // GIVEN stats saved in a journal
+        FileHandle journal = getFile("stats.journal");
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        stats.getTrackStats(mTrack)
+                .addResult(TrackStats.ResultType.LAP, new TrackResult("bob", 12));
+        stats.getTrackStats(mTrack)
+                .addResult(TrackStats.ResultType.LAP, new TrackResult("bob", 10));
+        stats.onChampionshipFinished(mChampionship, 2);
+        stats.recordEvent(GameStats.Event.MISSILE_HIT);
+        stats.recordIntEvent(GameStats.Event.LEAVING_ROAD, 12);
+
+        // WHEN they are loaded back
+        GameStats stats2 = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+
+        // THEN they contain the same values
+        ArrayList<TrackResult> results =
+                stats2.getTrackStats(mTrack).get(TrackStats.ResultType.LAP);
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).value, is(10f));
+        assertThat(results.get(1).value, is(12f));
+        assertThat(stats2.getBestChampionshipRank(mChampionship), is(2));
+        assertThat(stats2.getEventCount(GameStats.Event.MISSILE_HIT), is(1));
+        assertThat(stats2.getEventCount(GameStats.Event.LEAVING_ROAD), is(12));
+    }
+
+    @Test
+    public void testSaveOnlyAppendsChanges() {
+        // GIVEN stats with a few records
+        FileHandle journal = getFile("stats.journal");
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        for (int idx = 0; idx < 10; ++idx) {
+            Track track = new Track("track" + idx, "");
+            stats.getTrackStats(track)
+                    .addResult(TrackStats.ResultType.LAP, new TrackResult("bob", idx));
+        }
+        long oldLength = journal.length();
+
+        // WHEN an event is recorded
+        stats.recordEvent(GameStats.Event.PICKED_BONUS);
+
+        // THEN a single line has been appended to the journal
+        String appended = journal.readString("UTF-8").substring((int) oldLength);
+        assertThat(appended, is("{\"type\":\"EVENT\",\"id\":\"PICKED_BONUS\",\"value\":1}\n"));
+    }
+
+    @Test
+    public void testJournalIsCompacted() {
+        // GIVEN stats saved in a journal
+        FileHandle journal = getFile("stats.journal");
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+
+        // WHEN many events are recorded
+        for (int idx = 0; idx < 2000; ++idx) {
+            stats.recordEvent(GameStats.Event.MISSILE_HIT);
+        }
+
+        // THEN the journal has been compacted
+        assertTrue(journal.length() < 2 * JournalGameStatsImplIO.MIN_COMPACT_SIZE);
+
+        // AND it still contains the right count
+        GameStats stats2 = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        assertThat(stats2.getEventCount(GameStats.Event.MISSILE_HIT), is(2000));
+    }
+
+    @Test
+    public void testFailedAppendIsWrittenAgain() {
+        // GIVEN stats saved in a journal, whose next append fails
+        FailingFileHandle journal = new FailingFileHandle(getFile("stats.journal").file());
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        stats.recordEvent(GameStats.Event.MISSILE_HIT);
+        journal.mFailNextWrite = true;
+        try {
+            stats.recordEvent(GameStats.Event.PICKED_BONUS);
+            fail("The write should have failed");
+        } catch (GdxRuntimeException e) {
+            // Expected
+        }
+
+        // WHEN another event is recorded
+        stats.recordEvent(GameStats.Event.MISSILE_HIT);
+
+        // THEN the journal contains all the events, including the one whose write failed
+        GameStats stats2 = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        assertThat(stats2.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
+        assertThat(stats2.getEventCount(GameStats.Event.PICKED_BONUS), is(1));
+    }
+
+    @Test
+    public void testTruncatedRecordIsSkipped() {
+        // GIVEN a journal whose last record has been truncated by a crash
+        FileHandle journal = getFile("stats.journal");
+        journal.writeString(
+                "{\"type\":\"EVENT\",\"id\":\"MISSILE_HIT\",\"value\":3}\n"
+                        + "{\"type\":\"EVENT\",\"id\":\"MISSILE_HIT\",\"va",
+                false);
+
+        // WHEN it is loaded, and a new event is recorded
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        assertThat(stats.getEventCount(GameStats.Event.MISSILE_HIT), is(3));
+        stats.recordEvent(GameStats.Event.PICKED_BONUS);
+
+        // THEN the journal is valid again
+        GameStats stats2 = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        assertThat(stats2.getEventCount(GameStats.Event.MISSILE_HIT), is(3));
+        assertThat(stats2.getEventCount(GameStats.Event.PICKED_BONUS), is(1));
+    }
+
+    @Test
+    public void testImportLegacyFile() {
+        // GIVEN stats saved in the legacy JSON format
+        FileHandle legacyFile = getFile("stats.json");
+        GameStats legacyStats = new GameStatsImpl(new JsonGameStatsImplIO(legacyFile));
+        legacyStats
+                .getTrackStats(mTrack)
+                .addResult(TrackStats.ResultType.TOTAL, new TrackResult("bob", 42));
+        legacyStats.recordIntEvent(GameStats.Event.LEAVING_ROAD, 5);
+
+        // WHEN the journal is created
+        FileHandle journal = getFile("stats.journal");
+        GameStats stats = new GameStatsImpl(new JournalGameStatsImplIO(journal, legacyFile));
+
+        // THEN it contains the legacy stats
+        assertThat(journal.exists(), is(true));
+        assertThat(stats.getEventCount(GameStats.Event.LEAVING_ROAD), is(5));
+
+        // AND they are still there once the journal is loaded
+        GameStats stats2 = new GameStatsImpl(new JournalGameStatsImplIO(journal, null));
+        ArrayList<TrackResult> results =
+                stats2.getTrackStats(mTrack).get(TrackStats.ResultType.TOTAL);
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).value, is(42f));
+        assertThat(stats2.getEventCount(GameStats.Event.LEAVING_ROAD), is(5));
+    }
+
+    private FileHandle getFile(String name) {
+        return new FileHandle(mTemporaryFolder.getRoot() + "/" + name);
+    }
+}
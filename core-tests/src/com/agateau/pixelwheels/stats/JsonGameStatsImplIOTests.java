@@ -75,6 +75,48 @@ public class JsonGameStatsImplIOTests {
         assertThat(gameStats2.getEventCount(GameStats.Event.MISSILE_HIT), is(2));
     }
 
+    @Test
+    public void testSaveReplacesFileAtomically() {
+        // GIVEN an existing stats file
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/io.json");
+        JsonGameStatsImplIO io = new JsonGameStatsImplIO(testFile);
+        GameStats gameStats = new GameStatsImpl(io);
+        gameStats.recordEvent(GameStats.Event.PICKED_BONUS);
+
+        // WHEN the stats are saved again
+        gameStats.recordEvent(GameStats.Event.PICKED_BONUS);
+
+        // THEN the file contains the new stats
+        GameStatsImpl gameStats2 = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+        assertThat(gameStats2.getEventCount(GameStats.Event.PICKED_BONUS), is(2));
+
+        // AND no temporary file is left behind
+        assertThat(testFile.sibling("io.json.tmp").exists(), is(false));
+    }
+
+    @Test
+    public void testInterruptedSaveIsRecovered() {
+        // GIVEN a stats file
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/io.json");
+        GameStats gameStats = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+        gameStats.recordEvent(GameStats.Event.PICKED_BONUS);
+
+        // AND a crash after the file has been deleted, but before the temporary file has been
+        // renamed
+        FileHandle tmpFile = testFile.sibling("io.json.tmp");
+        testFile.moveTo(tmpFile);
+
+        // WHEN the stats are loaded
+        GameStatsImpl gameStats2 = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+
+        // THEN they come from the temporary file
+        assertThat(gameStats2.getEventCount(GameStats.Event.PICKED_BONUS), is(1));
+
+        // AND the temporary file has been renamed
+        assertThat(testFile.exists(), is(true));
+        assertThat(tmpFile.exists(), is(false));
+    }
+
     private void checkRecords(TrackStats stats, int rank, float expectedLap) {
         float expectedTotal = expectedLap * 3;
         ArrayList<TrackResult> results = stats.get(TrackStats.ResultType.LAP);
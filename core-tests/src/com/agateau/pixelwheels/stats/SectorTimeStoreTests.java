@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.racer.SectorTimes;
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SectorTimeStoreTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testLoadMissingFile() {
+        SectorTimeStore store = SectorTimeStore.load(getTestFile(), 3);
+        assertThat(store.getSectionCount(), is(3));
+        assertThat(store.getBestLapTime(), is(-1f));
+        assertThat(store.getBestSectorTime(0), is(-1f));
+        assertThat(store.getDeltaToBestLap(0, 12), is(0f));
+    }
+
+    @Test
+    public void testMergeSaveAndLoad() {
+        // GIVEN a store which has been merged with the times of 2 racers, then saved
+        FileHandle handle = getTestFile();
+        SectorTimeStore store = SectorTimeStore.load(handle, 3);
+        assertThat(store.merge(createTimes(2, 5, 9)), is(true));
+        assertThat(store.merge(createTimes(3, 5, 10)), is(true));
+        store.save();
+
+        // WHEN it is loaded again
+        store = SectorTimeStore.load(handle, 3);
+
+        // THEN it contains the best sector times of both racers
+        assertThat(store.getBestSectorTime(0), is(2f));
+        assertThat(store.getBestSectorTime(1), is(2f));
+        assertThat(store.getBestSectorTime(2), is(4f));
+
+        // AND the splits of the best lap
+        assertThat(store.getBestLapTime(), is(9f));
+        assertThat(store.getBestLapSplit(1), is(5f));
+        assertThat(store.getDeltaToBestLap(1, 6), is(1f));
+    }
+
+    @Test
+    public void testDeltaIgnoresSkippedSections() {
+        // GIVEN a store whose best lap skipped section 1
+        SectorTimeStore store = SectorTimeStore.load(getTestFile(), 3);
+        SectorTimes times = new SectorTimes(3);
+        times.onSectionChanged(0, 2, 2);
+        times.onSectionChanged(2, 0, 9);
+        times.onLapCompleted(9);
+        store.merge(times);
+
+        // THEN section 1 has no best time and no delta
+        assertThat(store.getBestSectorTime(1), is(-1f));
+        assertThat(store.getDeltaToBestLap(1, 6), is(0f));
+
+        // AND a skipped section has no delta either
+        assertThat(store.getDeltaToBestLap(0, -1), is(0f));
+    }
+
+    @Test
+    public void testMergeWorseTimes() {
+        SectorTimeStore store = SectorTimeStore.load(getTestFile(), 3);
+        store.merge(createTimes(2, 5, 9));
+
+        assertThat(store.merge(createTimes(3, 6, 10)), is(false));
+    }
+
+    @Test
+    public void testLoadFileForOtherSectionCount() {
+        FileHandle handle = getTestFile();
+        SectorTimeStore store = SectorTimeStore.load(handle, 3);
+        store.merge(createTimes(2, 5, 9));
+        store.save();
+
+        store = SectorTimeStore.load(handle, 4);
+
+        assertThat(store.getSectionCount(), is(4));
+        assertThat(store.getBestLapTime(), is(-1f));
+    }
+
+    private FileHandle getTestFile() {
+        return new FileHandle(mTemporaryFolder.getRoot() + "/sectortimes/t.pwst");
+    }
+
+    private static SectorTimes createTimes(float... splits) {
+        SectorTimes times = new SectorTimes(splits.length);
+        for (int idx = 0; idx < splits.length; ++idx) {
+            times.onSectionChanged(idx, (idx + 1) % splits.length, splits[idx]);
+        }
+        times.onLapCompleted(splits[splits.length - 1]);
+        return times;
+    }
+}
@@ -41,7 +41,7 @@ public class TrackStatsTests {
 
     @Test
     public void testInit() {
-        TrackStats trackStats = new TrackStats(mStats);
+        TrackStats trackStats = new TrackStats(mStats, "t");
 
         ArrayList<TrackResult> records;
 
@@ -53,15 +53,15 @@ public class TrackStatsTests {
 
     @Test
     public void testAddResultCausesSaving() {
-        TrackStats trackStats = new TrackStats(mStats);
+        TrackStats trackStats = new TrackStats(mStats, "t");
         int row = trackStats.addResult(TrackStats.ResultType.LAP, new TrackResult("bob", 12));
         assertThat(row, is(0));
-        verify(mStats).save();
+        verify(mStats).save(StatKeys.forTrack("t"));
     }
 
     @Test
     public void testAddResults() {
-        TrackStats trackStats = new TrackStats(mStats);
+        TrackStats trackStats = new TrackStats(mStats, "t");
 
         checkAddResult(trackStats, 12, 0); // 12
         checkAddResult(trackStats, 14, 1); // 12, 14
@@ -74,7 +74,7 @@ public class TrackStatsTests {
         int rank = trackStats.addResult(TrackStats.ResultType.LAP, new TrackResult("bob", value));
         assertThat(rank, is(expectedRank));
         if (rank >= 0) {
-            verify(mStats).save();
+            verify(mStats).save(StatKeys.forTrack("t"));
         } else {
             verifyZeroInteractions(mStats);
         }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WriteBehindGameStatsImplIOTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private static class CountingJsonIO extends JsonGameStatsImplIO {
+        int mWriteCount = 0;
+        boolean mFailNextWrite = false;
+        final CountDownLatch mFirstWriteDone = new CountDownLatch(1);
+
+        CountingJsonIO(FileHandle handle) {
+            super(handle);
+        }
+
+        @Override
+        void write(String json) {
+            ++mWriteCount;
+            try {
+                if (mFailNextWrite) {
+                    mFailNextWrite = false;
+                    throw new GdxRuntimeException("Disk full");
+                }
+                super.write(json);
+            } finally {
+                mFirstWriteDone.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void testSaveDoesNotWriteImmediately() {
+        // GIVEN game stats using a write-behind IO
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/stats.json");
+        CountingJsonIO jsonIO = new CountingJsonIO(testFile);
+        WriteBehindGameStatsImplIO io = new WriteBehindGameStatsImplIO(jsonIO);
+        GameStats stats = new GameStatsImpl(io);
+
+        // WHEN an event is recorded
+        stats.recordEvent(GameStats.Event.MISSILE_HIT);
+
+        // THEN nothing has been written yet
+        assertThat(jsonIO.mWriteCount, is(0));
+        assertThat(testFile.exists(), is(false));
+        io.close();
+    }
+
+    @Test
+    public void testChangesAreCoalesced() {
+        // GIVEN game stats using a write-behind IO
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/stats.json");
+        CountingJsonIO jsonIO = new CountingJsonIO(testFile);
+        WriteBehindGameStatsImplIO io = new WriteBehindGameStatsImplIO(jsonIO);
+        GameStats stats = new GameStatsImpl(io);
+
+        // WHEN many events are recorded, then the IO is closed
+        for (int idx = 0; idx < 100; ++idx) {
+            stats.recordEvent(GameStats.Event.LEAVING_ROAD);
+        }
+        io.close();
+
+        // THEN the stats have been written once
+        assertThat(jsonIO.mWriteCount, is(1));
+
+        // AND they can be loaded back
+        GameStatsImpl stats2 = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+        assertThat(stats2.getEventCount(GameStats.Event.LEAVING_ROAD), is(100));
+    }
+
+    @Test
+    public void testFailedWriteIsRetried() throws InterruptedException {
+        // GIVEN game stats using a write-behind IO, whose next write fails
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/stats.json");
+        CountingJsonIO jsonIO = new CountingJsonIO(testFile);
+        jsonIO.mFailNextWrite = true;
+        WriteBehindGameStatsImplIO io = new WriteBehindGameStatsImplIO(jsonIO);
+        GameStats stats = new GameStatsImpl(io);
+
+        // WHEN an event is recorded and flushed, then the IO is closed without other changes
+        stats.recordEvent(GameStats.Event.MISSILE_HIT);
+        stats.flush();
+        // close() drops queued writes, so wait for the flush to be done
+        jsonIO.mFirstWriteDone.await();
+        io.close();
+
+        // THEN the stats have been written again after the failure
+        assertThat(jsonIO.mWriteCount, is(2));
+        GameStatsImpl stats2 = new GameStatsImpl(new JsonGameStatsImplIO(testFile));
+        assertThat(stats2.getEventCount(GameStats.Event.MISSILE_HIT), is(1));
+    }
+
+    @Test
+    public void testCloseWithoutChangesDoesNotWrite() {
+        // GIVEN game stats using a write-behind IO
+        FileHandle testFile = new FileHandle(mTemporaryFolder.getRoot() + "/stats.json");
+        CountingJsonIO jsonIO = new CountingJsonIO(testFile);
+        WriteBehindGameStatsImplIO io = new WriteBehindGameStatsImplIO(jsonIO);
+        GameStats stats = new GameStatsImpl(io);
+
+        // WHEN the stats are flushed without any change, then the IO is closed
+        stats.flush();
+        io.close();
+
+        // THEN nothing has been written
+        assertThat(jsonIO.mWriteCount, is(0));
+    }
+}
@@ -19,6 +19,7 @@
 package com.agateau.pixelwheels.utils.tests;
 
 import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.IGNORE;
+import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.STOP_FAILED;
 import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.STOP_SUCCESS;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNull;
@@ -29,6 +30,7 @@ import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -92,6 +94,103 @@ public class ArcClosestBodyFinderTests {
         assertEquals(closestBody, found);
     }
 
+    @Test
+    public void testCandidates() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 0);
+        Body target = createSquareBody(world, 1, 1);
+        Array<Body> candidates = Array.with(target);
+
+        Body found = finder.find(world, candidates, new Vector2(0, 0), 90);
+        assertNull(found);
+
+        found = finder.find(world, candidates, new Vector2(0, 0), 45);
+        assertEquals(target, found);
+
+        // Too far
+        found = finder.find(world, candidates, new Vector2(-10, -10), 45);
+        assertNull(found);
+    }
+
+    @Test
+    public void testBodyInFrontOfCandidate() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 0);
+        Body bodyInFront = createSquareBody(world, 1, 1);
+        Body candidate = createSquareBody(world, 3, 3);
+
+        // Like with the ray fan, the closest body accepted by the filter is found, even if it is
+        // not a candidate
+        Body found = finder.find(world, Array.with(candidate), new Vector2(0, 0), 45);
+        assertEquals(bodyInFront, found);
+
+        // Candidates out of the arc are not looked for
+        found = finder.find(world, Array.with(candidate), new Vector2(0, 0), 0);
+        assertNull(found);
+    }
+
+    @Test
+    public void testClosestCandidate() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 90);
+        Body closestBody = createSquareBody(world, 0, 2);
+        Body otherBody = createSquareBody(world, 3, 0);
+
+        Body found = finder.find(world, Array.with(otherBody, closestBody), new Vector2(0, 0), 45);
+        assertEquals(closestBody, found);
+    }
+
+    @Test
+    public void testCandidateFilter() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 0);
+        final Body ignoredBody = createSquareBody(world, 1, 1);
+        Body acceptedBody = createSquareBody(world, 3, 3);
+
+        finder.setBodyFilter(body -> body == ignoredBody ? IGNORE : STOP_SUCCESS);
+
+        Body found =
+                finder.find(world, Array.with(ignoredBody, acceptedBody), new Vector2(0, 0), 45);
+        assertEquals(acceptedBody, found);
+    }
+
+    @Test
+    public void testCandidateBehindObstacle() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 90);
+        final Body obstacle = createSquareBody(world, 1, 1);
+        Body hiddenBody = createSquareBody(world, 3, 3);
+        Body visibleBody = createSquareBody(world, 5, 0);
+
+        finder.setBodyFilter(body -> body == obstacle ? STOP_FAILED : STOP_SUCCESS);
+
+        Array<Body> candidates = Array.with(hiddenBody);
+        Body found = finder.find(world, candidates, new Vector2(0, 0), 45);
+        assertNull(found);
+
+        candidates.add(visibleBody);
+        found = finder.find(world, candidates, new Vector2(0, 0), 45);
+        assertEquals(visibleBody, found);
+    }
+
+    @Test
+    public void testCandidateOnTheEdgeOfTheArc() {
+        World world = createWorld();
+        ArcClosestBodyFinder finder = createCandidateFinder(10, 90);
+        // The center of the body is out of the arc, but its top is in it
+        Body target = createSquareBody(world, 3, -0.4f);
+
+        Body found = finder.find(world, Array.with(target), new Vector2(0, 0), 45);
+        assertEquals(target, found);
+    }
+
+    private ArcClosestBodyFinder createCandidateFinder(float depth, float arc) {
+        ArcClosestBodyFinder finder = new ArcClosestBodyFinder(depth, arc);
+        // Bodies created by createSquareBody() fit in a circle of this radius
+        finder.setCandidateRadius(0.71f);
+        return finder;
+    }
+
     private World createWorld() {
         return new World(new Vector2(0, 0), true);
     }
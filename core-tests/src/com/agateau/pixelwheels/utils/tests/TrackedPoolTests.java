@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.pixelwheels.utils.TrackedPool;
+import com.badlogic.gdx.utils.Pool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TrackedPoolTests {
+    public static class Item implements Pool.Poolable {
+        boolean initialized = false;
+        int resetCount = 0;
+
+        @Override
+        public void reset() {
+            ++resetCount;
+        }
+    }
+
+    @Test
+    public void testUsageIsTracked() {
+        // GIVEN an empty pool
+        TrackedPool<Item> pool = new TrackedPool<>(Item.class);
+
+        // WHEN 2 objects are obtained, and one of them is freed
+        Item item1 = pool.obtain();
+        pool.obtain();
+        pool.free(item1);
+
+        // THEN both have been created by obtain()
+        assertThat(pool.getUsedCount(), is(1));
+        assertThat(pool.getHighWaterMark(), is(2));
+        assertThat(pool.getMissCount(), is(2));
+        assertThat(item1.resetCount, is(1));
+
+        // WHEN 2 more objects are obtained
+        pool.obtain();
+        pool.obtain();
+
+        // THEN only the last one has been created by obtain()
+        assertThat(pool.getUsedCount(), is(3));
+        assertThat(pool.getHighWaterMark(), is(3));
+        assertThat(pool.getMissCount(), is(3));
+    }
+
+    @Test
+    public void testPrewarm() {
+        // GIVEN a pool with 1 used object
+        TrackedPool<Item> pool = new TrackedPool<>(Item.class);
+        pool.obtain();
+
+        // WHEN it is prewarmed to 3 objects
+        pool.prewarm(3, item -> item.initialized = true);
+
+        // THEN 2 objects have been created, without being reset
+        assertThat(pool.getFree(), is(2));
+        Item item1 = pool.obtain();
+        Item item2 = pool.obtain();
+        assertThat(item1.initialized, is(true));
+        assertThat(item1.resetCount, is(0));
+        assertThat(item2.initialized, is(true));
+        assertThat(item2.resetCount, is(0));
+
+        // AND obtaining them is not a miss
+        assertThat(pool.getMissCount(), is(1));
+        assertThat(pool.getHighWaterMark(), is(3));
+
+        // WHEN it is prewarmed again to 3 objects
+        pool.prewarm(3, null);
+
+        // THEN no object has been created
+        assertThat(pool.getFree(), is(0));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.agateau.utils.LogHistogram;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LogHistogramTests {
+    private static final float BUDGET = 1 / 60f;
+
+    /** Percentiles can be one bucket too high, a bucket is 2^(1/8) ~ 1.09 times wider */
+    private static final float TOLERANCE = 1.1f;
+
+    @Test
+    public void testEmpty() {
+        LogHistogram histogram = new LogHistogram(BUDGET);
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getPercentile(50), is(0f));
+        assertThat(histogram.getMax(), is(0f));
+    }
+
+    @Test
+    public void testPercentiles() {
+        // GIVEN 100 frames of 1 to 100 ms
+        LogHistogram histogram = new LogHistogram(BUDGET);
+        for (int ms = 1; ms <= 100; ++ms) {
+            histogram.record(ms / 1000f);
+        }
+
+        // THEN percentiles are close to the real values
+        assertThat(histogram.getCount(), is(100));
+        assertClose(histogram.getPercentile(50), 0.050f);
+        assertClose(histogram.getPercentile(95), 0.095f);
+        assertClose(histogram.getPercentile(99), 0.099f);
+
+        // AND the max is exact
+        assertThat(histogram.getMax(), is(0.1f));
+        assertThat(histogram.getPercentile(100), is(0.1f));
+    }
+
+    @Test
+    public void testOverBudget() {
+        LogHistogram histogram = new LogHistogram(BUDGET);
+        histogram.record(0.010f);
+        histogram.record(0.020f);
+        histogram.record(0.5f);
+        assertThat(histogram.getOverBudgetCount(), is(2));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        // GIVEN values below and above the bucket range
+        LogHistogram histogram = new LogHistogram(BUDGET);
+        histogram.record(0);
+        histogram.record(10);
+
+        // THEN they are counted in the first and last buckets
+        assertThat(histogram.getBucketCount(0), is(1));
+        assertThat(histogram.getBucketCount(LogHistogram.BUCKET_COUNT - 1), is(1));
+        assertThat(histogram.getPercentile(50), is(LogHistogram.MIN_VALUE));
+        assertThat(histogram.getPercentile(100), is(10f));
+    }
+
+    @Test
+    public void testReset() {
+        LogHistogram histogram = new LogHistogram(BUDGET);
+        histogram.record(0.5f);
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0));
+        assertThat(histogram.getOverBudgetCount(), is(0));
+        assertThat(histogram.getMax(), is(0f));
+    }
+
+    private static void assertClose(float actual, float expected) {
+        assertTrue(
+                "Expected " + expected + ", got " + actual,
+                actual >= expected && actual <= expected * TOLERANCE);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Application;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class NLogTests {
+    private final ArrayList<String> mLines = new ArrayList<>();
+    private final NLog.Printer mPrinter =
+            (level, tag, message) -> mLines.add(level + " " + tag + " " + message);
+
+    @Before
+    public void setUp() {
+        NLog.addPrinter(mPrinter);
+    }
+
+    @After
+    public void tearDown() {
+        NLog.stopAsync();
+        NLog.removePrinter(mPrinter);
+        NLog.setLevel(Application.LOG_DEBUG);
+        NLog.setCallerTagEnabled(true);
+    }
+
+    @Test
+    public void testAsyncMode() {
+        // GIVEN NLog in async mode
+        NLog.startAsync(16);
+
+        // WHEN messages are logged and flushed
+        for (int idx = 0; idx < 3; ++idx) {
+            NLog.i("message %d", idx);
+        }
+        NLog.flush();
+
+        // THEN they have been printed in order, tagged with their caller
+        assertThat(mLines.size(), is(3));
+        for (int idx = 0; idx < 3; ++idx) {
+            assertThat(
+                    mLines.get(idx),
+                    is(Application.LOG_INFO + " NLogTests.testAsyncMode message " + idx));
+        }
+    }
+
+    @Test
+    public void testAsyncModeWithoutCallerTag() {
+        // GIVEN NLog in async mode, without caller tags
+        NLog.startAsync(16);
+        NLog.setCallerTagEnabled(false);
+
+        // WHEN a message is logged and flushed
+        NLog.e("oops");
+        NLog.flush();
+
+        // THEN it has been printed without a tag
+        assertThat(mLines.size(), is(1));
+        assertThat(mLines.get(0), is(Application.LOG_ERROR + "  oops"));
+    }
+
+    @Test
+    public void testAsyncModeSnapshotsArguments() {
+        // GIVEN NLog in async mode, without caller tags
+        NLog.startAsync(16);
+        NLog.setCallerTagEnabled(false);
+
+        // WHEN a mutable argument is logged, then modified before the message is printed
+        ArrayList<String> list = new ArrayList<>();
+        list.add("a");
+        NLog.i("list: %s, count: %d", list, list.size());
+        list.add("b");
+        NLog.flush();
+
+        // THEN the message shows the argument as it was when it was logged
+        assertThat(mLines.size(), is(1));
+        assertThat(mLines.get(0), is(Application.LOG_INFO + "  list: [a], count: 1"));
+    }
+
+    @Test
+    public void testLevelFiltering() {
+        // GIVEN NLog only printing errors
+        NLog.setLevel(Application.LOG_ERROR);
+
+        // WHEN messages are logged at all levels
+        NLog.d("debug");
+        NLog.i("info");
+        NLog.e("error");
+
+        // THEN only the error has been printed
+        assertThat(mLines.size(), is(1));
+        assertThat(
+                mLines.get(0), is(Application.LOG_ERROR + " NLogTests.testLevelFiltering error"));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.tests;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import com.agateau.utils.telemetry.ColumnType;
+import com.agateau.utils.telemetry.TelemetryChannel;
+import com.agateau.utils.telemetry.TelemetryReader;
+import com.agateau.utils.telemetry.TelemetryWriter;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.IOException;
+import java.util.ArrayList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TelemetryWriterTests {
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        // GIVEN a telemetry file with 2 channels, one spanning several blocks
+        FileHandle file = new FileHandle(mTemporaryFolder.getRoot() + "/test.pwtl");
+        TelemetryWriter writer = new TelemetryWriter(file);
+        TelemetryChannel speed = writer.createChannel("speed");
+        int idColumn = speed.addColumn("id", ColumnType.INT);
+        int valueColumn = speed.addColumn("value", ColumnType.FLOAT);
+        TelemetryChannel events = writer.createChannel("events");
+        events.addColumn("count", ColumnType.INT);
+
+        final int rowCount = 10000;
+        for (int row = 0; row < rowCount; ++row) {
+            speed.setInt(idColumn, row);
+            speed.setFloat(valueColumn, row / 2f);
+            speed.endRow();
+        }
+        events.setInt(0, 42);
+        events.endRow();
+        writer.close();
+
+        // WHEN it is read back
+        ArrayList<String> channelNames = new ArrayList<>();
+        ArrayList<String> speedRows = new ArrayList<>();
+        ArrayList<String> eventRows = new ArrayList<>();
+        TelemetryReader.read(
+                file.read(),
+                new TelemetryReader.Handler() {
+                    ColumnType[][] mTypes = new ColumnType[2][];
+
+                    @Override
+                    public void onChannel(
+                            int channelId,
+                            String name,
+                            String[] columnNames,
+                            ColumnType[] columnTypes) {
+                        channelNames.add(name + ":" + String.join(",", columnNames));
+                        mTypes[channelId] = columnTypes;
+                    }
+
+                    @Override
+                    public void onRow(int channelId, int[] values) {
+                        StringBuilder builder = new StringBuilder();
+                        for (int idx = 0; idx < values.length; ++idx) {
+                            builder.append(mTypes[channelId][idx].format(values[idx])).append(' ');
+                        }
+                        (channelId == 0 ? speedRows : eventRows).add(builder.toString());
+                    }
+                });
+
+        // THEN it contains the channels and rows which have been written
+        assertThat(channelNames.size(), is(2));
+        assertThat(channelNames.get(0), is("speed:id,value"));
+        assertThat(channelNames.get(1), is("events:count"));
+        assertThat(speedRows.size(), is(rowCount));
+        assertThat(speedRows.get(0), is("0 0.0 "));
+        assertThat(speedRows.get(rowCount - 1), is("9999 4999.5 "));
+        assertThat(eventRows.size(), is(1));
+        assertThat(eventRows.get(0), is("42 "));
+    }
+}
@@ -48,6 +48,19 @@ public class GamePlay {
     // speed
     public float aiSpeedLimiter = 0.8f;
 
+    // AI pilots plan their next target every aiPlanInterval ticks, and all plans of a tick can
+    // make at most aiRayCastBudget ray casts, see AIScheduler
+    public int aiPlanInterval = 3;
+    public int aiRayCastBudget = 24;
+
+    // If the track has a racing line, and it is enabled for this track (see Track), AI pilots
+    // follow it instead of aiming at waypoints
+    public boolean aiFollowRacingLine = true;
+
+    // During the count down, the pools of bullets, mines, explosions... are filled with
+    // poolPrewarmFactor times the objects the racers usually need. 0 disables it
+    public float poolPrewarmFactor = 1;
+
     public boolean alwaysShowTouchInput = false;
 
     public boolean showTestTrack = false;
@@ -19,11 +19,18 @@
 package com.agateau.pixelwheels;
 
 import com.agateau.pixelwheels.bonus.BonusPool;
+import com.agateau.pixelwheels.bonus.Mine;
 import com.agateau.pixelwheels.gameobjet.GameObject;
 import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.AIScheduler;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.StaticVisibilityTable;
 import com.agateau.pixelwheels.racescreen.CountDown;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.SectorTimeStore;
+import com.agateau.pixelwheels.utils.TrackedPool;
+import com.agateau.utils.telemetry.TelemetryWriter;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 
@@ -49,7 +56,10 @@ public interface GameWorld {
 
     Array<Racer> getRacers();
 
-    Array<BonusPool> getBonusPools();
+    Array<BonusPool<?>> getBonusPools();
+
+    /** Returns all the pools of this world: the ones returned by getPool() and the bonus pools */
+    Array<TrackedPool<?>> getPools();
 
     Array<GameObject> getActiveGameObjects();
 
@@ -63,8 +73,53 @@ public interface GameWorld {
 
     GameStats getGameStats();
 
+    /** The gameplay values used by this world */
+    GamePlay getGamePlay();
+
+    /**
+     * Returns the best sector times of the track, or null if this world does not record them, for
+     * example when it runs without any screen
+     */
+    SectorTimeStore getSectorTimeStore();
+
+    /** Returns the writer collecting telemetry, or null if GamePlay.createSpeedReport is false */
+    TelemetryWriter getTelemetryWriter();
+
+    /** Returns the pool used to recycle the game objects of class @p type created in this world */
+    <T> TrackedPool<T> getPool(Class<T> type);
+
+    /**
+     * The random generator to use for anything which can change the outcome of the race. Each world
+     * has its own generator, so that races created with the same seed make the same draws
+     */
+    RandomXS128 getRandom();
+
+    /** Returns the scheduler which decides when AI pilots plan their next target */
+    AIScheduler getAIScheduler();
+
+    /** Tells the AI whether walls can be between a position and a waypoint */
+    StaticVisibilityTable getStaticVisibilityTable();
+
+    /**
+     * The mines which have been dropped on the road. Unlike walls, they come and go during the
+     * race, so the AI must check them even when the StaticVisibilityTable says the way is clear
+     */
+    Array<Mine> getDroppedMines();
+
     void act(float delta);
 
+    /**
+     * Returns how far the world is between its last physics step and the next one, from 0 to 1.
+     * Renderers use it to draw Interpolated objects between their previous and current state.
+     */
+    float getInterpolationAlpha();
+
+    /**
+     * True if game objects act on the fixed physics time step. If false, they act once per frame,
+     * and only the physics bodies move on the fixed time step
+     */
+    boolean isDeterministic();
+
     State getState();
 
     void startRace();
@@ -24,6 +24,9 @@ import com.agateau.pixelwheels.gamesetup.ChampionshipMaestro;
 import com.agateau.pixelwheels.gamesetup.Maestro;
 import com.agateau.pixelwheels.gamesetup.PlayerCount;
 import com.agateau.pixelwheels.gamesetup.QuickRaceMaestro;
+import com.agateau.pixelwheels.racescreen.RaceScreen;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayIO;
 import com.agateau.pixelwheels.rewards.RewardManager;
 import com.agateau.pixelwheels.screens.MainMenuScreen;
 import com.agateau.pixelwheels.screens.MouseCursorManager;
@@ -33,7 +36,8 @@ import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.sound.DefaultAudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.GameStatsImpl;
-import com.agateau.pixelwheels.stats.JsonGameStatsImplIO;
+import com.agateau.pixelwheels.stats.JournalGameStatsImplIO;
+import com.agateau.pixelwheels.stats.WriteBehindGameStatsImplIO;
 import com.agateau.ui.ScreenStack;
 import com.agateau.utils.Assert;
 import com.agateau.utils.FileUtils;
@@ -50,6 +54,8 @@ import com.badlogic.gdx.physics.box2d.Box2D;
 
 /** The game */
 public class PwGame extends Game implements GameConfig.ChangeListener {
+    private static final int LOG_QUEUE_CAPACITY = 1024;
+
     private Assets mAssets;
     private final ScreenStack mScreenStack = new ScreenStack(this);
     private Maestro mMaestro;
@@ -59,8 +65,10 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
 
     private Introspector mGamePlayIntrospector;
     private Introspector mDebugIntrospector;
+    private WriteBehindGameStatsImplIO mGameStatsIO;
     private GameStats mGameStats;
     private RewardManager mRewardManager;
+    private String mStartupReplayPath;
 
     public Assets getAssets() {
         return mAssets;
@@ -74,8 +82,15 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         return mRewardManager;
     }
 
+    /** Makes the game play back the replay stored in path instead of showing the main menu */
+    public void setStartupReplayPath(String path) {
+        mStartupReplayPath = path;
+    }
+
     @Override
     public void create() {
+        // Keep logging from the game loop cheap
+        NLog.startAsync(LOG_QUEUE_CAPACITY);
         mGamePlayIntrospector =
                 new Introspector(
                         GamePlay.instance,
@@ -95,7 +110,21 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         setupRewardManager();
         Box2D.init();
         setupDisplay();
-        showMainMenu();
+        if (mStartupReplayPath == null) {
+            showMainMenu();
+        } else {
+            showStartupReplay();
+        }
+    }
+
+    private void showStartupReplay() {
+        Replay replay = ReplayIO.read(Gdx.files.absolute(mStartupReplayPath));
+        if (replay == null) {
+            NLog.e("Could not read replay from %s", mStartupReplayPath);
+            showMainMenu();
+            return;
+        }
+        showReplay(replay);
     }
 
     @Override
@@ -108,6 +137,20 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         super.render();
     }
 
+    @Override
+    public void pause() {
+        super.pause();
+        // The app may be killed while paused, especially on Android
+        mGameStats.flush();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        mGameStatsIO.close();
+        NLog.stopAsync();
+    }
+
     void refreshAssets() {
         mAssets = new Assets();
         // Tracks and championship have been recreated, need to recreate reward manager
@@ -122,15 +165,22 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
     }
 
     private void setupTrackStats() {
-        JsonGameStatsImplIO io =
-                new JsonGameStatsImplIO(FileUtils.getUserWritableFile("gamestats.json"));
-        mGameStats = new GameStatsImpl(io);
+        JournalGameStatsImplIO io =
+                new JournalGameStatsImplIO(
+                        FileUtils.getUserWritableFile("gamestats.journal"),
+                        FileUtils.getUserWritableFile("gamestats.json"));
+        mGameStatsIO = new WriteBehindGameStatsImplIO(io);
+        mGameStats = new GameStatsImpl(mGameStatsIO);
     }
 
     private void setupRewardManager() {
         Assert.check(mGameStats != null, "GameStats must be instantiated first");
         Assert.check(mAssets != null, "Assets must be instantiated first");
-        mRewardManager = new RewardManager(mGameStats, mAssets.championships);
+        mRewardManager =
+                new RewardManager(
+                        mGameStats,
+                        mAssets.championships,
+                        FileUtils.getUserWritableFile("rewards.cache"));
         RewardManagerSetup.createChampionshipRules(mRewardManager, mAssets.championships);
         RewardManagerSetup.createVehicleRules(mRewardManager, mAssets);
     }
@@ -146,6 +196,33 @@ public class PwGame extends Game implements GameConfig.ChangeListener {
         mScreenStack.push(screen);
     }
 
+    public void showReplay(Replay replay) {
+        mScreenStack.clear();
+        mScreenStack.push(createReplayScreen(replay));
+    }
+
+    private Screen createReplayScreen(Replay replay) {
+        RaceScreen.Listener listener =
+                new RaceScreen.Listener() {
+                    @Override
+                    public void onRestartPressed() {
+                        ((RaceScreen) getScreen()).forgetTrack();
+                        replaceScreen(createReplayScreen(replay));
+                    }
+
+                    @Override
+                    public void onQuitPressed() {
+                        showMainMenu();
+                    }
+
+                    @Override
+                    public void onNextTrackPressed() {
+                        showMainMenu();
+                    }
+                };
+        return new RaceScreen(this, listener, replay);
+    }
+
     public void showQuickRace(PlayerCount playerCount) {
         mMaestro = new QuickRaceMaestro(this, playerCount);
         mMaestro.start();
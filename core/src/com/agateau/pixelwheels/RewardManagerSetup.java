@@ -24,11 +24,13 @@ import com.agateau.pixelwheels.rewards.Reward;
 import com.agateau.pixelwheels.rewards.RewardManager;
 import com.agateau.pixelwheels.rewards.RewardRule;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.StatKeys;
 import com.agateau.pixelwheels.utils.StringUtils;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.utils.CollectionUtils;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.utils.Array;
+import java.util.HashSet;
 import java.util.Set;
 
 /** Helper class to create the reward manager rules */
@@ -83,6 +85,16 @@ class RewardManagerSetup {
                                     "Rank 3 or better at %s championship", previous.getName());
                         }
 
+                        @Override
+                        public Set<String> getStatKeys() {
+                            Set<String> keys = new HashSet<>();
+                            keys.add(StatKeys.forChampionship(previous));
+                            for (int idx = currentIdx; idx < championships.size; ++idx) {
+                                keys.add(StatKeys.forChampionship(championships.get(idx)));
+                            }
+                            return keys;
+                        }
+
                         private boolean hasAlreadyRacedChampionshipOrAfter(
                                 Array<Championship> championships,
                                 int currentIdx,
@@ -21,11 +21,11 @@ package com.agateau.pixelwheels.bonus;
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.utils.TrackedPool;
 import com.agateau.utils.AgcMathUtils;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** Pool of bonus instances */
-public class BonusPool<T extends Bonus> extends ReflectionPool<T> {
+public class BonusPool<T extends Bonus> extends TrackedPool<T> {
     private final Assets mAssets;
     private final GameWorld mGameWorld;
     private final AudioManager mAudioManager;
@@ -26,12 +26,14 @@ import com.agateau.pixelwheels.gameobjet.AnimationObject;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.Explosable;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
@@ -44,11 +46,10 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
-public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolable, Disposable {
-    private static final ReflectionPool<Bullet> sPool = new ReflectionPool<>(Bullet.class);
+public class Bullet extends GameObjectAdapter
+        implements Collidable, Pool.Poolable, Disposable, Interpolated {
 
     private static final float IMPULSE = 160;
 
@@ -63,6 +64,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
     private boolean mJustShot = false;
 
     private final BodyRegionDrawer mDrawer = new BodyRegionDrawer();
+    private final InterpolatedBody mInterpolatedBody = new InterpolatedBody();
 
     public static Bullet create(
             Assets assets,
@@ -72,7 +74,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
             float originX,
             float originY,
             float angle) {
-        Bullet object = sPool.obtain();
+        Bullet object = gameWorld.getPool(Bullet.class).obtain();
         if (object.mBodyDef == null) {
             object.firstInit(assets);
         }
@@ -87,6 +89,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
         object.mBody = gameWorld.getBox2DWorld().createBody(object.mBodyDef);
         object.mBody.createFixture(object.mShape, 0f);
         object.mBody.setUserData(object);
+        object.mInterpolatedBody.setBody(object.mBody);
         object.mBody.applyLinearImpulse(
                 IMPULSE * MathUtils.cosDeg(angle),
                 IMPULSE * MathUtils.sinDeg(angle),
@@ -103,6 +106,11 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
         return object;
     }
 
+    /** Fills the pool of gameWorld with count bullets, ready to be shot */
+    public static void prewarmPool(GameWorld gameWorld, Assets assets, int count) {
+        gameWorld.getPool(Bullet.class).prewarm(count, bullet -> bullet.firstInit(assets));
+    }
+
     private void firstInit(Assets assets) {
         mAssets = assets;
         mBodyDef = new BodyDef();
@@ -123,17 +131,27 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getPool(Bullet.class).free(this);
     }
 
     @Override
     public void act(float delta) {}
 
+    @Override
+    public void storePreviousState() {
+        mInterpolatedBody.storePreviousState();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mInterpolatedBody.interpolate(alpha);
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         if (zLevel == ZLevel.GROUND) {
             mDrawer.setBatch(batch);
-            mDrawer.draw(mBody, mAssets.bullet);
+            mDrawer.draw(mInterpolatedBody, mAssets.bullet);
         }
     }
 
@@ -157,7 +175,7 @@ public class Bullet extends GameObjectAdapter implements Collidable, Pool.Poolab
 
     private void explode() {
         Vector2 pos = mBody.getPosition();
-        AnimationObject obj = AnimationObject.create(mAssets.impact, pos.x, pos.y);
+        AnimationObject obj = AnimationObject.create(mGameWorld, mAssets.impact, pos.x, pos.y);
         obj.initAudio(mAudioManager, mAssets.soundAtlas.get("impact"));
         mGameWorld.addGameObject(obj);
         setFinished(true);
@@ -24,14 +24,17 @@ import static com.agateau.pixelwheels.utils.ArcClosestBodyFinder.FilterResult.ST
 
 import com.agateau.pixelwheels.BodyIdentifier;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.utils.ArcClosestBodyFinder;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 public class ClosestRacerFinder {
     private final ArcClosestBodyFinder mBodyFinder;
     private final RacerBodyFilter mFilter = new RacerBodyFilter();
+    private final Array<Body> mCandidates = new Array<>();
 
     private static class RacerBodyFilter implements ArcClosestBodyFinder.BodyFilter {
         Racer mIgnoredRacer;
@@ -62,8 +65,18 @@ public class ClosestRacerFinder {
         mFilter.mIgnoredRacer = ignoredRacer;
     }
 
-    public Racer find(World world, Vector2 origin, float angle) {
-        Body body = mBodyFinder.find(world, origin, angle);
+    /** Returns the closest racer in the arc, only looking for the racers of racers */
+    public Racer find(World world, Array<Racer> racers, Vector2 origin, float angle) {
+        mCandidates.clear();
+        float candidateRadius = 0;
+        // Do not use an iterator: callers may be iterating racers themselves
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Vehicle vehicle = racers.get(idx).getVehicle();
+            mCandidates.add(vehicle.getBody());
+            candidateRadius = Math.max(candidateRadius, vehicle.getBoundingRadius());
+        }
+        mBodyFinder.setCandidateRadius(candidateRadius);
+        Body body = mBodyFinder.find(world, mCandidates, origin, angle);
         if (body == null) {
             return null;
         } else {
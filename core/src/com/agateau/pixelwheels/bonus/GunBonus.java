@@ -24,6 +24,7 @@ import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
@@ -135,7 +136,9 @@ public class GunBonus extends BonusAdapter implements Pool.Poolable {
 
         // Shoot
         Vehicle vehicle = mRacer.getVehicle();
-        float angle = vehicle.getAngle() + MathUtils.random(-SPREAD_ANGLE, SPREAD_ANGLE);
+        float angle =
+                vehicle.getAngle()
+                        + AgcMathUtils.random(mGameWorld.getRandom(), -SPREAD_ANGLE, SPREAD_ANGLE);
         Bullet bullet =
                 Bullet.create(
                         mAssets,
@@ -160,7 +163,11 @@ public class GunBonus extends BonusAdapter implements Pool.Poolable {
         mRayCastOrigin.set(mRacer.getX(), mRacer.getY());
         World world = mGameWorld.getBox2DWorld();
         Racer racer =
-                mClosestRacerFinder.find(world, mRayCastOrigin, mRacer.getVehicle().getAngle());
+                mClosestRacerFinder.find(
+                        world,
+                        mGameWorld.getRacers(),
+                        mRayCastOrigin,
+                        mRacer.getVehicle().getAngle());
         if (racer != null) {
             mRacer.triggerBonus();
         }
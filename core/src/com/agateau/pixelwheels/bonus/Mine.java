@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.gameobjet.Explosable;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.racescreen.Collidable;
@@ -30,6 +31,7 @@ import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
@@ -44,14 +46,11 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A mine on the road */
 public class Mine extends GameObjectAdapter
-        implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Mine> sPool = new ReflectionPool<>(Mine.class);
-
-    private static final float MINE_RADIUS = 0.8f;
+        implements Collidable, Pool.Poolable, Disposable, Explosable, Interpolated {
+    public static final float MINE_RADIUS = 0.8f;
 
     private GameWorld mGameWorld;
     private AudioManager mAudioManager;
@@ -62,18 +61,20 @@ public class Mine extends GameObjectAdapter
     private CircleShape mShape;
 
     private Body mBody;
+    private final InterpolatedBody mInterpolatedBody = new InterpolatedBody();
     private float mTime;
     private Joint mJoint;
 
-    private static final Vector2 sTmp = new Vector2();
-
     public static Mine createAttachedMine(
             GameWorld gameWorld, Assets assets, AudioManager audioManager, Racer owner) {
         Vehicle vehicle = owner.getVehicle();
-        sTmp.set(-vehicle.getWidth(), 0);
-        sTmp.rotate(vehicle.getAngle()).add(vehicle.getX(), vehicle.getY());
-
-        Mine mine = createInternal(gameWorld, assets, audioManager, sTmp);
+        Mine mine = createInternal(gameWorld, assets, audioManager);
+        mine.mBodyDef
+                .position
+                .set(-vehicle.getWidth(), 0)
+                .rotate(vehicle.getAngle())
+                .add(vehicle.getX(), vehicle.getY());
+        mine.createBody();
         mine.mOwner = owner;
         mine.initJoint();
         return mine;
@@ -81,14 +82,17 @@ public class Mine extends GameObjectAdapter
 
     public static Mine createDroppedMine(
             GameWorld gameWorld, Assets assets, AudioManager audioManager, Vector2 position) {
-        Mine mine = createInternal(gameWorld, assets, audioManager, position);
+        Mine mine = createInternal(gameWorld, assets, audioManager);
+        mine.mBodyDef.position.set(position);
+        mine.createBody();
         mine.mBody.setType(BodyDef.BodyType.StaticBody);
+        gameWorld.getDroppedMines().add(mine);
         return mine;
     }
 
     private static Mine createInternal(
-            GameWorld gameWorld, Assets assets, AudioManager audioManager, Vector2 position) {
-        Mine mine = sPool.obtain();
+            GameWorld gameWorld, Assets assets, AudioManager audioManager) {
+        Mine mine = gameWorld.getPool(Mine.class).obtain();
         if (mine.mBodyDef == null) {
             mine.firstInit(assets);
         }
@@ -99,23 +103,30 @@ public class Mine extends GameObjectAdapter
         mine.mTime = 0;
         mine.mJoint = null;
         mine.setFinished(false);
+        return mine;
+    }
 
-        mine.mBodyDef.position.set(position);
-
-        mine.mBody = gameWorld.getBox2DWorld().createBody(mine.mBodyDef);
-        mine.mBody.createFixture(mine.mShape, 0.00001f);
-        mine.mBody.setUserData(mine);
-        mine.mBody.setType(BodyDef.BodyType.DynamicBody);
+    /** Creates the body at mBodyDef.position and adds the mine to the world */
+    private void createBody() {
+        mBody = mGameWorld.getBox2DWorld().createBody(mBodyDef);
+        mBody.createFixture(mShape, 0.00001f);
+        mBody.setUserData(this);
+        mInterpolatedBody.setBody(mBody);
+        mBody.setType(BodyDef.BodyType.DynamicBody);
 
         Box2DUtils.setCollisionInfo(
-                mine.mBody,
+                mBody,
                 CollisionCategories.EXPLOSABLE,
                 CollisionCategories.WALL
                         | CollisionCategories.RACER
                         | CollisionCategories.RACER_BULLET);
 
-        gameWorld.addGameObject(mine);
-        return mine;
+        mGameWorld.addGameObject(this);
+    }
+
+    /** Fills the pool of gameWorld with count mines, ready to be dropped */
+    public static void prewarmPool(GameWorld gameWorld, Assets assets, int count) {
+        gameWorld.getPool(Mine.class).prewarm(count, mine -> mine.firstInit(assets));
     }
 
     private void firstInit(Assets assets) {
@@ -139,13 +150,14 @@ public class Mine extends GameObjectAdapter
 
     @Override
     public void reset() {
+        mGameWorld.getDroppedMines().removeValue(this, true);
         mGameWorld.getBox2DWorld().destroyBody(mBody);
         mBody = null;
     }
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getPool(Mine.class).free(this);
     }
 
     @Override
@@ -153,6 +165,16 @@ public class Mine extends GameObjectAdapter
         mTime += delta;
     }
 
+    @Override
+    public void storePreviousState() {
+        mInterpolatedBody.storePreviousState();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mInterpolatedBody.interpolate(alpha);
+    }
+
     private final BodyRegionDrawer mBodyRegionDrawer = new BodyRegionDrawer();
 
     @Override
@@ -164,14 +186,18 @@ public class Mine extends GameObjectAdapter
             float z = mJoint == null ? -0.1f : 0f;
             mBodyRegionDrawer.setZ(z);
             TextureRegion region = mAssets.mine.getKeyFrame(mTime);
-            mBodyRegionDrawer.drawShadow(mBody, region);
+            mBodyRegionDrawer.drawShadow(mInterpolatedBody, region);
         }
         if (zLevel == ZLevel.VEHICLES) {
             TextureRegion region = mAssets.mine.getKeyFrame(mTime);
-            mBodyRegionDrawer.draw(mBody, region);
+            mBodyRegionDrawer.draw(mInterpolatedBody, region);
         }
     }
 
+    public Body getBody() {
+        return mBody;
+    }
+
     @Override
     public float getX() {
         return mBody.getPosition().x;
@@ -189,7 +215,7 @@ public class Mine extends GameObjectAdapter
         }
         setFinished(true);
         Vector2 pos = mBody.getPosition();
-        mGameWorld.addGameObject(mAssets.createExplosion(mAudioManager, pos.x, pos.y));
+        mGameWorld.addGameObject(mAssets.createExplosion(mGameWorld, mAudioManager, pos.x, pos.y));
     }
 
     @Override
@@ -218,5 +244,6 @@ public class Mine extends GameObjectAdapter
         mGameWorld.getBox2DWorld().destroyJoint(mJoint);
         mJoint = null;
         mBody.setType(BodyDef.BodyType.StaticBody);
+        mGameWorld.getDroppedMines().add(this);
     }
 }
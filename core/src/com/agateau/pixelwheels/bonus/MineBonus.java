@@ -19,7 +19,7 @@
 package com.agateau.pixelwheels.bonus;
 
 import com.agateau.pixelwheels.racer.Racer;
-import com.badlogic.gdx.math.MathUtils;
+import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.utils.Pool;
 
 /** A mine which can be dropped behind the racer */
@@ -41,7 +41,9 @@ public class MineBonus extends BonusAdapter implements Pool.Poolable {
     public void onPicked(Racer racer) {
         super.onPicked(racer);
         mMine = Mine.createAttachedMine(mGameWorld, mAssets, mAudioManager, mRacer);
-        mAiKeepTime = MathUtils.random(AI_KEEP_BONUS_MIN_TIME, AI_KEEP_BONUS_MAX_TIME);
+        mAiKeepTime =
+                AgcMathUtils.random(
+                        mGameWorld.getRandom(), AI_KEEP_BONUS_MIN_TIME, AI_KEEP_BONUS_MAX_TIME);
     }
 
     @Override
@@ -27,6 +27,7 @@ import com.agateau.pixelwheels.gameobjet.AnimationObject;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.Explosable;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.agateau.pixelwheels.racescreen.Collidable;
@@ -36,6 +37,7 @@ import com.agateau.pixelwheels.sound.SoundPlayer;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -54,12 +56,10 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A player bullet */
 public class Missile extends GameObjectAdapter
-        implements Collidable, Pool.Poolable, Disposable, Explosable {
-    private static final ReflectionPool<Missile> sPool = new ReflectionPool<>(Missile.class);
+        implements Collidable, Pool.Poolable, Disposable, Explosable, Interpolated {
 
     private static final float WIDTH = 44;
     private static final float HEIGHT = 13;
@@ -84,6 +84,7 @@ public class Missile extends GameObjectAdapter
     private final WeldJointDef mJointDef = new WeldJointDef();
     private final PolygonShape mShape = new PolygonShape();
     private final BodyRegionDrawer mDrawer = new BodyRegionDrawer();
+    private final InterpolatedBody mInterpolatedBody = new InterpolatedBody();
     private final ClosestRacerFinder mRacerFinder = new ClosestRacerFinder(LOCK_DISTANCE, LOCK_ARC);
     private final MissileGuidingSystem mGuidingSystem = new MissileGuidingSystem();
     private Assets mAssets;
@@ -125,7 +126,7 @@ public class Missile extends GameObjectAdapter
 
     public static Missile create(
             Assets assets, GameWorld gameWorld, AudioManager audioManager, Racer shooter) {
-        Missile object = sPool.obtain();
+        Missile object = gameWorld.getPool(Missile.class).obtain();
         object.mAssets = assets;
         object.mGameWorld = gameWorld;
         object.mAudioManager = audioManager;
@@ -139,6 +140,7 @@ public class Missile extends GameObjectAdapter
         object.mBody = gameWorld.getBox2DWorld().createBody(object.mBodyDef);
         object.mBody.createFixture(object.mShape, WAITING_DENSITY);
         object.mBody.setUserData(object);
+        object.mInterpolatedBody.setBody(object.mBody);
         Box2DUtils.setCollisionInfo(
                 object.mBody,
                 CollisionCategories.RACER_BULLET,
@@ -202,7 +204,7 @@ public class Missile extends GameObjectAdapter
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mGameWorld.getPool(Missile.class).free(this);
     }
 
     @Override
@@ -249,7 +251,10 @@ public class Missile extends GameObjectAdapter
         World world = mGameWorld.getBox2DWorld();
         mTarget =
                 mRacerFinder.find(
-                        world, mBody.getWorldCenter(), mBody.getAngle() * MathUtils.radDeg);
+                        world,
+                        mGameWorld.getRacers(),
+                        mBody.getWorldCenter(),
+                        mBody.getAngle() * MathUtils.radDeg);
     }
 
     @Override
@@ -273,19 +278,20 @@ public class Missile extends GameObjectAdapter
         TextureRegion region = mAssets.target;
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
-        batch.draw(region, mTarget.getX() - w / 2, mTarget.getY() - h / 2, w, h);
+        InterpolatedBody targetBody = mTarget.getVehicle().getInterpolatedBody();
+        batch.draw(region, targetBody.getX() - w / 2, targetBody.getY() - h / 2, w, h);
         batch.setColor(Color.WHITE);
     }
 
     private void drawMissile(Batch batch) {
         mDrawer.setBatch(batch);
-        mDrawer.draw(mBody, mAssets.missile);
+        mDrawer.draw(mInterpolatedBody, mAssets.missile);
     }
 
     private void drawReactorFire(Batch batch) {
         TextureRegion region = mAssets.turboFlame.getKeyFrame(mTime, true);
-        Vector2 center = mBody.getPosition();
-        float angle = mBody.getAngle();
+        Vector2 center = mInterpolatedBody.getPosition();
+        float angle = mInterpolatedBody.getAngle();
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
         float refH = Constants.UNIT_FOR_PIXEL * -WIDTH / 2;
@@ -306,7 +312,17 @@ public class Missile extends GameObjectAdapter
 
     private void drawShadow(Batch batch) {
         mDrawer.setBatch(batch);
-        mDrawer.drawShadow(mBody, mAssets.missile);
+        mDrawer.drawShadow(mInterpolatedBody, mAssets.missile);
+    }
+
+    @Override
+    public void storePreviousState() {
+        mInterpolatedBody.storePreviousState();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mInterpolatedBody.interpolate(alpha);
     }
 
     @Override
@@ -337,9 +353,12 @@ public class Missile extends GameObjectAdapter
     @Override
     public void explode() {
         Vector2 pos = mBody.getPosition();
-        AnimationObject obj = mAssets.createExplosion(mAudioManager, pos.x, pos.y);
+        AnimationObject obj = mAssets.createExplosion(mGameWorld, mAudioManager, pos.x, pos.y);
         mGameWorld.addGameObject(obj);
-        mSoundPlayer.stop();
+        // mSoundPlayer is created by audioRender(), which is not called when nothing is rendered
+        if (mSoundPlayer != null) {
+            mSoundPlayer.stop();
+        }
         setFinished(true);
     }
 
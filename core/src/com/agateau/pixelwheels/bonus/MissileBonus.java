@@ -69,7 +69,7 @@ public class MissileBonus extends BonusAdapter implements Pool.Poolable {
     @Override
     public void aiAct(float delta) {
         if (mMissile.hasTarget()) {
-            trigger();
+            mRacer.triggerBonus();
         }
     }
 
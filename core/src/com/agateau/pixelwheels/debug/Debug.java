@@ -27,6 +27,7 @@ public class Debug {
     public boolean showHudDebugLines = false;
     public boolean oneLapOnly = false;
     public boolean freeCamera = false;
+    public boolean recordReplays = false;
 
     public static final Debug instance = new Debug();
 }
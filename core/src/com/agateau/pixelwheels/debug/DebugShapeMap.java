@@ -21,7 +21,12 @@ package com.agateau.pixelwheels.debug;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import java.util.HashMap;
 
-/** An helper class to register global debug shape drawers */
+/**
+ * An helper class to register global debug shape drawers
+ *
+ * <p>Game objects can register shapes from several worlds running in parallel, so changes are
+ * synchronized.
+ */
 public class DebugShapeMap {
     public interface Shape {
         void draw(ShapeRenderer renderer);
@@ -33,15 +38,15 @@ public class DebugShapeMap {
         return sMap.values();
     }
 
-    public static void put(Object key, Shape shape) {
+    public static synchronized void put(Object key, Shape shape) {
         sMap.put(key, shape);
     }
 
-    public static void remove(Object key) {
+    public static synchronized void remove(Object key) {
         sMap.remove(key);
     }
 
-    public static void clear() {
+    public static synchronized void clear() {
         sMap.clear();
     }
 }
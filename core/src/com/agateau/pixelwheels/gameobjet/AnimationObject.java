@@ -19,6 +19,7 @@
 package com.agateau.pixelwheels.gameobjet;
 
 import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.badlogic.gdx.audio.Sound;
@@ -27,12 +28,10 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.ReflectionPool;
 
 /** A generic short-animation game object */
 public class AnimationObject extends GameObjectAdapter implements Pool.Poolable, Disposable {
-    private static final ReflectionPool<AnimationObject> sPool =
-            new ReflectionPool<>(AnimationObject.class);
+    private Pool<AnimationObject> mPool;
     private float mTime;
     private Animation<TextureRegion> mAnimation;
     private float mPosX;
@@ -46,7 +45,7 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        mPool.free(this);
     }
 
     @Override
@@ -98,13 +97,19 @@ public class AnimationObject extends GameObjectAdapter implements Pool.Poolable,
     }
 
     public static AnimationObject create(
-            Animation<TextureRegion> animation, float posX, float posY) {
-        return create(animation, posX, posY, 0);
+            GameWorld gameWorld, Animation<TextureRegion> animation, float posX, float posY) {
+        return create(gameWorld, animation, posX, posY, 0);
     }
 
     public static AnimationObject create(
-            Animation<TextureRegion> animation, float posX, float posY, float delay) {
-        AnimationObject obj = sPool.obtain();
+            GameWorld gameWorld,
+            Animation<TextureRegion> animation,
+            float posX,
+            float posY,
+            float delay) {
+        Pool<AnimationObject> pool = gameWorld.getPool(AnimationObject.class);
+        AnimationObject obj = pool.obtain();
+        obj.mPool = pool;
         obj.mTime = -delay;
         obj.mAnimation = animation;
         obj.mPosX = posX;
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.gameobjet;
+
+/**
+ * An object which is drawn between the state it had before the last physics step and its current
+ * state, so that it moves smoothly when the frame rate does not match the physics rate.
+ *
+ * <p>GameWorld calls storePreviousState() on its active game objects implementing this interface,
+ * and GameRenderer calls interpolate() on them before drawing.
+ */
+public interface Interpolated {
+    /** Called before each physics step */
+    void storePreviousState();
+
+    /**
+     * Called before drawing. alpha goes from 0 for the previous state to 1 for the current state,
+     * see GameWorld.getInterpolationAlpha()
+     */
+    void interpolate(float alpha);
+}
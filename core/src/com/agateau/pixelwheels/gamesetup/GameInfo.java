@@ -87,6 +87,12 @@ public abstract class GameInfo {
         private int mScore = 0;
         private float mRaceTime = 0;
 
+        public Entrant() {}
+
+        public Entrant(String vehicleId) {
+            mVehicleId = vehicleId;
+        }
+
         public String getVehicleId() {
             return mVehicleId;
         }
@@ -19,14 +19,39 @@
 package com.agateau.pixelwheels.map;
 
 import com.agateau.utils.Assert;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 
-/** Can provide the position within a lap based on x, y (in tile pixels) */
+/**
+ * Can provide the position within a lap based on x, y (in tile pixels)
+ *
+ * <p>To avoid testing every section for each lookup, the table is indexed by a coarse grid: each
+ * cell of the grid knows the sections which overlap it, so a lookup only has to test those.
+ */
 public class LapPositionTable {
+    /** Size of a grid cell, in tile pixels */
+    private static final int CELL_SIZE = 32;
+
     private final Array<LapSection> mSections = new Array<>();
 
+    // Grid fields are package-private so that TrackBundleIO can save and restore the grid
+    int mGridX;
+    int mGridY;
+    int mGridColumnCount;
+    int mGridRowCount;
+    /**
+     * The indexes of the sections overlapping cell N are stored in mCellSections, from
+     * mCellStarts[N] (inclusive) to mCellStarts[N + 1] (exclusive)
+     */
+    int[] mCellStarts;
+
+    int[] mCellSections;
+
     private static class LapSection {
         private final int mSectionId;
         private final Polygon mPolygon;
@@ -63,9 +88,80 @@ public class LapPositionTable {
 
     public void addSection(int section, Polygon polygon) {
         mSections.add(new LapSection(section, polygon));
+        mCellStarts = null;
+    }
+
+    /**
+     * Builds the lookup grid. Called by LapPositionTableIO once all sections have been added. If it
+     * has not been called, the grid is built by the first call to get().
+     */
+    public void buildIndex() {
+        if (mSections.size == 0) {
+            mGridColumnCount = 0;
+            mGridRowCount = 0;
+            mCellStarts = new int[1];
+            mCellSections = new int[0];
+            return;
+        }
+        Rectangle bounds = new Rectangle(mSections.first().mPolygon.getBoundingRectangle());
+        for (LapSection section : mSections) {
+            bounds.merge(section.mPolygon.getBoundingRectangle());
+        }
+        mGridX = MathUtils.floor(bounds.x);
+        mGridY = MathUtils.floor(bounds.y);
+        mGridColumnCount = (MathUtils.ceil(bounds.x + bounds.width) - mGridX) / CELL_SIZE + 1;
+        mGridRowCount = (MathUtils.ceil(bounds.y + bounds.height) - mGridY) / CELL_SIZE + 1;
+
+        int cellCount = mGridColumnCount * mGridRowCount;
+        mCellStarts = new int[cellCount + 1];
+        IntArray cellSections = new IntArray(cellCount);
+        Rectangle cellRect = new Rectangle();
+        for (int row = 0; row < mGridRowCount; ++row) {
+            for (int column = 0; column < mGridColumnCount; ++column) {
+                // Add a one pixel margin to be on the safe side with points on the cell edges
+                cellRect.set(
+                        mGridX + column * CELL_SIZE - 1,
+                        mGridY + row * CELL_SIZE - 1,
+                        CELL_SIZE + 2,
+                        CELL_SIZE + 2);
+                // Sections must be kept in order to return the same section as a linear scan
+                for (int idx = 0; idx < mSections.size; ++idx) {
+                    if (overlaps(mSections.get(idx).mPolygon, cellRect)) {
+                        cellSections.add(idx);
+                    }
+                }
+                mCellStarts[row * mGridColumnCount + column + 1] = cellSections.size;
+            }
+        }
+        mCellSections = cellSections.toArray();
     }
 
     public LapPosition get(int x, int y) {
+        if (mCellStarts == null) {
+            buildIndex();
+        }
+        int column = x - mGridX;
+        int row = y - mGridY;
+        if (column < 0 || row < 0) {
+            return null;
+        }
+        column /= CELL_SIZE;
+        row /= CELL_SIZE;
+        if (column >= mGridColumnCount || row >= mGridRowCount) {
+            return null;
+        }
+        int cell = row * mGridColumnCount + column;
+        for (int idx = mCellStarts[cell], end = mCellStarts[cell + 1]; idx < end; ++idx) {
+            LapSection zone = mSections.get(mCellSections[idx]);
+            if (zone.mPolygon.contains(x, y)) {
+                return zone.computePosition(x, y);
+            }
+        }
+        return null;
+    }
+
+    /** Reference implementation of get(), testing all sections. Used by unit tests. */
+    LapPosition getLinear(int x, int y) {
         for (LapSection zone : mSections) {
             if (zone.mPolygon.contains(x, y)) {
                 return zone.computePosition(x, y);
@@ -77,4 +173,34 @@ public class LapPositionTable {
     public int getSectionCount() {
         return mSections.size;
     }
+
+    int getSectionId(int idx) {
+        return mSections.get(idx).mSectionId;
+    }
+
+    float[] getSectionVertices(int idx) {
+        return mSections.get(idx).mPolygon.getTransformedVertices();
+    }
+
+    /**
+     * Returns true if polygon may contain points inside rect. Errs on the side of caution: it is
+     * fine to return true for a section which does not overlap the cell, not the other way around.
+     */
+    private static boolean overlaps(Polygon polygon, Rectangle rect) {
+        if (!polygon.getBoundingRectangle().overlaps(rect)) {
+            return false;
+        }
+        float[] vertices = polygon.getTransformedVertices();
+        for (int idx = 0; idx < vertices.length; idx += 2) {
+            float x1 = vertices[idx];
+            float y1 = vertices[idx + 1];
+            float x2 = vertices[(idx + 2) % vertices.length];
+            float y2 = vertices[(idx + 3) % vertices.length];
+            if (Intersector.intersectSegmentRectangle(x1, y1, x2, y2, rect)) {
+                return true;
+            }
+        }
+        // No edge crosses the rectangle: it is either fully inside or fully outside the polygon
+        return polygon.contains(rect.x, rect.y);
+    }
 }
@@ -102,6 +102,7 @@ public class LapPositionTableIO {
             Polygon polygon = new Polygon(vertices);
             table.addSection(idx, polygon);
         }
+        table.buildIndex();
         return table;
     }
 
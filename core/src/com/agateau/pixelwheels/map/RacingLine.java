@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+/**
+ * The path AI racers follow around a track, and the speed at which each point of it can be driven.
+ *
+ * <p>The line is sampled at regular lap distance steps: each lap section contains
+ * getSamplesPerSection() samples, so the sample for a lap distance is found without searching. Each
+ * sample also stores its distance along the line, from the first sample.
+ *
+ * <p>Racing lines are computed by RacingLineOptimizer, and stored next to the map by RacingLineIO.
+ */
+public class RacingLine {
+    final int samplesPerSection;
+    final float[] xs;
+    final float[] ys;
+    /** Maximum speed, in world units per second */
+    final float[] speeds;
+    /** Distance from the first sample, in world units */
+    final float[] distances;
+    /** Distance from the first sample back to the first sample, in world units */
+    final float length;
+
+    RacingLine(
+            int samplesPerSection,
+            float[] xs,
+            float[] ys,
+            float[] speeds,
+            float[] distances,
+            float length) {
+        this.samplesPerSection = samplesPerSection;
+        this.xs = xs;
+        this.ys = ys;
+        this.speeds = speeds;
+        this.distances = distances;
+        this.length = length;
+    }
+
+    public int getSamplesPerSection() {
+        return samplesPerSection;
+    }
+
+    public int getSampleCount() {
+        return xs.length;
+    }
+
+    /** Returns the index of the sample for lapDistance */
+    public int getSampleIndex(float lapDistance) {
+        int index = (int) (lapDistance * samplesPerSection);
+        if (index < 0) {
+            return 0;
+        }
+        return index < xs.length ? index : xs.length - 1;
+    }
+
+    /**
+     * Returns the index of the first sample which is at least distance world units after sample
+     * index, along the line
+     */
+    public int getSampleAhead(int index, float distance) {
+        float start = distances[index];
+        int ahead = index;
+        for (int count = 0; count < xs.length; ++count) {
+            ahead = ahead + 1 < xs.length ? ahead + 1 : 0;
+            float delta = distances[ahead] - start;
+            if (delta < 0) {
+                delta += length;
+            }
+            if (delta >= distance) {
+                break;
+            }
+        }
+        return ahead;
+    }
+
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    public float getY(int index) {
+        return ys[index];
+    }
+
+    /** Returns the maximum speed at sample index, in world units per second */
+    public float getSpeed(int index) {
+        return speeds[index];
+    }
+
+    /** Returns the length of a lap along the line, in world units */
+    public float getLength() {
+        return length;
+    }
+}
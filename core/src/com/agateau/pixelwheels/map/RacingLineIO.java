@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes RacingLine instances.
+ *
+ * <p>A racing line file is stored next to its .tmx file, with a .racingline extension. Like bundle
+ * files, it contains the stamp of the .tmx file it has been created from, so that a racing line
+ * which is out of date is ignored.
+ */
+public class RacingLineIO {
+    private static final int MAGIC = 0x5057524c; // "PWRL"
+    private static final int VERSION = 2;
+
+    /**
+     * Returns the racing line of tmxFile, or null if there is no up-to-date racing line file.
+     * sourceStamp is the stamp of tmxFile, as returned by TrackBundleIO.computeSourceStamp()
+     */
+    public static RacingLine load(FileHandle tmxFile, long sourceStamp) {
+        FileHandle file = getRacingLineFile(tmxFile);
+        if (!file.exists()) {
+            return null;
+        }
+        RacingLine line;
+        try {
+            line = read(TrackBundleIO.mapFile(file), sourceStamp);
+        } catch (BufferUnderflowException e) {
+            NLog.e("%s is truncated", file.path());
+            return null;
+        }
+        if (line == null) {
+            NLog.i("%s is out of date, not using it", file.path());
+        }
+        return line;
+    }
+
+    public static FileHandle getRacingLineFile(FileHandle tmxFile) {
+        return tmxFile.sibling(tmxFile.nameWithoutExtension() + ".racingline");
+    }
+
+    /** Returns the racing line stored in buffer, or null if it was not created from sourceStamp */
+    static RacingLine read(ByteBuffer buffer, long sourceStamp) {
+        if (buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION
+                || buffer.getLong() != sourceStamp) {
+            return null;
+        }
+        int samplesPerSection = buffer.getInt();
+        float length = buffer.getFloat();
+        int count = buffer.getInt();
+        float[] xs = readFloats(buffer, count);
+        float[] ys = readFloats(buffer, count);
+        float[] speeds = readFloats(buffer, count);
+        float[] distances = readFloats(buffer, count);
+        return new RacingLine(samplesPerSection, xs, ys, speeds, distances, length);
+    }
+
+    public static void write(RacingLine line, long sourceStamp, OutputStream stream)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceStamp);
+        out.writeInt(line.samplesPerSection);
+        out.writeFloat(line.length);
+        out.writeInt(line.xs.length);
+        writeFloats(line.xs, out);
+        writeFloats(line.ys, out);
+        writeFloats(line.speeds, out);
+        writeFloats(line.distances, out);
+        out.flush();
+    }
+
+    private static float[] readFloats(ByteBuffer buffer, int count) {
+        float[] array = new float[count];
+        for (int idx = 0; idx < count; ++idx) {
+            array[idx] = buffer.getFloat();
+        }
+        return array;
+    }
+
+    private static void writeFloats(float[] array, DataOutputStream out) throws IOException {
+        for (float value : array) {
+            out.writeFloat(value);
+        }
+    }
+}
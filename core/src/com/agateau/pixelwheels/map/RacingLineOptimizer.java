@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.pixelwheels.Constants;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Computes the RacingLine of a track from its lap sections.
+ *
+ * <p>Each lap section is cut into SAMPLES_PER_SECTION cross-sections, going from one side of the
+ * section to the other. The line crosses each cross-section at a position between 0 (first side)
+ * and 1 (second side). These positions are moved, within the limits set with setLimits(), until the
+ * curvature of the line is as small as possible.
+ *
+ * <p>The speed at each point is the speed at which its curvature can be driven, lowered so that a
+ * vehicle has the time to brake before the next turns.
+ */
+public class RacingLineOptimizer {
+    public static final int SAMPLES_PER_SECTION = 64;
+
+    // Smoothing first works on one sample every MAX_STRIDE samples, then on twice more samples,
+    // until it works on all of them. This makes it converge much faster than smoothing all samples
+    // from the start
+    private static final int MAX_STRIDE = 32;
+    private static final int ITERATIONS_PER_STRIDE = 500;
+    // Curvature is computed between the points at this distance before and after, in world units
+    private static final float CURVATURE_DISTANCE = 3;
+
+    private final int mSampleCount;
+    /** Cross-sections, in world units: (x1, y1, x2, y2) */
+    private final float[] mSections;
+
+    private final float[] mMinPositions;
+    private final float[] mMaxPositions;
+    private final float[] mXs;
+    private final float[] mYs;
+
+    // With lower values, AI racers end up slower: vehicle grip already limits their speed in turns,
+    // so only the sharpest ones need slowing down
+    private float mMaxSpeed = 75;
+    private float mLateralAcceleration = 600;
+    private float mBrakingDeceleration = 100;
+
+    public RacingLineOptimizer(LapPositionTable table) {
+        int sectionCount = table.getSectionCount();
+        mSampleCount = sectionCount * SAMPLES_PER_SECTION;
+        mSections = new float[mSampleCount * 4];
+        mMinPositions = new float[mSampleCount];
+        mMaxPositions = new float[mSampleCount];
+        mXs = new float[mSampleCount];
+        mYs = new float[mSampleCount];
+
+        // Map the unit square used by LapPositionTable back to the section polygon
+        Warper warper = new Warper();
+        warper.setSource(0, -1, 1, -1, 1, 1, 0, 1);
+        final float U = Constants.UNIT_FOR_PIXEL;
+        for (int sectionIdx = 0; sectionIdx < sectionCount; ++sectionIdx) {
+            float[] vertices = table.getSectionVertices(sectionIdx);
+            warper.setDestination(
+                    vertices[0], vertices[1],
+                    vertices[2], vertices[3],
+                    vertices[4], vertices[5],
+                    vertices[6], vertices[7]);
+            for (int idx = 0; idx < SAMPLES_PER_SECTION; ++idx) {
+                int sample = sectionIdx * SAMPLES_PER_SECTION + idx;
+                float sectionDistance = (float) idx / SAMPLES_PER_SECTION;
+                Vector2 point = warper.warp(sectionDistance, -1);
+                mSections[sample * 4] = point.x * U;
+                mSections[sample * 4 + 1] = point.y * U;
+                point = warper.warp(sectionDistance, 1);
+                mSections[sample * 4 + 2] = point.x * U;
+                mSections[sample * 4 + 3] = point.y * U;
+                mMaxPositions[sample] = 1;
+            }
+        }
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    /** Copies the ends of cross-section sample into start and end, in world units */
+    public void getCrossSection(int sample, Vector2 start, Vector2 end) {
+        start.set(mSections[sample * 4], mSections[sample * 4 + 1]);
+        end.set(mSections[sample * 4 + 2], mSections[sample * 4 + 3]);
+    }
+
+    /** Restricts the part of cross-section sample the line can go through, from 0 to 1 */
+    public void setLimits(int sample, float min, float max) {
+        mMinPositions[sample] = min;
+        mMaxPositions[sample] = max;
+    }
+
+    /** Sets the maximum speed on straight lines, in world units per second */
+    public void setMaxSpeed(float maxSpeed) {
+        mMaxSpeed = maxSpeed;
+    }
+
+    /** Sets the lateral acceleration vehicles can sustain in turns, in world units per second² */
+    public void setLateralAcceleration(float lateralAcceleration) {
+        mLateralAcceleration = lateralAcceleration;
+    }
+
+    /** Sets how fast vehicles can slow down, in world units per second² */
+    public void setBrakingDeceleration(float brakingDeceleration) {
+        mBrakingDeceleration = brakingDeceleration;
+    }
+
+    public RacingLine run() {
+        for (int sample = 0; sample < mSampleCount; ++sample) {
+            setPosition(sample, (mMinPositions[sample] + mMaxPositions[sample]) / 2);
+        }
+        for (int stride = MAX_STRIDE; stride >= 1; stride /= 2) {
+            for (int iteration = 0; iteration < ITERATIONS_PER_STRIDE; ++iteration) {
+                for (int sample = 0; sample < mSampleCount; sample += stride) {
+                    smooth(sample, stride);
+                }
+            }
+            if (stride > 1) {
+                interpolate(stride);
+            }
+        }
+
+        float[] distances = new float[mSampleCount];
+        float length = 0;
+        for (int sample = 0; sample < mSampleCount; ++sample) {
+            distances[sample] = length;
+            length += getStepLength(sample);
+        }
+        return new RacingLine(
+                SAMPLES_PER_SECTION, mXs.clone(), mYs.clone(), computeSpeeds(), distances, length);
+    }
+
+    /**
+     * Moves sample to the point of its cross-section closest to where its neighbors, stride samples
+     * away, want it to be for the line to have no curvature
+     */
+    private void smooth(int sample, int stride) {
+        int prev = wrap(sample - stride);
+        int next = wrap(sample + stride);
+        int prev2 = wrap(sample - 2 * stride);
+        int next2 = wrap(sample + 2 * stride);
+        float targetX = (4 * (mXs[prev] + mXs[next]) - mXs[prev2] - mXs[next2]) / 6;
+        float targetY = (4 * (mYs[prev] + mYs[next]) - mYs[prev2] - mYs[next2]) / 6;
+
+        float x1 = mSections[sample * 4];
+        float y1 = mSections[sample * 4 + 1];
+        float dx = mSections[sample * 4 + 2] - x1;
+        float dy = mSections[sample * 4 + 3] - y1;
+        float length2 = dx * dx + dy * dy;
+        if (length2 == 0) {
+            return;
+        }
+        float position = ((targetX - x1) * dx + (targetY - y1) * dy) / length2;
+        setPosition(
+                sample, MathUtils.clamp(position, mMinPositions[sample], mMaxPositions[sample]));
+    }
+
+    /**
+     * Places the samples between the ones smoothed with stride on the segments joining them, as a
+     * starting point for the next stride
+     */
+    private void interpolate(int stride) {
+        Vector2 start = new Vector2();
+        Vector2 end = new Vector2();
+        Vector2 point = new Vector2();
+        for (int sample = 0; sample < mSampleCount; sample += stride) {
+            int next = wrap(sample + stride);
+            for (int idx = 1; idx < stride; ++idx) {
+                int between = wrap(sample + idx);
+                point.set(mXs[sample], mYs[sample]);
+                point.lerp(end.set(mXs[next], mYs[next]), (float) idx / stride);
+                // Project the point on the cross-section
+                getCrossSection(between, start, end);
+                end.sub(start);
+                float length2 = end.len2();
+                float position = length2 == 0 ? 0 : point.sub(start).dot(end) / length2;
+                setPosition(
+                        between,
+                        MathUtils.clamp(position, mMinPositions[between], mMaxPositions[between]));
+            }
+        }
+    }
+
+    private void setPosition(int sample, float position) {
+        mXs[sample] = MathUtils.lerp(mSections[sample * 4], mSections[sample * 4 + 2], position);
+        mYs[sample] =
+                MathUtils.lerp(mSections[sample * 4 + 1], mSections[sample * 4 + 3], position);
+    }
+
+    private float[] computeSpeeds() {
+        float[] speeds = new float[mSampleCount];
+        for (int sample = 0; sample < mSampleCount; ++sample) {
+            float curvature = computeCurvature(sample);
+            float speed = (float) Math.sqrt(mLateralAcceleration / curvature);
+            speeds[sample] = Math.min(speed, mMaxSpeed);
+        }
+        // Make sure vehicles can brake in time: going backward, a sample cannot be faster than
+        // the speed from which the next one can be reached by braking. The line is a loop, so go
+        // around it twice
+        for (int count = 0; count < 2 * mSampleCount; ++count) {
+            int sample = mSampleCount - 1 - count % mSampleCount;
+            float nextSpeed = speeds[wrap(sample + 1)];
+            float reachableSpeed =
+                    (float)
+                            Math.sqrt(
+                                    nextSpeed * nextSpeed
+                                            + 2 * mBrakingDeceleration * getStepLength(sample));
+            speeds[sample] = Math.min(speeds[sample], reachableSpeed);
+        }
+        return speeds;
+    }
+
+    /** Returns the inverse of the radius of the circle going through sample and its neighbors */
+    private float computeCurvature(int sample) {
+        int prev = sample;
+        for (float distance = 0; distance < CURVATURE_DISTANCE && prev != wrap(sample + 1); ) {
+            prev = wrap(prev - 1);
+            distance += getStepLength(prev);
+        }
+        int next = sample;
+        for (float distance = 0; distance < CURVATURE_DISTANCE && next != wrap(sample - 1); ) {
+            distance += getStepLength(next);
+            next = wrap(next + 1);
+        }
+        float ax = mXs[prev] - mXs[sample];
+        float ay = mYs[prev] - mYs[sample];
+        float bx = mXs[next] - mXs[sample];
+        float by = mYs[next] - mYs[sample];
+        float cx = mXs[next] - mXs[prev];
+        float cy = mYs[next] - mYs[prev];
+        float cross = Math.abs(ax * by - ay * bx);
+        float lengths =
+                (float) Math.sqrt((ax * ax + ay * ay) * (bx * bx + by * by) * (cx * cx + cy * cy));
+        if (lengths == 0) {
+            return 0;
+        }
+        // 1 / R = 4 * area / (a * b * c), and cross = 2 * area
+        return 2 * cross / lengths;
+    }
+
+    private float getStepLength(int sample) {
+        int next = wrap(sample + 1);
+        return Vector2.len(mXs[next] - mXs[sample], mYs[next] - mYs[sample]);
+    }
+
+    private int wrap(int sample) {
+        return (sample + mSampleCount) % mSampleCount;
+    }
+}
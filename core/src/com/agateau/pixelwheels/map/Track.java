@@ -23,34 +23,37 @@ import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.Assert;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.maps.MapLayer;
-import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapLayers;
 import com.badlogic.gdx.maps.MapObjects;
-import com.badlogic.gdx.maps.MapProperties;
-import com.badlogic.gdx.maps.objects.EllipseMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.math.Ellipse;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.XmlReader;
 
 /** The map of the current game */
 public class Track implements Disposable {
     private static final int CELL_ID_ROW_STRIDE = 10000;
 
+    private static final Material[] MATERIALS = Material.values();
+
     private final String mId;
     private final String mMapName;
+    private final boolean mRacingLineEnabled;
 
     private TiledMap mMap;
-    private Material[] mMaterialForTileId;
-    private int mStartTileId = -1;
+    private int mColumnCount;
+    private int mRowCount;
+    private byte[] mMaterials;
+    private float[] mStartPositions;
+    private float[] mBonusSpotPositions;
     private Array<TiledMapTileLayer> mBackgroundLayers;
     private Array<TiledMapTileLayer> mForegroundLayers;
     private MapLayer mObstaclesLayer;
@@ -58,9 +61,24 @@ public class Track implements Disposable {
     private float mTileWidth;
     private float mTileHeight;
     private LapPositionTable mLapPositionTable;
+    private RacingLine mRacingLine;
     private Color mBackgroundColor;
 
-    private static final TmxMapLoader sMapLoader = new TmxMapLoader();
+    /** A TmxMapLoader which can skip the object layers whose content comes from the bundle */
+    private static class MapLoader extends TmxMapLoader {
+        boolean mSkipBundledLayers;
+
+        @Override
+        protected void loadObjectGroup(
+                TiledMap map, MapLayers parentLayers, XmlReader.Element element) {
+            if (mSkipBundledLayers && TrackBundle.providesLayer(element.getAttribute("name", ""))) {
+                return;
+            }
+            super.loadObjectGroup(map, parentLayers, element);
+        }
+    }
+
+    private static final MapLoader sMapLoader = new MapLoader();
     private static final TmxMapLoader.Parameters sMapLoaderParameters =
             new TmxMapLoader.Parameters();
 
@@ -70,45 +88,64 @@ public class Track implements Disposable {
     }
 
     public Track(String id, String name) {
+        this(id, name, false);
+    }
+
+    /**
+     * racingLineEnabled tells whether AI pilots follow the racing line of the track. Only enable it
+     * on tracks where RaceFarm shows it makes them faster
+     */
+    public Track(String id, String name, boolean racingLineEnabled) {
         mId = id;
         mMapName = name;
+        mRacingLineEnabled = racingLineEnabled;
     }
 
     public void init() {
         if (mMap != null) {
             return;
         }
-        String path = Gdx.files.internal("maps/" + mId + ".tmx").path();
-        mMap = sMapLoader.load(path, sMapLoaderParameters);
-        mMaterialForTileId = computeMaterialForTileId();
-        findSpecialTileIds();
+        FileHandle tmxFile = Gdx.files.internal("maps/" + mId + ".tmx");
+        TrackBundle bundle = TrackBundleIO.load(tmxFile);
+        // The map itself is always needed, for rendering and for the obstacles, but the layers
+        // whose content comes from the bundle can be skipped
+        sMapLoader.mSkipBundledLayers = bundle != null;
+        mMap = sMapLoader.load(tmxFile.path(), sMapLoaderParameters);
         findLayers();
 
         mTileWidth = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileWidth();
         mTileHeight = Constants.UNIT_FOR_PIXEL * mBackgroundLayers.get(0).getTileHeight();
 
-        mLapPositionTable = LapPositionTableIO.load(mMap);
-        readWaypoints();
-
-        String bgColorText = mMap.getProperties().get("backgroundcolor", "#808080", String.class);
-        bgColorText = bgColorText.substring(1); // Skip leading '#'
-        mBackgroundColor = Color.valueOf(bgColorText);
+        if (bundle == null) {
+            bundle = TrackBundle.create(mMap, TrackBundleIO.computeSourceStamp(tmxFile));
+        }
+        mColumnCount = bundle.columnCount;
+        mRowCount = bundle.rowCount;
+        mMaterials = bundle.materials;
+        mLapPositionTable = bundle.lapPositionTable;
+        mWaypointStore.setWaypoints(bundle.waypoints);
+        mBonusSpotPositions = bundle.bonusSpots;
+        mStartPositions = bundle.startPositions;
+        mBackgroundColor = new Color(bundle.backgroundColor);
+        if (mRacingLineEnabled) {
+            mRacingLine = RacingLineIO.load(tmxFile, bundle.sourceStamp);
+        }
     }
 
     private void findLayers() {
-        mBackgroundLayers = findLayersMatching("bg");
+        mBackgroundLayers = findLayersMatching(mMap, "bg");
         Assert.check(mBackgroundLayers.size > 0, "No background layers found");
 
-        mForegroundLayers = findLayersMatching("fg");
+        mForegroundLayers = findLayersMatching(mMap, "fg");
 
         mObstaclesLayer = mMap.getLayers().get("Obstacles");
         Assert.check(mObstaclesLayer != null, "No \"Obstacles\" layer found");
     }
 
-    private Array<TiledMapTileLayer> findLayersMatching(String match) {
+    static Array<TiledMapTileLayer> findLayersMatching(TiledMap map, String match) {
         Array<TiledMapTileLayer> array = new Array<>();
-        for (int idx = 0; idx < mMap.getLayers().getCount(); ++idx) {
-            MapLayer layer = mMap.getLayers().get(idx);
+        for (int idx = 0; idx < map.getLayers().getCount(); ++idx) {
+            MapLayer layer = map.getLayers().get(idx);
             if (layer.getName().startsWith(match)) {
                 array.add((TiledMapTileLayer) layer);
             }
@@ -156,6 +193,18 @@ public class Track implements Disposable {
         return mLapPositionTable;
     }
 
+    /**
+     * Returns the racing line of the track, or null if it has not been generated, or if it is not
+     * enabled on this track
+     */
+    public RacingLine getRacingLine() {
+        return mRacingLine;
+    }
+
+    public boolean isRacingLineEnabled() {
+        return mRacingLineEnabled;
+    }
+
     public WaypointStore getWaypointStore() {
         return mWaypointStore;
     }
@@ -178,43 +227,6 @@ public class Track implements Disposable {
         return indexes;
     }
 
-    private Material[] computeMaterialForTileId() {
-        TiledMapTileSet tileSet = mMap.getTileSets().getTileSet(0);
-        int maxId = 0;
-        for (TiledMapTile tile : tileSet) {
-            maxId = Math.max(maxId, tile.getId());
-        }
-        Material[] array = new Material[maxId + 1];
-        for (int id = 0; id < array.length; ++id) {
-            TiledMapTile tile = tileSet.getTile(id);
-            array[id] = MapUtils.getTileMaterial(tile);
-        }
-        return array;
-    }
-
-    private void findSpecialTileIds() {
-        TiledMapTileSet tileSet = mMap.getTileSets().getTileSet(0);
-        for (TiledMapTile tile : tileSet) {
-            MapProperties properties = tile.getProperties();
-            if (MapUtils.getBooleanProperty(properties, "start", false)) {
-                mStartTileId = tile.getId();
-            }
-        }
-        Assert.check(mStartTileId != -1, "No start id");
-    }
-
-    private TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, float x, float y) {
-        int tx = MathUtils.floor(x / mTileWidth);
-        int ty = MathUtils.floor(y / mTileHeight);
-        for (int idx = layers.size - 1; idx >= 0; idx--) {
-            TiledMapTileLayer.Cell cell = layers.get(idx).getCell(tx, ty);
-            if (cell != null) {
-                return cell.getTile();
-            }
-        }
-        return null;
-    }
-
     /**
      * Returns a "cell id" for the given screen coordinates.
      *
@@ -231,11 +243,12 @@ public class Track implements Disposable {
     }
 
     public Material getMaterialAt(float x, float y) {
-        TiledMapTile tile = getTopTileAt(mBackgroundLayers, x, y);
-        if (tile == null) {
+        int tx = MathUtils.floor(x / mTileWidth);
+        int ty = MathUtils.floor(y / mTileHeight);
+        if (tx < 0 || ty < 0 || tx >= mColumnCount || ty >= mRowCount) {
             return Material.ROAD;
         }
-        return mMaterialForTileId[tile.getId()];
+        return MATERIALS[mMaterials[ty * mColumnCount + tx]];
     }
 
     @Override
@@ -245,48 +258,19 @@ public class Track implements Disposable {
     }
 
     public Array<Vector2> findStartTilePositions() {
-        Array<Vector2> lst = new Array<>();
-        TiledMapTileLayer groundLayer = mBackgroundLayers.get(0);
-        for (int ty = 0; ty < groundLayer.getHeight(); ++ty) {
-            for (int tx = 0; tx < groundLayer.getWidth(); ++tx) {
-                TiledMapTileLayer.Cell cell = groundLayer.getCell(tx, ty);
-                if (cell == null) {
-                    continue;
-                }
-                int tileId = cell.getTile().getId();
-                if (tileId == mStartTileId) {
-                    Vector2 pos = new Vector2(tx * mTileWidth + mTileWidth / 2, ty * mTileHeight);
-                    lst.add(pos);
-                }
-            }
-        }
-        return lst;
+        return toVector2Array(mStartPositions);
     }
 
     public Array<Vector2> findBonusSpotPositions() {
-        final float U = Constants.UNIT_FOR_PIXEL;
-        MapLayer layer = mMap.getLayers().get("BonusSpots");
-        Assert.check(layer != null, "No BonusSpots layer");
-        Array<Vector2> lst = new Array<>();
-
-        for (MapObject object : layer.getObjects()) {
-            if (!(object instanceof EllipseMapObject)) {
-                throw new RuntimeException(
-                        "BonusSpots layer should contains only ellipses. "
-                                + object
-                                + " is not an ellipse.");
-            }
-            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
-            Vector2 pos = new Vector2(ellipse.x * U, ellipse.y * U);
-            lst.add(pos);
-        }
-        return lst;
+        return toVector2Array(mBonusSpotPositions);
     }
 
-    private void readWaypoints() {
-        MapLayer layer = mMap.getLayers().get("Waypoints");
-        Assert.check(layer != null, "No Waypoints layer");
-        mWaypointStore.read(layer, mLapPositionTable);
+    private static Array<Vector2> toVector2Array(float[] values) {
+        Array<Vector2> lst = new Array<>(values.length / 2);
+        for (int idx = 0; idx < values.length; idx += 2) {
+            lst.add(new Vector2(values[idx], values[idx + 1]));
+        }
+        return lst;
     }
 
     public OrientedPoint getValidPosition(Vector2 pos, float lapDistance) {
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.pixelwheels.Constants;
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.EllipseMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.math.Ellipse;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * All the track data which can be derived from a .tmx file without assets: materials, lap sections,
+ * waypoints, bonus spots and start positions.
+ *
+ * <p>Computing it requires walking the whole map, so it can be compiled ahead of time into a bundle
+ * file by the TrackBundleGenerator tool, see TrackBundleIO.
+ *
+ * <p>Positions are in world units, except for lap sections which are in tile pixels, like the
+ * LapPositionTable.
+ */
+public class TrackBundle {
+    /** Stamp of the .tmx file the bundle has been created from, see TrackBundleIO */
+    long sourceStamp;
+
+    int columnCount;
+    int rowCount;
+
+    /**
+     * Material.ordinal() of the top-most background tile for each tile, row by row, starting from
+     * the bottom
+     */
+    byte[] materials;
+
+    LapPositionTable lapPositionTable;
+
+    /** (x, y, lapDistance) triplets, sorted by lapDistance */
+    float[] waypoints;
+
+    /** (x, y) pairs */
+    float[] bonusSpots;
+
+    /** (x, y) pairs, in the order they are found in the ground layer */
+    float[] startPositions;
+
+    int backgroundColor;
+
+    public static TrackBundle create(TiledMap map, long sourceStamp) {
+        TrackBundle bundle = new TrackBundle();
+        bundle.sourceStamp = sourceStamp;
+
+        Array<TiledMapTileLayer> backgroundLayers = Track.findLayersMatching(map, "bg");
+        Assert.check(backgroundLayers.size > 0, "No background layers found");
+        TiledMapTileLayer groundLayer = backgroundLayers.get(0);
+        bundle.columnCount = groundLayer.getWidth();
+        bundle.rowCount = groundLayer.getHeight();
+
+        bundle.materials = computeMaterials(map, backgroundLayers);
+        bundle.lapPositionTable = LapPositionTableIO.load(map);
+        bundle.waypoints = computeWaypoints(map, bundle.lapPositionTable);
+        bundle.bonusSpots = computeBonusSpots(map);
+        bundle.startPositions = computeStartPositions(map, groundLayer);
+
+        String bgColorText = map.getProperties().get("backgroundcolor", "#808080", String.class);
+        bgColorText = bgColorText.substring(1); // Skip leading '#'
+        bundle.backgroundColor = Color.rgba8888(Color.valueOf(bgColorText));
+        return bundle;
+    }
+
+    /** Returns true if the content of the map layer called name is provided by bundles */
+    static boolean providesLayer(String name) {
+        return name.equals("Sections") || name.equals("Waypoints") || name.equals("BonusSpots");
+    }
+
+    private static byte[] computeMaterials(
+            TiledMap map, Array<TiledMapTileLayer> backgroundLayers) {
+        Material[] materialForTileId = computeMaterialForTileId(map);
+        int columnCount = backgroundLayers.get(0).getWidth();
+        int rowCount = backgroundLayers.get(0).getHeight();
+        byte[] materials = new byte[columnCount * rowCount];
+        for (int ty = 0; ty < rowCount; ++ty) {
+            for (int tx = 0; tx < columnCount; ++tx) {
+                TiledMapTile tile = getTopTileAt(backgroundLayers, tx, ty);
+                Material material;
+                if (tile == null) {
+                    material = Material.ROAD;
+                } else if (tile.getId() < materialForTileId.length) {
+                    material = materialForTileId[tile.getId()];
+                } else {
+                    material = MapUtils.getTileMaterial(tile);
+                }
+                materials[ty * columnCount + tx] = (byte) material.ordinal();
+            }
+        }
+        return materials;
+    }
+
+    private static Material[] computeMaterialForTileId(TiledMap map) {
+        TiledMapTileSet tileSet = map.getTileSets().getTileSet(0);
+        int maxId = 0;
+        for (TiledMapTile tile : tileSet) {
+            maxId = Math.max(maxId, tile.getId());
+        }
+        Material[] array = new Material[maxId + 1];
+        for (int id = 0; id < array.length; ++id) {
+            TiledMapTile tile = tileSet.getTile(id);
+            array[id] = MapUtils.getTileMaterial(tile);
+        }
+        return array;
+    }
+
+    private static TiledMapTile getTopTileAt(Array<TiledMapTileLayer> layers, int tx, int ty) {
+        for (int idx = layers.size - 1; idx >= 0; idx--) {
+            TiledMapTileLayer.Cell cell = layers.get(idx).getCell(tx, ty);
+            if (cell != null) {
+                return cell.getTile();
+            }
+        }
+        return null;
+    }
+
+    private static float[] computeWaypoints(TiledMap map, LapPositionTable lapPositionTable) {
+        final float U = Constants.UNIT_FOR_PIXEL;
+        MapLayer layer = map.getLayers().get("Waypoints");
+        Assert.check(layer != null, "No Waypoints layer");
+
+        Array<float[]> waypoints = new Array<>();
+        for (MapObject object : layer.getObjects()) {
+            Assert.check(
+                    object instanceof EllipseMapObject,
+                    "Waypoints layer should contains only ellipses. "
+                            + object
+                            + " is not an ellipse.");
+            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
+            final LapPosition pos = lapPositionTable.get((int) ellipse.x, (int) ellipse.y);
+            waypoints.add(new float[] {ellipse.x * U, ellipse.y * U, pos.getLapDistance()});
+        }
+        waypoints.sort((w1, w2) -> Float.compare(w1[2], w2[2]));
+
+        FloatArray array = new FloatArray(waypoints.size * 3);
+        for (float[] waypoint : waypoints) {
+            array.addAll(waypoint);
+        }
+        return array.toArray();
+    }
+
+    private static float[] computeBonusSpots(TiledMap map) {
+        final float U = Constants.UNIT_FOR_PIXEL;
+        MapLayer layer = map.getLayers().get("BonusSpots");
+        Assert.check(layer != null, "No BonusSpots layer");
+
+        FloatArray array = new FloatArray();
+        for (MapObject object : layer.getObjects()) {
+            if (!(object instanceof EllipseMapObject)) {
+                throw new RuntimeException(
+                        "BonusSpots layer should contains only ellipses. "
+                                + object
+                                + " is not an ellipse.");
+            }
+            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
+            array.add(ellipse.x * U, ellipse.y * U);
+        }
+        return array.toArray();
+    }
+
+    private static float[] computeStartPositions(TiledMap map, TiledMapTileLayer groundLayer) {
+        int startTileId = findStartTileId(map);
+        float tileWidth = Constants.UNIT_FOR_PIXEL * groundLayer.getTileWidth();
+        float tileHeight = Constants.UNIT_FOR_PIXEL * groundLayer.getTileHeight();
+
+        FloatArray array = new FloatArray();
+        for (int ty = 0; ty < groundLayer.getHeight(); ++ty) {
+            for (int tx = 0; tx < groundLayer.getWidth(); ++tx) {
+                TiledMapTileLayer.Cell cell = groundLayer.getCell(tx, ty);
+                if (cell == null) {
+                    continue;
+                }
+                int tileId = cell.getTile().getId();
+                if (tileId == startTileId) {
+                    array.add(tx * tileWidth + tileWidth / 2, ty * tileHeight);
+                }
+            }
+        }
+        return array.toArray();
+    }
+
+    private static int findStartTileId(TiledMap map) {
+        int startTileId = -1;
+        TiledMapTileSet tileSet = map.getTileSets().getTileSet(0);
+        for (TiledMapTile tile : tileSet) {
+            MapProperties properties = tile.getProperties();
+            if (MapUtils.getBooleanProperty(properties, "start", false)) {
+                startTileId = tile.getId();
+            }
+        }
+        Assert.check(startTileId != -1, "No start id");
+        return startTileId;
+    }
+}
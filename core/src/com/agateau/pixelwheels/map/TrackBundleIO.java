@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.map;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes TrackBundle instances.
+ *
+ * <p>A bundle file is stored next to its .tmx file, with a .bundle extension. Bundle files are
+ * generated by TrackBundleGenerator and shipped with the game. They contain the stamp of the .tmx
+ * file they have been created from, so that a bundle which is out of date is ignored.
+ */
+public class TrackBundleIO {
+    private static final int MAGIC = 0x50575442; // "PWTB"
+    private static final int VERSION = 2;
+
+    /**
+     * Returns the bundle for tmxFile, or null if there is no up-to-date bundle file. In this case
+     * the caller must create the bundle from the map.
+     */
+    public static TrackBundle load(FileHandle tmxFile) {
+        FileHandle bundleFile = getBundleFile(tmxFile);
+        if (!bundleFile.exists()) {
+            NLog.i("%s is missing, loading track from %s", bundleFile.path(), tmxFile.path());
+            return null;
+        }
+        TrackBundle bundle = read(bundleFile);
+        if (bundle == null || bundle.sourceStamp != computeSourceStamp(tmxFile)) {
+            NLog.i("%s is out of date, loading track from %s", bundleFile.path(), tmxFile.path());
+            return null;
+        }
+        return bundle;
+    }
+
+    public static FileHandle getBundleFile(FileHandle tmxFile) {
+        return tmxFile.sibling(tmxFile.nameWithoutExtension() + ".bundle");
+    }
+
+    /**
+     * Returns the stamp of a .tmx file, used to find out if files generated from it are out of
+     * date.
+     *
+     * <p>The stamp is the size of the file: it must be cheap to get, since it is checked each time
+     * a track is loaded. The modification time cannot be used: Android assets do not have one, and
+     * git does not keep it. Since generated files are shipped, TrackBundleIOTest checks they are up
+     * to date.
+     */
+    public static long computeSourceStamp(FileHandle tmxFile) {
+        return tmxFile.length();
+    }
+
+    /** Returns the bundle stored in file, or null if file is not a valid bundle */
+    public static TrackBundle read(FileHandle file) {
+        try {
+            return read(mapFile(file));
+        } catch (BufferUnderflowException e) {
+            NLog.e("%s is truncated", file.path());
+            return null;
+        }
+    }
+
+    /** Returns the content of file, mapped in memory if possible */
+    static ByteBuffer mapFile(FileHandle file) {
+        ByteBuffer buffer;
+        try {
+            buffer = file.map();
+        } catch (GdxRuntimeException e) {
+            // Can happen for compressed Android assets
+            buffer = ByteBuffer.wrap(file.readBytes());
+        }
+        // map() uses the native byte order, files are written in big endian by DataOutputStream
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    static TrackBundle read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        TrackBundle bundle = new TrackBundle();
+        bundle.sourceStamp = buffer.getLong();
+        bundle.columnCount = buffer.getInt();
+        bundle.rowCount = buffer.getInt();
+        bundle.materials = new byte[bundle.columnCount * bundle.rowCount];
+        buffer.get(bundle.materials);
+        bundle.lapPositionTable = readLapPositionTable(buffer);
+        bundle.waypoints = readFloats(buffer);
+        bundle.bonusSpots = readFloats(buffer);
+        bundle.startPositions = readFloats(buffer);
+        bundle.backgroundColor = buffer.getInt();
+        return bundle;
+    }
+
+    public static void write(TrackBundle bundle, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(bundle.sourceStamp);
+        out.writeInt(bundle.columnCount);
+        out.writeInt(bundle.rowCount);
+        out.write(bundle.materials);
+        writeLapPositionTable(bundle.lapPositionTable, out);
+        writeFloats(bundle.waypoints, out);
+        writeFloats(bundle.bonusSpots, out);
+        writeFloats(bundle.startPositions, out);
+        out.writeInt(bundle.backgroundColor);
+        out.flush();
+    }
+
+    private static LapPositionTable readLapPositionTable(ByteBuffer buffer) {
+        LapPositionTable table = new LapPositionTable();
+        int sectionCount = buffer.getInt();
+        for (int idx = 0; idx < sectionCount; ++idx) {
+            int sectionId = buffer.getInt();
+            float[] vertices = new float[8];
+            for (int vertexIdx = 0; vertexIdx < vertices.length; ++vertexIdx) {
+                vertices[vertexIdx] = buffer.getFloat();
+            }
+            table.addSection(sectionId, new Polygon(vertices));
+        }
+        table.mGridX = buffer.getInt();
+        table.mGridY = buffer.getInt();
+        table.mGridColumnCount = buffer.getInt();
+        table.mGridRowCount = buffer.getInt();
+        table.mCellStarts = readInts(buffer);
+        table.mCellSections = readInts(buffer);
+        return table;
+    }
+
+    private static void writeLapPositionTable(LapPositionTable table, DataOutputStream out)
+            throws IOException {
+        out.writeInt(table.getSectionCount());
+        for (int idx = 0; idx < table.getSectionCount(); ++idx) {
+            out.writeInt(table.getSectionId(idx));
+            for (float value : table.getSectionVertices(idx)) {
+                out.writeFloat(value);
+            }
+        }
+        if (table.mCellStarts == null) {
+            table.buildIndex();
+        }
+        out.writeInt(table.mGridX);
+        out.writeInt(table.mGridY);
+        out.writeInt(table.mGridColumnCount);
+        out.writeInt(table.mGridRowCount);
+        writeInts(table.mCellStarts, out);
+        writeInts(table.mCellSections, out);
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] array = new int[buffer.getInt()];
+        for (int idx = 0; idx < array.length; ++idx) {
+            array[idx] = buffer.getInt();
+        }
+        return array;
+    }
+
+    private static void writeInts(int[] array, DataOutputStream out) throws IOException {
+        out.writeInt(array.length);
+        for (int value : array) {
+            out.writeInt(value);
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer buffer) {
+        float[] array = new float[buffer.getInt()];
+        for (int idx = 0; idx < array.length; ++idx) {
+            array[idx] = buffer.getFloat();
+        }
+        return array;
+    }
+
+    private static void writeFloats(float[] array, DataOutputStream out) throws IOException {
+        out.writeInt(array.length);
+        for (float value : array) {
+            out.writeFloat(value);
+        }
+    }
+}
@@ -18,75 +18,69 @@
  */
 package com.agateau.pixelwheels.map;
 
-import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.utils.OrientedPoint;
 import com.agateau.utils.AgcMathUtils;
-import com.agateau.utils.Assert;
-import com.badlogic.gdx.maps.MapLayer;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.objects.EllipseMapObject;
-import com.badlogic.gdx.math.Ellipse;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 
-/** Holds all the waypoints used by AI players */
+/**
+ * Holds all the waypoints used by AI players
+ *
+ * <p>Waypoints are stored in parallel arrays, sorted by lap distance.
+ */
 public class WaypointStore {
-    private static final OrientedPoint tmpPoint = new OrientedPoint();
+    private final OrientedPoint mTmpPoint = new OrientedPoint();
+    private final Vector2 mTmpPrev = new Vector2();
+    private final Vector2 mTmpNext = new Vector2();
+    private final Vector2 mTmpProjected = new Vector2();
 
-    private static class WaypointInfo implements Comparable {
-        float lapDistance;
-        Vector2 waypoint;
+    private float[] mXs = new float[0];
+    private float[] mYs = new float[0];
+    private float[] mLapDistances = new float[0];
 
-        @Override
-        public int compareTo(Object o) {
-            WaypointInfo other = (WaypointInfo) o;
-            return Float.compare(lapDistance, other.lapDistance);
+    /** Sets the waypoints from (x, y, lapDistance) triplets, sorted by lapDistance */
+    public void setWaypoints(float[] waypoints) {
+        int count = waypoints.length / 3;
+        mXs = new float[count];
+        mYs = new float[count];
+        mLapDistances = new float[count];
+        for (int idx = 0; idx < count; ++idx) {
+            mXs[idx] = waypoints[idx * 3];
+            mYs[idx] = waypoints[idx * 3 + 1];
+            mLapDistances[idx] = waypoints[idx * 3 + 2];
         }
     }
 
-    private final Array<WaypointInfo> mWaypointInfos = new Array<>();
-
-    public void read(MapLayer layer, LapPositionTable lapPositionTable) {
-        final float U = Constants.UNIT_FOR_PIXEL;
+    public float getWaypointX(int index) {
+        return mXs[index];
+    }
 
-        for (MapObject object : layer.getObjects()) {
-            Assert.check(
-                    object instanceof EllipseMapObject,
-                    "Waypoints layer should contains only ellipses. "
-                            + object
-                            + " is not an ellipse.");
-            Ellipse ellipse = ((EllipseMapObject) object).getEllipse();
-            final LapPosition pos = lapPositionTable.get((int) ellipse.x, (int) ellipse.y);
-            WaypointInfo info = new WaypointInfo();
-            info.waypoint = new Vector2(ellipse.x * U, ellipse.y * U);
-            info.lapDistance = pos.getLapDistance();
-            mWaypointInfos.add(info);
-        }
-        mWaypointInfos.sort();
+    public float getWaypointY(int index) {
+        return mYs[index];
     }
 
-    public Vector2 getWaypoint(int index) {
-        return mWaypointInfos.get(index).waypoint;
+    /** Copies waypoint @p index into @p out, returns @p out */
+    public Vector2 getWaypoint(int index, Vector2 out) {
+        return out.set(mXs[index], mYs[index]);
     }
 
     public int getPreviousIndex(int index) {
-        return (index > 0 ? index : mWaypointInfos.size) - 1;
+        return (index > 0 ? index : mLapDistances.length) - 1;
     }
 
     public int getNextIndex(int index) {
-        return (index + 1) % mWaypointInfos.size;
+        return (index + 1) % mLapDistances.length;
     }
 
     public int getCount() {
-        return mWaypointInfos.size;
+        return mLapDistances.length;
     }
 
     public OrientedPoint getValidPosition(Vector2 pos, float lapDistance) {
         int nextIdx = getWaypointIndex(lapDistance);
         int prevIdx = getPreviousIndex(nextIdx);
-        Vector2 prev = mWaypointInfos.get(prevIdx).waypoint;
-        Vector2 next = mWaypointInfos.get(nextIdx).waypoint;
-        Vector2 projected = AgcMathUtils.project(pos, prev, next);
+        Vector2 prev = getWaypoint(prevIdx, mTmpPrev);
+        Vector2 next = getWaypoint(nextIdx, mTmpNext);
+        Vector2 projected = AgcMathUtils.project(pos, prev, next, mTmpProjected);
         float waypointSquareLength = prev.dst2(next);
         if (projected.dst2(prev) > waypointSquareLength) {
             // projected is after the [prev, next] segment
@@ -95,18 +89,56 @@ public class WaypointStore {
             // projected is before the [prev, next] segment
             projected.set(prev);
         }
-        tmpPoint.x = projected.x;
-        tmpPoint.y = projected.y;
-        tmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
-        return tmpPoint;
+        mTmpPoint.x = projected.x;
+        mTmpPoint.y = projected.y;
+        mTmpPoint.angle = AgcMathUtils.normalizeAngle(AgcMathUtils.segmentAngle(prev, next));
+        return mTmpPoint;
     }
 
+    /**
+     * Returns the index of the first waypoint whose lap distance is greater than @p lapDistance, or
+     * 0 if there is none
+     */
     public int getWaypointIndex(float lapDistance) {
-        for (int idx = 0; idx < mWaypointInfos.size; ++idx) {
-            if (lapDistance < mWaypointInfos.get(idx).lapDistance) {
-                return idx;
+        // Binary search for the first lap distance > lapDistance
+        int low = 0;
+        int high = mLapDistances.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lapDistance < mLapDistances[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
             }
         }
-        return 0;
+        return low < mLapDistances.length ? low : 0;
+    }
+
+    /**
+     * Same as getWaypointIndex(lapDistance), but starts from @p hint, the index returned by the
+     * previous call for the same racer. Since racers move little between two frames, the result is
+     * usually @p hint or the index after it, so this avoids the binary search.
+     */
+    public int getWaypointIndex(float lapDistance, int hint) {
+        if (hint >= 0 && hint < mLapDistances.length) {
+            if (isWaypointIndex(hint, lapDistance)) {
+                return hint;
+            }
+            int next = getNextIndex(hint);
+            if (isWaypointIndex(next, lapDistance)) {
+                return next;
+            }
+        }
+        return getWaypointIndex(lapDistance);
+    }
+
+    /** Returns true if getWaypointIndex(lapDistance) would return @p index */
+    private boolean isWaypointIndex(int index, float lapDistance) {
+        if (index == 0) {
+            // 0 is returned both before the first waypoint and after the last one
+            return lapDistance < mLapDistances[0]
+                    || lapDistance >= mLapDistances[mLapDistances.length - 1];
+        }
+        return mLapDistances[index - 1] <= lapDistance && lapDistance < mLapDistances[index];
     }
 }
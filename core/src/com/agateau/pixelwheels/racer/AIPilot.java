@@ -19,20 +19,23 @@
 package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.BodyIdentifier;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.bonus.Bonus;
+import com.agateau.pixelwheels.bonus.Mine;
 import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.RacingLine;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.stats.TrackStats;
 import com.agateau.pixelwheels.utils.ClosestBodyFinder;
 import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.Intersector;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 /** An AI pilot */
 public class AIPilot implements Pilot {
@@ -40,8 +43,21 @@ public class AIPilot implements Pilot {
     private static final float MAX_BLOCKED_DURATION = 1;
     private static final float MAX_REVERSE_DURATION = 0.5f;
     private static final int MAX_FORWARD_WAYPOINTS = 2;
+    // findBestTarget() checks the left and right sides of each waypoint, starting from the
+    // previous one
+    private static final int MAX_RAY_CASTS_PER_PLAN = 2 * (MAX_FORWARD_WAYPOINTS + 1);
     // How much of the vehicle width to move the target to avoid a mine
     private static final float MINE_AVOIDANCE_FACTOR = 2;
+    // When following the racing line, aim at the point this distance ahead, in world units, plus
+    // the distance driven in RACING_LINE_LOOKAHEAD_TIME seconds
+    private static final float RACING_LINE_MIN_LOOKAHEAD = 3;
+    private static final float RACING_LINE_LOOKAHEAD_TIME = 0.15f;
+    // Brake when going faster than the speed of the racing line by this factor
+    private static final float RACING_LINE_BRAKING_FACTOR = 1.1f;
+    // Steer toward waypoints instead of the racing line when further away from it than this
+    // distance, in world units, or for this duration, in seconds, after being blocked
+    private static final float RACING_LINE_MAX_DISTANCE = 6;
+    private static final float RACING_LINE_RECOVERY_DURATION = 2;
 
     class MineFilter implements ClosestBodyFinder.BodyFilter {
         @Override
@@ -79,9 +95,11 @@ public class AIPilot implements Pilot {
     private final GameWorld mGameWorld;
     private final Track mTrack;
     private final Racer mRacer;
+    private final RacingLine mRacingLine;
 
     private final MineFilter mMineFilter = new MineFilter();
     private final ClosestBodyFinder mClosestBodyFinder = new ClosestBodyFinder(mMineFilter);
+    private final int mSchedulerSlot;
 
     private State mState = State.NORMAL;
     private float mBlockedDuration = 0;
@@ -89,11 +107,22 @@ public class AIPilot implements Pilot {
 
     private final Target mTarget = new Target();
     private final Target mNextTarget = new Target();
+    private boolean mHasTarget = false;
+    private int mWaypointIndex = -1;
+    private float mSpeedLimiter = 1;
+    private float mTargetSpeed = Float.MAX_VALUE;
+    private float mRecoveryDuration = 0;
+    private boolean mOnRacingLine = false;
 
     public AIPilot(GameWorld gameWorld, Track track, Racer racer) {
         mGameWorld = gameWorld;
         mTrack = track;
         mRacer = racer;
+        mRacingLine =
+                gameWorld.getGamePlay().aiFollowRacingLine && track.isRacingLineEnabled()
+                        ? track.getRacingLine()
+                        : null;
+        mSchedulerSlot = gameWorld.getAIScheduler().register(MAX_RAY_CASTS_PER_PLAN);
     }
 
     Vector2 getTargetPosition() {
@@ -137,13 +166,19 @@ public class AIPilot implements Pilot {
                 @Override
                 public void recordIntEvent(Event event, int value) {}
 
+                @Override
+                public void recordEvents(int[] counts) {}
+
                 @Override
                 public int getEventCount(Event event) {
                     return 0;
                 }
 
                 @Override
-                public void save() {}
+                public void save(String changedKey) {}
+
+                @Override
+                public void flush() {}
             };
 
     @Override
@@ -152,6 +187,27 @@ public class AIPilot implements Pilot {
     }
 
     private void actNormal(float dt) {
+        AIScheduler scheduler = mGameWorld.getAIScheduler();
+        if (mRacingLine != null) {
+            updateSpeedLimiter();
+            mRecoveryDuration = Math.max(mRecoveryDuration - dt, 0);
+            boolean wasOnRacingLine = mOnRacingLine;
+            mOnRacingLine = mRecoveryDuration == 0 && followRacingLine();
+            // Following the racing line does not need any ray cast, so only the waypoint fallback
+            // uses the ray cast budget
+            scheduler.setIdle(mSchedulerSlot, mOnRacingLine);
+            if (!mOnRacingLine) {
+                mTargetSpeed = Float.MAX_VALUE;
+                // The target of the racing line is not checked against walls, replace it at once
+                if (scheduler.shouldPlan(mSchedulerSlot, !mHasTarget || wasOnRacingLine)) {
+                    mHasTarget = findBestTarget() != null;
+                }
+            }
+        } else if (scheduler.shouldPlan(mSchedulerSlot, !mHasTarget)) {
+            // Between two plans, keep steering toward the same target
+            updateSpeedLimiter();
+            mHasTarget = findBestTarget() != null;
+        }
         updateAcceleration();
         updateDirection();
         if (mState == State.BLOCKED) {
@@ -171,6 +227,8 @@ public class AIPilot implements Pilot {
     private void switchToBlocked() {
         mState = State.BLOCKED;
         mReverseDuration = 0;
+        // Plan again when we are back to normal
+        mHasTarget = false;
     }
 
     private void actBlocked(float dt) {
@@ -182,14 +240,20 @@ public class AIPilot implements Pilot {
         if (mReverseDuration > MAX_REVERSE_DURATION) {
             mState = State.NORMAL;
             mBlockedDuration = 0;
+            // The racing line led us into an obstacle, let the waypoints get us out of it
+            mRecoveryDuration = RACING_LINE_RECOVERY_DURATION;
         }
     }
 
     private void updateAcceleration() {
         Vehicle vehicle = mRacer.getVehicle();
-        vehicle.setAccelerating(true);
-        vehicle.setBraking(false);
+        float speed = vehicle.getSpeed();
+        vehicle.setAccelerating(speed < mTargetSpeed);
+        vehicle.setBraking(speed > mTargetSpeed * RACING_LINE_BRAKING_FACTOR);
+        vehicle.setSpeedLimiter(mSpeedLimiter);
+    }
 
+    private void updateSpeedLimiter() {
         // If we are better ranked than a player, slow down a bit
         float rank = mGameWorld.getRacerRank(mRacer);
         boolean needLimit = false;
@@ -199,17 +263,15 @@ public class AIPilot implements Pilot {
                 break;
             }
         }
-        float limit = needLimit ? GamePlay.instance.aiSpeedLimiter : 1f;
-        vehicle.setSpeedLimiter(limit);
+        mSpeedLimiter = needLimit ? mGameWorld.getGamePlay().aiSpeedLimiter : 1f;
     }
 
     private void updateDirection() {
-        Target target = findBestTarget();
-        if (target == null) {
+        if (!mHasTarget) {
             switchToBlocked();
             return;
         }
-        float targetAngle = mTmpVector1.set(target.position).sub(mRacer.getPosition()).angle();
+        float targetAngle = mTmpVector1.set(mTarget.position).sub(mRacer.getPosition()).angle();
         targetAngle = AgcMathUtils.normalizeAngle(targetAngle);
 
         Vehicle vehicle = mRacer.getVehicle();
@@ -220,21 +282,56 @@ public class AIPilot implements Pilot {
         } else if (deltaAngle < -180) {
             deltaAngle += 360;
         }
-        float direction = MathUtils.clamp(deltaAngle / GamePlay.instance.lowSpeedMaxSteer, -1, 1);
+        float direction =
+                MathUtils.clamp(deltaAngle / mGameWorld.getGamePlay().lowSpeedMaxSteer, -1, 1);
         vehicle.setDirection(direction);
     }
 
+    /**
+     * Aims at the racing line, a bit ahead of the racer, at the speed of the line. Returns false if
+     * the racer is too far from the line to follow it
+     */
+    private boolean followRacingLine() {
+        float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
+        int index = mRacingLine.getSampleIndex(lapDistance);
+        if (Vector2.dst2(
+                        mRacer.getX(),
+                        mRacer.getY(),
+                        mRacingLine.getX(index),
+                        mRacingLine.getY(index))
+                > RACING_LINE_MAX_DISTANCE * RACING_LINE_MAX_DISTANCE) {
+            return false;
+        }
+        float lookahead =
+                RACING_LINE_MIN_LOOKAHEAD
+                        + mRacer.getVehicle().getSpeed() * RACING_LINE_LOOKAHEAD_TIME;
+        int targetIndex = mRacingLine.getSampleAhead(index, lookahead);
+        mNextTarget.position.set(mRacingLine.getX(targetIndex), mRacingLine.getY(targetIndex));
+        mNextTarget.score = 0;
+        // The racing line keeps away from the walls, only mines can be in the way
+        updateNextTarget(true);
+        mTarget.set(mNextTarget.position, mNextTarget.score);
+        mHasTarget = true;
+        mTargetSpeed = mRacingLine.getSpeed(index);
+        return true;
+    }
+
     private Target findBestTarget() {
         float lapDistance = mRacer.getLapPositionComponent().getLapDistance();
         WaypointStore store = mTrack.getWaypointStore();
 
+        mWaypointIndex = store.getWaypointIndex(lapDistance, mWaypointIndex);
+
         // Start at the previous index, as a fallback in case the next waypoints are not visible
-        int index = store.getPreviousIndex(store.getWaypointIndex(lapDistance));
+        int index = store.getPreviousIndex(mWaypointIndex);
         mTarget.reset();
         for (int i = -1; i < MAX_FORWARD_WAYPOINTS; ++i, index = store.getNextIndex(index)) {
-            mNextTarget.position.set(store.getWaypoint(index));
+            store.getWaypoint(index, mNextTarget.position);
             mNextTarget.score = (float) i;
-            updateNextTarget();
+            updateNextTarget(
+                    mGameWorld
+                            .getStaticVisibilityTable()
+                            .isClear(mRacer.getX(), mRacer.getY(), index));
             if (mNextTarget.score > mTarget.score) {
                 mTarget.set(mNextTarget.position, mNextTarget.score);
             }
@@ -246,8 +343,11 @@ public class AIPilot implements Pilot {
         return mTarget;
     }
 
-    private void updateNextTarget() {
-        World world = mGameWorld.getBox2DWorld();
+    /**
+     * Checks for obstacles between the racer and mNextTarget, and updates it accordingly. If
+     * wallsClear is true, only mines are checked
+     */
+    private void updateNextTarget(boolean wallsClear) {
         Vector2 halfWidth = mTmpVector1;
         Vector2 position = mTmpVector2;
         Vector2 adjustedTargetPos = mTmpVector3;
@@ -258,7 +358,7 @@ public class AIPilot implements Pilot {
         // Check on the right
         position.set(mRacer.getPosition()).add(halfWidth);
         adjustedTargetPos.set(mNextTarget.position).add(halfWidth);
-        Body body = mClosestBodyFinder.find(world, position, adjustedTargetPos);
+        Body body = findObstacle(position, adjustedTargetPos, wallsClear);
         if (body != null) {
             if (BodyIdentifier.isMine(body)) {
                 halfWidth.scl(-2 * MINE_AVOIDANCE_FACTOR);
@@ -273,7 +373,7 @@ public class AIPilot implements Pilot {
         // Check on the left
         position.set(mRacer.getPosition()).sub(halfWidth);
         adjustedTargetPos.set(mNextTarget.position).add(halfWidth);
-        body = mClosestBodyFinder.find(world, position, adjustedTargetPos);
+        body = findObstacle(position, adjustedTargetPos, wallsClear);
         if (body != null) {
             if (BodyIdentifier.isMine(body)) {
                 halfWidth.scl(-2 * MINE_AVOIDANCE_FACTOR);
@@ -289,6 +389,34 @@ public class AIPilot implements Pilot {
         mNextTarget.score += Target.NO_OBSTACLES;
     }
 
+    /**
+     * Returns the static body between from and to which is the closest to from. If wallsClear is
+     * true, there cannot be any wall in the way, so only checks the dropped mines, without casting
+     * a ray.
+     */
+    private Body findObstacle(Vector2 from, Vector2 to, boolean wallsClear) {
+        if (!wallsClear) {
+            World world = mGameWorld.getBox2DWorld();
+            return mClosestBodyFinder.find(world, from, to);
+        }
+        Array<Mine> mines = mGameWorld.getDroppedMines();
+        Body closestBody = null;
+        float closestDistance2 = Float.MAX_VALUE;
+        for (int idx = 0; idx < mines.size; ++idx) {
+            Body body = mines.get(idx).getBody();
+            if (!Intersector.intersectSegmentCircle(
+                    from, to, body.getPosition(), Mine.MINE_RADIUS * Mine.MINE_RADIUS)) {
+                continue;
+            }
+            float distance2 = from.dst2(body.getPosition());
+            if (distance2 < closestDistance2) {
+                closestBody = body;
+                closestDistance2 = distance2;
+            }
+        }
+        return closestBody;
+    }
+
     private void handleBonus(float dt) {
         Bonus bonus = mRacer.getBonus();
         if (bonus != null) {
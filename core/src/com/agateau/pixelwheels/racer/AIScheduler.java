@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.GamePlay;
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Decides when each AI pilot plans its next target, so that the cost of the AI does not grow with
+ * the number of racers.
+ *
+ * <p>Planning ray casts the Box2D world. Each pilot plans every GamePlay.aiPlanInterval ticks, with
+ * pilots spread over the ticks of an interval, and reuses its target in between. The ray casts of a
+ * tick are limited to GamePlay.aiRayCastBudget: pilots which are due but do not fit in the budget
+ * plan on a later tick. Pilots are picked in turn, so none of them is starved.
+ *
+ * <p>Ticks are counted, not timed, so races stay deterministic.
+ */
+public class AIScheduler {
+    private final GamePlay mGamePlay;
+    private final IntArray mNextPlanTicks = new IntArray();
+    private final IntArray mRayCastCosts = new IntArray();
+    private final BooleanArray mIdle = new BooleanArray();
+    private boolean[] mPlanNow = new boolean[0];
+    private int mNextSlot = 0;
+    private int mTick = -1;
+    private int mRayCastCount = 0;
+
+    public AIScheduler(GamePlay gamePlay) {
+        mGamePlay = gamePlay;
+    }
+
+    /**
+     * Registers a new pilot, returns the slot it must pass to shouldPlan(). rayCastCost is the
+     * maximum number of ray casts the pilot makes when planning.
+     */
+    public int register(int rayCastCost) {
+        int slot = mNextPlanTicks.size;
+        mNextPlanTicks.add(slot % getPlanInterval());
+        mRayCastCosts.add(rayCastCost);
+        mIdle.add(false);
+        mPlanNow = new boolean[slot + 1];
+        return slot;
+    }
+
+    /** Must be called once per tick, before the pilots act. Picks the pilots which plan */
+    public void beginTick() {
+        ++mTick;
+        mRayCastCount = 0;
+        int slotCount = mNextPlanTicks.size;
+        int slot = mNextSlot;
+        for (int idx = 0; idx < slotCount; ++idx, slot = (slot + 1) % slotCount) {
+            mPlanNow[slot] = false;
+        }
+        for (int idx = 0; idx < slotCount; ++idx, slot = (slot + 1) % slotCount) {
+            if (mIdle.get(slot) || mTick < mNextPlanTicks.get(slot)) {
+                continue;
+            }
+            int cost = mRayCastCosts.get(slot);
+            // Always let at least one pilot plan, even if the budget is too small
+            if (mRayCastCount > 0 && mRayCastCount + cost > mGamePlay.aiRayCastBudget) {
+                // Start from this pilot on the next tick
+                mNextSlot = slot;
+                return;
+            }
+            mRayCastCount += cost;
+            mPlanNow[slot] = true;
+            mNextPlanTicks.set(slot, mTick + getPlanInterval());
+        }
+    }
+
+    /**
+     * Idle pilots do not plan, for example because they follow the racing line: they are skipped,
+     * so that they do not use the ray cast budget
+     */
+    public void setIdle(int slot, boolean idle) {
+        mIdle.set(slot, idle);
+    }
+
+    /**
+     * Returns true if the pilot of slot must plan during this tick. If mustPlan is true, for
+     * example because the pilot has no target, it always returns true, and the plan is counted in
+     * the ray casts of the tick.
+     */
+    public boolean shouldPlan(int slot, boolean mustPlan) {
+        if (mPlanNow[slot]) {
+            return true;
+        }
+        if (!mustPlan) {
+            return false;
+        }
+        mRayCastCount += mRayCastCosts.get(slot);
+        mNextPlanTicks.set(slot, mTick + getPlanInterval());
+        return true;
+    }
+
+    /** Returns the ray casts planned during the current tick */
+    public int getRayCastCount() {
+        return mRayCastCount;
+    }
+
+    private int getPlanInterval() {
+        return Math.max(mGamePlay.aiPlanInterval, 1);
+    }
+}
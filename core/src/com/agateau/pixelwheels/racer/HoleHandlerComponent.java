@@ -108,7 +108,12 @@ public class HoleHandlerComponent implements Racer.Component {
 
     private void switchToFallingState() {
         mHelicopter =
-                Helicopter.create(mAssets, mRacer.getAudioManager(), mGameWorld.getTrack(), this);
+                Helicopter.create(
+                        mAssets,
+                        mRacer.getAudioManager(),
+                        mGameWorld.getTrack(),
+                        mGameWorld.isDeterministic(),
+                        this);
         mGameWorld.addGameObject(mHelicopter);
         mState = State.FALLING;
         mTime = 0;
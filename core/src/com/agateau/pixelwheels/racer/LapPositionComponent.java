@@ -22,6 +22,7 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.map.LapPosition;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.utils.FloatArray;
 
 /** A component to track the racer time */
 public class LapPositionComponent implements Racer.Component {
@@ -40,7 +41,9 @@ public class LapPositionComponent implements Racer.Component {
     private float mTotalTime = 0;
     private float mLapTime = 0;
     private int mLapCount = 0;
+    private final FloatArray mLapTimes = new FloatArray();
     private final LapPosition mLapPosition = new LapPosition();
+    private final SectorTimes mSectorTimes;
     private Status mStatus = Status.RACING;
 
     // Should we take into account the next time the vehicle passes the start line?
@@ -51,6 +54,7 @@ public class LapPositionComponent implements Racer.Component {
     public LapPositionComponent(Track track, Vehicle vehicle) {
         mTrack = track;
         mVehicle = vehicle;
+        mSectorTimes = new SectorTimes(track.getLapPositionTable().getSectionCount());
     }
 
     @Override
@@ -67,6 +71,15 @@ public class LapPositionComponent implements Racer.Component {
         return mBestLapTime;
     }
 
+    /** Returns the time of each completed lap */
+    public FloatArray getLapTimes() {
+        return mLapTimes;
+    }
+
+    public SectorTimes getSectorTimes() {
+        return mSectorTimes;
+    }
+
     public float getTotalTime() {
         return mTotalTime;
     }
@@ -98,6 +111,9 @@ public class LapPositionComponent implements Racer.Component {
             return;
         }
         mLapPosition.copy(pos);
+        if (mLapPosition.getSectionId() != oldSectionId) {
+            mSectorTimes.onSectionChanged(oldSectionId, mLapPosition.getSectionId(), mLapTime);
+        }
         final boolean crossedFinishLine = mLapPosition.getSectionId() == 0 && oldSectionId > 1;
         final boolean crossedFinishLineBackward =
                 mLapPosition.getSectionId() > 1 && oldSectionId == 0;
@@ -119,6 +135,8 @@ public class LapPositionComponent implements Racer.Component {
     }
 
     private void onLapCompleted() {
+        mLapTimes.add(mLapTime);
+        mSectorTimes.onLapCompleted(mLapTime);
         if (!hasBestLapTime() || mLapTime < mBestLapTime) {
             mBestLapTime = mLapTime;
         }
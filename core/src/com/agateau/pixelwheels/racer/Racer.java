@@ -19,18 +19,20 @@
 package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.Assets;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.bonus.Bonus;
 import com.agateau.pixelwheels.bonus.BonusPool;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
 import com.agateau.pixelwheels.racescreen.Collidable;
 import com.agateau.pixelwheels.racescreen.CollisionCategories;
 import com.agateau.pixelwheels.sound.AudioManager;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.utils.AgcMathUtils;
+import com.agateau.utils.telemetry.TelemetryWriter;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
@@ -43,7 +45,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 
 /** A racer */
-public class Racer extends GameObjectAdapter implements Collidable, Disposable {
+public class Racer extends GameObjectAdapter implements Collidable, Disposable, Interpolated {
     private final GameWorld mGameWorld;
     private final Vehicle mVehicle;
     private final VehicleRenderer mVehicleRenderer;
@@ -56,9 +58,12 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
     private final GameInfo.Entrant mEntrant;
 
     private Pilot mPilot;
+    private InputRecorder mInputRecorder;
+    private boolean mBonusTriggered = false;
 
     // State
     private Bonus mBonus;
+    private int mRank = -1;
     private final RecordRanks mRecordRanks = new RecordRanks();
 
     public static class RecordRanks {
@@ -74,6 +79,15 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         void act(float delta);
     }
 
+    /** Receives the inputs of the pilot each time it acts, for example to record a replay */
+    public interface InputRecorder {
+        /**
+         * Called right after the pilot has acted. The recorder is allowed to adjust the inputs of
+         * vehicle, to make them match what it stores.
+         */
+        void record(Vehicle vehicle, boolean bonusTriggered);
+    }
+
     private class PilotSupervisorComponent implements Component {
         @Override
         public void act(float delta) {
@@ -83,7 +97,11 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
                 mVehicle.setAccelerating(false);
                 mVehicle.setBraking(false);
             } else {
+                mBonusTriggered = false;
                 mPilot.act(delta);
+                if (mInputRecorder != null) {
+                    mInputRecorder.record(mVehicle, mBonusTriggered);
+                }
             }
         }
     }
@@ -125,8 +143,10 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         addComponent(new BonusSpotHitComponent(this));
         addComponent(mAudioComponent);
 
-        if (GamePlay.instance.createSpeedReport) {
-            Probe probe = new Probe("speed.dat");
+        TelemetryWriter telemetryWriter = mGameWorld.getTelemetryWriter();
+        if (telemetryWriter != null) {
+            // The racer is added to the world after being created
+            SpeedProbe probe = new SpeedProbe(telemetryWriter, mGameWorld.getRacers().size);
             mVehicle.setProbe(probe);
             addComponent(probe);
         }
@@ -139,6 +159,15 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         }
     }
 
+    /** Returns the rank of the racer, starting from 1. Maintained by the GameWorld */
+    public int getRank() {
+        return mRank;
+    }
+
+    public void setRank(int rank) {
+        mRank = rank;
+    }
+
     public RecordRanks getRecordRanks() {
         return mRecordRanks;
     }
@@ -155,6 +184,10 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         mPilot = pilot;
     }
 
+    public void setInputRecorder(InputRecorder inputRecorder) {
+        mInputRecorder = inputRecorder;
+    }
+
     public Vehicle getVehicle() {
         return mVehicle;
     }
@@ -239,9 +272,11 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         float deltaV = mTmp.len();
 
         final float k =
-                GamePlay.instance.simplifiedCollisionKFactor
+                mGameWorld.getGamePlay().simplifiedCollisionKFactor
                         * MathUtils.clamp(
-                                deltaV / GamePlay.instance.simplifiedCollisionMaxDeltaV, 0, 1);
+                                deltaV / mGameWorld.getGamePlay().simplifiedCollisionMaxDeltaV,
+                                0,
+                                1);
         mTmp.set(body2.getWorldCenter()).sub(body1.getWorldCenter()).nor().scl(k);
 
         body2.applyLinearImpulse(mTmp, body2.getWorldCenter(), true);
@@ -279,16 +314,16 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
     public void selectBonus() {
         float normalizedRank = mGameWorld.getRacerNormalizedRank(this);
 
-        Array<BonusPool> pools = mGameWorld.getBonusPools();
+        Array<BonusPool<?>> pools = mGameWorld.getBonusPools();
         float totalCount = 0;
-        for (BonusPool pool : pools) {
+        for (BonusPool<?> pool : pools) {
             totalCount += pool.getCountForNormalizedRank(normalizedRank);
         }
 
         // To avoid allocating an array of the counts for each normalized rank, we subtract counts
         // from pick, until it is less than 0, at this point we are on the selected pool
-        float pick = MathUtils.random(0f, totalCount);
-        BonusPool pool = null;
+        float pick = AgcMathUtils.random(mGameWorld.getRandom(), 0f, totalCount);
+        BonusPool<?> pool = null;
         for (int idx = 0; idx < pools.size; ++idx) {
             pool = pools.get(idx);
             pick -= pool.getCountForNormalizedRank(normalizedRank);
@@ -300,12 +335,13 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
             pool = pools.get(pools.size - 1);
         }
 
-        mBonus = (Bonus) pool.obtain();
+        mBonus = pool.obtain();
         mBonus.onPicked(this);
         getGameStats().recordEvent(GameStats.Event.PICKED_BONUS);
     }
 
     public void triggerBonus() {
+        mBonusTriggered = true;
         if (mBonus == null) {
             return;
         }
@@ -324,6 +360,16 @@ public class Racer extends GameObjectAdapter implements Collidable, Disposable {
         }
     }
 
+    @Override
+    public void storePreviousState() {
+        mVehicle.storePreviousState();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mVehicle.interpolate(alpha);
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
         mVehicleRenderer.draw(batch, zLevel);
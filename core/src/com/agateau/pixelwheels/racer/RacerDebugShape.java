@@ -61,9 +61,11 @@ public class RacerDebugShape implements DebugShapeMap.Shape {
         renderer.begin(ShapeRenderer.ShapeType.Line);
         float radius = 10 * Constants.UNIT_FOR_PIXEL;
         renderer.setColor(1, 1, 0, 1);
-        DrawUtils.drawCross(renderer, store.getWaypoint(prevIdx), radius);
+        DrawUtils.drawCross(
+                renderer, store.getWaypointX(prevIdx), store.getWaypointY(prevIdx), radius);
         renderer.setColor(0, 1, 1, 1);
-        DrawUtils.drawCross(renderer, store.getWaypoint(nextIdx), radius);
+        DrawUtils.drawCross(
+                renderer, store.getWaypointX(nextIdx), store.getWaypointY(nextIdx), radius);
         renderer.setColor(1, 1, 1, 1);
         DrawUtils.drawCross(renderer, point.x, point.y, radius);
 
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.replay.ReplayInputReader;
+import com.agateau.pixelwheels.stats.GameStats;
+
+/** A pilot which drives using the inputs recorded in a replay */
+public class ReplayPilot implements Pilot {
+    private final GameWorld mGameWorld;
+    private final Racer mRacer;
+    private final ReplayInputReader mReader;
+
+    public ReplayPilot(GameWorld gameWorld, Racer racer, ReplayInputReader reader) {
+        mGameWorld = gameWorld;
+        mRacer = racer;
+        mReader = reader;
+    }
+
+    @Override
+    public void act(float dt) {
+        if (!mReader.next()) {
+            return;
+        }
+        if (mReader.isBonusTriggered()) {
+            mRacer.triggerBonus();
+        }
+        Vehicle vehicle = mRacer.getVehicle();
+        vehicle.setAccelerating(mReader.isAccelerating());
+        vehicle.setBraking(mReader.isBraking());
+        vehicle.setDirection(mReader.getDirection());
+        vehicle.setSpeedLimiter(mReader.getSpeedLimiter());
+    }
+
+    @Override
+    public GameStats getGameStats() {
+        return mGameWorld.getGameStats();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import java.util.Arrays;
+
+/**
+ * Records, for each section of the lap, the lap time at which the racer left it. Sector times are
+ * derived from these splits: the time of sector N is split[N] - split[N - 1].
+ *
+ * <p>Times are -1 until they are known. Sections the racer skipped, by jumping over them, have no
+ * split: the time of the next sector is measured from the last known split.
+ */
+public class SectorTimes {
+    private final float[] mSplits;
+    private final float[] mBestLapSplits;
+    private final float[] mBestSectorTimes;
+    private float mBestLapTime = -1;
+
+    public SectorTimes(int sectionCount) {
+        mSplits = new float[sectionCount];
+        mBestLapSplits = new float[sectionCount];
+        mBestSectorTimes = new float[sectionCount];
+        Arrays.fill(mSplits, -1);
+        Arrays.fill(mBestLapSplits, -1);
+        Arrays.fill(mBestSectorTimes, -1);
+    }
+
+    public int getSectionCount() {
+        return mSplits.length;
+    }
+
+    /** Returns the lap time at which the racer left sectionId during the current lap */
+    public float getSplit(int sectionId) {
+        return mSplits[sectionId];
+    }
+
+    public float getBestLapTime() {
+        return mBestLapTime;
+    }
+
+    /** Returns the splits of the best lap */
+    public float getBestLapSplit(int sectionId) {
+        return mBestLapSplits[sectionId];
+    }
+
+    /** Returns the best time spent in sectionId, over all completed laps */
+    public float getBestSectorTime(int sectionId) {
+        return mBestSectorTimes[sectionId];
+    }
+
+    /**
+     * Must be called when the racer moves from oldSectionId to newSectionId. Sections skipped when
+     * moving forward get no split, so that they do not get a 0 sector time. Moving backward does
+     * not change anything: the splits are updated again when the racer moves forward.
+     */
+    public void onSectionChanged(int oldSectionId, int newSectionId, float lapTime) {
+        if (oldSectionId < 0) {
+            return;
+        }
+        int end;
+        if (newSectionId > oldSectionId) {
+            end = newSectionId;
+        } else if (newSectionId == 0 && oldSectionId > 1) {
+            // Crossed the finish line
+            end = mSplits.length;
+        } else {
+            return;
+        }
+        mSplits[oldSectionId] = lapTime;
+        for (int idx = oldSectionId + 1; idx < end; ++idx) {
+            mSplits[idx] = -1;
+        }
+    }
+
+    /** Must be called after onSectionChanged() when the racer completes a lap */
+    public void onLapCompleted(float lapTime) {
+        float previousSplit = 0;
+        for (int idx = 0; idx < mSplits.length; ++idx) {
+            float split = mSplits[idx];
+            if (split < 0) {
+                // Skipped, or not reached during this lap if the lap started backward
+                continue;
+            }
+            float sectorTime = split - previousSplit;
+            if (mBestSectorTimes[idx] < 0 || sectorTime < mBestSectorTimes[idx]) {
+                mBestSectorTimes[idx] = sectorTime;
+            }
+            previousSplit = split;
+        }
+        if (mBestLapTime < 0 || lapTime < mBestLapTime) {
+            mBestLapTime = lapTime;
+            System.arraycopy(mSplits, 0, mBestLapSplits, 0, mSplits.length);
+        }
+        Arrays.fill(mSplits, -1);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.utils.telemetry.ColumnType;
+import com.agateau.utils.telemetry.TelemetryChannel;
+import com.agateau.utils.telemetry.TelemetryWriter;
+
+/** Records the speed and steering values computed by Vehicle in the "speed" telemetry channel */
+public class SpeedProbe implements Racer.Component {
+    private static final String CHANNEL_NAME = "speed";
+    private static final int RACER_COLUMN = 0;
+    private static final int TIME_COLUMN = 1;
+    private static final int STEER_COLUMN = 2;
+    private static final int SPEED_COLUMN = 3;
+    private static final int CATEGORY_COLUMN = 4;
+
+    private final TelemetryChannel mChannel;
+    private final int mRacerIndex;
+    private float mTime = 0;
+    private float mSteer = 0;
+    private float mSpeed = 0;
+    private int mCategory = 0;
+
+    SpeedProbe(TelemetryWriter writer, int racerIndex) {
+        mRacerIndex = racerIndex;
+        TelemetryChannel channel = writer.getChannel(CHANNEL_NAME);
+        if (channel == null) {
+            channel = writer.createChannel(CHANNEL_NAME);
+            channel.addColumn("racer", ColumnType.INT);
+            channel.addColumn("t", ColumnType.FLOAT);
+            channel.addColumn("steer", ColumnType.FLOAT);
+            channel.addColumn("speed", ColumnType.FLOAT);
+            channel.addColumn("category", ColumnType.INT);
+        }
+        mChannel = channel;
+    }
+
+    @Override
+    public void act(float delta) {
+        mChannel.setInt(RACER_COLUMN, mRacerIndex);
+        mChannel.setFloat(TIME_COLUMN, mTime);
+        mChannel.setFloat(STEER_COLUMN, mSteer);
+        mChannel.setFloat(SPEED_COLUMN, mSpeed);
+        mChannel.setInt(CATEGORY_COLUMN, mCategory);
+        mChannel.endRow();
+        mTime += delta;
+    }
+
+    void setValues(float steer, float speed, int category) {
+        mSteer = steer;
+        mSpeed = speed;
+        mCategory = category;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racer;
+
+import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.Constants;
+import com.agateau.pixelwheels.map.LapPosition;
+import com.agateau.pixelwheels.map.LapPositionTable;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.WaypointStore;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.math.ConvexHull;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Tells whether the walls of a track can be between a racer and a waypoint.
+ *
+ * <p>Borders and static obstacles never move during a race, so this is computed once, when the
+ * world is created. The track is split in cells, one per tile. For each cell on the road and for
+ * the waypoints around the waypoint of the cell, the table stores whether the pair is "clear": no
+ * wall overlaps the convex hull of the cell and of the waypoint, both grown by the half-width of
+ * the widest vehicle. If a pair is clear, any ray the AI casts from a vehicle in the cell to the
+ * waypoint misses the walls, so only dropped mines need to be checked.
+ *
+ * <p>Pairs which are not clear, or which are not in the table, must be checked with a ray cast.
+ */
+public class StaticVisibilityTable {
+    /** Waypoints stored for each cell, centered on the waypoint of the cell */
+    private static final int WAYPOINT_WINDOW_SIZE = 5;
+
+    private static final int WAYPOINT_WINDOW_START = -WAYPOINT_WINDOW_SIZE / 2;
+    // Keep a safety margin, overlap tests do not report polygons which only touch
+    private static final float MARGIN = 0.1f;
+    // b2_maxPolygonVertices
+    private static final int MAX_POLYGON_VERTICES = 8;
+
+    private final float mCellWidth;
+    private final float mCellHeight;
+    private final int mColumnCount;
+    private final int mRowCount;
+    private final int mWaypointCount;
+
+    /** Waypoint index of each cell, -1 if the cell is not on the road */
+    private final int[] mCellWaypoints;
+
+    /** WAYPOINT_WINDOW_SIZE entries per cell */
+    private final boolean[] mClear;
+
+    private final Walls mWalls = new Walls();
+
+    /** The geometry of all the walls of the world, in world units */
+    private static class Walls {
+        /** Vertex count, then the vertices, for each convex polygon */
+        final FloatArray polygons = new FloatArray();
+
+        /** (x, y, radius) triplets */
+        final FloatArray circles = new FloatArray();
+
+        /** (minX, minY, maxX, maxY) for each polygon, then for each circle */
+        final FloatArray boundingBoxes = new FloatArray();
+
+        boolean unsupportedShapes = false;
+    }
+
+    private final ConvexHull mConvexHull = new ConvexHull();
+    private final float[] mHullPoints = new float[16];
+    // Intersector.overlapConvexPolygons() ignores the offset of its polygons when wrapping around
+    // them, so each wall is copied here before being tested
+    private final float[] mWallPolygon = new float[MAX_POLYGON_VERTICES * 2];
+    private final Vector2 mTmp = new Vector2();
+
+    /**
+     * Creates the table for the walls currently in world. halfWidth is the largest half-width of
+     * the vehicles of the race.
+     */
+    public StaticVisibilityTable(World world, Track track, float halfWidth) {
+        this(getBodies(world), track, halfWidth);
+    }
+
+    /** Creates the table for the walls among bodies, see the other constructor */
+    public StaticVisibilityTable(Array<Body> bodies, Track track, float halfWidth) {
+        long startTime = TimeUtils.millis();
+        mCellWidth = track.getTileWidth();
+        mCellHeight = track.getTileHeight();
+        mColumnCount = MathUtils.ceil(track.getMapWidth() / mCellWidth);
+        mRowCount = MathUtils.ceil(track.getMapHeight() / mCellHeight);
+        mWaypointCount = track.getWaypointStore().getCount();
+        mCellWaypoints = new int[mColumnCount * mRowCount];
+        mClear = new boolean[mCellWaypoints.length * WAYPOINT_WINDOW_SIZE];
+
+        collectWalls(bodies);
+        if (mWalls.unsupportedShapes) {
+            NLog.e("Walls contain unsupported shapes, not using the static visibility table");
+            for (int idx = 0; idx < mCellWaypoints.length; ++idx) {
+                mCellWaypoints[idx] = -1;
+            }
+            return;
+        }
+        int clearCount = fillTable(track, halfWidth + MARGIN);
+        int roadCellCount = 0;
+        for (int cellWaypoint : mCellWaypoints) {
+            if (cellWaypoint >= 0) {
+                ++roadCellCount;
+            }
+        }
+        NLog.i(
+                "%d cell/waypoint pairs out of %d are clear, computed in %d ms",
+                clearCount,
+                roadCellCount * WAYPOINT_WINDOW_SIZE,
+                TimeUtils.timeSinceMillis(startTime));
+    }
+
+    /**
+     * Returns true if a ray from a point in the cell containing (x, y) to waypoint waypointIndex
+     * cannot hit a wall
+     */
+    public boolean isClear(float x, float y, int waypointIndex) {
+        int column = (int) (x / mCellWidth);
+        int row = (int) (y / mCellHeight);
+        if (x < 0 || y < 0 || column >= mColumnCount || row >= mRowCount) {
+            return false;
+        }
+        int cell = row * mColumnCount + column;
+        int cellWaypoint = mCellWaypoints[cell];
+        if (cellWaypoint < 0) {
+            return false;
+        }
+        int windowIndex = waypointIndex - cellWaypoint - WAYPOINT_WINDOW_START;
+        // Handle waypoints on both sides of the finish line
+        if (windowIndex < 0) {
+            windowIndex += mWaypointCount;
+        } else if (windowIndex >= mWaypointCount) {
+            windowIndex -= mWaypointCount;
+        }
+        if (windowIndex < 0 || windowIndex >= WAYPOINT_WINDOW_SIZE) {
+            return false;
+        }
+        return mClear[cell * WAYPOINT_WINDOW_SIZE + windowIndex];
+    }
+
+    private int fillTable(Track track, float radius) {
+        LapPositionTable lapPositionTable = track.getLapPositionTable();
+        WaypointStore store = track.getWaypointStore();
+        int clearCount = 0;
+        for (int row = 0; row < mRowCount; ++row) {
+            for (int column = 0; column < mColumnCount; ++column) {
+                int cell = row * mColumnCount + column;
+                float x = column * mCellWidth;
+                float y = row * mCellHeight;
+                LapPosition pos =
+                        lapPositionTable.get(
+                                (int) ((x + mCellWidth / 2) / Constants.UNIT_FOR_PIXEL),
+                                (int) ((y + mCellHeight / 2) / Constants.UNIT_FOR_PIXEL));
+                if (pos == null) {
+                    mCellWaypoints[cell] = -1;
+                    continue;
+                }
+                int cellWaypoint = store.getWaypointIndex(pos.getLapDistance());
+                mCellWaypoints[cell] = cellWaypoint;
+                for (int idx = 0; idx < WAYPOINT_WINDOW_SIZE; ++idx) {
+                    int waypoint =
+                            (cellWaypoint + WAYPOINT_WINDOW_START + idx + mWaypointCount)
+                                    % mWaypointCount;
+                    boolean clear =
+                            isClear(
+                                    x - radius,
+                                    y - radius,
+                                    x + mCellWidth + radius,
+                                    y + mCellHeight + radius,
+                                    store.getWaypoint(waypoint, mTmp),
+                                    radius);
+                    mClear[cell * WAYPOINT_WINDOW_SIZE + idx] = clear;
+                    if (clear) {
+                        ++clearCount;
+                    }
+                }
+            }
+        }
+        return clearCount;
+    }
+
+    /**
+     * Returns true if no wall overlaps the convex hull of the (x1, y1, x2, y2) rectangle and of the
+     * square of half-size radius centered on waypoint
+     */
+    private boolean isClear(
+            float x1, float y1, float x2, float y2, Vector2 waypoint, float radius) {
+        float[] points = mHullPoints;
+        points[0] = x1;
+        points[1] = y1;
+        points[2] = x2;
+        points[3] = y1;
+        points[4] = x2;
+        points[5] = y2;
+        points[6] = x1;
+        points[7] = y2;
+        points[8] = waypoint.x - radius;
+        points[9] = waypoint.y - radius;
+        points[10] = waypoint.x + radius;
+        points[11] = waypoint.y - radius;
+        points[12] = waypoint.x + radius;
+        points[13] = waypoint.y + radius;
+        points[14] = waypoint.x - radius;
+        points[15] = waypoint.y + radius;
+        float minX = Math.min(x1, waypoint.x - radius);
+        float minY = Math.min(y1, waypoint.y - radius);
+        float maxX = Math.max(x2, waypoint.x + radius);
+        float maxY = Math.max(y2, waypoint.y + radius);
+
+        // The hull is closed: its last point is the same as its first one
+        FloatArray hullArray = mConvexHull.computePolygon(points, false);
+        float[] hull = hullArray.items;
+        int hullSize = hullArray.size - 2;
+
+        float[] boxes = mWalls.boundingBoxes.items;
+        float[] polygons = mWalls.polygons.items;
+        int boxIdx = 0;
+        for (int idx = 0; idx < mWalls.polygons.size; boxIdx += 4) {
+            int size = (int) polygons[idx] * 2;
+            int start = idx + 1;
+            idx = start + size;
+            if (!overlapBoxes(boxes, boxIdx, minX, minY, maxX, maxY)) {
+                continue;
+            }
+            System.arraycopy(polygons, start, mWallPolygon, 0, size);
+            if (Intersector.overlapConvexPolygons(hull, 0, hullSize, mWallPolygon, 0, size, null)) {
+                return false;
+            }
+        }
+        float[] circles = mWalls.circles.items;
+        for (int idx = 0; idx < mWalls.circles.size; idx += 3, boxIdx += 4) {
+            if (!overlapBoxes(boxes, boxIdx, minX, minY, maxX, maxY)) {
+                continue;
+            }
+            if (overlapPolygonCircle(
+                    hull, hullSize, circles[idx], circles[idx + 1], circles[idx + 2])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean overlapBoxes(
+            float[] boxes, int boxIdx, float minX, float minY, float maxX, float maxY) {
+        return boxes[boxIdx] <= maxX
+                && boxes[boxIdx + 1] <= maxY
+                && boxes[boxIdx + 2] >= minX
+                && boxes[boxIdx + 3] >= minY;
+    }
+
+    private static boolean overlapPolygonCircle(
+            float[] polygon, int size, float x, float y, float radius) {
+        if (Intersector.isPointInPolygon(polygon, 0, size, x, y)) {
+            return true;
+        }
+        for (int idx = 0; idx < size; idx += 2) {
+            int next = (idx + 2) % size;
+            float distance =
+                    Intersector.distanceSegmentPoint(
+                            polygon[idx], polygon[idx + 1], polygon[next], polygon[next + 1], x, y);
+            if (distance <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Array<Body> getBodies(World world) {
+        Array<Body> bodies = new Array<>();
+        world.getBodies(bodies);
+        return bodies;
+    }
+
+    private void collectWalls(Array<Body> bodies) {
+        FloatArray circleBoxes = new FloatArray();
+        Vector2 vertex = new Vector2();
+        for (Body body : bodies) {
+            if (!BodyIdentifier.isWall(body)) {
+                continue;
+            }
+            Transform transform = body.getTransform();
+            for (Fixture fixture : body.getFixtureList()) {
+                Shape shape = fixture.getShape();
+                if (shape instanceof PolygonShape) {
+                    PolygonShape polygonShape = (PolygonShape) shape;
+                    int count = polygonShape.getVertexCount();
+                    mWalls.polygons.add(count);
+                    float minX = Float.MAX_VALUE;
+                    float minY = Float.MAX_VALUE;
+                    float maxX = -Float.MAX_VALUE;
+                    float maxY = -Float.MAX_VALUE;
+                    for (int idx = 0; idx < count; ++idx) {
+                        polygonShape.getVertex(idx, vertex);
+                        transform.mul(vertex);
+                        mWalls.polygons.add(vertex.x, vertex.y);
+                        minX = Math.min(minX, vertex.x);
+                        minY = Math.min(minY, vertex.y);
+                        maxX = Math.max(maxX, vertex.x);
+                        maxY = Math.max(maxY, vertex.y);
+                    }
+                    mWalls.boundingBoxes.add(minX, minY, maxX, maxY);
+                } else if (shape instanceof CircleShape) {
+                    CircleShape circleShape = (CircleShape) shape;
+                    vertex.set(circleShape.getPosition());
+                    transform.mul(vertex);
+                    float radius = circleShape.getRadius();
+                    mWalls.circles.add(vertex.x, vertex.y, radius);
+                    circleBoxes.add(vertex.x - radius, vertex.y - radius);
+                    circleBoxes.add(vertex.x + radius, vertex.y + radius);
+                } else {
+                    mWalls.unsupportedShapes = true;
+                }
+            }
+        }
+        mWalls.boundingBoxes.addAll(circleBoxes);
+    }
+}
@@ -21,9 +21,11 @@ package com.agateau.pixelwheels.racer;
 import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.map.Material;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.agateau.utils.AgcMathUtils;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
@@ -39,7 +41,7 @@ import com.badlogic.gdx.utils.ArrayMap;
 import com.badlogic.gdx.utils.Disposable;
 
 /** Represents a car on the world */
-public class Vehicle implements Racer.Component, Disposable {
+public class Vehicle implements Racer.Component, Disposable, Interpolated {
     private static final float ACCELERATION_DELTA = 1;
     private static final float BRAKING_DELTA = 0.8f;
     // If the angle in degrees between body and velocity is more than this
@@ -54,11 +56,13 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private final Body mBody;
+    private final InterpolatedBody mInterpolatedBody = new InterpolatedBody();
     private final GameWorld mGameWorld;
     private Racer mRacer;
 
     private final TextureRegion mRegion;
     private final Array<WheelInfo> mWheels = new Array<>();
+    private float mBoundingRadius;
     private String mId;
     private String mName;
 
@@ -74,7 +78,7 @@ public class Vehicle implements Racer.Component, Disposable {
     private Material mMaterial = Material.ROAD;
     private float mSpeedLimiter = 1f;
 
-    private Probe mProbe = null;
+    private SpeedProbe mProbe = null;
 
     private final ArrayMap<Long, Float> mTurboCellMap = new ArrayMap<>(8);
 
@@ -101,12 +105,14 @@ public class Vehicle implements Racer.Component, Disposable {
         for (Shape2D shape : shapes) {
             FixtureDef fixtureDef = new FixtureDef();
             fixtureDef.shape = Box2DUtils.createBox2DShape(shape, Constants.UNIT_FOR_PIXEL);
-            fixtureDef.density = GamePlay.instance.vehicleDensity / 10.0f;
+            fixtureDef.density = mGameWorld.getGamePlay().vehicleDensity / 10.0f;
             fixtureDef.friction = 0.2f;
-            fixtureDef.restitution = GamePlay.instance.vehicleRestitution / 10.0f;
+            fixtureDef.restitution = mGameWorld.getGamePlay().vehicleRestitution / 10.0f;
             mBody.createFixture(fixtureDef);
             fixtureDef.shape.dispose();
         }
+        mBoundingRadius = Box2DUtils.getBoundingRadius(mBody);
+        mInterpolatedBody.setBody(mBody);
     }
 
     @Override
@@ -124,6 +130,8 @@ public class Vehicle implements Racer.Component, Disposable {
 
         Body body = info.wheel.getBody();
         body.setUserData(mBody.getUserData());
+        mBoundingRadius =
+                Math.max(mBoundingRadius, Vector2.len(x, y) + Box2DUtils.getBoundingRadius(body));
 
         RevoluteJointDef jointDef = new RevoluteJointDef();
         // Call initialize() instead of defining bodies and anchors manually. Defining anchors
@@ -146,7 +154,7 @@ public class Vehicle implements Racer.Component, Disposable {
         }
     }
 
-    public void setProbe(Probe probe) {
+    public void setProbe(SpeedProbe probe) {
         mProbe = probe;
     }
 
@@ -172,6 +180,26 @@ public class Vehicle implements Racer.Component, Disposable {
         return mBody;
     }
 
+    public InterpolatedBody getInterpolatedBody() {
+        return mInterpolatedBody;
+    }
+
+    @Override
+    public void storePreviousState() {
+        mInterpolatedBody.storePreviousState();
+        for (WheelInfo info : mWheels) {
+            info.wheel.storePreviousState();
+        }
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mInterpolatedBody.interpolate(alpha);
+        for (WheelInfo info : mWheels) {
+            info.wheel.interpolate(alpha);
+        }
+    }
+
     public TextureRegion getRegion() {
         return mRegion;
     }
@@ -220,6 +248,10 @@ public class Vehicle implements Racer.Component, Disposable {
         mSpeedLimiter = speedLimiter;
     }
 
+    public float getSpeedLimiter() {
+        return mSpeedLimiter;
+    }
+
     /** Returns the angle the car is facing */
     public float getAngle() {
         return AgcMathUtils.normalizeAngle(mBody.getAngle() * MathUtils.radiansToDegrees);
@@ -233,6 +265,14 @@ public class Vehicle implements Racer.Component, Disposable {
         return Constants.UNIT_FOR_PIXEL * mRegion.getRegionHeight();
     }
 
+    /**
+     * Returns the radius of the circle centered on the vehicle position which contains all its
+     * fixtures, including its wheels
+     */
+    public float getBoundingRadius() {
+        return mBoundingRadius;
+    }
+
     public boolean isFlying() {
         return mZ > 0;
     }
@@ -297,7 +337,7 @@ public class Vehicle implements Racer.Component, Disposable {
      * </ul>
      */
     private void applyGroundEffects(float dt) {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
         float groundSpeed = 0;
         for (WheelInfo info : mWheels) {
             float wheelGroundSpeed = info.wheel.getGroundSpeed();
@@ -360,7 +400,7 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private void applyTurbo(float dt) {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
 
         if (mTurboTime == 0) {
             mBody.applyLinearImpulse(
@@ -377,13 +417,11 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private float computeSteerAngle() {
-        final GamePlay GP = GamePlay.instance;
+        final GamePlay GP = mGameWorld.getGamePlay();
         if (mDirection == 0) {
             if (mProbe != null) {
                 float speed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
-                mProbe.addValue("steer", 0);
-                mProbe.addValue("speed", speed);
-                mProbe.addValue("category", 0);
+                mProbe.setValues(0, speed, 0);
             }
             return 0;
         }
@@ -392,7 +430,7 @@ public class Vehicle implements Racer.Component, Disposable {
         float steer;
         // Category is 0 if speed is < GP.lowSpeed, 1 if < GP.maxSpeed, 2 if > GP.maxSpeed
         // For a better driving experience, it should not reach 2 except when triggering turbos
-        float category;
+        int category;
         if (speed < GP.lowSpeed) {
             steer = MathUtils.lerp(GP.stoppedMaxSteer, GP.lowSpeedMaxSteer, speed / GP.lowSpeed);
             category = 0;
@@ -405,9 +443,7 @@ public class Vehicle implements Racer.Component, Disposable {
             category = 2;
         }
         if (mProbe != null) {
-            mProbe.addValue("steer", steer);
-            mProbe.addValue("speed", speed);
-            mProbe.addValue("category", category);
+            mProbe.setValues(steer, speed, category);
         }
         return mDirection * steer;
     }
@@ -417,7 +453,7 @@ public class Vehicle implements Racer.Component, Disposable {
     }
 
     private void addTriggeredTurboCell(long cellId) {
-        mTurboCellMap.put(cellId, GamePlay.instance.turboDuration);
+        mTurboCellMap.put(cellId, mGameWorld.getGamePlay().turboDuration);
     }
 
     private void updateTriggeredTurboTiles(float delta) {
@@ -435,6 +471,10 @@ public class Vehicle implements Racer.Component, Disposable {
         mAccelerating = value;
     }
 
+    public boolean isAccelerating() {
+        return mAccelerating;
+    }
+
     public void setBraking(boolean value) {
         mBraking = value;
     }
@@ -447,6 +487,10 @@ public class Vehicle implements Racer.Component, Disposable {
         mDirection = direction;
     }
 
+    public float getDirection() {
+        return mDirection;
+    }
+
     public Vector2 getPosition() {
         return mBody.getPosition();
     }
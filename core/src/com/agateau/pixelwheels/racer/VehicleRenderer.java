@@ -23,13 +23,13 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.Renderer;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.utils.BodyRegionDrawer;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.utils.Array;
 
 /** Renders a vehicle */
@@ -73,10 +73,11 @@ public class VehicleRenderer implements Renderer {
                 for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
                     if (info.wheel.getMaterial().isWater()) {
                         mBodyRegionDrawer.draw(
-                                info.wheel.getBody(), mAssets.splash.getKeyFrame(mTime, true));
+                                info.wheel.getInterpolatedBody(),
+                                mAssets.splash.getKeyFrame(mTime, true));
                     }
                 }
-                mBodyRegionDrawer.drawShadow(mVehicle.getBody(), mVehicle.getRegion());
+                mBodyRegionDrawer.drawShadow(mVehicle.getInterpolatedBody(), mVehicle.getRegion());
             }
             return;
         }
@@ -97,10 +98,10 @@ public class VehicleRenderer implements Renderer {
             // wheels are visible
             // through it and it looks ugly
             for (Vehicle.WheelInfo info : mVehicle.getWheelInfos()) {
-                mBodyRegionDrawer.draw(info.wheel.getBody(), info.wheel.getRegion());
+                mBodyRegionDrawer.draw(info.wheel.getInterpolatedBody(), info.wheel.getRegion());
             }
         }
-        mBodyRegionDrawer.draw(mVehicle.getBody(), mVehicle.getRegion());
+        mBodyRegionDrawer.draw(mVehicle.getInterpolatedBody(), mVehicle.getRegion());
 
         if (mVehicle.getTurboTime() >= 0) {
             drawTurbo(batch);
@@ -117,7 +118,7 @@ public class VehicleRenderer implements Renderer {
 
     private void drawTurbo(Batch batch) {
         TextureRegion region = mAssets.turboFlame.getKeyFrame(mVehicle.getTurboTime(), true);
-        Body body = mVehicle.getBody();
+        InterpolatedBody body = mVehicle.getInterpolatedBody();
         Vector2 center = body.getPosition();
         float angle = body.getAngle() * MathUtils.radiansToDegrees;
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
@@ -19,10 +19,11 @@
 package com.agateau.pixelwheels.racer;
 
 import com.agateau.pixelwheels.Constants;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.map.Material;
 import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.pixelwheels.utils.InterpolatedBody;
 import com.agateau.utils.CircularArray;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
@@ -34,7 +35,7 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Disposable;
 
 /** A wheel */
-public class Wheel implements Disposable {
+public class Wheel implements Disposable, Interpolated {
     private static final float DRIFT_IMPULSE_REDUCTION =
             0.5f; // Limit how much of the lateral velocity is killed when drifting
     private static final float DRAG_FACTOR = 1;
@@ -72,21 +73,16 @@ public class Wheel implements Disposable {
         }
     }
 
-    private final CircularArray<Skidmark> mSkidmarks =
-            new CircularArray<Skidmark>(GamePlay.instance.maxSkidmarks) {
-                @Override
-                protected Skidmark createInstance() {
-                    return new Skidmark();
-                }
-            };
+    private final CircularArray<Skidmark> mSkidmarks;
     private int mSkidmarkCount = 0; // Used to limit the number of skidmarks created
 
     private final Body mBody;
+    private final InterpolatedBody mInterpolatedBody = new InterpolatedBody();
     private final GameWorld mGameWorld;
     private final TextureRegion mRegion;
     private final Vehicle mVehicle;
     private boolean mCanDrift = false;
-    private float mMaxDrivingForce = GamePlay.instance.maxDrivingForce;
+    private float mMaxDrivingForce;
     private boolean mGripEnabled = true;
     private Material mMaterial = Material.ROAD;
     private boolean mDrifting = false;
@@ -101,6 +97,14 @@ public class Wheel implements Disposable {
         mGameWorld = gameWorld;
         mVehicle = vehicle;
         mRegion = region;
+        mMaxDrivingForce = gameWorld.getGamePlay().maxDrivingForce;
+        mSkidmarks =
+                new CircularArray<Skidmark>(gameWorld.getGamePlay().maxSkidmarks) {
+                    @Override
+                    protected Skidmark createInstance() {
+                        return new Skidmark();
+                    }
+                };
 
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
@@ -115,6 +119,7 @@ public class Wheel implements Disposable {
         shape.set(Box2DUtils.createOctogon(w, h, w / 4, w / 4));
         mBody.createFixture(shape, 2f);
         shape.dispose();
+        mInterpolatedBody.setBody(mBody);
     }
 
     public TextureRegion getRegion() {
@@ -150,6 +155,20 @@ public class Wheel implements Disposable {
         return mBody;
     }
 
+    public InterpolatedBody getInterpolatedBody() {
+        return mInterpolatedBody;
+    }
+
+    @Override
+    public void storePreviousState() {
+        mInterpolatedBody.storePreviousState();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mInterpolatedBody.interpolate(alpha);
+    }
+
     public float getGroundSpeed() {
         return mMaterial.getSpeed();
     }
@@ -165,7 +184,10 @@ public class Wheel implements Disposable {
         final float currentSpeed = mBody.getLinearVelocity().len() * Box2DUtils.MS_TO_KMH;
 
         final float limit =
-                1 - 0.2f * Interpolation.sineOut.apply(currentSpeed / GamePlay.instance.maxSpeed);
+                1
+                        - 0.2f
+                                * Interpolation.sineOut.apply(
+                                        currentSpeed / mGameWorld.getGamePlay().maxSpeed);
         amount *= limit;
 
         float force = mMaxDrivingForce * amount;
@@ -186,7 +208,8 @@ public class Wheel implements Disposable {
         Vector2 impulse =
                 Box2DUtils.getLateralVelocity(mBody).scl(-mBody.getMass()).scl(mMaterial.getGrip());
         float maxImpulse =
-                (float) GamePlay.instance.maxLateralImpulse / (mVehicle.isBraking() ? 0.2f : 1);
+                (float) mGameWorld.getGamePlay().maxLateralImpulse
+                        / (mVehicle.isBraking() ? 0.2f : 1);
         if (mMaterial != Material.ICE && mCanDrift && impulse.len() > maxImpulse) {
             // Drift
             mDrifting = true;
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.VersionInfo;
+import com.agateau.utils.LogHistogram;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.PerformanceCounter;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.google.gson.Gson;
+import java.util.ArrayList;
+
+/**
+ * Records the time of each frame of each PerformanceCounter in a LogHistogram, so that the frame
+ * times of a race can be analyzed beyond the averages shown in the debug HUD.
+ *
+ * <p>At the end of the race the percentiles and the buckets of each histogram are appended to a
+ * file, as one JSON line keyed by track, vehicle count and device.
+ */
+class FrameTimeRecorder {
+    /** A frame takes longer than this if the game runs at less than 60 FPS */
+    static final float FRAME_BUDGET = 1 / 60f;
+
+    /** The file is restarted from scratch when it grows bigger than this */
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+
+    private static class CounterRecord {
+        String name;
+        int frames;
+        int overBudget;
+        float p50;
+        float p95;
+        float p99;
+        float max;
+        int[] buckets;
+    }
+
+    private static class RaceRecord {
+        String version = VersionInfo.VERSION;
+        String track;
+        int vehicleCount;
+        String device;
+        float budget = FRAME_BUDGET;
+        final ArrayList<CounterRecord> counters = new ArrayList<>();
+    }
+
+    private final PerformanceCounters mCounters;
+    private final Array<LogHistogram> mHistograms = new Array<>();
+
+    FrameTimeRecorder(PerformanceCounters counters) {
+        mCounters = counters;
+    }
+
+    /** Must be called at the end of each frame, before calling PerformanceCounters.tick() */
+    void record() {
+        // Counters can be added after the recorder has been created
+        while (mHistograms.size < mCounters.counters.size) {
+            mHistograms.add(new LogHistogram(FRAME_BUDGET));
+        }
+        for (int idx = 0; idx < mCounters.counters.size; ++idx) {
+            PerformanceCounter counter = mCounters.counters.get(idx);
+            if (counter.valid) {
+                mHistograms.get(idx).record(counter.current);
+            }
+        }
+    }
+
+    void write(FileHandle file, String trackId, int vehicleCount) {
+        RaceRecord record = new RaceRecord();
+        record.track = trackId;
+        record.vehicleCount = vehicleCount;
+        record.device = getDeviceDescription();
+        for (int idx = 0; idx < mHistograms.size; ++idx) {
+            LogHistogram histogram = mHistograms.get(idx);
+            CounterRecord counterRecord = new CounterRecord();
+            counterRecord.name = mCounters.counters.get(idx).name;
+            counterRecord.frames = histogram.getCount();
+            counterRecord.overBudget = histogram.getOverBudgetCount();
+            counterRecord.p50 = histogram.getPercentile(50);
+            counterRecord.p95 = histogram.getPercentile(95);
+            counterRecord.p99 = histogram.getPercentile(99);
+            counterRecord.max = histogram.getMax();
+            counterRecord.buckets = new int[LogHistogram.BUCKET_COUNT];
+            for (int bucket = 0; bucket < LogHistogram.BUCKET_COUNT; ++bucket) {
+                counterRecord.buckets[bucket] = histogram.getBucketCount(bucket);
+            }
+            record.counters.add(counterRecord);
+        }
+        boolean append = file.exists() && file.length() < MAX_FILE_SIZE;
+        try {
+            file.writeString(new Gson().toJson(record) + "\n", append);
+        } catch (GdxRuntimeException e) {
+            NLog.e("Failed to write frame times to %s: %s", file.path(), e);
+        }
+    }
+
+    private static String getDeviceDescription() {
+        // On Android, the http.agent property contains the OS version and the device model
+        String description = System.getProperty("http.agent");
+        if (description == null) {
+            description =
+                    System.getProperty("os.name")
+                            + " "
+                            + System.getProperty("os.version")
+                            + " "
+                            + System.getProperty("os.arch");
+        }
+        return description + ", " + Gdx.gl.glGetString(GL20.GL_RENDERER);
+    }
+}
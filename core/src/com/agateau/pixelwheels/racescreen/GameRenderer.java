@@ -24,6 +24,7 @@ import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.debug.Debug;
 import com.agateau.pixelwheels.debug.DebugShapeMap;
 import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.map.WaypointStore;
 import com.badlogic.gdx.graphics.OrthographicCamera;
@@ -70,13 +71,7 @@ public class GameRenderer {
 
         mBatch = batch;
         mCamera = new OrthographicCamera();
-        boolean singlePlayer = mWorld.getPlayerRacers().size == 1;
-        mCameraUpdater =
-                Debug.instance.freeCamera
-                        ? new FreeCameraUpdater(mWorld)
-                        : singlePlayer
-                                ? new SinglePlayerCameraUpdater(mWorld)
-                                : new MultiPlayerCameraUpdater(mWorld);
+        mCameraUpdater = createCameraUpdater(mWorld);
         mRenderer =
                 new OrthogonalTiledMapRenderer(mTrack.getMap(), Constants.UNIT_FOR_PIXEL, mBatch);
 
@@ -90,6 +85,18 @@ public class GameRenderer {
         }
     }
 
+    static CameraUpdater createCameraUpdater(GameWorld world) {
+        if (Debug.instance.freeCamera) {
+            return new FreeCameraUpdater(world);
+        }
+        // Replays of AI-only races have no players: SinglePlayerCameraUpdater follows the leading
+        // racer then
+        if (world.getPlayerRacers().size <= 1) {
+            return new SinglePlayerCameraUpdater(world);
+        }
+        return new MultiPlayerCameraUpdater(world);
+    }
+
     private void setupWaypointDebugShape() {
         DebugShapeMap.put(
                 "waypoints",
@@ -100,7 +107,11 @@ public class GameRenderer {
                     for (int idx = 0; idx < store.getCount(); ++idx) {
                         renderer.setColor(idx % 2, 1, 0, 1);
                         int prevIdx = store.getPreviousIndex(idx);
-                        renderer.line(store.getWaypoint(prevIdx), store.getWaypoint(idx));
+                        renderer.line(
+                                store.getWaypointX(prevIdx),
+                                store.getWaypointY(prevIdx),
+                                store.getWaypointX(idx),
+                                store.getWaypointY(idx));
                     }
                     renderer.end();
                 });
@@ -115,11 +126,13 @@ public class GameRenderer {
     }
 
     public void onAboutToStart() {
+        interpolateGameObjects(mWorld, 1);
         updateCamera(CameraUpdater.IMMEDIATE);
     }
 
     public void render(float delta) {
         HdpiUtils.glViewport(mScreenX, mScreenY, mScreenWidth, mScreenHeight);
+        interpolateGameObjects(mWorld, mWorld.getInterpolationAlpha());
         updateCamera(delta);
         updateMapRendererCamera();
 
@@ -180,6 +193,14 @@ public class GameRenderer {
         }
     }
 
+    static void interpolateGameObjects(GameWorld world, float alpha) {
+        for (GameObject object : world.getActiveGameObjects()) {
+            if (object instanceof Interpolated) {
+                ((Interpolated) object).interpolate(alpha);
+            }
+        }
+    }
+
     private void updateCamera(float delta) {
         mCameraUpdater.update(delta);
     }
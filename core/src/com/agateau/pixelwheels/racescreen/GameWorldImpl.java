@@ -19,32 +19,52 @@
 package com.agateau.pixelwheels.racescreen;
 
 import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GameConfig;
+import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.PwGame;
 import com.agateau.pixelwheels.bonus.BonusPool;
 import com.agateau.pixelwheels.bonus.BonusSpot;
+import com.agateau.pixelwheels.bonus.Bullet;
 import com.agateau.pixelwheels.bonus.GunBonus;
+import com.agateau.pixelwheels.bonus.Mine;
 import com.agateau.pixelwheels.bonus.MineBonus;
+import com.agateau.pixelwheels.bonus.Missile;
 import com.agateau.pixelwheels.bonus.MissileBonus;
 import com.agateau.pixelwheels.bonus.TurboBonus;
+import com.agateau.pixelwheels.gameobjet.AnimationObject;
 import com.agateau.pixelwheels.gameobjet.GameObject;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.gamesetup.GameInfo;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.obstacles.ObstacleCreator;
 import com.agateau.pixelwheels.obstacles.ObstacleDef;
 import com.agateau.pixelwheels.racer.AIPilot;
+import com.agateau.pixelwheels.racer.AIScheduler;
 import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Pilot;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.ReplayPilot;
+import com.agateau.pixelwheels.racer.StaticVisibilityTable;
 import com.agateau.pixelwheels.racer.Vehicle;
+import com.agateau.pixelwheels.replay.Replay;
 import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.stats.BufferedGameStats;
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.SectorTimeStore;
 import com.agateau.pixelwheels.stats.TrackResult;
 import com.agateau.pixelwheels.stats.TrackStats;
+import com.agateau.pixelwheels.utils.TrackedPool;
 import com.agateau.pixelwheels.vehicledef.VehicleCreator;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
 import com.agateau.utils.Assert;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.agateau.utils.telemetry.TelemetryWriter;
 import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
@@ -53,42 +73,179 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
-import com.badlogic.gdx.utils.Sort;
-import java.util.Comparator;
 
 public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
-    private final PwGame mGame;
+    private static final String TELEMETRY_FILE_NAME = "telemetry.pwtl";
+
+    // How many objects prewarmPools() creates per racer in each pool, when
+    // GamePlay.poolPrewarmFactor is 1. Based on the highest high-water marks of 6-racer AI races
+    private static final float BULLETS_PER_RACER = 2;
+    private static final float MINES_PER_RACER = 0.5f;
+    private static final float MISSILES_PER_RACER = 0.5f;
+    private static final float ANIMATION_OBJECTS_PER_RACER = 2;
+    private static final float BONUSES_PER_RACER = 0.75f;
+
+    private final Assets mAssets;
+    private final AudioManager mAudioManager;
+    private final BufferedGameStats mGameStats;
+    private final GameConfig mGameConfig;
+    private final GamePlay mGamePlay;
+    private final RandomXS128 mRandom;
+    private final TelemetryWriter mTelemetryWriter;
+    private SectorTimeStore mSectorTimeStore;
+    private final boolean mDeterministic;
+    private final Replay mReplay;
     private Track mTrack;
     private final CountDown mCountDown;
 
     private final World mBox2DWorld;
     private float mTimeAccumulator = 0;
+    private int mStepCount = 0;
 
-    private final Array<BonusPool> mBonusPools = new Array<>();
+    private final Array<BonusPool<?>> mBonusPools = new Array<>();
+    private final ObjectMap<Class<?>, TrackedPool<?>> mPools = new ObjectMap<>();
+    // All pools: the ones of mPools and the bonus pools
+    private final Array<TrackedPool<?>> mAllPools = new Array<>();
+    private boolean mPoolsPrewarmed = false;
 
     private final Array<Racer> mRacers = new Array<>();
     private final Array<Racer> mPlayerRacers = new Array<>();
+    private final RacerRanking mRacerRanking = new RacerRanking(mRacers);
+    private final AIScheduler mAIScheduler;
+    private final StaticVisibilityTable mStaticVisibilityTable;
+    private final Array<Mine> mDroppedMines = new Array<>();
     private State mState = GameWorld.State.COUNTDOWN;
 
     private final Array<GameObject> mActiveGameObjects = new Array<>();
 
     private final PerformanceCounter mBox2DPerformanceCounter;
     private final PerformanceCounter mGameObjectPerformanceCounter;
+    private final PerformanceCounter mRankingPerformanceCounter;
 
     GameWorldImpl(PwGame game, GameInfo gameInfo, PerformanceCounters performanceCounters) {
-        mGame = game;
+        this(
+                game.getAssets(),
+                game.getAudioManager(),
+                game.getGameStats(),
+                game.getConfig(),
+                GamePlay.instance,
+                gameInfo,
+                performanceCounters,
+                false,
+                MathUtils.random.nextLong(),
+                null);
+        mSectorTimeStore =
+                SectorTimeStore.load(
+                        SectorTimeStore.getFile(mTrack.getId()),
+                        mTrack.getLapPositionTable().getSectionCount());
+    }
+
+    /**
+     * Creates a world which does not depend on PwGame, for example to run races without any screen.
+     * gameConfig is only used to create the pilots of the player entrants, so it can be null if all
+     * entrants are AI.
+     *
+     * <p>Worlds do not share any mutable state once created, so several of them can run at the same
+     * time in different threads, each with its own gamePlay.
+     *
+     * <p>The world runs in deterministic mode: all random draws come from a generator initialized
+     * with seed, and game objects act on each fixed physics step instead of once per frame. Two
+     * worlds created with the same arguments and receiving the same input produce the same race,
+     * whatever the frame rate.
+     */
+    public GameWorldImpl(
+            Assets assets,
+            AudioManager audioManager,
+            GameStats gameStats,
+            GameConfig gameConfig,
+            GamePlay gamePlay,
+            GameInfo gameInfo,
+            PerformanceCounters performanceCounters,
+            long seed) {
+        this(
+                assets,
+                audioManager,
+                gameStats,
+                gameConfig,
+                gamePlay,
+                gameInfo,
+                performanceCounters,
+                true,
+                seed,
+                null);
+    }
+
+    /**
+     * Creates a world which plays replay back: it runs in deterministic mode, with the seed and the
+     * gameplay values of the replay, and all racers are driven by ReplayPilot instances.
+     *
+     * <p>gameInfo must come from Replay.createGameInfo().
+     */
+    public GameWorldImpl(
+            Assets assets,
+            AudioManager audioManager,
+            GameStats gameStats,
+            GameInfo gameInfo,
+            PerformanceCounters performanceCounters,
+            Replay replay) {
+        this(
+                assets,
+                audioManager,
+                gameStats,
+                null,
+                replay.getGamePlay(),
+                gameInfo,
+                performanceCounters,
+                true,
+                replay.getSeed(),
+                replay);
+    }
+
+    private GameWorldImpl(
+            Assets assets,
+            AudioManager audioManager,
+            GameStats gameStats,
+            GameConfig gameConfig,
+            GamePlay gamePlay,
+            GameInfo gameInfo,
+            PerformanceCounters performanceCounters,
+            boolean deterministic,
+            long seed,
+            Replay replay) {
+        mAssets = assets;
+        mAudioManager = audioManager;
+        mGameStats = new BufferedGameStats(gameStats);
+        mGameConfig = gameConfig;
+        mGamePlay = gamePlay;
+        mRandom = new RandomXS128(seed);
+        mTelemetryWriter =
+                gamePlay.createSpeedReport
+                        ? new TelemetryWriter(FileUtils.getUserWritableFile(TELEMETRY_FILE_NAME))
+                        : null;
+        mDeterministic = deterministic;
+        mReplay = replay;
         mBox2DWorld = new World(new Vector2(0, 0), true);
         mBox2DWorld.setContactListener(this);
         mTrack = gameInfo.getTrack();
         mTrack.init();
-        mCountDown = new CountDown(this, game.getAudioManager(), game.getAssets().soundAtlas);
+        if (mReplay != null && mReplay.getLapCount() != mTrack.getTotalLapCount()) {
+            NLog.e(
+                    "Replay has been recorded with %d laps, but track has %d laps",
+                    mReplay.getLapCount(), mTrack.getTotalLapCount());
+        }
+        mCountDown = new CountDown(this, mAudioManager, mAssets.soundAtlas);
+        mAIScheduler = new AIScheduler(gamePlay);
 
         mBox2DPerformanceCounter = performanceCounters.add("- box2d");
         mGameObjectPerformanceCounter = performanceCounters.add("- g.o");
+        mRankingPerformanceCounter = performanceCounters.add("- ranking");
         setupRacers(gameInfo.getEntrants());
         setupObstacles();
+        mStaticVisibilityTable =
+                new StaticVisibilityTable(mBox2DWorld, mTrack, getMaxVehicleHalfWidth());
         setupBonusSpots();
         setupBonusPools();
     }
@@ -119,10 +276,15 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     @Override
-    public Array<BonusPool> getBonusPools() {
+    public Array<BonusPool<?>> getBonusPools() {
         return mBonusPools;
     }
 
+    @Override
+    public Array<TrackedPool<?>> getPools() {
+        return mAllPools;
+    }
+
     @Override
     public Array<GameObject> getActiveGameObjects() {
         return mActiveGameObjects;
@@ -140,12 +302,7 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public int getRacerRank(Racer racer) {
-        for (int idx = mRacers.size - 1; idx >= 0; --idx) {
-            if (mRacers.get(idx) == racer) {
-                return idx + 1;
-            }
-        }
-        return -1;
+        return racer.getRank();
     }
 
     /**
@@ -162,52 +319,123 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public GameStats getGameStats() {
-        return mGame.getGameStats();
+        return mGameStats;
     }
 
-    /**
-     * Sort racers, listing racers which have driven the longest first, so it returns 1 if racer1
-     * has driven less than racer2
-     */
-    private static final Comparator<Racer> sRacerComparator =
-            (racer1, racer2) -> {
-                LapPositionComponent c1 = racer1.getLapPositionComponent();
-                LapPositionComponent c2 = racer2.getLapPositionComponent();
-                if (!c1.hasFinishedRace() && c2.hasFinishedRace()) {
-                    return 1;
-                }
-                if (c1.hasFinishedRace() && !c2.hasFinishedRace()) {
-                    return -1;
-                }
-                if (c1.getLapCount() < c2.getLapCount()) {
-                    return 1;
-                }
-                if (c1.getLapCount() > c2.getLapCount()) {
-                    return -1;
-                }
-                float d1 = c1.getLapDistance();
-                float d2 = c2.getLapDistance();
-                return Float.compare(d2, d1);
-            };
+    @Override
+    public GamePlay getGamePlay() {
+        return mGamePlay;
+    }
+
+    @Override
+    public SectorTimeStore getSectorTimeStore() {
+        return mSectorTimeStore;
+    }
+
+    @Override
+    public TelemetryWriter getTelemetryWriter() {
+        return mTelemetryWriter;
+    }
+
+    @Override
+    public <T> TrackedPool<T> getPool(Class<T> type) {
+        @SuppressWarnings("unchecked")
+        TrackedPool<T> pool = (TrackedPool<T>) mPools.get(type);
+        if (pool == null) {
+            pool = new TrackedPool<>(type);
+            mPools.put(type, pool);
+            mAllPools.add(pool);
+        }
+        return pool;
+    }
+
+    @Override
+    public AIScheduler getAIScheduler() {
+        return mAIScheduler;
+    }
+
+    @Override
+    public StaticVisibilityTable getStaticVisibilityTable() {
+        return mStaticVisibilityTable;
+    }
+
+    @Override
+    public Array<Mine> getDroppedMines() {
+        return mDroppedMines;
+    }
+
+    @Override
+    public RandomXS128 getRandom() {
+        return mRandom;
+    }
+
+    @Override
+    public float getInterpolationAlpha() {
+        return mTimeAccumulator / GameWorld.BOX2D_TIME_STEP;
+    }
+
+    /** Returns the number of Box2D steps run since the world was created */
+    public int getStepCount() {
+        return mStepCount;
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return mDeterministic;
+    }
 
     @Override
     public void act(float delta) {
-        mCountDown.act(delta);
-        mBox2DPerformanceCounter.start();
+        if (!mPoolsPrewarmed) {
+            prewarmPools();
+        }
         // fixed time step
         // max frame time to avoid spiral of death (on slow devices)
         float frameTime = Math.min(delta, 0.25f);
         mTimeAccumulator += frameTime;
+        if (mDeterministic) {
+            // Everything acts on the fixed time step, so that the race does not depend on the
+            // frame rate
+            while (mTimeAccumulator >= GameWorld.BOX2D_TIME_STEP) {
+                mTimeAccumulator -= GameWorld.BOX2D_TIME_STEP;
+                mCountDown.act(GameWorld.BOX2D_TIME_STEP);
+                mBox2DPerformanceCounter.start();
+                stepBox2DWorld();
+                mBox2DPerformanceCounter.stop();
+                actGameObjects(GameWorld.BOX2D_TIME_STEP);
+                updateRacers();
+            }
+            return;
+        }
+
+        mCountDown.act(delta);
+        mBox2DPerformanceCounter.start();
         while (mTimeAccumulator >= GameWorld.BOX2D_TIME_STEP) {
-            mBox2DWorld.step(
-                    GameWorld.BOX2D_TIME_STEP,
-                    GameWorld.VELOCITY_ITERATIONS,
-                    GameWorld.POSITION_ITERATIONS);
+            stepBox2DWorld();
             mTimeAccumulator -= GameWorld.BOX2D_TIME_STEP;
         }
         mBox2DPerformanceCounter.stop();
+        actGameObjects(delta);
+        updateRacers();
+    }
 
+    private void stepBox2DWorld() {
+        for (int idx = 0, n = mActiveGameObjects.size; idx < n; ++idx) {
+            GameObject obj = mActiveGameObjects.get(idx);
+            if (obj instanceof Interpolated) {
+                ((Interpolated) obj).storePreviousState();
+            }
+        }
+        mBox2DWorld.step(
+                GameWorld.BOX2D_TIME_STEP,
+                GameWorld.VELOCITY_ITERATIONS,
+                GameWorld.POSITION_ITERATIONS);
+        ++mStepCount;
+    }
+
+    private void actGameObjects(float delta) {
         mGameObjectPerformanceCounter.start();
+        mAIScheduler.beginTick();
         for (int idx = mActiveGameObjects.size - 1; idx >= 0; --idx) {
             GameObject obj = mActiveGameObjects.get(idx);
             obj.act(delta);
@@ -219,19 +447,17 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             }
         }
         mGameObjectPerformanceCounter.stop();
+    }
 
-        // Skip finished racers so that they keep the position they had when they crossed the finish
-        // line, even if they continue a bit after it
-        int fromIndex;
-        for (fromIndex = 0; fromIndex < mRacers.size; ++fromIndex) {
-            if (!mRacers.get(fromIndex).getLapPositionComponent().hasFinishedRace()) {
-                break;
-            }
-        }
-        Sort.instance().sort(mRacers.items, sRacerComparator, fromIndex, mRacers.size);
+    private void updateRacers() {
+        mRankingPerformanceCounter.start();
+        mRacerRanking.update();
+        mRankingPerformanceCounter.stop();
 
+        // Races without any player, such as simulated ones, end when all AI racers have finished
+        Array<Racer> racers = mPlayerRacers.size > 0 ? mPlayerRacers : mRacers;
         boolean allFinished = true;
-        for (Racer racer : mPlayerRacers) {
+        for (Racer racer : racers) {
             if (!racer.getLapPositionComponent().hasFinishedRace()) {
                 allFinished = false;
                 break;
@@ -243,7 +469,9 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
     }
 
     private void onFinished() {
-        TrackStats stats = mGame.getGameStats().getTrackStats(mTrack);
+        mGameStats.flushEvents();
+        TrackStats stats = mGameStats.getTrackStats(mTrack);
+        boolean sectorTimesChanged = false;
         for (int idx = 0; idx < mRacers.size; ++idx) {
             Racer racer = mRacers.get(idx);
             racer.markRaceFinished();
@@ -267,77 +495,117 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
                         stats.addResult(
                                 TrackStats.ResultType.TOTAL,
                                 new TrackResult(name, lapPositionComponent.getTotalTime()));
+                if (mSectorTimeStore != null
+                        && mSectorTimeStore.merge(lapPositionComponent.getSectorTimes())) {
+                    sectorTimesChanged = true;
+                }
             }
         }
+        if (sectorTimesChanged) {
+            mSectorTimeStore.save();
+        }
     }
 
     private void setupRacers(Array<GameInfo.Entrant> entrants) {
-        VehicleCreator creator = new VehicleCreator(mGame.getAssets(), this);
-        Assets assets = mGame.getAssets();
+        VehicleCreator creator = new VehicleCreator(mAssets, this);
 
         final float startAngle = 90;
         Array<Vector2> positions = mTrack.findStartTilePositions();
         positions.reverse();
 
-        AudioManager audioManager = mGame.getAudioManager();
         for (int idx = 0; idx < entrants.size; ++idx) {
             Assert.check(idx < positions.size, "Too many entrants");
             GameInfo.Entrant entrant = entrants.get(idx);
-            VehicleDef vehicleDef = assets.findVehicleDefById(entrant.getVehicleId());
+            VehicleDef vehicleDef = mAssets.findVehicleDefById(entrant.getVehicleId());
             Vehicle vehicle = creator.create(vehicleDef, positions.get(idx), startAngle);
-            Racer racer = new Racer(assets, audioManager, this, vehicle, entrant);
+            Racer racer = new Racer(mAssets, mAudioManager, this, vehicle, entrant);
+            racer.setPilot(createPilot(racer, idx));
             if (entrant.isPlayer()) {
-                GameInfo.Player player = (GameInfo.Player) entrant;
-                PlayerPilot pilot =
-                        new PlayerPilot(assets, this, racer, mGame.getConfig(), player.getIndex());
-                racer.setPilot(pilot);
                 mPlayerRacers.add(racer);
-            } else {
-                racer.setPilot(new AIPilot(this, mTrack, racer));
             }
             addGameObject(racer);
             mRacers.add(racer);
         }
+        mRacerRanking.initRanks();
+    }
+
+    private Pilot createPilot(Racer racer, int racerIndex) {
+        if (mReplay != null) {
+            return new ReplayPilot(this, racer, mReplay.createInputReader(racerIndex));
+        }
+        GameInfo.Entrant entrant = racer.getEntrant();
+        if (entrant.isPlayer()) {
+            GameInfo.Player player = (GameInfo.Player) entrant;
+            return new PlayerPilot(mAssets, this, racer, mGameConfig, player.getIndex());
+        }
+        return new AIPilot(this, mTrack, racer);
+    }
+
+    private float getMaxVehicleHalfWidth() {
+        float halfWidth = 0;
+        for (Racer racer : mRacers) {
+            halfWidth = Math.max(halfWidth, racer.getVehicle().getHeight() / 2);
+        }
+        return halfWidth;
     }
 
     private void setupObstacles() {
         ObstacleCreator creator = new ObstacleCreator();
-        for (ObstacleDef def : mGame.getAssets().obstacleDefs) {
+        for (ObstacleDef def : mAssets.obstacleDefs) {
             creator.addObstacleDef(def);
         }
 
         for (MapObject object : mTrack.getObstacleObjects()) {
-            creator.create(this, mGame.getAssets(), object);
+            creator.create(this, mAssets, object);
         }
     }
 
     private void setupBonusSpots() {
         for (Vector2 pos : mTrack.findBonusSpotPositions()) {
-            BonusSpot spot =
-                    new BonusSpot(mGame.getAssets(), mGame.getAudioManager(), this, pos.x, pos.y);
+            BonusSpot spot = new BonusSpot(mAssets, mAudioManager, this, pos.x, pos.y);
             addGameObject(spot);
         }
     }
 
     private void setupBonusPools() {
         addPool(
-                new BonusPool<>(GunBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(GunBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.2f, 1.0f, 1.0f});
         addPool(
-                new BonusPool<>(MineBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(MineBonus.class, mAssets, this, mAudioManager),
                 new float[] {2.0f, 1.0f, 0.5f});
         addPool(
-                new BonusPool<>(TurboBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(TurboBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.1f, 1.0f, 2.0f});
         addPool(
-                new BonusPool<>(
-                        MissileBonus.class, mGame.getAssets(), this, mGame.getAudioManager()),
+                new BonusPool<>(MissileBonus.class, mAssets, this, mAudioManager),
                 new float[] {0.2f, 1.0f, 1.0f});
     }
 
-    private void addPool(BonusPool pool, float[] counts) {
+    private void addPool(BonusPool<?> pool, float[] counts) {
         pool.setCounts(counts);
         mBonusPools.add(pool);
+        mAllPools.add(pool);
+    }
+
+    /**
+     * Fills the pools with the objects racers are likely to need, so that they are not created
+     * during the race. Called on the first tick of the count down
+     */
+    private void prewarmPools() {
+        mPoolsPrewarmed = true;
+        float factor = mGamePlay.poolPrewarmFactor * mRacers.size;
+        if (factor <= 0) {
+            return;
+        }
+        Bullet.prewarmPool(this, mAssets, MathUtils.ceil(BULLETS_PER_RACER * factor));
+        Mine.prewarmPool(this, mAssets, MathUtils.ceil(MINES_PER_RACER * factor));
+        getPool(Missile.class).prewarm(MathUtils.ceil(MISSILES_PER_RACER * factor), null);
+        getPool(AnimationObject.class)
+                .prewarm(MathUtils.ceil(ANIMATION_OBJECTS_PER_RACER * factor), null);
+        for (BonusPool<?> pool : mBonusPools) {
+            pool.prewarm(MathUtils.ceil(BONUSES_PER_RACER * factor), null);
+        }
     }
 
     @Override
@@ -411,6 +679,8 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
 
     @Override
     public void dispose() {
+        // Counts events of races which have been quit before the end
+        mGameStats.flushEvents();
         if (mTrack != null) {
             mTrack.dispose();
         }
@@ -420,6 +690,10 @@ public class GameWorldImpl implements ContactListener, Disposable, GameWorld {
             }
         }
         mActiveGameObjects.clear();
+        mBox2DWorld.dispose();
+        if (mTelemetryWriter != null) {
+            mTelemetryWriter.close();
+        }
     }
 
     void forgetTrack() {
@@ -25,6 +25,7 @@ import com.agateau.pixelwheels.Constants;
 import com.agateau.pixelwheels.ZLevel;
 import com.agateau.pixelwheels.gameobjet.AudioClipper;
 import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gameobjet.Interpolated;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.racer.HoleHandlerComponent;
 import com.agateau.pixelwheels.racer.Vehicle;
@@ -46,7 +47,8 @@ import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.ReflectionPool;
 
 /** The rescue helicopter which comes to pick up fallen vehicles */
-public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disposable {
+public class Helicopter extends GameObjectAdapter
+        implements Pool.Poolable, Disposable, Interpolated {
     private static final float SHADOW_OFFSET = 80;
     private static final Vector2 BODY_CENTER = new Vector2(30, (111 - 35));
     private static final float PROPELLER_SPEED = -720;
@@ -62,17 +64,31 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         LEAVING
     }
 
+    /**
+     * Unlike other game objects, helicopters are not pooled per GameWorld because they own OpenGL
+     * resources which must outlive a race. The pool is locked since worlds can run in parallel.
+     */
     private static final ReflectionPool<Helicopter> sPool = new ReflectionPool<>(Helicopter.class);
 
     private SoundPlayer mSoundPlayer;
     private FrameBuffer mFrameBuffer;
     private SpriteBatch mFrameBufferBatch;
+    // The frame buffer is only created and updated once the helicopter has been drawn, so that
+    // worlds which are not rendered never use OpenGL
+    private boolean mDrawn = false;
     private TextureRegion mBodyRegion;
     private TextureRegion mPropellerRegion;
     private TextureRegion mPropellerTopRegion;
     private HoleHandlerComponent mHoleHandlerComponent;
+    // The helicopter is not a physics body: it moves in act(). Its previous state is stored before
+    // each physics step, so interpolating only makes sense if act() also runs once per step
+    private boolean mInterpolated;
     private final Vector2 mPosition = new Vector2();
     private float mAngle;
+    private final Vector2 mPreviousPosition = new Vector2();
+    private float mPreviousAngle;
+    private final Vector2 mDrawPosition = new Vector2();
+    private float mDrawAngle;
     private final Vector2 mStartPosition = new Vector2();
     private float mStartAngle;
     private final Vector2 mEndPosition = new Vector2();
@@ -85,9 +101,13 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
             Assets assets,
             AudioManager audioManager,
             Track track,
+            boolean interpolated,
             HoleHandlerComponent holeHandlerComponent) {
         Vehicle vehicle = holeHandlerComponent.getVehicle();
-        Helicopter object = sPool.obtain();
+        Helicopter object;
+        synchronized (sPool) {
+            object = sPool.obtain();
+        }
         object.setFinished(false);
 
         float height = Constants.UNIT_FOR_PIXEL * assets.helicopterBody.getRegionHeight();
@@ -101,8 +121,11 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         object.mPropellerRegion = assets.helicopterPropeller;
         object.mPropellerTopRegion = assets.helicopterPropellerTop;
         object.mHoleHandlerComponent = holeHandlerComponent;
+        object.mInterpolated = interpolated;
         object.mPosition.set(vehicle.getPosition().x, -height);
         object.mAngle = 0;
+        object.storePreviousState();
+        object.interpolate(1);
         object.mStartPosition.set(object.mPosition);
         object.mStartAngle = 90;
         object.mEndPosition.set(vehicle.getPosition());
@@ -110,21 +133,6 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         object.mLeavePosition.set(vehicle.getPosition().x, mapHeight);
         object.mTime = 0;
         object.mState = State.ARRIVING;
-
-        if (object.mFrameBuffer == null) {
-            int bufferWidth = object.mPropellerRegion.getRegionWidth();
-            int bufferHeight = object.mPropellerRegion.getRegionHeight() / 2 + (int) BODY_CENTER.y;
-            object.mFrameBuffer =
-                    new FrameBuffer(
-                            Pixmap.Format.RGBA8888,
-                            bufferWidth,
-                            bufferHeight,
-                            false /* hasDepth */);
-            object.mFrameBufferBatch = new SpriteBatch();
-            object.mFrameBufferBatch.setProjectionMatrix(
-                    new Matrix4().setToOrtho2D(0, 0, bufferWidth, bufferHeight));
-        }
-
         return object;
     }
 
@@ -133,7 +141,9 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
 
     @Override
     public void dispose() {
-        sPool.free(this);
+        synchronized (sPool) {
+            sPool.free(this);
+        }
     }
 
     public boolean isReadyToRecover() {
@@ -151,7 +161,9 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
     @Override
     public void act(float delta) {
         mTime += delta;
-        updateFrameBuffer();
+        if (mDrawn) {
+            updateFrameBuffer();
+        }
         switch (mState) {
             case ARRIVING:
                 actArriving(delta);
@@ -230,8 +242,28 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         mAngle = MathUtils.lerp(mStartAngle, mEndAngle, progress);
     }
 
+    @Override
+    public void storePreviousState() {
+        mPreviousPosition.set(mPosition);
+        mPreviousAngle = mAngle;
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        if (!mInterpolated) {
+            alpha = 1;
+        }
+        mDrawPosition.set(mPreviousPosition).lerp(mPosition, alpha);
+        mDrawAngle = MathUtils.lerpAngleDeg(mPreviousAngle, mAngle, alpha);
+    }
+
     @Override
     public void draw(Batch batch, ZLevel zLevel) {
+        mDrawn = true;
+        if (mFrameBuffer == null) {
+            // Not ready yet, helicopters start outside the map anyway
+            return;
+        }
         if (zLevel == ZLevel.SHADOWS) {
             float old = batch.getPackedColor();
             batch.setColor(0, 0, 0, SHADOW_ALPHA);
@@ -254,6 +286,20 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         float propellerTopW = mPropellerTopRegion.getRegionWidth();
         float propellerTopH = mPropellerTopRegion.getRegionHeight();
 
+        if (mFrameBuffer == null) {
+            int bufferWidth = (int) propellerW;
+            int bufferHeight = (int) propellerH / 2 + (int) BODY_CENTER.y;
+            mFrameBuffer =
+                    new FrameBuffer(
+                            Pixmap.Format.RGBA8888,
+                            bufferWidth,
+                            bufferHeight,
+                            false /* hasDepth */);
+            mFrameBufferBatch = new SpriteBatch();
+            mFrameBufferBatch.setProjectionMatrix(
+                    new Matrix4().setToOrtho2D(0, 0, bufferWidth, bufferHeight));
+        }
+
         mFrameBuffer.begin();
         mFrameBufferBatch.begin();
         Gdx.gl.glClearColor(0, 0, 0, 0);
@@ -292,8 +338,8 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
         batch.draw(
                 texture,
                 // dst
-                getX() - w * U / 2 + offset,
-                getY() - BODY_CENTER.y * U - offset,
+                mDrawPosition.x - w * U / 2 + offset,
+                mDrawPosition.y - BODY_CENTER.y * U - offset,
                 // origin
                 w * U / 2,
                 BODY_CENTER.y * U,
@@ -304,7 +350,7 @@ public class Helicopter extends GameObjectAdapter implements Pool.Poolable, Disp
                 1,
                 1,
                 // rotation
-                mAngle - 90,
+                mDrawAngle - 90,
                 // src
                 0,
                 0,
@@ -23,6 +23,7 @@ import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.debug.DebugStringMap;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.utils.StringUtils;
+import com.agateau.pixelwheels.utils.TrackedPool;
 import com.agateau.ui.anchor.Anchor;
 import com.agateau.ui.anchor.AnchorGroup;
 import com.badlogic.gdx.Gdx;
@@ -177,6 +178,17 @@ public class HudContent {
                     .append(String.valueOf((int) (counter.load.value * 100)))
                     .append("%\n");
         }
+        // used objects / high-water mark / allocation misses
+        for (TrackedPool<?> pool : mGameWorld.getPools()) {
+            sDebugSB.append(pool.getName())
+                    .append(": ")
+                    .append(pool.getUsedCount())
+                    .append('/')
+                    .append(pool.getHighWaterMark())
+                    .append('/')
+                    .append(pool.getMissCount())
+                    .append('\n');
+        }
         for (Map.Entry<String, String> entry : DebugStringMap.getMap().entrySet()) {
             sDebugSB.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
         }
@@ -41,7 +41,7 @@ class MultiPlayerCameraUpdater extends CameraUpdater {
         float x2 = 0;
         float y2 = 0;
         for (Racer racer : mWorld.getPlayerRacers()) {
-            Vector2 pos = racer.getVehicle().getPosition();
+            Vector2 pos = racer.getVehicle().getInterpolatedBody().getPosition();
             x1 = Math.min(x1, pos.x);
             x2 = Math.max(x2, pos.x);
             y1 = Math.min(y1, pos.y);
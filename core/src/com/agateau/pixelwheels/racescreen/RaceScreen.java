@@ -32,23 +32,38 @@ import com.agateau.pixelwheels.racer.Pilot;
 import com.agateau.pixelwheels.racer.PlayerPilot;
 import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.RacerDebugShape;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayChecker;
+import com.agateau.pixelwheels.replay.ReplayIO;
+import com.agateau.pixelwheels.replay.ReplayRecorder;
 import com.agateau.pixelwheels.screens.ConfigScreen;
 import com.agateau.pixelwheels.screens.PwStageScreen;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.MemoryGameStatsImplIO;
+import com.agateau.pixelwheels.utils.TrackedPool;
+import com.agateau.utils.FileUtils;
 import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.ScreenAdapter;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.PerformanceCounter;
 import com.badlogic.gdx.utils.PerformanceCounters;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 
 public class RaceScreen extends ScreenAdapter {
+    private static final String FRAME_TIMES_FILE_NAME = "frametimes.jsonl";
+
     public interface Listener {
         void onRestartPressed();
 
@@ -62,6 +77,7 @@ public class RaceScreen extends ScreenAdapter {
     private final GameInfo mGameInfo;
 
     private final GameWorldImpl mGameWorld;
+    private ReplayRecorder mReplayRecorder;
     private final Color mBackgroundColor;
 
     private final GameRenderer mGameRenderer;
@@ -76,12 +92,26 @@ public class RaceScreen extends ScreenAdapter {
     private final PerformanceCounter mGameWorldPerformanceCounter;
     private final PerformanceCounter mRendererPerformanceCounter;
     private final PerformanceCounter mOverallPerformanceCounter;
+    private final FrameTimeRecorder mFrameTimeRecorder;
     private PauseOverlay mPauseOverlay = null;
 
     private boolean mFirstRender = true;
     private boolean mConfigVisible = false;
 
     public RaceScreen(PwGame game, Listener listener, GameInfo gameInfo) {
+        this(game, listener, gameInfo, null);
+    }
+
+    /** Creates a screen playing back replay */
+    public RaceScreen(PwGame game, Listener listener, Replay replay) {
+        this(
+                game,
+                listener,
+                replay.createGameInfo(game.getAssets().findTrackById(replay.getTrackId())),
+                replay);
+    }
+
+    private RaceScreen(PwGame game, Listener listener, GameInfo gameInfo, Replay replay) {
         NLog.i("Starting race on %s", gameInfo.getTrack().getMapName());
         mGame = game;
         mListener = listener;
@@ -90,8 +120,9 @@ public class RaceScreen extends ScreenAdapter {
         DebugShapeMap.clear();
 
         mOverallPerformanceCounter = mPerformanceCounters.add("All");
+        mFrameTimeRecorder = new FrameTimeRecorder(mPerformanceCounters);
         mGameWorldPerformanceCounter = mPerformanceCounters.add("GameWorld.act");
-        mGameWorld = new GameWorldImpl(game, gameInfo, mPerformanceCounters);
+        mGameWorld = createGameWorld(gameInfo, replay);
         mBackgroundColor = gameInfo.getTrack().getBackgroundColor();
         mRendererPerformanceCounter = mPerformanceCounters.add("Renderer");
 
@@ -107,6 +138,40 @@ public class RaceScreen extends ScreenAdapter {
         setupMineDropper();
     }
 
+    private GameWorldImpl createGameWorld(GameInfo gameInfo, Replay replay) {
+        if (replay != null) {
+            // Do not let the replay alter the stats of the player
+            GameStatsImpl gameStats = new GameStatsImpl(new MemoryGameStatsImplIO());
+            GameWorldImpl gameWorld =
+                    new GameWorldImpl(
+                            mGame.getAssets(),
+                            mGame.getAudioManager(),
+                            gameStats,
+                            gameInfo,
+                            mPerformanceCounters,
+                            replay);
+            gameWorld.addGameObject(new ReplayChecker(gameWorld, replay));
+            return gameWorld;
+        }
+        if (Debug.instance.recordReplays) {
+            long seed = MathUtils.random.nextLong();
+            GameWorldImpl gameWorld =
+                    new GameWorldImpl(
+                            mGame.getAssets(),
+                            mGame.getAudioManager(),
+                            mGame.getGameStats(),
+                            mGame.getConfig(),
+                            GamePlay.instance,
+                            gameInfo,
+                            mPerformanceCounters,
+                            seed);
+            mReplayRecorder = new ReplayRecorder(gameWorld, seed);
+            gameWorld.addGameObject(mReplayRecorder);
+            return gameWorld;
+        }
+        return new GameWorldImpl(mGame, gameInfo, mPerformanceCounters);
+    }
+
     private void setupMineDropper() {
         // Bind the mine dropper to the free camera for now
         if (Debug.instance.freeCamera) {
@@ -143,6 +208,10 @@ public class RaceScreen extends ScreenAdapter {
     }
 
     private void createInputUi() {
+        if (mGameWorld.getPlayerRacers().size == 0) {
+            // Playing back a replay of an AI-only race
+            return;
+        }
         // Touch screen is single player only, so it's fine to only do this for the first player
         Racer racer = mGameWorld.getPlayerRacer(0);
         Pilot pilot = racer.getPilot();
@@ -215,14 +284,15 @@ public class RaceScreen extends ScreenAdapter {
 
         mOverallPerformanceCounter.stop();
         if (!paused) {
+            mFrameTimeRecorder.record();
             mPerformanceCounters.tick(delta);
         }
     }
 
     private boolean isPauseKeyPressed() {
         for (Racer racer : mGameWorld.getPlayerRacers()) {
-            PlayerPilot pilot = (PlayerPilot) racer.getPilot();
-            if (pilot.isPauseKeyPressed()) {
+            Pilot pilot = racer.getPilot();
+            if (pilot instanceof PlayerPilot && ((PlayerPilot) pilot).isPauseKeyPressed()) {
                 return true;
             }
         }
@@ -241,12 +311,44 @@ public class RaceScreen extends ScreenAdapter {
     }
 
     private void onFinished() {
+        if (mReplayRecorder != null) {
+            saveReplay(mReplayRecorder.finish());
+        }
+        mGame.getGameStats().flush();
+        mFrameTimeRecorder.write(
+                FileUtils.getUserWritableFile(FRAME_TIMES_FILE_NAME),
+                mGameWorld.getTrack().getId(),
+                mGameWorld.getRacers().size);
+        logPoolStats();
         FinishedOverlay overlay = new FinishedOverlay(mGame, this, mGameWorld.getRacers());
         mHudStage.addActor(overlay);
     }
 
+    /** Logs how the pools have been used, to help choosing how much to prewarm them */
+    private void logPoolStats() {
+        for (TrackedPool<?> pool : mGameWorld.getPools()) {
+            NLog.i(
+                    "%s pool: high-water mark %d, allocation misses %d",
+                    pool.getName(),
+                    pool.getHighWaterMark(),
+                    pool.getMissCount());
+        }
+    }
+
+    private void saveReplay(Replay replay) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        FileHandle file =
+                FileUtils.getUserWritableFile(
+                        "replays/" + timestamp + "-" + replay.getTrackId() + ReplayIO.EXTENSION);
+        if (ReplayIO.write(replay, file)) {
+            NLog.i("Replay saved in %s", file.path());
+        }
+    }
+
     private void pauseRace() {
         mGame.getAudioManager().setMuted(true);
+        // Also records the events of the race so far
+        mGameWorld.getGameStats().flush();
         mPauseOverlay = new PauseOverlay(mGame, this);
         mHudStage.addActor(mPauseOverlay);
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.racescreen;
+
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Keeps an array of racers sorted by rank, and the rank of each racer up to date.
+ *
+ * <p>The progress of each racer is packed in a single long key, so comparing two racers does not
+ * need to call any getter. Since racers rarely overtake each other, the array is almost sorted
+ * between two updates: an insertion pass sorts it in linear time.
+ */
+class RacerRanking {
+    private final Array<Racer> mRacers;
+    private long[] mKeys = new long[0];
+
+    RacerRanking(Array<Racer> racers) {
+        mRacers = racers;
+    }
+
+    /** Sets the ranks of the racers from their order in the array, without sorting it */
+    void initRanks() {
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            mRacers.get(idx).setRank(idx + 1);
+        }
+    }
+
+    void update() {
+        // Skip finished racers so that they keep the position they had when they crossed the finish
+        // line, even if they continue a bit after it
+        int fromIndex;
+        for (fromIndex = 0; fromIndex < mRacers.size; ++fromIndex) {
+            if (!mRacers.get(fromIndex).getLapPositionComponent().hasFinishedRace()) {
+                break;
+            }
+        }
+        if (mKeys.length < mRacers.size) {
+            mKeys = new long[mRacers.size];
+        }
+        // Work on the items array: the racers are moved many times, and Array.items is not a
+        // Racer[]
+        Object[] racers = mRacers.items;
+        for (int idx = fromIndex; idx < mRacers.size; ++idx) {
+            mKeys[idx] = computeKey(((Racer) racers[idx]).getLapPositionComponent());
+        }
+
+        // Insertion sort, by decreasing keys. It is stable, so racers with the same key keep their
+        // order
+        for (int idx = fromIndex + 1; idx < mRacers.size; ++idx) {
+            long key = mKeys[idx];
+            Object racer = racers[idx];
+            int dst = idx;
+            for (; dst > fromIndex && mKeys[dst - 1] < key; --dst) {
+                mKeys[dst] = mKeys[dst - 1];
+                racers[dst] = racers[dst - 1];
+            }
+            mKeys[dst] = key;
+            racers[dst] = racer;
+        }
+
+        for (int idx = fromIndex; idx < mRacers.size; ++idx) {
+            ((Racer) racers[idx]).setRank(idx + 1);
+        }
+    }
+
+    /**
+     * Returns a key which is greater for better ranked racers: finished racers first, then by lap
+     * count, then by lap distance
+     */
+    static long computeKey(LapPositionComponent component) {
+        long key = component.hasFinishedRace() ? 1L << 62 : 0;
+        key |= (long) component.getLapCount() << 32;
+        // The bits of a positive float sort like the float itself. Math.max() also turns -0 into 0
+        float lapDistance = Math.max(component.getLapDistance(), 0f);
+        return key | Float.floatToIntBits(lapDistance);
+    }
+}
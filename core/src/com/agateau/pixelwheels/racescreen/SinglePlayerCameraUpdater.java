@@ -25,6 +25,7 @@ import com.agateau.pixelwheels.racer.Racer;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 class SinglePlayerCameraUpdater extends CameraUpdater {
     private static final float MAX_ZOOM_SPEED = 75f;
@@ -40,7 +41,7 @@ class SinglePlayerCameraUpdater extends CameraUpdater {
     @Override
     public void update(float delta) {
         boolean immediate = delta < 0;
-        Racer racer = mWorld.getPlayerRacers().first();
+        Racer racer = getFollowedRacer();
         Vehicle vehicle = racer.getVehicle();
 
         // Compute viewport size
@@ -56,7 +57,7 @@ class SinglePlayerCameraUpdater extends CameraUpdater {
         float advance = Math.min(viewportWidth, viewportHeight) * Constants.CAMERA_ADVANCE_PERCENT;
         sDelta.set(advance, 0)
                 .rotate(racer.getCameraAngle())
-                .add(vehicle.getPosition())
+                .add(vehicle.getInterpolatedBody().getPosition())
                 .sub(mCameraInfo.position);
         mNextCameraInfo.position.set(mCameraInfo.position).add(sDelta);
         if (!immediate) {
@@ -65,4 +66,10 @@ class SinglePlayerCameraUpdater extends CameraUpdater {
         limitZoomChange(delta);
         applyChanges();
     }
+
+    /** Returns the player racer, or the leading racer when playing back a replay without players */
+    private Racer getFollowedRacer() {
+        Array<Racer> playerRacers = mWorld.getPlayerRacers();
+        return playerRacers.size > 0 ? playerRacers.first() : mWorld.getRacers().first();
+    }
 }
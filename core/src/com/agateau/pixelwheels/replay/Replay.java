@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * A recorded race: what is needed to create the same world again, the inputs of each pilot and
+ * keyframes of the racer positions.
+ *
+ * <p>Replays are recorded by ReplayRecorder and played back by a GameWorldImpl created from them.
+ * This only works because such worlds run in deterministic mode: given the same seed and the same
+ * inputs, they run exactly the same race. The keyframes are used by ReplayChecker to detect when
+ * playback diverges from the recorded race, for example because the physics code changed.
+ *
+ * <p>Racers are always listed in the order of the entrants.
+ */
+public class Replay {
+    String trackId;
+    long seed;
+    int lapCount;
+    GamePlay gamePlay;
+
+    /** Vehicle id of each racer */
+    final Array<String> vehicleIds = new Array<>();
+
+    /** Player index of each racer, -1 for AI racers */
+    final Array<Integer> playerIndexes = new Array<>();
+
+    /** Inputs of each racer, as written by ReplayInputWriter */
+    final Array<byte[]> inputs = new Array<>();
+
+    /** Number of ticks between keyframes */
+    int keyframeInterval;
+
+    /** For each keyframe, (x, y, angle) of the body of each racer */
+    final FloatArray keyframes = new FloatArray();
+
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getLapCount() {
+        return lapCount;
+    }
+
+    public GamePlay getGamePlay() {
+        return gamePlay;
+    }
+
+    public int getRacerCount() {
+        return vehicleIds.size;
+    }
+
+    public ReplayInputReader createInputReader(int racerIndex) {
+        return new ReplayInputReader(inputs.get(racerIndex));
+    }
+
+    int getKeyframeCount() {
+        return keyframes.size / (getRacerCount() * 3);
+    }
+
+    /** Returns a GameInfo with the entrants of the replay, racing on track */
+    public GameInfo createGameInfo(Track track) {
+        return new ReplayGameInfo(this, track);
+    }
+
+    private static class ReplayGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        ReplayGameInfo(Replay replay, Track track) {
+            super(GameType.QUICK_RACE);
+            mTrack = track;
+            for (int idx = 0; idx < replay.getRacerCount(); ++idx) {
+                String vehicleId = replay.vehicleIds.get(idx);
+                int playerIndex = replay.playerIndexes.get(idx);
+                getEntrants()
+                        .add(
+                                playerIndex < 0
+                                        ? new Entrant(vehicleId)
+                                        : new Player(playerIndex, vehicleId));
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.ZLevel;
+import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Compares the racers of a world playing a replay back with the keyframes of the replay, to detect
+ * when playback diverges from the recorded race.
+ *
+ * <p>Like ReplayRecorder, it must be added to the world right after it has been created.
+ */
+public class ReplayChecker extends GameObjectAdapter {
+    private final Replay mReplay;
+    private final Array<Racer> mRacers;
+    private int mTick = 0;
+    private int mKeyframe = 0;
+    private int mDivergenceTick = -1;
+
+    public ReplayChecker(GameWorld gameWorld, Replay replay) {
+        mReplay = replay;
+        mRacers = new Array<>(gameWorld.getRacers());
+    }
+
+    /** Returns the tick at which playback diverged from the replay, or -1 if it did not */
+    public int getDivergenceTick() {
+        return mDivergenceTick;
+    }
+
+    @Override
+    public void act(float delta) {
+        ++mTick;
+        if (mTick % mReplay.keyframeInterval != 0 || mKeyframe == mReplay.getKeyframeCount()) {
+            return;
+        }
+        int offset = mKeyframe * mRacers.size * 3;
+        ++mKeyframe;
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            Body body = mRacers.get(idx).getVehicle().getBody();
+            if (!isSame(body.getPosition().x, offset)
+                    || !isSame(body.getPosition().y, offset + 1)
+                    || !isSame(body.getAngle(), offset + 2)) {
+                NLog.e("Playback diverged from the replay at tick %d, racer %d", mTick, idx);
+                mDivergenceTick = mTick;
+                setFinished(true);
+                return;
+            }
+            offset += 3;
+        }
+    }
+
+    private boolean isSame(float value, int keyframeOffset) {
+        return Float.floatToIntBits(value)
+                == Float.floatToIntBits(mReplay.keyframes.get(keyframeOffset));
+    }
+
+    @Override
+    public void draw(Batch batch, ZLevel zLevel) {}
+
+    @Override
+    public float getX() {
+        return 0;
+    }
+
+    @Override
+    public float getY() {
+        return 0;
+    }
+}
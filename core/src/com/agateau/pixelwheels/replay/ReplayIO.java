@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes Replay instances.
+ *
+ * <p>The GamePlay values are stored as JSON, so that replays recorded with tweaked values play
+ * back correctly.
+ */
+public class ReplayIO {
+    public static final String EXTENSION = ".pwreplay";
+
+    private static final int MAGIC = 0x50575250; // "PWRP"
+    private static final int VERSION = 2;
+
+    private static final Gson sGson = new Gson();
+
+    /** Returns the replay stored in file, or null if file is not a valid replay */
+    public static Replay read(FileHandle file) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(file.readBytes())));
+        } catch (EOFException e) {
+            NLog.e("%s is truncated", file.path());
+        } catch (IOException e) {
+            NLog.e("Failed to read %s: %s", file.path(), e);
+        }
+        return null;
+    }
+
+    static Replay read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        Replay replay = new Replay();
+        replay.trackId = in.readUTF();
+        replay.seed = in.readLong();
+        replay.lapCount = in.readInt();
+        replay.gamePlay = sGson.fromJson(in.readUTF(), GamePlay.class);
+
+        int racerCount = in.readInt();
+        for (int idx = 0; idx < racerCount; ++idx) {
+            replay.vehicleIds.add(in.readUTF());
+            replay.playerIndexes.add(in.readInt());
+            byte[] inputs = new byte[in.readInt()];
+            in.readFully(inputs);
+            replay.inputs.add(inputs);
+        }
+
+        replay.keyframeInterval = in.readInt();
+        int keyframeValueCount = in.readInt();
+        replay.keyframes.ensureCapacity(keyframeValueCount);
+        for (int idx = 0; idx < keyframeValueCount; ++idx) {
+            replay.keyframes.add(in.readFloat());
+        }
+        return replay;
+    }
+
+    /** Writes replay to file, creating its parent directory if needed. Returns false on error */
+    public static boolean write(Replay replay, FileHandle file) {
+        file.parent().mkdirs();
+        try (OutputStream stream = file.write(false /* append */)) {
+            write(replay, stream);
+            return true;
+        } catch (IOException e) {
+            NLog.e("Failed to write %s: %s", file.path(), e);
+            return false;
+        }
+    }
+
+    public static void write(Replay replay, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(replay.trackId);
+        out.writeLong(replay.seed);
+        out.writeInt(replay.lapCount);
+        out.writeUTF(sGson.toJson(replay.gamePlay));
+
+        out.writeInt(replay.getRacerCount());
+        for (int idx = 0; idx < replay.getRacerCount(); ++idx) {
+            out.writeUTF(replay.vehicleIds.get(idx));
+            out.writeInt(replay.playerIndexes.get(idx));
+            byte[] inputs = replay.inputs.get(idx);
+            out.writeInt(inputs.length);
+            out.write(inputs);
+        }
+
+        out.writeInt(replay.keyframeInterval);
+        out.writeInt(replay.keyframes.size);
+        for (int idx = 0; idx < replay.keyframes.size; ++idx) {
+            out.writeFloat(replay.keyframes.get(idx));
+        }
+        out.flush();
+    }
+}
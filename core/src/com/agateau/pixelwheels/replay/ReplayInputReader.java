@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.ACCELERATING;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.BONUS_TRIGGERED;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.BRAKING;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.DIRECTION_CHANGED;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.FLAG_BITS;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.FLAG_MASK;
+import static com.agateau.pixelwheels.replay.ReplayInputWriter.SPEED_LIMITER_CHANGED;
+
+/** Reads back the inputs written by ReplayInputWriter, one entry at a time */
+public class ReplayInputReader {
+    private final byte[] mData;
+    private int mOffset = 0;
+
+    // Current entry
+    private int mState = 0;
+    /** Raw int bits of the direction */
+    private int mDirection = 0;
+
+    private float mSpeedLimiter = 1;
+
+    // Record which has been read, but must only be applied after mRepeatCount entries
+    private boolean mHasPendingRecord = false;
+    private int mRepeatCount = 0;
+    private int mPendingState;
+    private int mPendingDirection;
+    private float mPendingSpeedLimiter;
+
+    ReplayInputReader(byte[] data) {
+        mData = data;
+    }
+
+    /** Moves to the next entry. Returns false if there are no entries left */
+    public boolean next() {
+        if (mRepeatCount == 0) {
+            if (!mHasPendingRecord) {
+                if (mOffset == mData.length) {
+                    return false;
+                }
+                readRecord();
+            }
+            if (mRepeatCount == 0) {
+                mState = mPendingState;
+                mDirection = mPendingDirection;
+                mSpeedLimiter = mPendingSpeedLimiter;
+                mHasPendingRecord = false;
+                return true;
+            }
+        }
+        --mRepeatCount;
+        return true;
+    }
+
+    public boolean isAccelerating() {
+        return (mState & ACCELERATING) != 0;
+    }
+
+    public boolean isBraking() {
+        return (mState & BRAKING) != 0;
+    }
+
+    public boolean isBonusTriggered() {
+        return (mState & BONUS_TRIGGERED) != 0;
+    }
+
+    public float getDirection() {
+        return Float.intBitsToFloat(mDirection);
+    }
+
+    public float getSpeedLimiter() {
+        return mSpeedLimiter;
+    }
+
+    private void readRecord() {
+        int header = readVarInt();
+        int flags = header & FLAG_MASK;
+        mRepeatCount = header >>> FLAG_BITS;
+        mPendingState = flags & (ACCELERATING | BRAKING | BONUS_TRIGGERED);
+        mPendingDirection = mDirection;
+        if ((flags & DIRECTION_CHANGED) != 0) {
+            mPendingDirection += zigzagDecode(readVarInt());
+        }
+        mPendingSpeedLimiter = mSpeedLimiter;
+        if ((flags & SPEED_LIMITER_CHANGED) != 0) {
+            int bits = 0;
+            for (int idx = 0; idx < 4; ++idx) {
+                bits |= (mData[mOffset++] & 0xff) << (idx * 8);
+            }
+            mPendingSpeedLimiter = Float.intBitsToFloat(bits);
+        }
+        mHasPendingRecord = true;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = mData[mOffset++];
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
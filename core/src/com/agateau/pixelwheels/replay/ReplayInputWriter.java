@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racer.Vehicle;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Records the inputs of a pilot in a compact form.
+ *
+ * <p>Each time the pilot acts, its inputs are compared with the previous ones. As long as they do
+ * not change they are only counted. When they change, a record is written: a varint holding the
+ * number of unchanged entries since the previous record and the flags, followed by the values which
+ * changed. The direction is stored exactly, so that recording does not change the race: the
+ * difference between the raw int bits of the direction and those of the previous one is encoded as
+ * a zigzag varint.
+ */
+public class ReplayInputWriter implements Racer.InputRecorder {
+    static final int ACCELERATING = 1;
+    static final int BRAKING = 1 << 1;
+    static final int BONUS_TRIGGERED = 1 << 2;
+    static final int DIRECTION_CHANGED = 1 << 3;
+    static final int SPEED_LIMITER_CHANGED = 1 << 4;
+    static final int FLAG_BITS = 5;
+    static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    private final ByteArrayOutputStream mStream = new ByteArrayOutputStream();
+
+    // State of the last record
+    private int mState = 0;
+    /** Raw int bits of the direction */
+    private int mDirection = 0;
+
+    private float mSpeedLimiter = 1;
+
+    /** How many entries have been identical to the last record since it was written */
+    private int mRepeatCount = 0;
+
+    @Override
+    public void record(Vehicle vehicle, boolean bonusTriggered) {
+        int direction = Float.floatToRawIntBits(vehicle.getDirection());
+        float speedLimiter = vehicle.getSpeedLimiter();
+
+        int state = 0;
+        if (vehicle.isAccelerating()) {
+            state |= ACCELERATING;
+        }
+        if (vehicle.isBraking()) {
+            state |= BRAKING;
+        }
+        if (bonusTriggered) {
+            state |= BONUS_TRIGGERED;
+        }
+        int flags = state;
+        if (direction != mDirection) {
+            flags |= DIRECTION_CHANGED;
+        }
+        if (Float.floatToIntBits(speedLimiter) != Float.floatToIntBits(mSpeedLimiter)) {
+            flags |= SPEED_LIMITER_CHANGED;
+        }
+        if (flags == mState) {
+            ++mRepeatCount;
+            return;
+        }
+
+        writeVarInt((mRepeatCount << FLAG_BITS) | flags);
+        if ((flags & DIRECTION_CHANGED) != 0) {
+            writeVarInt(zigzagEncode(direction - mDirection));
+        }
+        if ((flags & SPEED_LIMITER_CHANGED) != 0) {
+            int bits = Float.floatToIntBits(speedLimiter);
+            for (int idx = 0; idx < 4; ++idx) {
+                mStream.write(bits >>> (idx * 8));
+            }
+        }
+        mState = state;
+        mDirection = direction;
+        mSpeedLimiter = speedLimiter;
+        mRepeatCount = 0;
+    }
+
+    /** Returns the recorded inputs. The writer must not be used after calling this method */
+    public byte[] toByteArray() {
+        if (mRepeatCount > 0) {
+            // A record without any change, so that the reader produces the remaining entries
+            writeVarInt(((mRepeatCount - 1) << FLAG_BITS) | mState);
+            mRepeatCount = 0;
+        }
+        return mStream.toByteArray();
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            mStream.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        mStream.write(value);
+    }
+
+    private static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
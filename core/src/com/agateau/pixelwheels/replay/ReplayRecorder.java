@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.replay;
+
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.ZLevel;
+import com.agateau.pixelwheels.gameobjet.GameObjectAdapter;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.racer.Racer;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Records a race into a Replay.
+ *
+ * <p>The world must run in deterministic mode, and the recorder must be added to it right after it
+ * has been created, so that it acts at the same moment as the ReplayChecker used during playback.
+ */
+public class ReplayRecorder extends GameObjectAdapter {
+    public static final int KEYFRAME_INTERVAL = 60;
+
+    private final Replay mReplay = new Replay();
+    private final Array<Racer> mRacers;
+    private final Array<ReplayInputWriter> mWriters = new Array<>();
+    private int mTick = 0;
+
+    public ReplayRecorder(GameWorld gameWorld, long seed) {
+        mReplay.trackId = gameWorld.getTrack().getId();
+        mReplay.seed = seed;
+        mReplay.lapCount = gameWorld.getTrack().getTotalLapCount();
+        mReplay.gamePlay = gameWorld.getGamePlay();
+        mReplay.keyframeInterval = KEYFRAME_INTERVAL;
+
+        // Racers have not been sorted yet, so they are in the order of the entrants
+        mRacers = new Array<>(gameWorld.getRacers());
+        for (Racer racer : mRacers) {
+            GameInfo.Entrant entrant = racer.getEntrant();
+            mReplay.vehicleIds.add(entrant.getVehicleId());
+            mReplay.playerIndexes.add(
+                    entrant.isPlayer() ? ((GameInfo.Player) entrant).getIndex() : -1);
+
+            ReplayInputWriter writer = new ReplayInputWriter();
+            racer.setInputRecorder(writer);
+            mWriters.add(writer);
+        }
+    }
+
+    /** Stops recording and returns the replay */
+    public Replay finish() {
+        setFinished(true);
+        for (int idx = 0; idx < mRacers.size; ++idx) {
+            mRacers.get(idx).setInputRecorder(null);
+            mReplay.inputs.add(mWriters.get(idx).toByteArray());
+        }
+        return mReplay;
+    }
+
+    @Override
+    public void act(float delta) {
+        ++mTick;
+        if (mTick % KEYFRAME_INTERVAL != 0) {
+            return;
+        }
+        for (Racer racer : mRacers) {
+            Body body = racer.getVehicle().getBody();
+            mReplay.keyframes.add(body.getPosition().x, body.getPosition().y, body.getAngle());
+        }
+    }
+
+    @Override
+    public void draw(Batch batch, ZLevel zLevel) {}
+
+    @Override
+    public float getX() {
+        return 0;
+    }
+
+    @Override
+    public float getY() {
+        return 0;
+    }
+}
@@ -19,7 +19,10 @@
 package com.agateau.pixelwheels.rewards;
 
 import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.StatKeys;
 import com.agateau.pixelwheels.utils.StringUtils;
+import com.agateau.utils.CollectionUtils;
+import java.util.Set;
 
 /** A RewardRule for simple counter-based rewards */
 public class CounterRewardRule implements RewardRule {
@@ -44,4 +47,9 @@ public class CounterRewardRule implements RewardRule {
         String text = StringUtils.format(mUnlockText, mCount);
         return StringUtils.format("%s (%d/%d)", text, current, mCount);
     }
+
+    @Override
+    public Set<String> getStatKeys() {
+        return CollectionUtils.newSet(StatKeys.forEvent(mEvent));
+    }
 }
@@ -38,6 +38,15 @@ public class Reward {
         this.prize = prize;
     }
 
+    /** Returns a string identifying the reward, which can be stored */
+    public String getId() {
+        if (prize instanceof Championship) {
+            return "championship:" + ((Championship) prize).getId();
+        } else {
+            return "vehicle:" + ((VehicleDef) prize).id;
+        }
+    }
+
     public String toString() {
         return "reward(" + prize.toString() + ")";
     }
@@ -22,8 +22,11 @@ import com.agateau.pixelwheels.map.Championship;
 import com.agateau.pixelwheels.map.Track;
 import com.agateau.pixelwheels.stats.GameStats;
 import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.agateau.utils.FileUtils;
 import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -34,11 +37,20 @@ import java.util.Set;
  *
  * <p>Contains a set of rules applied against the game stats. These rules decide if a reward is
  * unlocked.
+ *
+ * <p>Rules are indexed by the stats they depend on, so that when a stat changes only the rules of
+ * the locked rewards depending on it are evaluated again.
+ *
+ * <p>Rewards cannot be locked again, so the unlocked rewards can be stored in a cache file. The
+ * rules of these rewards are then never evaluated.
  */
 public class RewardManager {
     private final GameStats mGameStats;
     private final Array<Championship> mChampionships;
     private final Map<Reward, RewardRule> mRules = new HashMap<>();
+    private final Map<String, Array<Reward>> mRewardsForStatKey = new HashMap<>();
+    private final FileHandle mCacheFile;
+    private final Set<String> mCachedRewardIds = new HashSet<>();
 
     /**
      * Wraps the set of unlocked rewards, making sure other code does not access it without applying
@@ -46,30 +58,48 @@ public class RewardManager {
      */
     private class UnlockedRewards {
         private final Set<Reward> mRewards = new HashSet<>();
-        private boolean mNeedsUpdate = true;
+        /** Locked rewards whose rule must be evaluated */
+        private final Set<Reward> mRewardsToCheck = new HashSet<>();
 
         Set<Reward> get() {
-            if (mNeedsUpdate) {
+            if (!mRewardsToCheck.isEmpty()) {
                 update();
             }
             return mRewards;
         }
 
-        void scheduleUpdate() {
-            mNeedsUpdate = true;
+        void onRuleAdded(Reward reward) {
+            if (mCachedRewardIds.contains(reward.getId())) {
+                mRewards.add(reward);
+            } else {
+                mRewardsToCheck.add(reward);
+            }
         }
 
-        private void update() {
-            mNeedsUpdate = false;
-            for (Map.Entry<Reward, RewardRule> rule : mRules.entrySet()) {
-                Reward reward = rule.getKey();
-                if (mRewards.contains(reward)) {
-                    continue;
+        void onStatChanged(String key) {
+            Array<Reward> rewards = mRewardsForStatKey.get(key);
+            if (rewards == null) {
+                return;
+            }
+            for (Reward reward : rewards) {
+                if (!mRewards.contains(reward)) {
+                    mRewardsToCheck.add(reward);
                 }
-                if (rule.getValue().hasBeenUnlocked(mGameStats)) {
+            }
+        }
+
+        private void update() {
+            boolean changed = false;
+            for (Reward reward : mRewardsToCheck) {
+                if (mRules.get(reward).hasBeenUnlocked(mGameStats)) {
                     mRewards.add(reward);
+                    changed = true;
                 }
             }
+            mRewardsToCheck.clear();
+            if (changed) {
+                saveCache(mRewards);
+            }
         }
     }
 
@@ -86,12 +116,25 @@ public class RewardManager {
                 public String getUnlockText(GameStats gameStats) {
                     return "";
                 }
+
+                @Override
+                public Set<String> getStatKeys() {
+                    return Collections.emptySet();
+                }
             };
 
     public RewardManager(GameStats gameStats, Array<Championship> championships) {
+        this(gameStats, championships, null);
+    }
+
+    /** cacheFile is used to store the unlocked rewards. It can be null. */
+    public RewardManager(
+            GameStats gameStats, Array<Championship> championships, FileHandle cacheFile) {
         mGameStats = gameStats;
-        mGameStats.setListener(mUnlockedRewards::scheduleUpdate);
+        mGameStats.setListener(mUnlockedRewards::onStatChanged);
         mChampionships = championships;
+        mCacheFile = cacheFile;
+        loadCache();
     }
 
     public boolean isTrackUnlocked(Track track) {
@@ -118,6 +161,15 @@ public class RewardManager {
 
     public void addRule(Reward reward, RewardRule rule) {
         mRules.put(reward, rule);
+        for (String key : rule.getStatKeys()) {
+            Array<Reward> rewards = mRewardsForStatKey.get(key);
+            if (rewards == null) {
+                rewards = new Array<>();
+                mRewardsForStatKey.put(key, rewards);
+            }
+            rewards.add(reward);
+        }
+        mUnlockedRewards.onRuleAdded(reward);
     }
 
     public String getUnlockText(Track track) {
@@ -141,6 +193,32 @@ public class RewardManager {
         }
     }
 
+    private void loadCache() {
+        if (mCacheFile == null) {
+            return;
+        }
+        FileUtils.recoverAtomicWrite(mCacheFile);
+        if (!mCacheFile.exists()) {
+            return;
+        }
+        for (String id : mCacheFile.readString("UTF-8").split("\n")) {
+            if (!id.isEmpty()) {
+                mCachedRewardIds.add(id);
+            }
+        }
+    }
+
+    private void saveCache(Set<Reward> rewards) {
+        if (mCacheFile == null) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Reward reward : rewards) {
+            builder.append(reward.getId()).append('\n');
+        }
+        FileUtils.writeStringAtomically(mCacheFile, builder.toString());
+    }
+
     private Championship findTrackChampionship(Track track) {
         for (Championship championship : mChampionships) {
             if (championship.getTracks().contains(track, true /* identity */)) {
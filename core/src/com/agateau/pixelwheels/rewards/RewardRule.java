@@ -19,10 +19,17 @@
 package com.agateau.pixelwheels.rewards;
 
 import com.agateau.pixelwheels.stats.GameStats;
+import java.util.Set;
 
 /** Defines the rule to unlock a reward */
 public interface RewardRule {
     boolean hasBeenUnlocked(GameStats gameStats);
 
     String getUnlockText(GameStats gameStats);
+
+    /**
+     * Returns the keys of the stats hasBeenUnlocked() depends on, see StatKeys. The rule is only
+     * evaluated again when one of these stats changes.
+     */
+    Set<String> getStatKeys();
 }
@@ -74,6 +74,10 @@ public class DebugScreen extends PwStageScreen {
         addRange("Racer count", "racerCount", 1, 6);
         addRange("Max skidmarks", "maxSkidmarks", 10, 200, 10);
         addRange("Border restitution", "borderRestitution", 1, 50);
+        addRange("AI plan interval", "aiPlanInterval", 1, 10);
+        addRange("AI ray cast budget", "aiRayCastBudget", 6, 120, 6);
+        addCheckBox("AI follows racing line", "aiFollowRacingLine");
+        addRange("Pool prewarm factor", "poolPrewarmFactor", 0f, 4f, 0.5f);
 
         mCurrentGroup = tabMenuItem.addPage("Speed");
         addTitle("Speed");
@@ -106,6 +110,7 @@ public class DebugScreen extends PwStageScreen {
         addCheckBox("- Draw tile corners", "drawTileCorners");
         addCheckBox("Hud debug lines", "showHudDebugLines");
         addCheckBox("Free camera", "freeCamera");
+        addCheckBox("Record replays", "recordReplays");
 
         builder.getActor("backButton")
                 .addListener(
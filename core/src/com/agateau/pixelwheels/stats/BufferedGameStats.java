@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.pixelwheels.map.Championship;
+import com.agateau.pixelwheels.map.Track;
+import java.util.Arrays;
+
+/**
+ * Wraps a GameStats to count events in memory during a race.
+ *
+ * <p>Recording an event does not allocate, and does not notify the listeners of the wrapped
+ * GameStats, which would make the RewardManager evaluate its rules. The counts are forwarded to the
+ * wrapped GameStats in one batch when flushEvents() or flush() are called.
+ */
+public class BufferedGameStats implements GameStats {
+    private final GameStats mGameStats;
+    private final int[] mPendingEvents = new int[Event.values().length];
+    private boolean mHasPendingEvents = false;
+
+    public BufferedGameStats(GameStats gameStats) {
+        mGameStats = gameStats;
+    }
+
+    /** Forwards the pending event counts to the wrapped GameStats */
+    public void flushEvents() {
+        if (!mHasPendingEvents) {
+            return;
+        }
+        mGameStats.recordEvents(mPendingEvents);
+        Arrays.fill(mPendingEvents, 0);
+        mHasPendingEvents = false;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        mGameStats.setListener(listener);
+    }
+
+    @Override
+    public TrackStats getTrackStats(Track track) {
+        return mGameStats.getTrackStats(track);
+    }
+
+    @Override
+    public int getBestChampionshipRank(Championship championship) {
+        return mGameStats.getBestChampionshipRank(championship);
+    }
+
+    @Override
+    public void onChampionshipFinished(Championship championship, int rank) {
+        mGameStats.onChampionshipFinished(championship, rank);
+    }
+
+    @Override
+    public void recordEvent(Event event) {
+        recordIntEvent(event, 1);
+    }
+
+    @Override
+    public void recordIntEvent(Event event, int value) {
+        int idx = event.ordinal();
+        mPendingEvents[idx] = GameStatsImpl.addEventCounts(mPendingEvents[idx], value);
+        mHasPendingEvents = true;
+    }
+
+    @Override
+    public void recordEvents(int[] counts) {
+        for (int idx = 0; idx < mPendingEvents.length; ++idx) {
+            mPendingEvents[idx] = GameStatsImpl.addEventCounts(mPendingEvents[idx], counts[idx]);
+        }
+        mHasPendingEvents = true;
+    }
+
+    @Override
+    public int getEventCount(Event event) {
+        return GameStatsImpl.addEventCounts(
+                mGameStats.getEventCount(event), mPendingEvents[event.ordinal()]);
+    }
+
+    @Override
+    public void save(String changedKey) {
+        mGameStats.save(changedKey);
+    }
+
+    @Override
+    public void flush() {
+        flushEvents();
+        mGameStats.flush();
+    }
+}
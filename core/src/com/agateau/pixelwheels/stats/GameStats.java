@@ -29,7 +29,8 @@ public interface GameStats {
     }
 
     interface Listener {
-        void onChanged();
+        /** Called when the stat identified by key has changed, see StatKeys */
+        void onChanged(String key);
     }
 
     void setListener(Listener listener);
@@ -45,7 +46,17 @@ public interface GameStats {
 
     void recordIntEvent(Event event, int value);
 
+    /** Adds counts[event.ordinal()] to the count of each event, then saves once */
+    void recordEvents(int[] counts);
+
     int getEventCount(Event event);
 
-    void save();
+    /**
+     * Notifies listeners that the stat identified by changedKey has changed, and schedules a write
+     * of the stats
+     */
+    void save(String changedKey);
+
+    /** Writes pending changes without waiting for the debounce delay */
+    void flush();
 }
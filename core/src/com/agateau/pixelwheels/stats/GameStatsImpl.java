@@ -28,14 +28,31 @@ public class GameStatsImpl implements GameStats {
     private transient Listener mListener;
     final HashMap<String, TrackStats> mTrackStats = new HashMap<>();
     final HashMap<String, Integer> mBestChampionshipRank = new HashMap<>();
-    final HashMap<String, Integer> mEvents = new HashMap<>();
+    /** Event counts, indexed by Event.ordinal() */
+    final int[] mEvents = new int[Event.values().length];
 
     public interface IO {
         void setGameStats(GameStatsImpl gameStats);
 
         void load();
 
+        /** Called when the stats have changed */
         void save();
+
+        /** Makes sure pending changes are written, does not wait for the write to finish */
+        void flush();
+    }
+
+    /**
+     * An IO whose saves can be prepared while holding the GameStatsImpl lock, then written without
+     * holding it, see WriteBehindGameStatsImplIO
+     */
+    public interface StagedIO extends IO {
+        /**
+         * Captures the changes to save. Must be called with the GameStatsImpl lock held. Returns
+         * the action writing them, or null if there is nothing to write.
+         */
+        Runnable prepareSave();
     }
 
     public GameStatsImpl(IO io) {
@@ -50,10 +67,10 @@ public class GameStatsImpl implements GameStats {
     }
 
     @Override
-    public TrackStats getTrackStats(Track track) {
+    public synchronized TrackStats getTrackStats(Track track) {
         TrackStats stats = mTrackStats.get(track.getId());
         if (stats == null) {
-            stats = new TrackStats(this);
+            stats = new TrackStats(this, track.getId());
             mTrackStats.put(track.getId(), stats);
         }
         return stats;
@@ -67,11 +84,11 @@ public class GameStatsImpl implements GameStats {
     }
 
     @Override
-    public void onChampionshipFinished(Championship championship, int rank) {
+    public synchronized void onChampionshipFinished(Championship championship, int rank) {
         Integer currentBest = mBestChampionshipRank.get(championship.getId());
         if (currentBest == null || currentBest > rank) {
             mBestChampionshipRank.put(championship.getId(), rank);
-            save();
+            save(StatKeys.forChampionship(championship));
         }
     }
 
@@ -81,31 +98,56 @@ public class GameStatsImpl implements GameStats {
     }
 
     @Override
-    public void recordIntEvent(Event event, int value) {
-        String id = event.toString();
-        Integer count = mEvents.get(id);
-        if (count == null) {
-            count = 0;
+    public synchronized void recordIntEvent(Event event, int value) {
+        int idx = event.ordinal();
+        mEvents[idx] = addEventCounts(mEvents[idx], value);
+        save(StatKeys.forEvent(event));
+    }
+
+    @Override
+    public synchronized void recordEvents(int[] counts) {
+        boolean changed = false;
+        for (Event event : Event.values()) {
+            int idx = event.ordinal();
+            if (counts[idx] != 0) {
+                mEvents[idx] = addEventCounts(mEvents[idx], counts[idx]);
+                notifyChanged(StatKeys.forEvent(event));
+                changed = true;
+            }
+        }
+        if (changed) {
+            mIO.save();
         }
+    }
+
+    @Override
+    public int getEventCount(Event event) {
+        return mEvents[event.ordinal()];
+    }
+
+    static int addEventCounts(int count, int value) {
         int newCount = count + value;
         if (newCount < count) {
             // Do not wrap around
             newCount = Integer.MAX_VALUE;
         }
-        mEvents.put(id, newCount);
-        save();
+        return newCount;
     }
 
     @Override
-    public int getEventCount(Event event) {
-        //noinspection ConstantConditions
-        return CollectionUtils.getOrDefault(mEvents, event.toString(), 0);
+    public void save(String changedKey) {
+        notifyChanged(changedKey);
+        mIO.save();
     }
 
-    public void save() {
+    private void notifyChanged(String key) {
         if (mListener != null) {
-            mListener.onChanged();
+            mListener.onChanged(key);
         }
-        mIO.save();
+    }
+
+    @Override
+    public void flush() {
+        mIO.flush();
     }
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.utils.Assert;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the stats in a journal: a text file containing one JSON record per line.
+ *
+ * <p>Saving appends records for the values which changed since the last save, instead of rewriting
+ * all the stats. Records contain the new value, not a delta, so that replaying them is idempotent.
+ *
+ * <p>The journal is replayed on load. When it grows too large compared to the stats it contains, it
+ * is compacted: it is replaced with one record per value.
+ *
+ * <p>If the journal does not exist, the stats are imported from the legacy JSON file, if any.
+ */
+public class JournalGameStatsImplIO implements GameStatsImpl.StagedIO {
+    /** Journals smaller than this are never compacted */
+    static final int MIN_COMPACT_SIZE = 16 * 1024;
+
+    private final FileHandle mHandle;
+    private final FileHandle mLegacyHandle;
+    private final Gson mGson = new Gson();
+    private GameStatsImpl mGameStats;
+
+    // The values stored in the journal, used to find what changed since the last save
+    private final int[] mSavedEvents = new int[GameStats.Event.values().length];
+    private final HashMap<String, Integer> mSavedChampionshipRanks = new HashMap<>();
+    private final HashMap<String, ArrayList<TrackResult>> mSavedLapResults = new HashMap<>();
+    private final HashMap<String, ArrayList<TrackResult>> mSavedTotalResults = new HashMap<>();
+
+    private int mJournalSize = 0;
+    private int mSnapshotSize = 0;
+    private boolean mCompactionNeeded = false;
+
+    enum RecordType {
+        EVENT,
+        CHAMPIONSHIP_RANK,
+        LAP_RESULTS,
+        TOTAL_RESULTS
+    }
+
+    private static class Record {
+        RecordType type;
+        String id;
+        int value;
+        TrackResult[] results;
+    }
+
+    /** legacyHandle can be null */
+    public JournalGameStatsImplIO(FileHandle handle, FileHandle legacyHandle) {
+        mHandle = handle;
+        mLegacyHandle = legacyHandle;
+    }
+
+    @Override
+    public void setGameStats(GameStatsImpl gameStats) {
+        mGameStats = gameStats;
+    }
+
+    @Override
+    public void load() {
+        Assert.check(mGameStats != null, "setGameStats() has not been called");
+        // Compacting the journal replaces it with writeStringAtomically()
+        FileUtils.recoverAtomicWrite(mHandle);
+        if (mHandle.exists()) {
+            loadJournal();
+        } else if (mLegacyHandle != null && mLegacyHandle.exists()) {
+            importLegacyFile();
+        }
+    }
+
+    @Override
+    public void save() {
+        Runnable writer = prepareSave();
+        if (writer != null) {
+            writer.run();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to do, save() writes synchronously
+    }
+
+    @Override
+    public Runnable prepareSave() {
+        Assert.check(mGameStats != null, "setGameStats() has not been called");
+        if (mCompactionNeeded || mJournalSize > Math.max(MIN_COMPACT_SIZE, mSnapshotSize * 2)) {
+            return prepareCompaction();
+        }
+        String records = collectChanges();
+        if (records.isEmpty()) {
+            return null;
+        }
+        mJournalSize += records.length();
+        return compactOnFailure(() -> mHandle.writeString(records, true /* append */, "UTF-8"));
+    }
+
+    /** Returns the size of the journal, in characters */
+    int getJournalSize() {
+        return mJournalSize;
+    }
+
+    private Runnable prepareCompaction() {
+        // Once the saved values have been cleared, all values are considered as changed
+        Arrays.fill(mSavedEvents, 0);
+        mSavedChampionshipRanks.clear();
+        mSavedLapResults.clear();
+        mSavedTotalResults.clear();
+        mCompactionNeeded = false;
+
+        String snapshot = collectChanges();
+        mSnapshotSize = snapshot.length();
+        mJournalSize = mSnapshotSize;
+        return compactOnFailure(() -> FileUtils.writeStringAtomically(mHandle, snapshot));
+    }
+
+    /**
+     * Wraps a writer returned by prepareSave(). The values it writes are already considered as
+     * saved, so if it fails the next save compacts the journal to write them again.
+     */
+    private Runnable compactOnFailure(Runnable writer) {
+        return () -> {
+            try {
+                writer.run();
+            } catch (RuntimeException e) {
+                synchronized (mGameStats) {
+                    mCompactionNeeded = true;
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Returns the records for the values which changed since the last save, and marks them as saved
+     */
+    private String collectChanges() {
+        StringBuilder builder = new StringBuilder();
+        appendChangedEvents(builder);
+        appendChangedValues(
+                builder,
+                RecordType.CHAMPIONSHIP_RANK,
+                mGameStats.mBestChampionshipRank,
+                mSavedChampionshipRanks);
+        for (Map.Entry<String, TrackStats> kv : mGameStats.mTrackStats.entrySet()) {
+            String trackId = kv.getKey();
+            TrackStats stats = kv.getValue();
+            appendChangedResults(
+                    builder, RecordType.LAP_RESULTS, trackId, stats.mLapRecords, mSavedLapResults);
+            appendChangedResults(
+                    builder,
+                    RecordType.TOTAL_RESULTS,
+                    trackId,
+                    stats.mTotalRecords,
+                    mSavedTotalResults);
+        }
+        return builder.toString();
+    }
+
+    private void appendChangedEvents(StringBuilder builder) {
+        for (GameStats.Event event : GameStats.Event.values()) {
+            int idx = event.ordinal();
+            int count = mGameStats.mEvents[idx];
+            if (count == mSavedEvents[idx]) {
+                continue;
+            }
+            mSavedEvents[idx] = count;
+            Record record = new Record();
+            record.type = RecordType.EVENT;
+            record.id = event.toString();
+            record.value = count;
+            appendRecord(builder, record);
+        }
+    }
+
+    private void appendChangedValues(
+            StringBuilder builder,
+            RecordType type,
+            HashMap<String, Integer> values,
+            HashMap<String, Integer> savedValues) {
+        for (Map.Entry<String, Integer> kv : values.entrySet()) {
+            String id = kv.getKey();
+            Integer value = kv.getValue();
+            if (value.equals(savedValues.get(id))) {
+                continue;
+            }
+            savedValues.put(id, value);
+            Record record = new Record();
+            record.type = type;
+            record.id = id;
+            record.value = value;
+            appendRecord(builder, record);
+        }
+    }
+
+    private void appendChangedResults(
+            StringBuilder builder,
+            RecordType type,
+            String trackId,
+            ArrayList<TrackResult> results,
+            HashMap<String, ArrayList<TrackResult>> savedResults) {
+        ArrayList<TrackResult> saved = savedResults.get(trackId);
+        if (saved == null ? results.isEmpty() : saved.equals(results)) {
+            // TrackResult instances are immutable, so comparing references is enough
+            return;
+        }
+        savedResults.put(trackId, new ArrayList<>(results));
+        Record record = new Record();
+        record.type = type;
+        record.id = trackId;
+        record.results = results.toArray(new TrackResult[0]);
+        appendRecord(builder, record);
+    }
+
+    private void appendRecord(StringBuilder builder, Record record) {
+        builder.append(mGson.toJson(record)).append('\n');
+    }
+
+    private void loadJournal() {
+        mGameStats.mTrackStats.clear();
+        mGameStats.mBestChampionshipRank.clear();
+        Arrays.fill(mGameStats.mEvents, 0);
+        String content = mHandle.readString("UTF-8");
+        for (String line : content.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            Record record;
+            try {
+                record = mGson.fromJson(line, Record.class);
+            } catch (JsonParseException e) {
+                // Can happen if the game crashed while appending records
+                NLog.e("Skipping invalid record in %s: '%s'", mHandle.path(), line);
+                mCompactionNeeded = true;
+                continue;
+            }
+            if (record == null || record.type == null || record.id == null) {
+                NLog.e("Skipping incomplete record in %s: '%s'", mHandle.path(), line);
+                mCompactionNeeded = true;
+                continue;
+            }
+            applyRecord(record);
+        }
+        if (!content.isEmpty() && !content.endsWith("\n")) {
+            // Do not append records to a truncated line
+            mCompactionNeeded = true;
+        }
+        mJournalSize = content.length();
+    }
+
+    private void applyRecord(Record record) {
+        switch (record.type) {
+            case EVENT:
+                GameStats.Event event = JsonGameStatsImplIO.parseEvent(record.id);
+                if (event != null) {
+                    mGameStats.mEvents[event.ordinal()] = record.value;
+                    mSavedEvents[event.ordinal()] = record.value;
+                }
+                break;
+            case CHAMPIONSHIP_RANK:
+                mGameStats.mBestChampionshipRank.put(record.id, record.value);
+                mSavedChampionshipRanks.put(record.id, record.value);
+                break;
+            case LAP_RESULTS:
+                applyResults(getTrackStats(record.id).mLapRecords, record, mSavedLapResults);
+                break;
+            case TOTAL_RESULTS:
+                applyResults(getTrackStats(record.id).mTotalRecords, record, mSavedTotalResults);
+                break;
+        }
+    }
+
+    private static void applyResults(
+            ArrayList<TrackResult> results,
+            Record record,
+            HashMap<String, ArrayList<TrackResult>> savedResults) {
+        results.clear();
+        if (record.results != null) {
+            Collections.addAll(results, record.results);
+        }
+        savedResults.put(record.id, new ArrayList<>(results));
+    }
+
+    private TrackStats getTrackStats(String trackId) {
+        TrackStats stats = mGameStats.mTrackStats.get(trackId);
+        if (stats == null) {
+            stats = new TrackStats(mGameStats, trackId);
+            mGameStats.mTrackStats.put(trackId, stats);
+        }
+        return stats;
+    }
+
+    private void importLegacyFile() {
+        JsonGameStatsImplIO legacyIO = new JsonGameStatsImplIO(mLegacyHandle);
+        legacyIO.setGameStats(mGameStats);
+        legacyIO.load();
+        NLog.i("Imported game stats from %s", mLegacyHandle.path());
+        prepareCompaction().run();
+    }
+}
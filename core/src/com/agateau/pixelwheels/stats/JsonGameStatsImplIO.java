@@ -19,6 +19,8 @@
 package com.agateau.pixelwheels.stats;
 
 import com.agateau.utils.Assert;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.files.FileHandle;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -27,9 +29,10 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 
-public class JsonGameStatsImplIO implements GameStatsImpl.IO {
+public class JsonGameStatsImplIO implements GameStatsImpl.StagedIO {
     private final FileHandle mHandle;
     private GameStatsImpl mGameStats;
     private final Gson mGson = new GsonBuilder().setPrettyPrinting().create();
@@ -46,6 +49,7 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
     @Override
     public void load() {
         Assert.check(mGameStats != null, "setGameStats() has not been called");
+        FileUtils.recoverAtomicWrite(mHandle);
         if (!mHandle.exists()) {
             return;
         }
@@ -56,13 +60,13 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
         JsonObject trackStatsObject = root.getAsJsonObject("trackStats");
         for (Map.Entry<String, JsonElement> kv : trackStatsObject.entrySet()) {
             String trackId = kv.getKey();
-            TrackStats trackStats = new TrackStats(mGameStats);
+            TrackStats trackStats = new TrackStats(mGameStats, trackId);
             mGameStats.mTrackStats.put(trackId, trackStats);
             loadTrackStats(trackStats, kv.getValue().getAsJsonObject());
         }
         loadStringIntMap(
                 mGameStats.mBestChampionshipRank, root.getAsJsonObject("bestChampionshipRank"));
-        loadStringIntMap(mGameStats.mEvents, root.getAsJsonObject("events"));
+        loadEvents(mGameStats.mEvents, root.getAsJsonObject("events"));
     }
 
     private void loadTrackStats(TrackStats trackStats, JsonObject object) {
@@ -82,6 +86,29 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
         }
     }
 
+    private static void loadEvents(int[] events, JsonObject object) {
+        Arrays.fill(events, 0);
+        if (object == null) {
+            return;
+        }
+        for (Map.Entry<String, JsonElement> kv : object.entrySet()) {
+            GameStats.Event event = parseEvent(kv.getKey());
+            if (event != null) {
+                events[event.ordinal()] = kv.getValue().getAsInt();
+            }
+        }
+    }
+
+    /** Returns the event whose id is id, or null if there is no such event */
+    static GameStats.Event parseEvent(String id) {
+        try {
+            return GameStats.Event.valueOf(id);
+        } catch (IllegalArgumentException e) {
+            NLog.e("Ignoring unknown event '%s'", id);
+            return null;
+        }
+    }
+
     private void loadResults(ArrayList<TrackResult> results, JsonArray array) {
         results.clear();
         for (JsonElement element : array) {
@@ -92,6 +119,21 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
 
     @Override
     public void save() {
+        write(toJson());
+    }
+
+    @Override
+    public Runnable prepareSave() {
+        String json = toJson();
+        return () -> write(json);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to do, save() writes synchronously
+    }
+
+    String toJson() {
         Assert.check(mGameStats != null, "setGameStats() has not been called");
         JsonObject root = new JsonObject();
         JsonObject trackStatsObject = new JsonObject();
@@ -101,9 +143,23 @@ public class JsonGameStatsImplIO implements GameStatsImpl.IO {
         }
 
         root.add("bestChampionshipRank", mGson.toJsonTree(mGameStats.mBestChampionshipRank));
-        root.add("events", mGson.toJsonTree(mGameStats.mEvents));
-        String json = mGson.toJson(root);
-        mHandle.writeString(json, false /* append */);
+        root.add("events", createJsonForEvents(mGameStats.mEvents));
+        return mGson.toJson(root);
+    }
+
+    void write(String json) {
+        FileUtils.writeStringAtomically(mHandle, json);
+    }
+
+    private static JsonObject createJsonForEvents(int[] events) {
+        JsonObject object = new JsonObject();
+        for (GameStats.Event event : GameStats.Event.values()) {
+            int count = events[event.ordinal()];
+            if (count != 0) {
+                object.addProperty(event.toString(), count);
+            }
+        }
+        return object;
     }
 
     private JsonObject createJsonForTrack(TrackStats trackStats) {
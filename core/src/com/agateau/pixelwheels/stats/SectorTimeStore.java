@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.pixelwheels.racer.SectorTimes;
+import com.agateau.utils.FileUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The best sector times ever recorded on a track.
+ *
+ * <p>Each track has its own file, which is small enough to be read at the start of a race. It is
+ * stored in columns: the header, the best sector times then the splits of the best lap, all as
+ * big-endian values. Times are -1 until they are known.
+ */
+public class SectorTimeStore {
+    private static final int MAGIC = 0x50575354; // "PWST"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4;
+
+    private final FileHandle mHandle;
+    private final float[] mBestSectorTimes;
+    private final float[] mBestLapSplits;
+    private float mBestLapTime = -1;
+
+    public SectorTimeStore(FileHandle handle, int sectionCount) {
+        mHandle = handle;
+        mBestSectorTimes = new float[sectionCount];
+        mBestLapSplits = new float[sectionCount];
+        Arrays.fill(mBestSectorTimes, -1);
+        Arrays.fill(mBestLapSplits, -1);
+    }
+
+    /** Returns the file in which the sector times of trackId are stored */
+    public static FileHandle getFile(String trackId) {
+        return FileUtils.getUserWritableFile("sectortimes/" + trackId + ".pwst");
+    }
+
+    /**
+     * Returns the store saved in handle. Returns an empty store if handle does not exist, or if it
+     * is not valid for a track of sectionCount sections.
+     */
+    public static SectorTimeStore load(FileHandle handle, int sectionCount) {
+        SectorTimeStore store = new SectorTimeStore(handle, sectionCount);
+        FileUtils.recoverAtomicWrite(handle);
+        if (!handle.exists()) {
+            return store;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(handle.readBytes());
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                NLog.e("%s is not a sector time file", handle.path());
+                return store;
+            }
+            if (buffer.getInt() != sectionCount) {
+                NLog.i("%s does not match the track sections, ignoring it", handle.path());
+                return store;
+            }
+            store.mBestLapTime = buffer.getFloat();
+            readFloats(buffer, store.mBestSectorTimes);
+            readFloats(buffer, store.mBestLapSplits);
+        } catch (BufferUnderflowException e) {
+            NLog.e("%s is truncated", handle.path());
+            return new SectorTimeStore(handle, sectionCount);
+        }
+        return store;
+    }
+
+    public void save() {
+        int sectionCount = getSectionCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 * 4 * sectionCount);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(sectionCount);
+        buffer.putFloat(mBestLapTime);
+        for (float time : mBestSectorTimes) {
+            buffer.putFloat(time);
+        }
+        for (float time : mBestLapSplits) {
+            buffer.putFloat(time);
+        }
+        FileUtils.writeBytesAtomically(mHandle, buffer.array());
+    }
+
+    /**
+     * Updates the store with the times of a racer. Returns true if it contained better times than
+     * the store.
+     */
+    public boolean merge(SectorTimes times) {
+        if (times.getSectionCount() != getSectionCount()) {
+            NLog.e(
+                    "Can't merge times for %d sections into a store for %d sections",
+                    times.getSectionCount(), getSectionCount());
+            return false;
+        }
+        boolean changed = false;
+        for (int idx = 0; idx < mBestSectorTimes.length; ++idx) {
+            float time = times.getBestSectorTime(idx);
+            if (isBetter(time, mBestSectorTimes[idx])) {
+                mBestSectorTimes[idx] = time;
+                changed = true;
+            }
+        }
+        if (isBetter(times.getBestLapTime(), mBestLapTime)) {
+            mBestLapTime = times.getBestLapTime();
+            for (int idx = 0; idx < mBestLapSplits.length; ++idx) {
+                mBestLapSplits[idx] = times.getBestLapSplit(idx);
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    public int getSectionCount() {
+        return mBestSectorTimes.length;
+    }
+
+    public float getBestLapTime() {
+        return mBestLapTime;
+    }
+
+    public float getBestSectorTime(int sectionId) {
+        return mBestSectorTimes[sectionId];
+    }
+
+    public float getBestLapSplit(int sectionId) {
+        return mBestLapSplits[sectionId];
+    }
+
+    /**
+     * Returns the difference between split, the lap time when leaving sectionId, and the split of
+     * the best lap for this section. Returns 0 if either split is unknown: if there is no best lap
+     * yet, or if the section was skipped.
+     */
+    public float getDeltaToBestLap(int sectionId, float split) {
+        float bestSplit = mBestLapSplits[sectionId];
+        return bestSplit < 0 || split < 0 ? 0 : split - bestSplit;
+    }
+
+    private static boolean isBetter(float time, float bestTime) {
+        return time >= 0 && (bestTime < 0 || time < bestTime);
+    }
+
+    private static void readFloats(ByteBuffer buffer, float[] array) {
+        for (int idx = 0; idx < array.length; ++idx) {
+            array[idx] = buffer.getFloat();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.pixelwheels.map.Championship;
+
+/**
+ * Creates the keys identifying each stat of GameStats, passed to GameStats.Listener when a stat
+ * changes
+ */
+public class StatKeys {
+    private static final String[] sEventKeys = createEventKeys();
+
+    public static String forEvent(GameStats.Event event) {
+        return sEventKeys[event.ordinal()];
+    }
+
+    public static String forChampionship(Championship championship) {
+        return "championship:" + championship.getId();
+    }
+
+    /** Key for the lap and total records of the track whose id is trackId */
+    public static String forTrack(String trackId) {
+        return "track:" + trackId;
+    }
+
+    private static String[] createEventKeys() {
+        GameStats.Event[] events = GameStats.Event.values();
+        String[] keys = new String[events.length];
+        for (GameStats.Event event : events) {
+            keys[event.ordinal()] = "event:" + event.toString();
+        }
+        return keys;
+    }
+}
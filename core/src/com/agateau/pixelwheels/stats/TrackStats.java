@@ -24,6 +24,7 @@ public class TrackStats {
     private static final int RECORD_COUNT = 3;
 
     private final GameStats mGameStats;
+    private final String mTrackId;
     final ArrayList<TrackResult> mLapRecords;
     final ArrayList<TrackResult> mTotalRecords;
 
@@ -32,8 +33,9 @@ public class TrackStats {
         TOTAL
     }
 
-    TrackStats(GameStats gameStats) {
+    TrackStats(GameStats gameStats, String trackId) {
         mGameStats = gameStats;
+        mTrackId = trackId;
         mLapRecords = new ArrayList<>();
         mTotalRecords = new ArrayList<>();
     }
@@ -43,9 +45,14 @@ public class TrackStats {
     }
 
     public int addResult(ResultType resultType, TrackResult result) {
-        int rank = addResult(get(resultType), result);
+        int rank;
+        // Hold the GameStats lock, a background thread may be serializing the stats, see
+        // WriteBehindGameStatsImplIO
+        synchronized (mGameStats) {
+            rank = addResult(get(resultType), result);
+        }
         if (rank != -1) {
-            mGameStats.save();
+            mGameStats.save(StatKeys.forTrack(mTrackId));
         }
         return rank;
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.stats;
+
+import com.agateau.utils.log.NLog;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Saves the stats through a GameStatsImpl.StagedIO without blocking the caller.
+ *
+ * <p>save() only marks the stats as dirty. They are written on a background thread when flush() is
+ * called, or DEBOUNCE_DELAY_MS after the first unsaved change, so that a burst of changes during a
+ * race results in a single write.
+ *
+ * <p>The stats are serialized on the background thread while holding the GameStatsImpl lock, so
+ * GameStatsImpl and TrackStats must hold it when they change their content.
+ */
+public class WriteBehindGameStatsImplIO implements GameStatsImpl.IO {
+    static final long DEBOUNCE_DELAY_MS = 5000;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private final GameStatsImpl.StagedIO mIO;
+    private final ScheduledThreadPoolExecutor mExecutor;
+    private final AtomicBoolean mDirty = new AtomicBoolean();
+    private final AtomicBoolean mWriteScheduled = new AtomicBoolean();
+    private GameStatsImpl mGameStats;
+
+    public WriteBehindGameStatsImplIO(GameStatsImpl.StagedIO io) {
+        mIO = io;
+        mExecutor =
+                new ScheduledThreadPoolExecutor(
+                        1,
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "GameStatsWriter");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        mExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @Override
+    public void setGameStats(GameStatsImpl gameStats) {
+        mGameStats = gameStats;
+        mIO.setGameStats(gameStats);
+    }
+
+    @Override
+    public void load() {
+        mIO.load();
+    }
+
+    @Override
+    public void save() {
+        mDirty.set(true);
+        if (mWriteScheduled.compareAndSet(false, true)) {
+            mExecutor.schedule(this::write, DEBOUNCE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (mDirty.get()) {
+            // If a debounced write is still scheduled, it finds nothing to write when it runs
+            mExecutor.execute(this::write);
+        }
+    }
+
+    /**
+     * Stops the background thread and writes pending changes from the calling thread. Call it
+     * before exiting.
+     */
+    public void close() {
+        // Queued writes are dropped, but the one which may be running must finish before we write
+        mExecutor.shutdown();
+        try {
+            if (!mExecutor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                NLog.e("Timeout while waiting for game stats to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+
+    private void write() {
+        mWriteScheduled.set(false);
+        if (!mDirty.getAndSet(false)) {
+            return;
+        }
+        Runnable writer;
+        synchronized (mGameStats) {
+            writer = mIO.prepareSave();
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.run();
+        } catch (RuntimeException e) {
+            NLog.e("Failed to save game stats: %s", e);
+            // Try again on the next save(), flush() or close()
+            mDirty.set(true);
+        }
+    }
+}
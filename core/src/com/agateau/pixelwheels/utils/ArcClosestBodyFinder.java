@@ -18,15 +18,22 @@
  */
 package com.agateau.pixelwheels.utils;
 
+import com.agateau.utils.AgcMathUtils;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.RayCastCallback;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 /**
  * An helper class to find the closest body using a raycast in an arc
  *
+ * <p>If the bodies to look for are known, for example racers, use the find() overload which takes
+ * them as candidates: it only casts one ray per candidate which can be in the arc, instead of one
+ * ray every ANGLE_BETWEEN_RAYS degrees.
+ *
  * <p>World is not passed to the constructor to make it easier for the class to be used in a
  * poolable object
  */
@@ -45,8 +52,12 @@ public class ArcClosestBodyFinder implements RayCastCallback {
     private final float mDepth;
     private final float mArc;
     private BodyFilter mBodyFilter = sDefaultBodyFilter;
+    private float mCandidateRadius = 0;
     private Body mBody;
     private float mFraction;
+    // Result of the filter for mBody, when casting a single ray
+    private FilterResult mResult;
+    private boolean mSingleRay = false;
 
     /** Default filter which reports success on first hit */
     private static BodyFilter sDefaultBodyFilter = body -> FilterResult.STOP_SUCCESS;
@@ -67,6 +78,14 @@ public class ArcClosestBodyFinder implements RayCastCallback {
         mBodyFilter = bodyFilter;
     }
 
+    /**
+     * Sets the radius of the circle the fixtures of the candidates passed to find() fit in,
+     * centered on the body position
+     */
+    public void setCandidateRadius(float candidateRadius) {
+        mCandidateRadius = candidateRadius;
+    }
+
     public Body find(World world, Vector2 origin, float angle) {
         mFraction = 1;
         mBody = null;
@@ -77,6 +96,73 @@ public class ArcClosestBodyFinder implements RayCastCallback {
         return mBody;
     }
 
+    /**
+     * Like find(World, Vector2, float), but only looks for the bodies of candidates.
+     *
+     * <p>Candidates which cannot be in the arc, or which the filter does not accept, are skipped
+     * without casting rays. For the others, a single ray is cast toward the candidate, and the
+     * closest body it hits which the filter accepts is kept, as with the ray fan. This body can be
+     * another one than the candidate, for example one of its wheels.
+     */
+    public Body find(World world, Array<Body> candidates, Vector2 origin, float angle) {
+        Body closestBody = null;
+        float closestDistance = Float.MAX_VALUE;
+        for (int idx = 0; idx < candidates.size; ++idx) {
+            Body candidate = candidates.get(idx);
+            Vector2 position = candidate.getPosition();
+            float distance = origin.dst(position);
+            if (distance - mCandidateRadius > Math.min(mDepth, closestDistance)) {
+                continue;
+            }
+            float rayAngle = getRayAngle(origin, position, distance, angle);
+            if (Float.isNaN(rayAngle)
+                    || mBodyFilter.filter(candidate) != FilterResult.STOP_SUCCESS) {
+                continue;
+            }
+            float rayLength = Math.min(mDepth, distance + mCandidateRadius);
+            mTmp.set(rayLength, 0).rotate(rayAngle).add(origin);
+            castSingleRay(world, origin, mTmp);
+            if (mResult == FilterResult.STOP_SUCCESS) {
+                float hitDistance = mFraction * rayLength;
+                if (hitDistance < closestDistance) {
+                    closestDistance = hitDistance;
+                    closestBody = mBody;
+                }
+            }
+        }
+        return closestBody;
+    }
+
+    /**
+     * Returns the angle of the ray to cast toward a candidate at position, distance away from
+     * origin, or NaN if the candidate cannot be in the arc
+     */
+    private float getRayAngle(Vector2 origin, Vector2 position, float distance, float angle) {
+        if (distance <= mCandidateRadius) {
+            // The candidate is around the origin, any ray can hit it
+            return angle;
+        }
+        float candidateAngle =
+                MathUtils.atan2(position.y - origin.y, position.x - origin.x) * MathUtils.radDeg;
+        float delta = AgcMathUtils.normalizeAngle180(candidateAngle - angle);
+        // How far from the candidate direction its fixtures can be
+        float margin = (float) Math.asin(mCandidateRadius / distance) * MathUtils.radDeg;
+        float halfArc = mArc / 2;
+        if (Math.abs(delta) > halfArc + margin) {
+            return Float.NaN;
+        }
+        return angle + MathUtils.clamp(delta, -halfArc, halfArc);
+    }
+
+    private void castSingleRay(World world, Vector2 from, Vector2 to) {
+        mFraction = 1;
+        mBody = null;
+        mResult = null;
+        mSingleRay = true;
+        world.rayCast(this, from, to);
+        mSingleRay = false;
+    }
+
     public Vector2 getLeftVertex(Vector2 origin, float angle) {
         mTmp.set(mDepth, 0).rotate(angle + mArc / 2).add(origin);
         return mTmp;
@@ -89,6 +175,9 @@ public class ArcClosestBodyFinder implements RayCastCallback {
 
     @Override
     public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+        if (mSingleRay) {
+            return reportSingleRayFixture(fixture, fraction);
+        }
         if (mFraction < fraction) {
             // Too far, no need to look further
             return mFraction;
@@ -106,4 +195,22 @@ public class ArcClosestBodyFinder implements RayCastCallback {
         }
         return fraction;
     }
+
+    /**
+     * Keeps the closest fixture the filter does not ignore. Fixtures are not reported in order, so
+     * the ray is clipped to each one instead of being stopped
+     */
+    private float reportSingleRayFixture(Fixture fixture, float fraction) {
+        Body body = fixture.getBody();
+        FilterResult result = mBodyFilter.filter(body);
+        if (result == FilterResult.IGNORE) {
+            return -1;
+        }
+        if (fraction < mFraction || mResult == null) {
+            mFraction = fraction;
+            mBody = body;
+            mResult = result;
+        }
+        return fraction;
+    }
 }
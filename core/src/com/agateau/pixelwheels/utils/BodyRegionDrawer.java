@@ -70,9 +70,17 @@ public class BodyRegionDrawer {
 
     public void draw(Body body, TextureRegion region) {
         Vector2 center = body.getPosition();
-        float angle = body.getAngle();
-        float x = center.x + mOffsetX * MathUtils.cos(angle) - mOffsetY * MathUtils.sin(angle);
-        float y = center.y + mOffsetX * MathUtils.sin(angle) + mOffsetY * MathUtils.cos(angle);
+        draw(center.x, center.y, body.getAngle(), region);
+    }
+
+    /** Draws region at the interpolated transform of body */
+    public void draw(InterpolatedBody body, TextureRegion region) {
+        draw(body.getX(), body.getY(), body.getAngle(), region);
+    }
+
+    private void draw(float centerX, float centerY, float angle, TextureRegion region) {
+        float x = centerX + mOffsetX * MathUtils.cos(angle) - mOffsetY * MathUtils.sin(angle);
+        float y = centerY + mOffsetX * MathUtils.sin(angle) + mOffsetY * MathUtils.cos(angle);
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
         mBatch.draw(
@@ -90,14 +98,23 @@ public class BodyRegionDrawer {
 
     public void drawShadow(Body body, TextureRegion region) {
         Vector2 center = body.getPosition();
-        float angle = body.getAngle() * MathUtils.radiansToDegrees;
+        drawShadow(center.x, center.y, body.getAngle(), region);
+    }
+
+    /** Draws the shadow of region at the interpolated transform of body */
+    public void drawShadow(InterpolatedBody body, TextureRegion region) {
+        drawShadow(body.getX(), body.getY(), body.getAngle(), region);
+    }
+
+    private void drawShadow(float centerX, float centerY, float angleRad, TextureRegion region) {
+        float angle = angleRad * MathUtils.radiansToDegrees;
         float offset =
                 (SHADOW_OFFSET_PX
                                 + mZ * Z_MAX_SHADOW_OFFSET_PX
                                 + (mScale - 1) * SCALE_MAX_SHADOW_OFFSET_PX)
                         * Constants.UNIT_FOR_PIXEL;
-        float x = center.x + offset;
-        float y = center.y - offset;
+        float x = centerX + offset;
+        float y = centerY - offset;
         float w = Constants.UNIT_FOR_PIXEL * region.getRegionWidth();
         float h = Constants.UNIT_FOR_PIXEL * region.getRegionHeight();
         float old = mBatch.getPackedColor();
@@ -172,6 +172,32 @@ public class Box2DUtils {
         }
     }
 
+    /**
+     * Returns the radius of the circle centered on the body position which contains all its
+     * fixtures
+     */
+    public static float getBoundingRadius(Body body) {
+        float radius = 0;
+        Vector2 vertex = new Vector2();
+        for (Fixture fixture : body.getFixtureList()) {
+            Shape shape = fixture.getShape();
+            if (shape instanceof PolygonShape) {
+                PolygonShape polygonShape = (PolygonShape) shape;
+                for (int idx = 0; idx < polygonShape.getVertexCount(); ++idx) {
+                    polygonShape.getVertex(idx, vertex);
+                    radius = Math.max(radius, vertex.len());
+                }
+            } else if (shape instanceof CircleShape) {
+                CircleShape circleShape = (CircleShape) shape;
+                radius =
+                        Math.max(radius, circleShape.getPosition().len() + circleShape.getRadius());
+            } else {
+                throw new RuntimeException("Unsupported Shape type: " + shape);
+            }
+        }
+        return radius;
+    }
+
     /** Returns vertices for a rectangle of size width x height with truncated corners */
     public static float[] createOctogon(
             float width, float height, float cornerWidth, float cornerHeight) {
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.utils;
+
+import com.agateau.pixelwheels.gameobjet.Interpolated;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+
+/** Keeps track of the interpolated transform of a Box2D body, see Interpolated */
+public class InterpolatedBody implements Interpolated {
+    private Body mBody;
+    private final Vector2 mPreviousPosition = new Vector2();
+    private float mPreviousAngle;
+    private final Vector2 mPosition = new Vector2();
+    private float mAngle;
+
+    /** Sets the body to follow, its current transform is used as previous and current state */
+    public void setBody(Body body) {
+        mBody = body;
+        storePreviousState();
+        interpolate(1);
+    }
+
+    public Body getBody() {
+        return mBody;
+    }
+
+    @Override
+    public void storePreviousState() {
+        mPreviousPosition.set(mBody.getPosition());
+        mPreviousAngle = mBody.getAngle();
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        mPosition.set(mPreviousPosition).lerp(mBody.getPosition(), alpha);
+        // Take the shortest way: bodies can be rotated with setTransform()
+        mAngle = MathUtils.lerpAngle(mPreviousAngle, mBody.getAngle(), alpha);
+    }
+
+    public Vector2 getPosition() {
+        return mPosition;
+    }
+
+    public float getX() {
+        return mPosition.x;
+    }
+
+    public float getY() {
+        return mPosition.y;
+    }
+
+    /** Returns the interpolated angle, in radians */
+    public float getAngle() {
+        return mAngle;
+    }
+}
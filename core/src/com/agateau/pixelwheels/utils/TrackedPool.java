@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.utils;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ReflectionPool;
+
+/**
+ * A ReflectionPool which keeps track of how it is used, to help choosing its size, and which can be
+ * filled before its objects are needed.
+ *
+ * <p>An allocation miss is counted each time obtain() has to create an object because the pool is
+ * empty.
+ */
+public class TrackedPool<T> extends ReflectionPool<T> {
+    /** Does the expensive part of the initialization of the objects created by prewarm() */
+    public interface Initializer<T> {
+        void init(T object);
+    }
+
+    private final String mName;
+    private int mUsedCount = 0;
+    private int mHighWaterMark = 0;
+    private int mMissCount = 0;
+    private boolean mPrewarming = false;
+
+    public TrackedPool(Class<T> type) {
+        super(type);
+        mName = type.getSimpleName();
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Creates objects until the pool contains count objects, used or free. If initializer is not
+     * null, it is called on each created object
+     */
+    public void prewarm(int count, Initializer<T> initializer) {
+        mPrewarming = true;
+        for (int idx = mUsedCount + getFree(); idx < count; ++idx) {
+            T object = newObject();
+            if (initializer != null) {
+                initializer.init(object);
+            }
+            super.free(object);
+        }
+        mPrewarming = false;
+    }
+
+    /** Returns how many objects are currently obtained from the pool */
+    public int getUsedCount() {
+        return mUsedCount;
+    }
+
+    /** Returns the maximum number of objects which have been obtained from the pool at once */
+    public int getHighWaterMark() {
+        return mHighWaterMark;
+    }
+
+    /** Returns how many times obtain() had to create an object */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    @Override
+    public T obtain() {
+        if (getFree() == 0) {
+            ++mMissCount;
+        }
+        ++mUsedCount;
+        mHighWaterMark = Math.max(mHighWaterMark, mUsedCount);
+        return super.obtain();
+    }
+
+    @Override
+    public void free(T object) {
+        super.free(object);
+        --mUsedCount;
+    }
+
+    @Override
+    public void freeAll(Array<T> objects) {
+        super.freeAll(objects);
+        mUsedCount -= objects.size;
+    }
+
+    @Override
+    protected void reset(T object) {
+        // Objects created by prewarm() have never been used, there is nothing to reset
+        if (!mPrewarming) {
+            super.reset(object);
+        }
+    }
+}
@@ -20,7 +20,6 @@ package com.agateau.pixelwheels.vehicledef;
 
 import com.agateau.pixelwheels.Assets;
 import com.agateau.pixelwheels.Constants;
-import com.agateau.pixelwheels.GamePlay;
 import com.agateau.pixelwheels.GameWorld;
 import com.agateau.pixelwheels.racer.Vehicle;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -40,7 +39,7 @@ public class VehicleCreator {
 
     public Vehicle create(VehicleDef vehicleDef, Vector2 position, float angle) {
         final float U = Constants.UNIT_FOR_PIXEL;
-        float maxDrivingForce = GamePlay.instance.maxDrivingForce * vehicleDef.speed;
+        float maxDrivingForce = mGameWorld.getGamePlay().maxDrivingForce * vehicleDef.speed;
 
         TextureRegion mainRegion = vehicleDef.getImage(mAssets);
         TextureRegion wheelRegion = mAssets.wheel;
@@ -19,6 +19,7 @@
 package com.agateau.utils;
 
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
@@ -28,6 +29,11 @@ public class AgcMathUtils {
     public static final float msToKmh = 3600 / 1000f;
     public static final float kmhToMs = 1 / msToKmh;
 
+    /** Like MathUtils.random(start, end), but draws from random instead of MathUtils.random */
+    public static float random(RandomXS128 random, float start, float end) {
+        return start + random.nextFloat() * (end - start);
+    }
+
     /** Wrap angles if they are less than 0 or greater than 360 */
     public static float normalizeAngle(float angle) {
         return modulo(angle, 360);
@@ -108,14 +114,19 @@ public class AgcMathUtils {
      * @return the projected point. Vector is reused.
      */
     public static Vector2 project(Vector2 a, Vector2 pos1, Vector2 pos2) {
-        sTmpVector.set(pos2).sub(pos1).nor();
-        float vx = sTmpVector.x;
-        float vy = sTmpVector.y;
+        return project(a, pos1, pos2, sTmpVector);
+    }
+
+    /** Same as project(a, pos1, pos2), but stores the result in @p out and returns it */
+    public static Vector2 project(Vector2 a, Vector2 pos1, Vector2 pos2, Vector2 out) {
+        out.set(pos2).sub(pos1).nor();
+        float vx = out.x;
+        float vy = out.y;
 
         float pos1ToH = (a.x - pos1.x) * vx + (a.y - pos1.y) * vy;
-        sTmpVector.x = pos1.x + pos1ToH * vx;
-        sTmpVector.y = pos1.y + pos1ToH * vy;
-        return sTmpVector;
+        out.x = pos1.x + pos1ToH * vx;
+        out.y = pos1.y + pos1ToH * vy;
+        return out;
     }
 
     /**
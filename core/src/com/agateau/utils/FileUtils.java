@@ -22,6 +22,7 @@ import com.agateau.utils.log.NLog;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.XmlReader;
+import java.io.File;
 
 public class FileUtils {
     public static String appName = "unnamed";
@@ -54,6 +55,55 @@ public class FileUtils {
         return Gdx.files.internal(path);
     }
 
+    /**
+     * Writes text to a temporary file, then renames it over handle, so that a crash during the
+     * write never leaves a truncated file behind
+     */
+    public static void writeStringAtomically(FileHandle handle, String text) {
+        FileHandle tmpHandle = getTmpHandle(handle);
+        tmpHandle.writeString(text, false /* append */, "UTF-8");
+        replaceWith(handle, tmpHandle);
+    }
+
+    /** Same as writeStringAtomically(), for binary content */
+    public static void writeBytesAtomically(FileHandle handle, byte[] bytes) {
+        FileHandle tmpHandle = getTmpHandle(handle);
+        tmpHandle.writeBytes(bytes, false /* append */);
+        replaceWith(handle, tmpHandle);
+    }
+
+    /**
+     * Finishes an atomic write interrupted by a crash. Call it before reading a file written by
+     * writeStringAtomically() or writeBytesAtomically().
+     *
+     * <p>On platforms where renameTo() does not replace existing files, the old file is deleted
+     * before the temporary file is renamed. If the temporary file exists but the file does not, the
+     * crash happened between these two steps, so the temporary file holds the latest content.
+     */
+    public static void recoverAtomicWrite(FileHandle handle) {
+        FileHandle tmpHandle = getTmpHandle(handle);
+        if (!handle.exists() && tmpHandle.exists()) {
+            NLog.i("Recovering %s from %s", handle.path(), tmpHandle.path());
+            replaceWith(handle, tmpHandle);
+        }
+    }
+
+    private static FileHandle getTmpHandle(FileHandle handle) {
+        return handle.sibling(handle.name() + ".tmp");
+    }
+
+    private static void replaceWith(FileHandle handle, FileHandle tmpHandle) {
+        File tmpFile = tmpHandle.file();
+        File file = handle.file();
+        if (tmpFile.renameTo(file)) {
+            return;
+        }
+        // renameTo() does not replace existing files on all platforms
+        if (!file.delete() || !tmpFile.renameTo(file)) {
+            NLog.e("Failed to rename %s to %s", tmpFile, file);
+        }
+    }
+
     public static XmlReader.Element parseXml(FileHandle handle) {
         XmlReader reader = new XmlReader();
         XmlReader.Element root = reader.parse(handle);
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils;
+
+/**
+ * Counts durations, in seconds, in buckets of logarithmic width, so that percentiles can be
+ * computed without keeping every value.
+ *
+ * <p>Buckets start at MIN_VALUE and each one is 2^(1/BUCKETS_PER_DOUBLING) wider than the previous
+ * one, so percentiles are accurate to about 9%. Values below MIN_VALUE go to the first bucket,
+ * values above MAX_VALUE to the last one. The maximum is kept exactly.
+ */
+public class LogHistogram {
+    public static final float MIN_VALUE = 0.0001f;
+    public static final float MAX_VALUE = 2f;
+    public static final int BUCKETS_PER_DOUBLING = 8;
+    public static final int BUCKET_COUNT =
+            2 + (int) Math.ceil(log2(MAX_VALUE / MIN_VALUE) * BUCKETS_PER_DOUBLING);
+
+    private final int[] mCounts = new int[BUCKET_COUNT];
+    private final float mBudget;
+    private int mCount = 0;
+    private int mOverBudgetCount = 0;
+    private float mMax = 0;
+
+    /** budget is the value above which a value is counted as over budget */
+    public LogHistogram(float budget) {
+        mBudget = budget;
+    }
+
+    public void record(float value) {
+        ++mCounts[getBucketIndex(value)];
+        ++mCount;
+        if (value > mBudget) {
+            ++mOverBudgetCount;
+        }
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+
+    public void reset() {
+        for (int idx = 0; idx < BUCKET_COUNT; ++idx) {
+            mCounts[idx] = 0;
+        }
+        mCount = 0;
+        mOverBudgetCount = 0;
+        mMax = 0;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getOverBudgetCount() {
+        return mOverBudgetCount;
+    }
+
+    public float getBudget() {
+        return mBudget;
+    }
+
+    public float getMax() {
+        return mMax;
+    }
+
+    /** Returns the number of values in bucket index, can be used to merge histograms */
+    public int getBucketCount(int index) {
+        return mCounts[index];
+    }
+
+    /**
+     * Returns the value below which percent % of the recorded values are. This is the upper bound
+     * of the bucket holding this value, so it can be up to one bucket too high, but it is never
+     * higher than the maximum.
+     */
+    public float getPercentile(float percent) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int threshold = (int) Math.ceil(mCount * percent / 100);
+        int total = 0;
+        for (int idx = 0; idx < BUCKET_COUNT; ++idx) {
+            total += mCounts[idx];
+            if (total >= threshold && total > 0) {
+                return Math.min(getBucketUpperBound(idx), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    static int getBucketIndex(float value) {
+        if (value < MIN_VALUE) {
+            return 0;
+        }
+        int index = 1 + (int) (log2(value / MIN_VALUE) * BUCKETS_PER_DOUBLING);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    static float getBucketUpperBound(int index) {
+        if (index == BUCKET_COUNT - 1) {
+            return Float.MAX_VALUE;
+        }
+        return (float) (MIN_VALUE * Math.pow(2, (double) index / BUCKETS_PER_DOUBLING));
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
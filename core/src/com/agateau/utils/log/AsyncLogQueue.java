@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.log;
+
+import com.badlogic.gdx.Application;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of log messages, formatted and printed by a background thread.
+ *
+ * <p>Entries are preallocated. Producers claim an entry with a compare-and-set on the tail
+ * position, so logging never takes a lock. If the queue is full, the message is dropped and counted
+ * instead of blocking the caller.
+ *
+ * <p>Arguments are formatted on the background thread, so NLog only queues immutable arguments.
+ */
+class AsyncLogQueue {
+    private static final long IDLE_WAIT_NS = 5_000_000;
+
+    private static class Entry {
+        /**
+         * Equals the position of the entry when it is free for that position, and position + 1 once
+         * it has been filled
+         */
+        volatile long sequence;
+
+        int level;
+        Object obj;
+        Object[] args;
+        Throwable caller;
+    }
+
+    interface Consumer {
+        void consume(int level, Object obj, Object[] args, Throwable caller);
+    }
+
+    private final Entry[] mEntries;
+    private final int mMask;
+    private final Consumer mConsumer;
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private volatile long mHead = 0;
+    private volatile boolean mRunning = true;
+    private final Thread mThread;
+
+    /** capacity is rounded up to a power of 2 */
+    AsyncLogQueue(int capacity, Consumer consumer) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mEntries = new Entry[size];
+        for (int idx = 0; idx < size; ++idx) {
+            mEntries[idx] = new Entry();
+            mEntries[idx].sequence = idx;
+        }
+        mMask = size - 1;
+        mConsumer = consumer;
+        mThread = new Thread(this::run, "NLog");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /** Returns false if the queue is full */
+    boolean offer(int level, Object obj, Object[] args, Throwable caller) {
+        long pos = mTail.get();
+        while (true) {
+            Entry entry = mEntries[(int) (pos & mMask)];
+            long diff = entry.sequence - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    entry.level = level;
+                    entry.obj = obj;
+                    entry.args = args;
+                    entry.caller = caller;
+                    // Publishes the fields to the consumer
+                    entry.sequence = pos + 1;
+                    return true;
+                }
+                pos = mTail.get();
+            } else if (diff < 0) {
+                mDroppedCount.incrementAndGet();
+                return false;
+            } else {
+                // Another producer claimed this position
+                pos = mTail.get();
+            }
+        }
+    }
+
+    /** Waits until all the messages logged so far have been printed */
+    void flush() {
+        long tail = mTail.get();
+        while (mHead < tail && mThread.isAlive()) {
+            LockSupport.unpark(mThread);
+            LockSupport.parkNanos(IDLE_WAIT_NS / 10);
+        }
+    }
+
+    /** Prints pending messages, then stops the background thread */
+    void stop() {
+        flush();
+        mRunning = false;
+        LockSupport.unpark(mThread);
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (mRunning) {
+            if (!consumeOne()) {
+                reportDroppedMessages();
+                LockSupport.parkNanos(IDLE_WAIT_NS);
+            }
+        }
+        while (consumeOne()) {
+            // Drain the queue
+        }
+        reportDroppedMessages();
+    }
+
+    private boolean consumeOne() {
+        long head = mHead;
+        Entry entry = mEntries[(int) (head & mMask)];
+        if (entry.sequence != head + 1) {
+            return false;
+        }
+        int level = entry.level;
+        Object obj = entry.obj;
+        Object[] args = entry.args;
+        Throwable caller = entry.caller;
+        entry.obj = null;
+        entry.args = null;
+        entry.caller = null;
+        entry.sequence = head + mEntries.length;
+        try {
+            mConsumer.consume(level, obj, args, caller);
+        } finally {
+            mHead = head + 1;
+        }
+        return true;
+    }
+
+    private void reportDroppedMessages() {
+        long count = mDroppedCount.getAndSet(0);
+        if (count > 0) {
+            mConsumer.consume(
+                    Application.LOG_ERROR,
+                    "%d log messages dropped: queue full",
+                    new Object[] {count},
+                    null);
+        }
+    }
+}
@@ -19,11 +19,28 @@
 package com.agateau.utils.log;
 
 import com.badlogic.gdx.Application;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Logging functions.
+ *
+ * <p>Messages are formatted and printed synchronously by default. Call startAsync() to queue them
+ * instead and have a background thread format and print them.
+ *
+ * <p>In both modes, a call costs its varargs array and the boxing of its primitive arguments, even
+ * if the message is not printed: code logging on every frame should check isEnabled() first.
+ */
 public class NLog {
-    private static final Vector<Printer> sPrinters = new Vector<>();
+    /**
+     * Index of the caller of d(), i() or e() in the stack trace of a Throwable created in print()
+     */
+    private static final int THROWABLE_CALLER_DEPTH = 2;
+
+    private static final CopyOnWriteArrayList<Printer> sPrinters = new CopyOnWriteArrayList<>();
     private static int sStackDepth = -1;
+    private static volatile int sLevel = Application.LOG_DEBUG;
+    private static volatile boolean sCallerTagEnabled = true;
+    private static volatile AsyncLogQueue sAsyncQueue;
 
     public interface Printer {
         void print(int level, String tag, String message);
@@ -53,15 +70,78 @@ public class NLog {
     }
 
     public static void d(Object obj, Object... args) {
-        print(Application.LOG_DEBUG, obj, args);
+        if (sLevel >= Application.LOG_DEBUG) {
+            print(Application.LOG_DEBUG, obj, args);
+        }
     }
 
     public static void i(Object obj, Object... args) {
-        print(Application.LOG_INFO, obj, args);
+        if (sLevel >= Application.LOG_INFO) {
+            print(Application.LOG_INFO, obj, args);
+        }
     }
 
     public static void e(Object obj, Object... args) {
-        print(Application.LOG_ERROR, obj, args);
+        if (sLevel >= Application.LOG_ERROR) {
+            print(Application.LOG_ERROR, obj, args);
+        }
+    }
+
+    /**
+     * Sets the least important level of the messages to print, using the Application.LOG_*
+     * constants. Messages at a lower level are neither formatted nor queued, but their arguments
+     * have already been evaluated, boxed and stored in an array by the caller.
+     */
+    public static void setLevel(int level) {
+        sLevel = level;
+    }
+
+    public static boolean isEnabled(int level) {
+        return level <= sLevel;
+    }
+
+    /**
+     * Defines whether messages are tagged with the class and method which logged them. Finding the
+     * caller walks the stack of the calling thread, in both modes: async mode only defers decoding
+     * it to the background thread. Disable caller tags if this is too slow.
+     */
+    public static void setCallerTagEnabled(boolean enabled) {
+        sCallerTagEnabled = enabled;
+    }
+
+    /**
+     * Switches to async mode: messages are queued in a ring buffer of queueCapacity entries, then
+     * formatted and printed on a background thread. If the ring buffer is full, messages are
+     * dropped instead of blocking the caller.
+     *
+     * <p>Arguments are snapshotted on the calling thread: boxed primitives and strings are queued
+     * as is, other arguments are converted with String.valueOf(). They can be modified as soon as
+     * the log call returns, but format conversions other than %s only work with boxed primitives.
+     */
+    public static synchronized void startAsync(int queueCapacity) {
+        if (sAsyncQueue != null) {
+            return;
+        }
+        sAsyncQueue = new AsyncLogQueue(queueCapacity, NLog::printQueued);
+        Runtime.getRuntime().addShutdownHook(new Thread(NLog::stopAsync));
+    }
+
+    /** Prints queued messages, then goes back to synchronous mode */
+    public static synchronized void stopAsync() {
+        AsyncLogQueue queue = sAsyncQueue;
+        if (queue == null) {
+            return;
+        }
+        sAsyncQueue = null;
+        queue.stop();
+    }
+
+    /** In async mode, waits until all the messages logged so far have been printed */
+    public static void flush() {
+        AsyncLogQueue queue = sAsyncQueue;
+        if (queue != null) {
+            queue.flush();
+        }
     }
 
     public static void backtrace() {
@@ -75,11 +155,80 @@ public class NLog {
         sPrinters.add(printer);
     }
 
-    private static synchronized void print(int level, Object obj, Object... args) {
-        if (sStackDepth < 0) {
-            initStackDepth();
+    public static void removePrinter(Printer printer) {
+        sPrinters.remove(printer);
+    }
+
+    private static void print(int level, Object obj, Object... args) {
+        AsyncLogQueue queue = sAsyncQueue;
+        if (queue != null) {
+            queue.offer(
+                    level,
+                    obj == null ? null : obj.toString(),
+                    snapshotArgs(args),
+                    sCallerTagEnabled ? new Throwable() : null);
+            return;
         }
-        final String tag = getCallerMethod();
+        String tag = "";
+        if (sCallerTagEnabled) {
+            if (sStackDepth < 0) {
+                initStackDepth();
+            }
+            tag = getCallerMethod();
+        }
+        printMessage(level, tag, obj, args);
+    }
+
+    /**
+     * Returns args, or a copy of it where arguments which could change before being formatted are
+     * replaced with their string representation
+     */
+    private static Object[] snapshotArgs(Object[] args) {
+        Object[] snapshot = args;
+        for (int idx = 0; idx < args.length; ++idx) {
+            Object arg = args[idx];
+            if (arg == null || isImmutable(arg)) {
+                continue;
+            }
+            if (snapshot == args) {
+                snapshot = args.clone();
+            }
+            snapshot[idx] = String.valueOf(arg);
+        }
+        return snapshot;
+    }
+
+    private static boolean isImmutable(Object arg) {
+        return arg instanceof String
+                || arg instanceof Integer
+                || arg instanceof Long
+                || arg instanceof Float
+                || arg instanceof Double
+                || arg instanceof Boolean
+                || arg instanceof Character
+                || arg instanceof Short
+                || arg instanceof Byte;
+    }
+
+    /** Called from the background thread in async mode */
+    private static void printQueued(int level, Object obj, Object[] args, Throwable caller) {
+        String tag = "";
+        if (caller != null) {
+            StackTraceElement[] elements = caller.getStackTrace();
+            if (elements.length > THROWABLE_CALLER_DEPTH) {
+                tag = getTag(elements[THROWABLE_CALLER_DEPTH]);
+            }
+        }
+        try {
+            printMessage(level, tag, obj, args);
+        } catch (RuntimeException e) {
+            // Do not let a failing toString() kill the logging thread
+            printMessage(Application.LOG_ERROR, tag, "Failed to format log message: %s", e);
+        }
+    }
+
+    private static synchronized void printMessage(
+            int level, String tag, Object obj, Object... args) {
         String message;
         if (obj == null) {
             message = "(null)";
@@ -106,8 +255,10 @@ public class NLog {
     }
 
     private static String getCallerMethod() {
-        final StackTraceElement stackTraceElement =
-                Thread.currentThread().getStackTrace()[sStackDepth + 3];
+        return getTag(Thread.currentThread().getStackTrace()[sStackDepth + 3]);
+    }
+
+    private static String getTag(StackTraceElement stackTraceElement) {
         final String fullClassName = stackTraceElement.getClassName();
         final String className = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
         final String method = stackTraceElement.getMethodName();
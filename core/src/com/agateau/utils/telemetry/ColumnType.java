@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.telemetry;
+
+/** Types of the columns of a TelemetryChannel. Values of all types are stored as 32-bit ints */
+public enum ColumnType {
+    INT,
+    FLOAT;
+
+    public String format(int rawValue) {
+        if (this == FLOAT) {
+            return String.valueOf(Float.intBitsToFloat(rawValue));
+        } else {
+            return String.valueOf(rawValue);
+        }
+    }
+}
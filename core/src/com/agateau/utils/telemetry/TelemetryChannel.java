@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.telemetry;
+
+import com.agateau.utils.Assert;
+import com.badlogic.gdx.utils.Array;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A table of values written row by row, see TelemetryWriter.
+ *
+ * <p>Columns must be declared with addColumn() before the first row is written. Rows are written by
+ * setting the value of each column, then calling endRow(). Values are stored in a block of
+ * primitive ints, which is handed to the writer thread when it is full.
+ *
+ * <p>A channel must only be used from one thread.
+ */
+public class TelemetryChannel {
+    private final TelemetryWriter mWriter;
+    private final int mId;
+    private final String mName;
+    private final Array<String> mColumnNames = new Array<>();
+    private final Array<ColumnType> mColumnTypes = new Array<>();
+    private final int mRowsPerBlock;
+
+    /** Blocks which have been written by the writer thread and can be reused */
+    private final ConcurrentLinkedQueue<int[]> mFreeBlocks = new ConcurrentLinkedQueue<>();
+
+    private int[] mBlock;
+    private int mRowCount = 0;
+    private int mColumnCount = 0;
+    private boolean mDeclared = false;
+
+    TelemetryChannel(TelemetryWriter writer, int id, String name, int rowsPerBlock) {
+        mWriter = writer;
+        mId = id;
+        mName = name;
+        mRowsPerBlock = rowsPerBlock;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /** Adds a column, returns its index */
+    public int addColumn(String name, ColumnType type) {
+        Assert.check(!mDeclared, "Columns must be added before writing the first row");
+        mColumnNames.add(name);
+        mColumnTypes.add(type);
+        return mColumnNames.size - 1;
+    }
+
+    public void setInt(int column, int value) {
+        getBlock()[mRowCount * mColumnCount + column] = value;
+    }
+
+    public void setFloat(int column, float value) {
+        getBlock()[mRowCount * mColumnCount + column] = Float.floatToRawIntBits(value);
+    }
+
+    public void endRow() {
+        getBlock();
+        ++mRowCount;
+        if (mRowCount == mRowsPerBlock) {
+            flush();
+        }
+    }
+
+    /** Hands the current rows to the writer thread */
+    void flush() {
+        if (mRowCount == 0) {
+            return;
+        }
+        int[] block = mBlock;
+        int rowCount = mRowCount;
+        mBlock = null;
+        mRowCount = 0;
+        mWriter.writeBlock(this, block, rowCount);
+    }
+
+    /** Called by the writer thread once block has been written */
+    void recycleBlock(int[] block) {
+        mFreeBlocks.add(block);
+    }
+
+    int getId() {
+        return mId;
+    }
+
+    Array<String> getColumnNames() {
+        return mColumnNames;
+    }
+
+    Array<ColumnType> getColumnTypes() {
+        return mColumnTypes;
+    }
+
+    private int[] getBlock() {
+        if (mBlock == null) {
+            if (!mDeclared) {
+                mDeclared = true;
+                mColumnCount = mColumnNames.size;
+                mWriter.declareChannel(this);
+            }
+            mBlock = mFreeBlocks.poll();
+            if (mBlock == null) {
+                mBlock = new int[mRowsPerBlock * mColumnCount];
+            }
+        }
+        return mBlock;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Reads files created by TelemetryWriter */
+public class TelemetryReader {
+    public interface Handler {
+        void onChannel(int channelId, String name, String[] columnNames, ColumnType[] columnTypes);
+
+        /** values contains the raw value of each column, use ColumnType to decode them */
+        void onRow(int channelId, int[] values);
+    }
+
+    public static void read(InputStream stream, Handler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != TelemetryWriter.MAGIC) {
+            throw new IOException("Not a telemetry file");
+        }
+        int version = in.readInt();
+        if (version != TelemetryWriter.VERSION) {
+            throw new IOException("Unsupported telemetry version " + version);
+        }
+        // Column counts, indexed by channel id
+        int[] columnCounts = new int[0];
+        while (true) {
+            int type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            int channelId = in.readInt();
+            if (type == TelemetryWriter.CHANNEL_RECORD) {
+                String name = in.readUTF();
+                int columnCount = in.readInt();
+                String[] columnNames = new String[columnCount];
+                ColumnType[] columnTypes = new ColumnType[columnCount];
+                for (int idx = 0; idx < columnCount; ++idx) {
+                    columnTypes[idx] = ColumnType.values()[in.readByte()];
+                    columnNames[idx] = in.readUTF();
+                }
+                if (channelId >= columnCounts.length) {
+                    int[] counts = new int[channelId + 1];
+                    System.arraycopy(columnCounts, 0, counts, 0, columnCounts.length);
+                    columnCounts = counts;
+                }
+                columnCounts[channelId] = columnCount;
+                handler.onChannel(channelId, name, columnNames, columnTypes);
+            } else if (type == TelemetryWriter.BLOCK_RECORD) {
+                int rowCount = in.readInt();
+                int[] values = new int[columnCounts[channelId]];
+                for (int row = 0; row < rowCount; ++row) {
+                    for (int idx = 0; idx < values.length; ++idx) {
+                        values[idx] = in.readInt();
+                    }
+                    handler.onRow(channelId, values);
+                }
+            } else {
+                throw new IOException("Invalid record type " + type);
+            }
+        }
+    }
+}
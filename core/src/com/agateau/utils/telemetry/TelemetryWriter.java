@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.utils.telemetry;
+
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes telemetry channels to a binary file, from a background thread.
+ *
+ * <p>The file starts with MAGIC and VERSION, followed by records, all in big endian:
+ *
+ * <ul>
+ *   <li>CHANNEL_RECORD: channel id (int), name (UTF), column count (int), then for each column its
+ *       type (ColumnType ordinal, byte) and name (UTF)
+ *   <li>BLOCK_RECORD: channel id (int), row count (int), then the values (ints), row by row
+ * </ul>
+ *
+ * <p>Use TelemetryReader to read it back.
+ */
+public class TelemetryWriter {
+    static final int MAGIC = 0x5057544c; // "PWTL"
+    static final int VERSION = 1;
+    static final byte CHANNEL_RECORD = 1;
+    static final byte BLOCK_RECORD = 2;
+
+    private static final int DEFAULT_ROWS_PER_BLOCK = 4096;
+    private static final long CLOSE_TIMEOUT_S = 10;
+
+    private final DataOutputStream mOut;
+    private final ExecutorService mExecutor;
+    private final Array<TelemetryChannel> mChannels = new Array<>();
+    private final int mRowsPerBlock;
+
+    /** Only used by the writer thread */
+    private ByteBuffer mByteBuffer = ByteBuffer.allocate(0);
+
+    public TelemetryWriter(FileHandle handle) {
+        this(handle, DEFAULT_ROWS_PER_BLOCK);
+    }
+
+    TelemetryWriter(FileHandle handle, int rowsPerBlock) {
+        mRowsPerBlock = rowsPerBlock;
+        mOut = new DataOutputStream(new BufferedOutputStream(handle.write(false /* append */)));
+        mExecutor =
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "TelemetryWriter");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        mExecutor.execute(
+                () -> {
+                    try {
+                        mOut.writeInt(MAGIC);
+                        mOut.writeInt(VERSION);
+                    } catch (IOException e) {
+                        NLog.e("Failed to write telemetry header: %s", e);
+                    }
+                });
+    }
+
+    public TelemetryChannel createChannel(String name) {
+        TelemetryChannel channel = new TelemetryChannel(this, mChannels.size, name, mRowsPerBlock);
+        mChannels.add(channel);
+        return channel;
+    }
+
+    /** Returns the channel called name, or null if there is none */
+    public TelemetryChannel getChannel(String name) {
+        for (TelemetryChannel channel : mChannels) {
+            if (channel.getName().equals(name)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /** Writes the pending rows of all channels, then closes the file */
+    public void close() {
+        for (TelemetryChannel channel : mChannels) {
+            channel.flush();
+        }
+        mExecutor.execute(
+                () -> {
+                    try {
+                        mOut.close();
+                    } catch (IOException e) {
+                        NLog.e("Failed to close telemetry file: %s", e);
+                    }
+                });
+        mExecutor.shutdown();
+        try {
+            if (!mExecutor.awaitTermination(CLOSE_TIMEOUT_S, TimeUnit.SECONDS)) {
+                NLog.e("Timeout while writing telemetry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void declareChannel(TelemetryChannel channel) {
+        int id = channel.getId();
+        String name = channel.getName();
+        String[] columnNames = channel.getColumnNames().toArray(String.class);
+        ColumnType[] columnTypes = channel.getColumnTypes().toArray(ColumnType.class);
+        mExecutor.execute(
+                () -> {
+                    try {
+                        mOut.writeByte(CHANNEL_RECORD);
+                        mOut.writeInt(id);
+                        mOut.writeUTF(name);
+                        mOut.writeInt(columnNames.length);
+                        for (int idx = 0; idx < columnNames.length; ++idx) {
+                            mOut.writeByte(columnTypes[idx].ordinal());
+                            mOut.writeUTF(columnNames[idx]);
+                        }
+                    } catch (IOException e) {
+                        NLog.e("Failed to write telemetry channel: %s", e);
+                    }
+                });
+    }
+
+    void writeBlock(TelemetryChannel channel, int[] block, int rowCount) {
+        int valueCount = rowCount * channel.getColumnNames().size;
+        mExecutor.execute(
+                () -> {
+                    try {
+                        mOut.writeByte(BLOCK_RECORD);
+                        mOut.writeInt(channel.getId());
+                        mOut.writeInt(rowCount);
+                        int byteCount = valueCount * 4;
+                        if (mByteBuffer.capacity() < byteCount) {
+                            mByteBuffer = ByteBuffer.allocate(byteCount);
+                        }
+                        mByteBuffer.clear();
+                        mByteBuffer.asIntBuffer().put(block, 0, valueCount);
+                        mOut.write(mByteBuffer.array(), 0, byteCount);
+                    } catch (IOException e) {
+                        NLog.e("Failed to write telemetry block: %s", e);
+                    }
+                    channel.recycleBlock(block);
+                });
+    }
+}
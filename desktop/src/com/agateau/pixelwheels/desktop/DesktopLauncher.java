@@ -34,6 +34,10 @@ public class DesktopLauncher {
         config.setPreferencesConfig(".config/agateau.com", Files.FileType.External);
         config.useVsync(true);
         FileUtils.appName = "pixelwheels";
-        new Lwjgl3Application(new PwGame(), config);
+        PwGame game = new PwGame();
+        if (arg.length == 2 && arg[0].equals("--replay")) {
+            game.setStartupReplayPath(arg[1]);
+        }
+        new Lwjgl3Application(game, config);
     }
 }
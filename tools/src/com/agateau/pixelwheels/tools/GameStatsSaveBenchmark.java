@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.stats.GameStats;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.JournalGameStatsImplIO;
+import com.agateau.pixelwheels.stats.JsonGameStatsImplIO;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Measures the cost of saving the game stats after recording one event, depending on the number of
+ * tracks they contain, for the JSON and the journal formats.
+ */
+public class GameStatsSaveBenchmark {
+    private static final int[] TRACK_COUNTS = {10, 100, 1000, 5000};
+    private static final int SAVE_COUNT = 200;
+    private static final int WARMUP_SAVE_COUNT = 50;
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("gamestatsbenchmark").toFile();
+        for (int trackCount : TRACK_COUNTS) {
+            // Both formats start from the same stats: the journal imports them from the JSON file
+            FileHandle jsonHandle = new FileHandle(new File(dir, "stats" + trackCount + ".json"));
+            jsonHandle.writeString(createJsonStats(trackCount), false /* append */);
+            FileHandle journalHandle =
+                    new FileHandle(new File(dir, "stats" + trackCount + ".journal"));
+
+            benchmark("json", trackCount, jsonHandle, new JsonGameStatsImplIO(jsonHandle));
+            benchmark(
+                    "journal",
+                    trackCount,
+                    journalHandle,
+                    new JournalGameStatsImplIO(journalHandle, jsonHandle));
+        }
+        new FileHandle(dir).deleteDirectory();
+    }
+
+    /** Returns stats for trackCount tracks, each with 3 lap and total records */
+    private static String createJsonStats(int trackCount) {
+        String results =
+                "[{\"vehicle\": \"bob\", \"value\": 41.5},"
+                        + " {\"vehicle\": \"bob\", \"value\": 42.5},"
+                        + " {\"vehicle\": \"bob\", \"value\": 43.5}]";
+        StringBuilder builder = new StringBuilder("{\"trackStats\": {");
+        for (int idx = 0; idx < trackCount; ++idx) {
+            if (idx > 0) {
+                builder.append(", ");
+            }
+            builder.append(
+                    String.format(
+                            "\"track%d\": {\"lap\": %s, \"total\": %s}", idx, results, results));
+        }
+        builder.append("}, \"bestChampionshipRank\": {}, \"events\": {}}");
+        return builder.toString();
+    }
+
+    private static void benchmark(
+            String name, int trackCount, FileHandle handle, GameStatsImpl.IO io) {
+        GameStats stats = new GameStatsImpl(io);
+
+        // recordEvent() saves the stats
+        for (int idx = 0; idx < WARMUP_SAVE_COUNT; ++idx) {
+            stats.recordEvent(GameStats.Event.LEAVING_ROAD);
+        }
+        long start = System.nanoTime();
+        for (int idx = 0; idx < SAVE_COUNT; ++idx) {
+            stats.recordEvent(GameStats.Event.LEAVING_ROAD);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        NLog.i(
+                "%-7s %4d tracks: %8.1f us/save, file size: %7d bytes",
+                name, trackCount, elapsed / 1000f / SAVE_COUNT, handle.length());
+    }
+}
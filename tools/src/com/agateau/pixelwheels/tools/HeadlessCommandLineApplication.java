@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import java.lang.reflect.Proxy;
+
+/**
+ * Like CommandLineApplication, but does not need any display nor GPU: all OpenGL calls do nothing
+ * and audio is disabled.
+ *
+ * <p>Textures can still be loaded, but their content never reaches the GPU, so this is only useful
+ * for apps which do not render anything.
+ */
+public abstract class HeadlessCommandLineApplication extends HeadlessApplication {
+    private static class AppAdapter extends ApplicationAdapter {
+        HeadlessCommandLineApplication mApp;
+        String[] mArguments;
+
+        @Override
+        public void create() {
+            Gdx.gl = Gdx.gl20 = createNoOpGL20();
+            System.exit(mApp.run(mArguments));
+        }
+    }
+
+    public HeadlessCommandLineApplication(String[] arguments) {
+        super(new AppAdapter(), new HeadlessApplicationConfiguration());
+        AppAdapter appAdapter = (AppAdapter) getApplicationListener();
+        appAdapter.mApp = this;
+        appAdapter.mArguments = arguments;
+    }
+
+    /** Returns a GL20 implementation whose methods do nothing and return default values */
+    public static GL20 createNoOpGL20() {
+        return (GL20)
+                Proxy.newProxyInstance(
+                        GL20.class.getClassLoader(),
+                        new Class<?>[] {GL20.class},
+                        (proxy, method, args) -> getDefaultValue(method.getReturnType()));
+    }
+
+    private static Object getDefaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == String.class) {
+            return "";
+        }
+        return null;
+    }
+
+    abstract int run(String[] arguments);
+}
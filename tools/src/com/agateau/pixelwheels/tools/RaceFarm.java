@@ -0,0 +1,269 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.google.gson.Gson;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a matrix of AI-only races in parallel, one race per thread, and aggregates their results in
+ * one report.
+ *
+ * <p>Usage: RaceFarm [--threads COUNT] [--max-time SECONDS] [--output FILE] MATRIX_FILE
+ *
+ * <p>MATRIX_FILE is a JSON file like this one:
+ *
+ * <pre>
+ * {
+ *     "tracks": ["country", "be"],
+ *     "vehicleSets": [["red", "police", "pickup", "roadster", "antonin", "santa"]],
+ *     "seeds": [1, 2, 3],
+ *     "gamePlays": [{}, {"maxSpeed": 300, "aiSpeedLimiter": 0.9}]
+ * }
+ * </pre>
+ *
+ * <p>One race is run for each combination of track, vehicle set, seed and GamePlay overrides. All
+ * keys are optional: tracks defaults to all tracks, vehicleSets to one set of vehicles picked from
+ * the seed, seeds to [0] and gamePlays to the default GamePlay values.
+ *
+ * <p>The seed also initializes the random generator of the race, so a given combination always
+ * produces the same results.
+ *
+ * <p>Must be run from the android/assets directory.
+ */
+public class RaceFarm {
+    private static final String DEFAULT_OUTPUT = "race-farm-results.csv";
+
+    /** Races which last longer than this, in simulated seconds, are stopped */
+    private static final float DEFAULT_MAX_TIME = 600;
+
+    private static class Matrix {
+        List<String> tracks;
+        List<List<String>> vehicleSets;
+        List<Long> seeds;
+        List<LinkedHashMap<String, Object>> gamePlays;
+    }
+
+    private final Assets mAssets = new Assets();
+
+    private int mThreadCount = Runtime.getRuntime().availableProcessors();
+    private float mMaxTime = DEFAULT_MAX_TIME;
+    private String mOutput = DEFAULT_OUTPUT;
+    private String mMatrixPath;
+
+    public static void main(String[] args) {
+        new HeadlessCommandLineApplication(args) {
+            @Override
+            int run(String[] arguments) {
+                RaceFarm farm = new RaceFarm();
+                if (!farm.parseArguments(arguments)) {
+                    return 1;
+                }
+                try {
+                    farm.run();
+                } catch (InterruptedException | ExecutionException e) {
+                    NLog.e("Race farm failed: %s", e);
+                    return 1;
+                }
+                return 0;
+            }
+        };
+    }
+
+    private boolean parseArguments(String[] arguments) {
+        for (int idx = 0; idx < arguments.length; ++idx) {
+            String argument = arguments[idx];
+            if (argument.startsWith("--") && idx == arguments.length - 1) {
+                NLog.e("Missing value for %s", argument);
+                return false;
+            }
+            switch (argument) {
+                case "--threads":
+                    mThreadCount = Integer.parseInt(arguments[++idx]);
+                    break;
+                case "--max-time":
+                    mMaxTime = Float.parseFloat(arguments[++idx]);
+                    break;
+                case "--output":
+                    mOutput = arguments[++idx];
+                    break;
+                default:
+                    mMatrixPath = argument;
+            }
+        }
+        if (mMatrixPath == null) {
+            NLog.e("No matrix file given");
+            return false;
+        }
+        return true;
+    }
+
+    private void run() throws InterruptedException, ExecutionException {
+        FileHandle matrixFile = Gdx.files.absolute(new File(mMatrixPath).getAbsolutePath());
+        Matrix matrix = new Gson().fromJson(matrixFile.readString("UTF-8"), Matrix.class);
+        Array<SimulatedRace> races = new Array<>();
+        Array<SimulatedRace.Result> templates = new Array<>();
+        createRaces(matrix, races, templates);
+        NLog.i("Running %d races on %d threads", races.size, mThreadCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(mThreadCount);
+        ArrayList<Future<SimulatedRace.Result>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+        ArrayList<SimulatedRace.Result> results = new ArrayList<>();
+        float simulatedTime = 0;
+        float raceWallTime = 0;
+        try {
+            for (SimulatedRace race : races) {
+                futures.add(executor.submit(() -> race.run(mMaxTime)));
+            }
+            for (int idx = 0; idx < futures.size(); ++idx) {
+                SimulatedRace.Result result = futures.get(idx).get();
+                SimulatedRace.Result template = templates.get(idx);
+                result.race = idx;
+                result.gamePlay = template.gamePlay;
+                results.add(result);
+                simulatedTime += result.simulatedTime;
+                raceWallTime += result.wallTime;
+            }
+        } finally {
+            // If a race failed, stop the others: the pool threads would otherwise keep the JVM
+            // alive
+            executor.shutdownNow();
+        }
+        float wallTime = (System.nanoTime() - startTime) / 1e9f;
+
+        NLog.i(
+                "%d races: %.1f simulated seconds in %.2f wall seconds (%.1f s/s, %.1f s/s per thread)",
+                results.size(),
+                simulatedTime,
+                wallTime,
+                simulatedTime / wallTime,
+                simulatedTime / raceWallTime);
+
+        FileHandle outputFile = Gdx.files.absolute(new File(mOutput).getAbsolutePath());
+        SimulatedRace.writeResults(outputFile, results);
+        NLog.i("Results written to %s", outputFile.path());
+    }
+
+    /**
+     * Fills races with one race per combination of the matrix. templates receives, for each race, a
+     * Result holding the matrix values which are not known to the race
+     */
+    private void createRaces(
+            Matrix matrix, Array<SimulatedRace> races, Array<SimulatedRace.Result> templates) {
+        List<String> trackIds = matrix.tracks;
+        if (trackIds == null) {
+            trackIds = new ArrayList<>();
+            for (Track track : mAssets.tracks) {
+                trackIds.add(track.getId());
+            }
+        }
+        List<List<String>> vehicleSets = matrix.vehicleSets;
+        if (vehicleSets == null) {
+            vehicleSets = new ArrayList<>();
+            vehicleSets.add(null);
+        }
+        List<Long> seeds = matrix.seeds;
+        if (seeds == null) {
+            seeds = new ArrayList<>();
+            seeds.add(0L);
+        }
+        List<LinkedHashMap<String, Object>> gamePlays = matrix.gamePlays;
+        if (gamePlays == null) {
+            gamePlays = new ArrayList<>();
+            gamePlays.add(new LinkedHashMap<>());
+        }
+
+        for (String trackId : trackIds) {
+            if (mAssets.findTrackById(trackId) == null) {
+                throw new RuntimeException("Unknown track '" + trackId + "'");
+            }
+            for (List<String> vehicleSet : vehicleSets) {
+                for (long seed : seeds) {
+                    for (Map<String, Object> overrides : gamePlays) {
+                        GamePlay gamePlay = createGamePlay(overrides);
+                        Array<String> vehicleIds;
+                        if (vehicleSet == null) {
+                            vehicleIds =
+                                    SimulatedRace.pickVehicleIds(
+                                            mAssets, gamePlay.racerCount, new Random(seed));
+                        } else {
+                            vehicleIds = new Array<>(vehicleSet.toArray(new String[0]));
+                        }
+                        races.add(new SimulatedRace(mAssets, trackId, vehicleIds, gamePlay, seed));
+
+                        SimulatedRace.Result template = new SimulatedRace.Result();
+                        template.gamePlay = describeOverrides(overrides);
+                        templates.add(template);
+                    }
+                }
+            }
+        }
+    }
+
+    private static GamePlay createGamePlay(Map<String, Object> overrides) {
+        GamePlay gamePlay = new GamePlay();
+        for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+            try {
+                Field field = GamePlay.class.getField(entry.getKey());
+                Object value = entry.getValue();
+                if (field.getType() == int.class) {
+                    field.setInt(gamePlay, ((Number) value).intValue());
+                } else if (field.getType() == float.class) {
+                    field.setFloat(gamePlay, ((Number) value).floatValue());
+                } else if (field.getType() == boolean.class) {
+                    field.setBoolean(gamePlay, (Boolean) value);
+                } else {
+                    throw new RuntimeException("Unsupported GamePlay field " + entry.getKey());
+                }
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new RuntimeException("Unknown GamePlay field " + entry.getKey(), e);
+            }
+        }
+        return gamePlay;
+    }
+
+    private static String describeOverrides(Map<String, Object> overrides) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+}
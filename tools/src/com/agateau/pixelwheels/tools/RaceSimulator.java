@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.replay.ReplayIO;
+import com.agateau.pixelwheels.utils.StringUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Runs AI-only races as fast as possible, without rendering anything nor playing any sound, and
+ * writes the results of each racer to a CSV or JSON file.
+ *
+ * <p>Usage: RaceSimulator [--races COUNT] [--max-time SECONDS] [--seed SEED] [--output FILE]
+ * [--record-dir DIR] [TRACK_ID...]
+ *
+ * <p>The output format is JSON if FILE ends with .json, CSV otherwise. Races are run on all tracks
+ * if no track is given.
+ *
+ * <p>Races are numbered from 0 and race N uses SEED + N as seed, so running the simulator again
+ * with the same arguments produces the same results. SEED is random if not set.
+ *
+ * <p>If DIR is set, a replay of each race is saved in it. Replays can be played back with
+ * ReplayPlayer.
+ *
+ * <p>Must be run from the android/assets directory.
+ */
+public class RaceSimulator {
+    private static final String DEFAULT_OUTPUT = "race-results.csv";
+
+    /** Races which last longer than this, in simulated seconds, are stopped */
+    private static final float DEFAULT_MAX_TIME = 600;
+
+    private final Assets mAssets = new Assets();
+
+    private int mRaceCount = 1;
+    private float mMaxTime = DEFAULT_MAX_TIME;
+    private long mSeed = new Random().nextLong();
+    private String mOutput = DEFAULT_OUTPUT;
+    private String mRecordDir = null;
+    private final Array<Track> mTracks = new Array<>();
+
+    public static void main(String[] args) {
+        new HeadlessCommandLineApplication(args) {
+            @Override
+            int run(String[] arguments) {
+                RaceSimulator simulator = new RaceSimulator();
+                if (!simulator.parseArguments(arguments)) {
+                    return 1;
+                }
+                simulator.run();
+                return 0;
+            }
+        };
+    }
+
+    private boolean parseArguments(String[] arguments) {
+        for (int idx = 0; idx < arguments.length; ++idx) {
+            String argument = arguments[idx];
+            if (argument.startsWith("--") && idx == arguments.length - 1) {
+                NLog.e("Missing value for %s", argument);
+                return false;
+            }
+            switch (argument) {
+                case "--races":
+                    mRaceCount = Integer.parseInt(arguments[++idx]);
+                    break;
+                case "--max-time":
+                    mMaxTime = Float.parseFloat(arguments[++idx]);
+                    break;
+                case "--seed":
+                    mSeed = Long.parseLong(arguments[++idx]);
+                    break;
+                case "--record-dir":
+                    mRecordDir = arguments[++idx];
+                    break;
+                case "--output":
+                    mOutput = arguments[++idx];
+                    break;
+                default:
+                    Track track = mAssets.findTrackById(argument);
+                    if (track == null) {
+                        NLog.e("Unknown track '%s'", argument);
+                        return false;
+                    }
+                    mTracks.add(track);
+            }
+        }
+        if (mTracks.isEmpty()) {
+            mTracks.addAll(mAssets.tracks);
+        }
+        return true;
+    }
+
+    private void run() {
+        ArrayList<SimulatedRace.Result> results = new ArrayList<>();
+        float simulatedTime = 0;
+        float wallTime = 0;
+        for (Track track : mTracks) {
+            for (int race = 0; race < mRaceCount; ++race) {
+                long seed = mSeed + results.size();
+                Array<String> vehicleIds =
+                        SimulatedRace.pickVehicleIds(
+                                mAssets, GamePlay.instance.racerCount, new Random(seed));
+                SimulatedRace simulatedRace =
+                        new SimulatedRace(
+                                mAssets, track.getId(), vehicleIds, GamePlay.instance, seed);
+                simulatedRace.setRecording(mRecordDir != null);
+                SimulatedRace.Result result = simulatedRace.run(mMaxTime);
+                result.race = results.size();
+                if (mRecordDir != null) {
+                    String name =
+                            StringUtils.format(
+                                    "race-%d-%s%s", result.race, track.getId(), ReplayIO.EXTENSION);
+                    FileHandle file =
+                            Gdx.files.absolute(new File(mRecordDir, name).getAbsolutePath());
+                    ReplayIO.write(simulatedRace.getRecordedReplay(), file);
+                }
+                results.add(result);
+                simulatedTime += result.simulatedTime;
+                wallTime += result.wallTime;
+                NLog.i(
+                        "%s #%d: %.1f simulated seconds in %.2f wall seconds (%.1f s/s)",
+                        track.getId(),
+                        race,
+                        result.simulatedTime,
+                        result.wallTime,
+                        result.simulatedTime / result.wallTime);
+            }
+        }
+        NLog.i(
+                "%d races: %.1f simulated seconds in %.2f wall seconds (%.1f s/s)",
+                results.size(), simulatedTime, wallTime, simulatedTime / wallTime);
+
+        FileHandle outputFile = Gdx.files.absolute(new File(mOutput).getAbsolutePath());
+        SimulatedRace.writeResults(outputFile, results);
+        NLog.i("Results written to %s", outputFile.path());
+    }
+}
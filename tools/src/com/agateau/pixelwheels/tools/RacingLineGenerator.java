@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.BodyIdentifier;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.map.RacingLine;
+import com.agateau.pixelwheels.map.RacingLineIO;
+import com.agateau.pixelwheels.map.RacingLineOptimizer;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.map.TrackBundleIO;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.MemoryGameStatsImplIO;
+import com.agateau.pixelwheels.utils.Box2DUtils;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Computes the racing line of tracks, and stores it next to their .tmx file.
+ *
+ * <p>The line must stay away from the borders and the obstacles of the track, so a world is created
+ * for each track to find them. Each cross-section of the track is checked at regular steps: the
+ * line is limited to the longest run of steps which are on the road and far enough from the walls.
+ */
+public class RacingLineGenerator {
+    private static final int CROSS_SECTION_STEPS = 64;
+    // Minimal distance between the line and the walls, in world units
+    private static final float WALL_MARGIN = 2.5f;
+    // Points around a step which must also be outside walls
+    private static final int MARGIN_POINT_COUNT = 8;
+
+    private final Assets mAssets = new Assets();
+    private final Array<Track> mTracks = new Array<>();
+    private float mLateralAcceleration = -1;
+    private float mBrakingDeceleration = -1;
+
+    private final Vector2 mStart = new Vector2();
+    private final Vector2 mEnd = new Vector2();
+    private final Vector2 mPoint = new Vector2();
+    private final boolean[] mFreeSteps = new boolean[CROSS_SECTION_STEPS + 1];
+    private float mPreviousMin;
+    private float mPreviousMax;
+
+    private static class WallFinder implements QueryCallback {
+        float x;
+        float y;
+        boolean found;
+
+        @Override
+        public boolean reportFixture(Fixture fixture) {
+            if (BodyIdentifier.isWall(fixture.getBody()) && fixture.testPoint(x, y)) {
+                found = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private final WallFinder mWallFinder = new WallFinder();
+
+    public static void main(String[] args) {
+        new HeadlessCommandLineApplication(args) {
+            @Override
+            int run(String[] arguments) {
+                RacingLineGenerator generator = new RacingLineGenerator();
+                if (!generator.parseArguments(arguments)) {
+                    return 1;
+                }
+                generator.run();
+                return 0;
+            }
+        };
+    }
+
+    private boolean parseArguments(String[] arguments) {
+        for (int idx = 0; idx < arguments.length; ++idx) {
+            String argument = arguments[idx];
+            if (argument.startsWith("--") && idx == arguments.length - 1) {
+                NLog.e("Missing value for %s", argument);
+                return false;
+            }
+            switch (argument) {
+                case "--lateral-acceleration":
+                    mLateralAcceleration = Float.parseFloat(arguments[++idx]);
+                    break;
+                case "--braking":
+                    mBrakingDeceleration = Float.parseFloat(arguments[++idx]);
+                    break;
+                default:
+                    Track track = mAssets.findTrackById(argument);
+                    if (track == null) {
+                        NLog.e("Unknown track '%s'", argument);
+                        return false;
+                    }
+                    mTracks.add(track);
+            }
+        }
+        if (mTracks.isEmpty()) {
+            mTracks.addAll(mAssets.tracks);
+        }
+        return true;
+    }
+
+    private void run() {
+        for (Track track : mTracks) {
+            processTrack(track);
+        }
+    }
+
+    private void processTrack(Track track) {
+        GameWorldImpl world = createWorld(new Track(track.getId(), track.getMapName()));
+        Track worldTrack = world.getTrack();
+        RacingLineOptimizer optimizer = new RacingLineOptimizer(worldTrack.getLapPositionTable());
+        optimizer.setMaxSpeed(GamePlay.instance.maxSpeed / Box2DUtils.MS_TO_KMH);
+        if (mLateralAcceleration > 0) {
+            optimizer.setLateralAcceleration(mLateralAcceleration);
+        }
+        if (mBrakingDeceleration > 0) {
+            optimizer.setBrakingDeceleration(mBrakingDeceleration);
+        }
+        mPreviousMin = 0;
+        mPreviousMax = 1;
+        for (int sample = 0; sample < optimizer.getSampleCount(); ++sample) {
+            optimizer.getCrossSection(sample, mStart, mEnd);
+            updateFreeSteps(world.getBox2DWorld(), worldTrack);
+            updateLimits();
+            optimizer.setLimits(sample, mPreviousMin, mPreviousMax);
+        }
+        RacingLine line = optimizer.run();
+        world.dispose();
+
+        FileHandle tmxFile = Gdx.files.local("maps/" + track.getId() + ".tmx");
+        FileHandle lineFile = RacingLineIO.getRacingLineFile(tmxFile);
+        try (OutputStream stream = lineFile.write(false /* append */)) {
+            RacingLineIO.write(line, TrackBundleIO.computeSourceStamp(tmxFile), stream);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write " + lineFile.path(), e);
+        }
+        NLog.i(
+                "%s: %d samples, lap length %.1f, written to %s",
+                track.getId(), line.getSampleCount(), line.getLength(), lineFile.path());
+    }
+
+    private GameWorldImpl createWorld(Track track) {
+        Array<String> vehicleIds = new Array<>();
+        vehicleIds.add(mAssets.vehicleDefs.first().id);
+        return new GameWorldImpl(
+                mAssets,
+                new SilentAudioManager(),
+                new GameStatsImpl(new MemoryGameStatsImplIO()),
+                null,
+                GamePlay.instance,
+                new SimulatedRace.SimulationGameInfo(track, vehicleIds),
+                new PerformanceCounters(),
+                0);
+    }
+
+    /** Checks which steps of the mStart-mEnd cross-section the line can go through */
+    private void updateFreeSteps(World world, Track track) {
+        boolean anyOnRoad = false;
+        for (int step = 0; step <= CROSS_SECTION_STEPS; ++step) {
+            mPoint.set(mStart).lerp(mEnd, (float) step / CROSS_SECTION_STEPS);
+            mFreeSteps[step] = isAwayFromWalls(world, mPoint);
+            anyOnRoad |= mFreeSteps[step] && track.getMaterialAt(mPoint).isRoad();
+        }
+        if (!anyOnRoad) {
+            // No road here, accept any step away from the walls
+            return;
+        }
+        for (int step = 0; step <= CROSS_SECTION_STEPS; ++step) {
+            mPoint.set(mStart).lerp(mEnd, (float) step / CROSS_SECTION_STEPS);
+            mFreeSteps[step] &= track.getMaterialAt(mPoint).isRoad();
+        }
+    }
+
+    /**
+     * Picks the run of free steps overlapping the most with the limits of the previous
+     * cross-section, so that the line does not jump from one side of an obstacle to the other
+     */
+    private void updateLimits() {
+        float bestMin = -1;
+        float bestMax = -1;
+        float bestScore = -Float.MAX_VALUE;
+        int runStart = -1;
+        for (int step = 0; step <= CROSS_SECTION_STEPS + 1; ++step) {
+            boolean free = step <= CROSS_SECTION_STEPS && mFreeSteps[step];
+            if (free && runStart < 0) {
+                runStart = step;
+            } else if (!free && runStart >= 0) {
+                float min = (float) runStart / CROSS_SECTION_STEPS;
+                float max = (float) (step - 1) / CROSS_SECTION_STEPS;
+                float overlap = Math.min(max, mPreviousMax) - Math.max(min, mPreviousMin);
+                // Prefer overlapping runs, then longer ones
+                float score = overlap + (max - min) / 2;
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMin = min;
+                    bestMax = max;
+                }
+                runStart = -1;
+            }
+        }
+        if (bestMin < 0) {
+            // Nothing is free, keep the line where it was
+            float middle = (mPreviousMin + mPreviousMax) / 2;
+            mPreviousMin = middle;
+            mPreviousMax = middle;
+            return;
+        }
+        mPreviousMin = bestMin;
+        mPreviousMax = bestMax;
+    }
+
+    private boolean isAwayFromWalls(World world, Vector2 point) {
+        if (isInWall(world, point.x, point.y)) {
+            return false;
+        }
+        for (int idx = 0; idx < MARGIN_POINT_COUNT; ++idx) {
+            float angle = MathUtils.PI2 * idx / MARGIN_POINT_COUNT;
+            float x = point.x + WALL_MARGIN * MathUtils.cos(angle);
+            float y = point.y + WALL_MARGIN * MathUtils.sin(angle);
+            if (isInWall(world, x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isInWall(World world, float x, float y) {
+        mWallFinder.x = x;
+        mWallFinder.y = y;
+        mWallFinder.found = false;
+        world.QueryAABB(mWallFinder, x, y, x, y);
+        return mWallFinder.found;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayIO;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Plays replays back as fast as possible, without rendering anything nor playing any sound, and
+ * checks that they still produce the race which has been recorded.
+ *
+ * <p>Usage: ReplayPlayer [--repeat COUNT] [--max-time SECONDS] [--output FILE] REPLAY_FILE...
+ *
+ * <p>Each replay is played COUNT times, which makes it possible to benchmark the game code on a
+ * fixed workload. If FILE is set, the results of the races are written to it, in the same format as
+ * RaceSimulator. Exits with an error if any replay diverged from the recorded race.
+ *
+ * <p>Must be run from the android/assets directory.
+ */
+public class ReplayPlayer {
+    /** Races which last longer than this, in simulated seconds, are stopped */
+    private static final float DEFAULT_MAX_TIME = 600;
+
+    private final Assets mAssets = new Assets();
+
+    private int mRepeatCount = 1;
+    private float mMaxTime = DEFAULT_MAX_TIME;
+    private String mOutput = null;
+    private final ArrayList<FileHandle> mReplayFiles = new ArrayList<>();
+
+    public static void main(String[] args) {
+        new HeadlessCommandLineApplication(args) {
+            @Override
+            int run(String[] arguments) {
+                ReplayPlayer player = new ReplayPlayer();
+                if (!player.parseArguments(arguments)) {
+                    return 1;
+                }
+                return player.run() ? 0 : 1;
+            }
+        };
+    }
+
+    private boolean parseArguments(String[] arguments) {
+        for (int idx = 0; idx < arguments.length; ++idx) {
+            String argument = arguments[idx];
+            if (argument.startsWith("--") && idx == arguments.length - 1) {
+                NLog.e("Missing value for %s", argument);
+                return false;
+            }
+            switch (argument) {
+                case "--repeat":
+                    mRepeatCount = Integer.parseInt(arguments[++idx]);
+                    break;
+                case "--max-time":
+                    mMaxTime = Float.parseFloat(arguments[++idx]);
+                    break;
+                case "--output":
+                    mOutput = arguments[++idx];
+                    break;
+                default:
+                    mReplayFiles.add(getAbsoluteFile(argument));
+            }
+        }
+        if (mReplayFiles.isEmpty()) {
+            NLog.e("No replay file given");
+            return false;
+        }
+        return true;
+    }
+
+    /** Returns false if a replay could not be played or diverged from the recorded race */
+    private boolean run() {
+        boolean ok = true;
+        ArrayList<SimulatedRace.Result> results = new ArrayList<>();
+        float simulatedTime = 0;
+        float wallTime = 0;
+        for (FileHandle file : mReplayFiles) {
+            Replay replay = ReplayIO.read(file);
+            if (replay == null) {
+                NLog.e("%s is not a valid replay", file.path());
+                ok = false;
+                continue;
+            }
+            if (mAssets.findTrackById(replay.getTrackId()) == null) {
+                NLog.e("%s: unknown track '%s'", file.path(), replay.getTrackId());
+                ok = false;
+                continue;
+            }
+            for (int idx = 0; idx < mRepeatCount; ++idx) {
+                SimulatedRace race = new SimulatedRace(mAssets, replay);
+                SimulatedRace.Result result = race.run(mMaxTime);
+                result.race = results.size();
+                results.add(result);
+                simulatedTime += result.simulatedTime;
+                wallTime += result.wallTime;
+                NLog.i(
+                        "%s: %.1f simulated seconds in %.2f wall seconds (%.1f s/s)",
+                        file.name(),
+                        result.simulatedTime,
+                        result.wallTime,
+                        result.simulatedTime / result.wallTime);
+                if (race.getDivergenceTick() >= 0) {
+                    NLog.e("%s: diverged at tick %d", file.name(), race.getDivergenceTick());
+                    ok = false;
+                    break;
+                }
+            }
+        }
+        if (results.isEmpty()) {
+            return false;
+        }
+        NLog.i(
+                "%d races: %.1f simulated seconds in %.2f wall seconds (%.1f s/s)",
+                results.size(), simulatedTime, wallTime, simulatedTime / wallTime);
+
+        if (mOutput != null) {
+            FileHandle outputFile = getAbsoluteFile(mOutput);
+            SimulatedRace.writeResults(outputFile, results);
+            NLog.i("Results written to %s", outputFile.path());
+        }
+        return ok;
+    }
+
+    private static FileHandle getAbsoluteFile(String path) {
+        return Gdx.files.absolute(new File(path).getAbsolutePath());
+    }
+}
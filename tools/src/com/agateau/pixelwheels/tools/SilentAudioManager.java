@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.sound.AudioManager;
+import com.agateau.pixelwheels.sound.SoundPlayer;
+import com.badlogic.gdx.audio.Sound;
+
+/** An AudioManager which never plays anything */
+public class SilentAudioManager implements AudioManager {
+    private static class SilentSoundPlayer implements SoundPlayer {
+        private float mVolume = 1;
+        private float mPitch = 1;
+        private boolean mLooping = false;
+
+        @Override
+        public void play() {
+            mLooping = false;
+        }
+
+        @Override
+        public void loop() {
+            mLooping = true;
+        }
+
+        @Override
+        public void stop() {
+            mLooping = false;
+        }
+
+        @Override
+        public float getVolume() {
+            return mVolume;
+        }
+
+        @Override
+        public void setVolume(float volume) {
+            mVolume = volume;
+        }
+
+        @Override
+        public float getPitch() {
+            return mPitch;
+        }
+
+        @Override
+        public void setPitch(float pitch) {
+            mPitch = pitch;
+        }
+
+        @Override
+        public boolean isLooping() {
+            return mLooping;
+        }
+    }
+
+    @Override
+    public boolean isMuted() {
+        return true;
+    }
+
+    @Override
+    public void setMuted(boolean muted) {}
+
+    @Override
+    public void play(Sound sound, float volume) {}
+
+    @Override
+    public SoundPlayer createSoundPlayer(Sound sound) {
+        return new SilentSoundPlayer();
+    }
+}
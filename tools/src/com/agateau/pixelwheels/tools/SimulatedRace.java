@@ -0,0 +1,294 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.Assets;
+import com.agateau.pixelwheels.GamePlay;
+import com.agateau.pixelwheels.GameWorld;
+import com.agateau.pixelwheels.gamesetup.GameInfo;
+import com.agateau.pixelwheels.map.Track;
+import com.agateau.pixelwheels.racer.LapPositionComponent;
+import com.agateau.pixelwheels.racer.Racer;
+import com.agateau.pixelwheels.racescreen.GameWorldImpl;
+import com.agateau.pixelwheels.replay.Replay;
+import com.agateau.pixelwheels.replay.ReplayChecker;
+import com.agateau.pixelwheels.replay.ReplayRecorder;
+import com.agateau.pixelwheels.stats.GameStatsImpl;
+import com.agateau.pixelwheels.stats.MemoryGameStatsImplIO;
+import com.agateau.pixelwheels.vehicledef.VehicleDef;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.PerformanceCounters;
+import com.google.gson.GsonBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * An AI-only race, run without rendering anything nor playing any sound.
+ *
+ * <p>Several races can run at the same time in different threads: each race uses its own Track and
+ * GameWorld. Only creating and disposing them is serialized, because loading a track registers
+ * textures in libgdx global structures.
+ */
+class SimulatedRace {
+    private static final Object sSetupLock = new Object();
+
+    static class RacerResult {
+        int rank;
+        String vehicleId;
+        /** false if the race was stopped before this racer crossed the finish line */
+        boolean finished;
+
+        float[] lapTimes;
+        float bestLapTime;
+        float totalTime;
+    }
+
+    static class Result {
+        int race;
+        String trackId;
+        long seed;
+        /** Description of the changes made to the default GamePlay values, if any */
+        String gamePlay = "";
+
+        float simulatedTime;
+        float wallTime;
+        final ArrayList<RacerResult> racers = new ArrayList<>();
+    }
+
+    static class SimulationGameInfo extends GameInfo {
+        private final Track mTrack;
+
+        SimulationGameInfo(Track track, Array<String> vehicleIds) {
+            super(GameType.QUICK_RACE);
+            mTrack = track;
+            for (String vehicleId : vehicleIds) {
+                getEntrants().add(new Entrant(vehicleId));
+            }
+        }
+
+        @Override
+        public Track getTrack() {
+            return mTrack;
+        }
+    }
+
+    private final Assets mAssets;
+    private final String mTrackId;
+    private final Array<String> mVehicleIds;
+    private final GamePlay mGamePlay;
+    private final long mSeed;
+    private final Replay mReplay;
+
+    private boolean mRecording = false;
+    private Replay mRecordedReplay;
+    private int mDivergenceTick = -1;
+
+    SimulatedRace(
+            Assets assets, String trackId, Array<String> vehicleIds, GamePlay gamePlay, long seed) {
+        mAssets = assets;
+        mTrackId = trackId;
+        mVehicleIds = vehicleIds;
+        mGamePlay = gamePlay;
+        mSeed = seed;
+        mReplay = null;
+    }
+
+    /** Creates a race which plays replay back */
+    SimulatedRace(Assets assets, Replay replay) {
+        mAssets = assets;
+        mTrackId = replay.getTrackId();
+        mVehicleIds = null;
+        mGamePlay = replay.getGamePlay();
+        mSeed = replay.getSeed();
+        mReplay = replay;
+    }
+
+    /** If recording is true, run() records the race, it can then be retrieved with getReplay() */
+    void setRecording(boolean recording) {
+        mRecording = recording;
+    }
+
+    Replay getRecordedReplay() {
+        return mRecordedReplay;
+    }
+
+    /**
+     * When playing a replay back, returns the tick at which the race diverged from the replay, or
+     * -1 if it did not
+     */
+    int getDivergenceTick() {
+        return mDivergenceTick;
+    }
+
+    /**
+     * Runs the race until all racers have finished, or until maxTime simulated seconds.
+     *
+     * <p>The world runs in deterministic mode, so running the same race twice gives the same
+     * result.
+     */
+    Result run(float maxTime) {
+        Track def = mAssets.findTrackById(mTrackId);
+        Track track = new Track(mTrackId, def.getMapName(), def.isRacingLineEnabled());
+        GameWorldImpl world;
+        synchronized (sSetupLock) {
+            world = createWorld(track);
+        }
+        ReplayRecorder recorder = null;
+        ReplayChecker checker = null;
+        if (mReplay != null) {
+            checker = new ReplayChecker(world, mReplay);
+            world.addGameObject(checker);
+        } else if (mRecording) {
+            recorder = new ReplayRecorder(world, mSeed);
+            world.addGameObject(recorder);
+        }
+
+        Result result = new Result();
+        result.trackId = mTrackId;
+        result.seed = mSeed;
+
+        long startTime = System.nanoTime();
+        float time = 0;
+        while (world.getState() != GameWorld.State.FINISHED && time < maxTime) {
+            world.act(GameWorld.BOX2D_TIME_STEP);
+            time += GameWorld.BOX2D_TIME_STEP;
+        }
+        result.wallTime = (System.nanoTime() - startTime) / 1e9f;
+        result.simulatedTime = time;
+
+        // Racers are sorted by rank. Store which ones really finished, because setState() marks
+        // them all as finished
+        Array<Racer> racers = world.getRacers();
+        boolean[] finished = new boolean[racers.size];
+        for (int idx = 0; idx < racers.size; ++idx) {
+            finished[idx] = racers.get(idx).getLapPositionComponent().hasFinishedRace();
+        }
+        if (recorder != null) {
+            mRecordedReplay = recorder.finish();
+        }
+        if (checker != null) {
+            mDivergenceTick = checker.getDivergenceTick();
+        }
+        world.setState(GameWorld.State.FINISHED);
+
+        for (int idx = 0; idx < racers.size; ++idx) {
+            Racer racer = racers.get(idx);
+            LapPositionComponent component = racer.getLapPositionComponent();
+            RacerResult racerResult = new RacerResult();
+            racerResult.rank = idx + 1;
+            racerResult.vehicleId = racer.getEntrant().getVehicleId();
+            racerResult.finished = finished[idx];
+            racerResult.lapTimes = component.getLapTimes().toArray();
+            racerResult.bestLapTime = component.getBestLapTime();
+            racerResult.totalTime = component.getTotalTime();
+            result.racers.add(racerResult);
+        }
+        synchronized (sSetupLock) {
+            world.dispose();
+        }
+        return result;
+    }
+
+    private GameWorldImpl createWorld(Track track) {
+        GameStatsImpl gameStats = new GameStatsImpl(new MemoryGameStatsImplIO());
+        if (mReplay != null) {
+            return new GameWorldImpl(
+                    mAssets,
+                    new SilentAudioManager(),
+                    gameStats,
+                    mReplay.createGameInfo(track),
+                    new PerformanceCounters(),
+                    mReplay);
+        }
+        return new GameWorldImpl(
+                mAssets,
+                new SilentAudioManager(),
+                gameStats,
+                null,
+                mGamePlay,
+                new SimulationGameInfo(track, mVehicleIds),
+                new PerformanceCounters(),
+                mSeed);
+    }
+
+    /** Picks count random vehicles, all different if there are enough vehicles */
+    static Array<String> pickVehicleIds(Assets assets, int count, Random random) {
+        Array<String> vehicleIds = new Array<>();
+        for (VehicleDef vehicleDef : assets.vehicleDefs) {
+            vehicleIds.add(vehicleDef.id);
+        }
+        // Array.shuffle() uses MathUtils.random, which cannot be seeded per race
+        for (int idx = vehicleIds.size - 1; idx > 0; --idx) {
+            vehicleIds.swap(idx, random.nextInt(idx + 1));
+        }
+        Array<String> picked = new Array<>();
+        for (int idx = 0; idx < count; ++idx) {
+            picked.add(vehicleIds.get(idx % vehicleIds.size));
+        }
+        return picked;
+    }
+
+    /** Writes results as JSON if file ends with .json, as CSV otherwise */
+    static void writeResults(FileHandle file, List<Result> results) {
+        if (file.extension().equals("json")) {
+            writeJson(file, results);
+        } else {
+            writeCsv(file, results);
+        }
+    }
+
+    private static void writeJson(FileHandle file, List<Result> results) {
+        file.writeString(new GsonBuilder().setPrettyPrinting().create().toJson(results), false);
+    }
+
+    private static void writeCsv(FileHandle file, List<Result> results) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("race,track,seed,gameplay,rank,vehicle,finished,lap_count");
+        builder.append(",best_lap_time,total_time,lap_times\n");
+        for (Result result : results) {
+            for (RacerResult racer : result.racers) {
+                builder.append(
+                        String.format(
+                                Locale.US,
+                                "%d,%s,%d,%s,%d,%s,%b,%d,%.3f,%.3f,",
+                                result.race,
+                                result.trackId,
+                                result.seed,
+                                result.gamePlay,
+                                racer.rank,
+                                racer.vehicleId,
+                                racer.finished,
+                                racer.lapTimes.length,
+                                racer.bestLapTime,
+                                racer.totalTime));
+                for (int idx = 0; idx < racer.lapTimes.length; ++idx) {
+                    if (idx > 0) {
+                        builder.append(' ');
+                    }
+                    builder.append(String.format(Locale.US, "%.3f", racer.lapTimes[idx]));
+                }
+                builder.append('\n');
+            }
+        }
+        file.writeString(builder.toString(), false);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.
+ *
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.utils.log.NLog;
+import com.agateau.utils.telemetry.ColumnType;
+import com.agateau.utils.telemetry.TelemetryReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+
+/**
+ * Converts a telemetry file created by TelemetryWriter into CSV files, one per channel, for
+ * plotting.
+ *
+ * <p>Usage: TelemetryConverter TELEMETRY_FILE [OUTPUT_DIR]
+ *
+ * <p>The CSV file of channel CHANNEL is called NAME-CHANNEL.csv, where NAME is the name of the
+ * telemetry file without its extension. OUTPUT_DIR defaults to the directory of the telemetry file.
+ */
+public class TelemetryConverter {
+    private static class CsvChannel {
+        final PrintWriter writer;
+        final ColumnType[] columnTypes;
+
+        CsvChannel(PrintWriter writer, ColumnType[] columnTypes) {
+            this.writer = writer;
+            this.columnTypes = columnTypes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            NLog.e("Usage: TelemetryConverter TELEMETRY_FILE [OUTPUT_DIR]");
+            System.exit(1);
+        }
+        File inputFile = new File(args[0]);
+        File outputDir = args.length == 2 ? new File(args[1]) : inputFile.getParentFile();
+        String baseName = inputFile.getName().replaceFirst("\\.[^.]*$", "");
+        try {
+            convert(inputFile, outputDir, baseName);
+        } catch (IOException e) {
+            NLog.e("Failed to convert %s: %s", inputFile, e);
+            System.exit(1);
+        }
+    }
+
+    private static void convert(File inputFile, File outputDir, String baseName)
+            throws IOException {
+        HashMap<Integer, CsvChannel> channels = new HashMap<>();
+        try (InputStream stream = new FileInputStream(inputFile)) {
+            TelemetryReader.read(
+                    stream,
+                    new TelemetryReader.Handler() {
+                        @Override
+                        public void onChannel(
+                                int channelId,
+                                String name,
+                                String[] columnNames,
+                                ColumnType[] columnTypes) {
+                            File file = new File(outputDir, baseName + "-" + name + ".csv");
+                            PrintWriter writer;
+                            try {
+                                writer = new PrintWriter(file, "UTF-8");
+                            } catch (FileNotFoundException | UnsupportedEncodingException e) {
+                                throw new RuntimeException(e);
+                            }
+                            writer.println(String.join(",", columnNames));
+                            channels.put(channelId, new CsvChannel(writer, columnTypes));
+                            NLog.i("Writing channel '%s' to %s", name, file);
+                        }
+
+                        @Override
+                        public void onRow(int channelId, int[] values) {
+                            CsvChannel channel = channels.get(channelId);
+                            StringBuilder builder = new StringBuilder();
+                            for (int idx = 0; idx < values.length; ++idx) {
+                                if (idx > 0) {
+                                    builder.append(',');
+                                }
+                                builder.append(channel.columnTypes[idx].format(values[idx]));
+                            }
+                            channel.writer.println(builder);
+                        }
+                    });
+        } finally {
+            for (CsvChannel channel : channels.values()) {
+                channel.writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Aurélien Gâteau <mail@agateau.com>
+ *
+ * This file is part of Pixel Wheels.
+ *
+ * Pixel Wheels is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.agateau.pixelwheels.tools;
+
+import com.agateau.pixelwheels.map.TrackBundle;
+import com.agateau.pixelwheels.map.TrackBundleIO;
+import com.agateau.utils.log.NLog;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Compiles .tmx files into .bundle files, so that the game does not have to analyze them */
+public class TrackBundleGenerator {
+    public static void main(String[] args) {
+        new HeadlessCommandLineApplication(args) {
+            @Override
+            int run(String[] arguments) {
+                if (arguments.length == 1) {
+                    processFile(Gdx.files.absolute(arguments[0]));
+                } else {
+                    FileHandle tmxDir = Gdx.files.absolute("android/assets/maps");
+                    for (FileHandle tmxFile : tmxDir.list(".tmx")) {
+                        processFile(tmxFile);
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    private static void processFile(FileHandle tmxFile) {
+        FileHandle bundleFile = TrackBundleIO.getBundleFile(tmxFile);
+        NLog.i("%s: updating", bundleFile.path());
+        TiledMap map = new TmxMapLoader().load(tmxFile.path());
+        TrackBundle bundle = TrackBundle.create(map, TrackBundleIO.computeSourceStamp(tmxFile));
+        map.dispose();
+
+        try (OutputStream stream = bundleFile.write(false /* append */)) {
+            TrackBundleIO.write(bundle, stream);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write " + bundleFile.path(), e);
+        }
+    }
+}